@@ -0,0 +1,79 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checking whether a lugol's iodine effect protects in the given radiation.
+ * An ID count of -1 stands for effects working in all radiations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CanEnterBenchmark {
+    @Param({ "-1", "1", "5", "20" })
+    int idCount;
+
+    private LugolsIodineEffect.Effect effect;
+    private Radiation matching;
+    private Radiation notMatching;
+
+    @Setup
+    public void setup() {
+        List<String> radiationIds = null;
+        if (this.idCount >= 0) {
+            radiationIds = new ArrayList<>(this.idCount);
+            for (int i = 0; i < this.idCount; i++) {
+                radiationIds.add("radiation_" + i);
+            }
+        }
+
+        this.effect = new LugolsIodineEffect.Effect("default", Duration.ofMinutes(10), radiationIds);
+        // the last ID is the worst case for a list lookup
+        this.matching = Stubs.radiation("radiation_" + Math.max(0, this.idCount - 1));
+        this.notMatching = Stubs.radiation("unknown");
+    }
+
+    @Benchmark
+    public boolean matching() {
+        return this.effect.canEnter(this.matching);
+    }
+
+    @Benchmark
+    public boolean notMatching() {
+        return this.effect.canEnter(this.notMatching);
+    }
+}
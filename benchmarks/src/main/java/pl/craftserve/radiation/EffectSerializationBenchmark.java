@@ -0,0 +1,82 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.bukkit.persistence.PersistentDataContainer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and writing lugol's iodine effects from the entity data container.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EffectSerializationBenchmark {
+    @Param({ "0", "1", "3", "10" })
+    int effectCount;
+
+    private LugolsIodineEffect effectHandler;
+    private List<LugolsIodineEffect.Effect> effects;
+    private PersistentDataContainer filled;
+    private PersistentDataContainer scratch;
+
+    @Setup
+    public void setup() throws IOException {
+        this.effectHandler = new LugolsIodineEffect(Stubs.plugin());
+
+        this.effects = new ArrayList<>(this.effectCount);
+        for (int i = 0; i < this.effectCount; i++) {
+            List<String> radiationIds = i % 2 == 0 ? null : Arrays.asList("default", "radiation_" + i);
+            this.effects.add(new LugolsIodineEffect.Effect("potion_" + i, Duration.ofMinutes(10), Duration.ofSeconds(i), radiationIds));
+        }
+
+        this.filled = new MemoryDataContainer();
+        this.effectHandler.writeEffects(this.filled, this.effects);
+        this.scratch = new MemoryDataContainer();
+    }
+
+    @Benchmark
+    public List<LugolsIodineEffect.Effect> readEffects() throws IOException {
+        return this.effectHandler.readEffects(this.filled);
+    }
+
+    @Benchmark
+    public PersistentDataContainer writeEffects() throws IOException {
+        this.effectHandler.writeEffects(this.scratch, this.effects);
+        return this.scratch;
+    }
+}
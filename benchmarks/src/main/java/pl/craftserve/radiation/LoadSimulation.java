@@ -0,0 +1,251 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldguard.protection.managers.RegionManager;
+import org.bukkit.Location;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarFlag;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.potion.PotionEffectType;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the radiation, lugol's iodine effect and display pipelines against a
+ * {@link VirtualServer} with simulated players walking in and out of safe
+ * zones, drinking potions, joining and quitting. Region lookups go through
+ * an in-memory WorldGuard {@link RegionManager}.
+ *
+ * The plugin itself is not enabled, only a subset of its components is
+ * constructed here: the player index, the effect handler, the display and
+ * a single radiation of the default ID. The radiation matcher is a plain
+ * region lookup standing in for the WorldGuard, region index and zone
+ * matchers. Potions, doses, zone tracking, the region index and everything
+ * built on it (raster, distance field, geiger counter, entity radiation,
+ * radiation sources) are not simulated.
+ *
+ * Usage: {@code LoadSimulation [players] [ticks] [max p99 tick ms]}. When
+ * the last argument is given the process exits with status 1 if the p99
+ * tick time exceeds it, so it can be used as a regression gate.
+ */
+public final class LoadSimulation {
+    private static final int DEFAULT_PLAYERS = 1000;
+    private static final int DEFAULT_TICKS = 20 * 60 * 2;
+    private static final int WARMUP_TICKS = 20 * 30;
+    private static final int REGION_COUNT = 200;
+    private static final long SEED = 0x5AFEL;
+
+    /** Sprinting speed, in blocks per tick. */
+    private static final double SPEED = 0.28D;
+    /** Average session length, in ticks. */
+    private static final double SESSION_TICKS = 20 * 60 * 5;
+    private static final double DRINK_CHANCE = 1D / (20 * 60 * 2);
+    private static final int MIN_OFFLINE_TICKS = 20;
+    private static final int MAX_OFFLINE_TICKS = 20 * 10;
+
+    private LoadSimulation() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int playerCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PLAYERS;
+        int tickCount = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_TICKS;
+        double maxP99Millis = args.length > 2 ? Double.parseDouble(args[2]) : Double.NaN;
+
+        // the plugin logs every zone entry
+        Logger.getLogger(Radiation.class.getName()).setLevel(Level.WARNING);
+
+        Random random = new Random(SEED);
+        VirtualServer server = new VirtualServer();
+        SyntheticRegions regions = SyntheticRegions.generate(REGION_COUNT, SEED);
+        BlockVector3[] waypoints = regions.clusteredPositions(1024, SEED);
+
+        // simulated subset of the plugin components, see the class doc
+        Profiler profiler = new Profiler();
+        PlayerIndex playerIndex = new PlayerIndex(server.plugin());
+        LugolsIodineEffect effectHandler = new LugolsIodineEffect(server.plugin(), playerIndex, profiler);
+        Map<String, BarConfig> bars = Collections.singletonMap("default", new BarConfig("Lugol's Iodine Effect", BarColor.GREEN, BarStyle.SEGMENTED_20, new BarFlag[0]));
+        LugolsIodineDisplay display = new LugolsIodineDisplay(server.plugin(), playerIndex, effectHandler, bars, profiler);
+
+        Radiation.Config radiationConfig = new Radiation.Config(Radiation.Config.DEFAULT_ID,
+                new BarConfig("Radiation Zone", BarColor.RED, BarStyle.SOLID, new BarFlag[] { BarFlag.DARKEN_SKY }),
+                Arrays.asList(new PotionEffect(PotionEffectType.WITHER, 100, 4), new PotionEffect(PotionEffectType.HUNGER, 100, 0)),
+                "{0} has entered radiation zone.");
+        Radiation.Matcher matcher = regions.matcher(Radiation.Config.DEFAULT_ID);
+        Radiation radiation = new Radiation(server.plugin(), playerIndex, matcher, RadiationProfile.compile(radiationConfig), new AtomicInteger(), profiler);
+
+        playerIndex.enable();
+        effectHandler.enable();
+        display.enable();
+        radiation.enable();
+
+        // players
+        List<Simulated> simulated = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            BlockVector3 start = waypoints[random.nextInt(waypoints.length)];
+            Location location = new Location(server.world(), start.getX(), SyntheticRegions.PLAYER_Y, start.getZ());
+            Simulated player = new Simulated(server.createPlayer("player" + i, location));
+            player.target = waypoints[random.nextInt(waypoints.length)];
+            server.join(player.player);
+            simulated.add(player);
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocations = threads instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) threads : null;
+        long threadId = Thread.currentThread().getId();
+
+        long[] tickNanos = new long[Math.max(0, tickCount - WARMUP_TICKS)];
+        long allocatedBytes = 0L;
+        Map<String, Long> countersAtWarmup = new HashMap<>();
+
+        for (int tick = 0; tick < tickCount; tick++) {
+            // scripted behaviour, not measured
+            for (Simulated player : simulated) {
+                player.simulate(server, random, waypoints, effectHandler, radiation, display, playerIndex);
+            }
+
+            if (tick == WARMUP_TICKS) {
+                countersAtWarmup.put("bossBars", server.bossBarUpdates);
+                countersAtWarmup.put("potionEffects", server.potionEffects);
+                countersAtWarmup.put("chatMessages", server.chatMessages);
+                countersAtWarmup.put("events", server.eventsCalled);
+            }
+
+            long allocatedBefore = allocations != null ? allocations.getThreadAllocatedBytes(threadId) : 0L;
+            long start = System.nanoTime();
+            server.tick();
+            long took = System.nanoTime() - start;
+            long allocated = allocations != null ? allocations.getThreadAllocatedBytes(threadId) - allocatedBefore : 0L;
+
+            if (tick >= WARMUP_TICKS) {
+                tickNanos[tick - WARMUP_TICKS] = took;
+                allocatedBytes += allocated;
+            }
+        }
+
+        radiation.disable();
+        display.disable();
+        effectHandler.disable();
+
+        // report
+        long[] sorted = tickNanos.clone();
+        Arrays.sort(sorted);
+        long total = Arrays.stream(sorted).sum();
+        double seconds = sorted.length / 20D;
+
+        System.out.println("Simulated " + playerCount + " players over " + sorted.length + " measured ticks (" + WARMUP_TICKS + " warmup ticks).");
+        System.out.println(String.format(Locale.ROOT, "Plugin tick time: mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms",
+                millis(sorted.length == 0 ? 0L : total / sorted.length), millis(percentile(sorted, 0.5D)), millis(percentile(sorted, 0.99D)), millis(percentile(sorted, 1D))));
+        if (allocations != null) {
+            System.out.println(String.format(Locale.ROOT, "Allocation rate: %.2f MB/s", allocatedBytes / seconds / (1024D * 1024D)));
+        }
+        System.out.println(String.format(Locale.ROOT, "Boss bar packets: %.1f/s", (server.bossBarUpdates - countersAtWarmup.getOrDefault("bossBars", 0L)) / seconds));
+        System.out.println(String.format(Locale.ROOT, "Potion effect packets: %.1f/s", (server.potionEffects - countersAtWarmup.getOrDefault("potionEffects", 0L)) / seconds));
+        System.out.println(String.format(Locale.ROOT, "Chat messages: %.1f/s", (server.chatMessages - countersAtWarmup.getOrDefault("chatMessages", 0L)) / seconds));
+        System.out.println(String.format(Locale.ROOT, "Events called: %.1f/s", (server.eventsCalled - countersAtWarmup.getOrDefault("events", 0L)) / seconds));
+        for (Profiler.Timer timer : Profiler.Timer.values()) {
+            Profiler.Summary summary = profiler.histogram(timer).total();
+            System.out.println("  " + timer.key() + ": p50=" + Profiler.formatNanos(summary.percentile(0.5D)) +
+                    " p99=" + Profiler.formatNanos(summary.percentile(0.99D)) + " n=" + summary.count());
+        }
+
+        if (!Double.isNaN(maxP99Millis) && millis(percentile(sorted, 0.99D)) > maxP99Millis) {
+            System.out.println("FAILED: p99 tick time exceeds " + maxP99Millis + "ms");
+            System.exit(1);
+        }
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0L;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000D;
+    }
+
+    private static final class Simulated {
+        final VirtualServer.VirtualPlayer player;
+        BlockVector3 target;
+        boolean online = true;
+        long rejoinTick;
+
+        Simulated(VirtualServer.VirtualPlayer player) {
+            this.player = player;
+        }
+
+        void simulate(VirtualServer server, Random random, BlockVector3[] waypoints,
+                      LugolsIodineEffect effectHandler, Radiation radiation, LugolsIodineDisplay display, PlayerIndex playerIndex) throws IOException {
+            if (!this.online) {
+                if (server.currentTick() >= this.rejoinTick) {
+                    this.online = true;
+                    server.join(this.player);
+                }
+                return;
+            }
+
+            if (random.nextDouble() < 1D / SESSION_TICKS) {
+                this.online = false;
+                this.rejoinTick = server.currentTick() + MIN_OFFLINE_TICKS + random.nextInt(MAX_OFFLINE_TICKS - MIN_OFFLINE_TICKS);
+                server.quit(this.player);
+
+                PlayerQuitEvent event = new PlayerQuitEvent(this.player.bukkit, "");
+                radiation.onPlayerQuit(event);
+                effectHandler.onPlayerQuit(event);
+                display.onPlayerQuit(event);
+                playerIndex.onPlayerQuit(event);
+                return;
+            }
+
+            if (random.nextDouble() < DRINK_CHANCE) {
+                effectHandler.appendEffect(this.player.bukkit, new LugolsIodineEffect.Effect(LugolsIodinePotion.Config.DEFAULT_ID, Duration.ofMinutes(10), null));
+            }
+
+            // walk towards the waypoint, pick another one when reached
+            Location location = this.player.location;
+            double dx = this.target.getX() - location.getX();
+            double dz = this.target.getZ() - location.getZ();
+            double distance = Math.sqrt(dx * dx + dz * dz);
+            if (distance < SPEED) {
+                this.target = waypoints[random.nextInt(waypoints.length)];
+                return;
+            }
+
+            location.add(dx / distance * SPEED, 0D, dz / distance * SPEED);
+        }
+    }
+}
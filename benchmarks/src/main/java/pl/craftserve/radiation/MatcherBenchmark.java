@@ -0,0 +1,119 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldguard.domains.Association;
+import com.sk89q.worldguard.protection.ApplicableRegionSet;
+import com.sk89q.worldguard.protection.association.RegionAssociable;
+import com.sk89q.worldguard.protection.managers.RegionManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Radiation lookups on synthetic region sets, without a running server or
+ * WorldGuard platform. Measures how the matcher cost grows with the number
+ * of regions in the world. The native resolver looks up the same shapes as
+ * {@link ZoneEngine} zones; they are radioactive instead of safe, so only
+ * the cost is comparable, not the results.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MatcherBenchmark {
+    private static final int POSITION_COUNT = 4096;
+    private static final long SEED = 0x5AFEL;
+    private static final String WORLD = "world";
+    /** Players are not members of any synthetic region. */
+    private static final RegionAssociable NON_MEMBER = regions -> Association.NON_MEMBER;
+
+    @Param({ "10", "1000", "50000" })
+    int regionCount;
+
+    @Param({ "random", "clustered" })
+    String positions;
+
+    @Param({ "worldguard", "native" })
+    String resolver;
+
+    private ZoneResolver zoneResolver;
+    private BlockVector3[] positionArray;
+    private int next;
+
+    @Setup
+    public void setup() {
+        SyntheticRegions world = SyntheticRegions.generate(this.regionCount, SEED);
+
+        switch (this.resolver) {
+            case "worldguard":
+                RegionManager regionManager = world.regionManager();
+                this.zoneResolver = position -> {
+                    ApplicableRegionSet regions = regionManager.getApplicableRegions(position);
+                    return Radiation.FlagMatcher.resolveRadiationId(regions, NON_MEMBER,
+                            SyntheticRegions.RADIATION_FLAG, SyntheticRegions.RADIATION_TYPE_FLAG);
+                };
+                break;
+            case "native":
+                ZoneEngine engine = new ZoneEngine();
+                engine.load(world.zones(WORLD));
+                this.zoneResolver = position -> engine.contains(WORLD, position.getX(), position.getY(), position.getZ(), Radiation.Config.DEFAULT_ID)
+                        ? Radiation.Config.DEFAULT_ID : null;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown resolver: " + this.resolver);
+        }
+
+        switch (this.positions) {
+            case "random":
+                this.positionArray = world.randomPositions(POSITION_COUNT, SEED);
+                break;
+            case "clustered":
+                this.positionArray = world.clusteredPositions(POSITION_COUNT, SEED);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown positions: " + this.positions);
+        }
+    }
+
+    @Benchmark
+    public String lookup() {
+        BlockVector3 position = this.positionArray[this.next];
+        this.next = (this.next + 1) & (POSITION_COUNT - 1);
+        return this.zoneResolver.resolve(position);
+    }
+
+    /**
+     * Resolves the radiation ID at the position, {@code null} if it is safe.
+     */
+    interface ZoneResolver {
+        String resolve(BlockVector3 position);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.persistence.PersistentDataAdapterContext;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * In-memory {@link PersistentDataContainer}. Byte arrays are copied on the
+ * way in and out, the same as the server copies them into NBT tags.
+ */
+final class MemoryDataContainer implements PersistentDataContainer, PersistentDataAdapterContext {
+    private final Map<NamespacedKey, Object> values = new HashMap<>();
+
+    @Override
+    public <T, Z> void set(NamespacedKey key, PersistentDataType<T, Z> type, Z value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(value, "value");
+
+        this.values.put(key, copy(type.toPrimitive(value, this)));
+    }
+
+    @Override
+    public <T, Z> boolean has(NamespacedKey key, PersistentDataType<T, Z> type) {
+        Object value = this.values.get(key);
+        return value != null && type.getPrimitiveType().isInstance(value);
+    }
+
+    @Override
+    public <T, Z> Z get(NamespacedKey key, PersistentDataType<T, Z> type) {
+        Object value = this.values.get(key);
+        if (value == null || !type.getPrimitiveType().isInstance(value)) {
+            return null;
+        }
+
+        return type.fromPrimitive(type.getPrimitiveType().cast(copy(value)), this);
+    }
+
+    @Override
+    public <T, Z> Z getOrDefault(NamespacedKey key, PersistentDataType<T, Z> type, Z defaultValue) {
+        Z value = this.get(key, type);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public void remove(NamespacedKey key) {
+        this.values.remove(key);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.values.isEmpty();
+    }
+
+    @Override
+    public PersistentDataAdapterContext getAdapterContext() {
+        return this;
+    }
+
+    @Override
+    public PersistentDataContainer newPersistentDataContainer() {
+        return new MemoryDataContainer();
+    }
+
+    private static Object copy(Object value) {
+        return value instanceof byte[] ? ((byte[]) value).clone() : value;
+    }
+}
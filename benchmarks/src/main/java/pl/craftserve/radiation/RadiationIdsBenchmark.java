@@ -0,0 +1,71 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of radiation IDs stored in lugol's iodine potion items.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RadiationIdsBenchmark {
+    @Param({ "0", "1", "3", "10" })
+    int idCount;
+
+    private List<String> radiationIds;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() throws IOException {
+        this.radiationIds = new ArrayList<>(this.idCount);
+        for (int i = 0; i < this.idCount; i++) {
+            this.radiationIds.add("radiation_" + i);
+        }
+
+        this.bytes = LugolsIodinePotion.writeRadiationIds(this.radiationIds);
+    }
+
+    @Benchmark
+    public List<String> readRadiationIds() throws IOException {
+        return LugolsIodinePotion.readRadiationIds(this.bytes);
+    }
+
+    @Benchmark
+    public byte[] writeRadiationIds() throws IOException {
+        return LugolsIodinePotion.writeRadiationIds(this.radiationIds);
+    }
+}
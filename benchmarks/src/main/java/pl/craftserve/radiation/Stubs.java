@@ -0,0 +1,61 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarFlag;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+
+/**
+ * Offline stand-ins for the server objects needed by the benchmarks.
+ */
+final class Stubs {
+    static final String PLUGIN_NAME = "CraftserveRadiation";
+
+    private Stubs() {
+    }
+
+    /**
+     * Plugin which only knows its name, enough to create namespaced keys.
+     */
+    static Plugin plugin() {
+        return (Plugin) Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class<?>[] { Plugin.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getName":
+                    return PLUGIN_NAME;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return PLUGIN_NAME;
+                default:
+                    throw new UnsupportedOperationException(method.getName() + " is not stubbed");
+            }
+        });
+    }
+
+    static Radiation radiation(String id) {
+        BarConfig bar = new BarConfig(id, BarColor.RED, BarStyle.SOLID, new BarFlag[0]);
+        Radiation.Config config = new Radiation.Config(id, bar, Collections.emptyList(), null);
+        return new Radiation(plugin(), player -> false, config);
+    }
+}
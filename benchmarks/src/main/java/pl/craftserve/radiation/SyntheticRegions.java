@@ -0,0 +1,217 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldguard.domains.Association;
+import com.sk89q.worldguard.protection.association.RegionAssociable;
+import com.sk89q.worldguard.protection.flags.BooleanFlag;
+import com.sk89q.worldguard.protection.flags.Flag;
+import com.sk89q.worldguard.protection.flags.RegionGroup;
+import com.sk89q.worldguard.protection.flags.StringFlag;
+import com.sk89q.worldguard.protection.flags.registry.SimpleFlagRegistry;
+import com.sk89q.worldguard.protection.managers.RegionManager;
+import com.sk89q.worldguard.protection.managers.index.PriorityRTreeIndex;
+import com.sk89q.worldguard.protection.managers.storage.MemoryRegionDatabase;
+import com.sk89q.worldguard.protection.regions.GlobalProtectedRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedCuboidRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedPolygonalRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+import org.bukkit.Location;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemoryConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates in-memory region managers resembling real radiation worlds: a
+ * radioactive {@code __global__} region with overlapping safe cuboids and
+ * polygons, some of them being other radiation types, with mixed priorities.
+ */
+final class SyntheticRegions {
+    static final Flag<Boolean> RADIATION_FLAG = new BooleanFlag("radiation", RegionGroup.NON_MEMBERS);
+    static final Flag<String> RADIATION_TYPE_FLAG = new StringFlag("radiation-type");
+
+    static final int MIN_Y = 0;
+    static final int MAX_Y = 255;
+    static final int PLAYER_Y = 64;
+
+    /** Players are not members of any synthetic region. */
+    private static final RegionAssociable NON_MEMBER = regions -> Association.NON_MEMBER;
+
+    /** Average area per region, in blocks along one axis. */
+    private static final int SPACING = 160;
+    private static final int MIN_SIZE = 8;
+    private static final int MAX_SIZE = 128;
+    /** Share of polygons among generated regions. */
+    private static final double POLYGON_RATIO = 0.3D;
+    /** Share of regions being another radiation type instead of a safe zone. */
+    private static final double TYPED_RATIO = 0.1D;
+
+    private final RegionManager regionManager;
+    private final List<ProtectedRegion> regions;
+    private final int worldSize;
+
+    private SyntheticRegions(RegionManager regionManager, List<ProtectedRegion> regions, int worldSize) {
+        this.regionManager = regionManager;
+        this.regions = regions;
+        this.worldSize = worldSize;
+    }
+
+    static SyntheticRegions generate(int regionCount, long seed) {
+        Random random = new Random(seed);
+        int worldSize = Math.max(SPACING, (int) Math.sqrt(regionCount) * SPACING);
+
+        RegionManager regionManager = new RegionManager(new MemoryRegionDatabase(), new PriorityRTreeIndex.Factory(), new SimpleFlagRegistry());
+
+        GlobalProtectedRegion global = new GlobalProtectedRegion("__global__");
+        global.setFlag(RADIATION_FLAG, true);
+        regionManager.addRegion(global);
+
+        List<ProtectedRegion> regions = new ArrayList<>(regionCount);
+        for (int i = 0; i < regionCount; i++) {
+            String id = "zone_" + i;
+            int centreX = random.nextInt(worldSize) - worldSize / 2;
+            int centreZ = random.nextInt(worldSize) - worldSize / 2;
+            int size = MIN_SIZE + random.nextInt(MAX_SIZE - MIN_SIZE);
+
+            ProtectedRegion region;
+            if (random.nextDouble() < POLYGON_RATIO) {
+                region = polygon(id, random, centreX, centreZ, size);
+            } else {
+                BlockVector3 min = BlockVector3.at(centreX - size / 2, MIN_Y, centreZ - size / 2);
+                BlockVector3 max = BlockVector3.at(centreX + size / 2, MAX_Y, centreZ + size / 2);
+                region = new ProtectedCuboidRegion(id, min, max);
+            }
+
+            region.setPriority(random.nextInt(10));
+            if (random.nextDouble() < TYPED_RATIO) {
+                region.setFlag(RADIATION_FLAG, true);
+                region.setFlag(RADIATION_TYPE_FLAG, "type_" + random.nextInt(4));
+            } else {
+                region.setFlag(RADIATION_FLAG, false);
+            }
+
+            regionManager.addRegion(region);
+            regions.add(region);
+        }
+
+        return new SyntheticRegions(regionManager, regions, worldSize);
+    }
+
+    private static ProtectedPolygonalRegion polygon(String id, Random random, int centreX, int centreZ, int size) {
+        int pointCount = 3 + random.nextInt(6);
+        List<BlockVector2> points = new ArrayList<>(pointCount);
+        for (int i = 0; i < pointCount; i++) {
+            double angle = 2D * Math.PI * i / pointCount;
+            double radius = size / 2D * (0.5D + random.nextDouble() / 2D);
+            points.add(BlockVector2.at(centreX + (int) (Math.cos(angle) * radius), centreZ + (int) (Math.sin(angle) * radius)));
+        }
+
+        return new ProtectedPolygonalRegion(id, points, MIN_Y, MAX_Y);
+    }
+
+    RegionManager regionManager() {
+        return this.regionManager;
+    }
+
+    /**
+     * Matcher of players in the given radiation, looked up in the region
+     * manager the same way as {@link Radiation.FlagMatcher} does.
+     */
+    Radiation.Matcher matcher(String radiationId) {
+        Location scratch = new Location(null, 0D, 0D, 0D);
+        return player -> {
+            Location location = player.getLocation(scratch);
+            BlockVector3 position = BlockVector3.at(location.getX(), location.getY(), location.getZ());
+            String resolved = Radiation.FlagMatcher.resolveRadiationId(this.regionManager.getApplicableRegions(position), NON_MEMBER,
+                    RADIATION_FLAG, RADIATION_TYPE_FLAG);
+            return radiationId.equals(resolved);
+        };
+    }
+
+    /**
+     * The same regions as native polygon zones of the default radiation in
+     * the given world, for comparing lookups on identical geometry.
+     */
+    List<ZoneEngine.Zone> zones(String world) {
+        MemoryConfiguration config = new MemoryConfiguration();
+        List<ZoneEngine.Zone> zones = new ArrayList<>(this.regions.size());
+        for (ProtectedRegion region : this.regions) {
+            List<String> points = new ArrayList<>();
+            for (BlockVector2 point : region.getPoints()) {
+                points.add(point.getBlockX() + ":" + point.getBlockZ());
+            }
+
+            ConfigurationSection section = config.createSection(region.getId());
+            section.set("world", world);
+            section.set("shape", "polygon");
+            section.set("points", points);
+            section.set("min-y", MIN_Y);
+            section.set("max-y", MAX_Y);
+
+            try {
+                zones.add(new ZoneEngine.Zone(section));
+            } catch (InvalidConfigurationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return zones;
+    }
+
+    /**
+     * Positions spread uniformly over the whole world.
+     */
+    BlockVector3[] randomPositions(int count, long seed) {
+        Random random = new Random(seed);
+        BlockVector3[] positions = new BlockVector3[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = BlockVector3.at(random.nextInt(this.worldSize) - this.worldSize / 2, PLAYER_Y, random.nextInt(this.worldSize) - this.worldSize / 2);
+        }
+        return positions;
+    }
+
+    /**
+     * Positions gathered around a few regions, the way players crowd
+     * around spawns and bases.
+     */
+    BlockVector3[] clusteredPositions(int count, long seed) {
+        Random random = new Random(seed);
+        int clusterCount = Math.max(1, Math.min(8, this.regions.size()));
+
+        List<BlockVector3> centres = new ArrayList<>(clusterCount);
+        for (int i = 0; i < clusterCount; i++) {
+            if (this.regions.isEmpty()) {
+                centres.add(BlockVector3.at(0, PLAYER_Y, 0));
+            } else {
+                ProtectedRegion region = this.regions.get(random.nextInt(this.regions.size()));
+                centres.add(region.getMinimumPoint().add(region.getMaximumPoint()).divide(2).withY(PLAYER_Y));
+            }
+        }
+
+        BlockVector3[] positions = new BlockVector3[count];
+        for (int i = 0; i < count; i++) {
+            BlockVector3 centre = centres.get(random.nextInt(clusterCount));
+            positions[i] = centre.add((int) (random.nextGaussian() * 32D), 0, (int) (random.nextGaussian() * 32D));
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldguard.domains.Association;
+import com.sk89q.worldguard.protection.association.RegionAssociable;
+import com.sk89q.worldguard.protection.managers.RegionManager;
+import org.bukkit.Location;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Replays traces written by {@link TraceRecorder} through a matcher and a
+ * cache policy, and reports how often the cache would be hit, how often it
+ * would return a stale result and how much time the matcher took.
+ *
+ * Usage: {@code TraceReplay <trace file|directory> [cache] [matcher]}.
+ * Caches:
+ * <ul>
+ *     <li>{@code none} - every sample is evaluated,</li>
+ *     <li>{@code block} - reused while the player stays in the same block,</li>
+ *     <li>{@code chunk} - reused while the player stays in the same chunk,</li>
+ *     <li>{@code move:<blocks>} - reused until the player moves further than
+ *     the given distance from where it was last evaluated.</li>
+ * </ul>
+ * Matchers:
+ * <ul>
+ *     <li>{@code recorded} - result recorded on the server, measures only
+ *     the cache accuracy,</li>
+ *     <li>{@code worldguard:<regions>} - WorldGuard lookup in a synthetic
+ *     region set, measures the matcher cost on real movement,</li>
+ *     <li>{@code player:<regions>} - the same lookup through a
+ *     {@link Radiation.Matcher}, see {@link #adapt(Function)}.</li>
+ * </ul>
+ */
+public final class TraceReplay {
+    private static final String DEFAULT_CACHE = "none";
+    private static final String DEFAULT_MATCHER = "recorded";
+    private static final long SEED = 0x5AFEL;
+    private static final int CHUNK_SIZE = 16 * TraceRecorder.COORDINATE_SCALE;
+    /** Players are not members of any synthetic region. */
+    private static final RegionAssociable NON_MEMBER = regions -> Association.NON_MEMBER;
+
+    private TraceReplay() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: TraceReplay <trace file|directory> [none|block|chunk|move:<blocks>] [recorded|worldguard:<regions>|player:<regions>]");
+            System.exit(2);
+        }
+
+        List<Path> files = traceFiles(Paths.get(args[0]));
+        String cacheName = args.length > 1 ? args[1] : DEFAULT_CACHE;
+        String matcherName = args.length > 2 ? args[2] : DEFAULT_MATCHER;
+        Cache cache = cache(cacheName);
+        Matcher matcher = matcher(matcherName);
+
+        Replay replay = new Replay(cache, matcher);
+        long start = System.nanoTime();
+        for (Path file : files) {
+            replay.read(file);
+        }
+        long took = System.nanoTime() - start;
+
+        long evaluations = replay.samples - replay.hits;
+        System.out.println("Replayed " + replay.samples + " samples of " + replay.players.size() + " players from " + files.size() +
+                " file(s) with cache " + cacheName + " and matcher " + matcherName + ".");
+        System.out.println(String.format(Locale.ROOT, "Cache hits: %d (%.2f%%), stale results: %d (%.4f%%)",
+                replay.hits, percent(replay.hits, replay.samples), replay.stale, percent(replay.stale, replay.samples)));
+        System.out.println(String.format(Locale.ROOT, "Matcher evaluations: %d, differing from the recorded result: %d",
+                evaluations, replay.mismatches));
+        System.out.println("Matcher cost: total=" + Profiler.formatNanos(replay.matcherNanos) +
+                " mean=" + Profiler.formatNanos(evaluations == 0L ? 0L : replay.matcherNanos / evaluations));
+        System.out.println("Replay took " + Profiler.formatNanos(took) + ".");
+    }
+
+    private static List<Path> traceFiles(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return Collections.singletonList(path);
+        }
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(path, "*" + TraceRecorder.FILE_EXTENSION)) {
+            stream.forEach(files::add);
+        }
+        Collections.sort(files); // names start with the date
+        return files;
+    }
+
+    private static double percent(long value, long total) {
+        return total == 0L ? 0D : value * 100D / total;
+    }
+
+    private static Cache cache(String name) {
+        if (name.startsWith("move:")) {
+            long distance = (long) (Double.parseDouble(name.substring("move:".length())) * TraceRecorder.COORDINATE_SCALE);
+            long distanceSquared = distance * distance;
+            return (previous, x, y, z) -> {
+                long dx = x - previous.x, dy = y - previous.y, dz = z - previous.z;
+                return dx * dx + dy * dy + dz * dz <= distanceSquared;
+            };
+        }
+
+        switch (name) {
+            case "none":
+                return (previous, x, y, z) -> false;
+            case "block":
+                return (previous, x, y, z) -> block(x) == block(previous.x) && block(y) == block(previous.y) && block(z) == block(previous.z);
+            case "chunk":
+                return (previous, x, y, z) -> Math.floorDiv(x, CHUNK_SIZE) == Math.floorDiv(previous.x, CHUNK_SIZE) &&
+                        Math.floorDiv(z, CHUNK_SIZE) == Math.floorDiv(previous.z, CHUNK_SIZE);
+            default:
+                throw new IllegalArgumentException("Unknown cache: " + name);
+        }
+    }
+
+    private static Matcher matcher(String name) {
+        if (name.startsWith("worldguard:")) {
+            int regionCount = Integer.parseInt(name.substring("worldguard:".length()));
+            RegionManager regionManager = SyntheticRegions.generate(regionCount, SEED).regionManager();
+            return (radiationId, x, y, z, recorded) -> {
+                BlockVector3 position = BlockVector3.at(block(x), block(y), block(z));
+                String resolved = Radiation.FlagMatcher.resolveRadiationId(regionManager.getApplicableRegions(position), NON_MEMBER,
+                        SyntheticRegions.RADIATION_FLAG, SyntheticRegions.RADIATION_TYPE_FLAG);
+                return radiationId.equals(resolved);
+            };
+        }
+
+        if (name.startsWith("player:")) {
+            int regionCount = Integer.parseInt(name.substring("player:".length()));
+            return adapt(SyntheticRegions.generate(regionCount, SEED)::matcher);
+        }
+
+        if (name.equals("recorded")) {
+            return (radiationId, x, y, z, recorded) -> recorded;
+        }
+        throw new IllegalArgumentException("Unknown matcher: " + name);
+    }
+
+    /**
+     * Feed a {@link Radiation.Matcher} of every radiation with a stub player
+     * moved to every sample. Worlds of the samples are ignored, the player
+     * is always in the single world of a {@link VirtualServer}.
+     */
+    static Matcher adapt(Function<String, Radiation.Matcher> matchers) {
+        Objects.requireNonNull(matchers, "matchers");
+
+        VirtualServer server = new VirtualServer();
+        VirtualServer.VirtualPlayer player = server.createPlayer("replay", new Location(server.world(), 0D, 0D, 0D));
+        Map<String, Radiation.Matcher> byRadiationId = new HashMap<>();
+        return (radiationId, x, y, z, recorded) -> {
+            player.location.setX((double) x / TraceRecorder.COORDINATE_SCALE);
+            player.location.setY((double) y / TraceRecorder.COORDINATE_SCALE);
+            player.location.setZ((double) z / TraceRecorder.COORDINATE_SCALE);
+            return byRadiationId.computeIfAbsent(radiationId, matchers).test(player.bukkit);
+        };
+    }
+
+    private static int block(int coordinate) {
+        return Math.floorDiv(coordinate, TraceRecorder.COORDINATE_SCALE);
+    }
+
+    /**
+     * Decides whether the previous result can be reused. Coordinates are in
+     * 1/{@link TraceRecorder#COORDINATE_SCALE} of a block.
+     */
+    interface Cache {
+        boolean reuse(Entry previous, int x, int y, int z);
+    }
+
+    interface Matcher {
+        boolean test(String radiationId, int x, int y, int z, boolean recorded);
+    }
+
+    /**
+     * Last evaluation of a radiation for a player.
+     */
+    static class Entry {
+        String world;
+        int x, y, z;
+        boolean result;
+    }
+
+    static class Replay {
+        private final Cache cache;
+        private final Matcher matcher;
+        private final Map<String, Entry> entries = new HashMap<>();
+        final Set<UUID> players = new HashSet<>();
+
+        long samples;
+        long hits;
+        long stale;
+        long mismatches;
+        long matcherNanos;
+
+        Replay(Cache cache, Matcher matcher) {
+            this.cache = Objects.requireNonNull(cache, "cache");
+            this.matcher = Objects.requireNonNull(matcher, "matcher");
+        }
+
+        void read(Path file) throws IOException {
+            // dictionaries are defined separately in every file
+            Map<Integer, UUID> players = new HashMap<>();
+            Map<Integer, String> names = new HashMap<>();
+
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (input.readInt() != TraceRecorder.MAGIC) {
+                    throw new IOException(file + " is not a radiation trace.");
+                }
+                int version = input.readInt();
+                if (version != TraceRecorder.VERSION) {
+                    throw new IOException(file + " has unsupported version " + version + ".");
+                }
+
+                while (true) {
+                    int type = input.read();
+                    if (type == -1) {
+                        break;
+                    }
+
+                    try {
+                        switch (type) {
+                            case TraceRecorder.PLAYER:
+                                players.put(input.readInt(), new UUID(input.readLong(), input.readLong()));
+                                break;
+                            case TraceRecorder.WORLD:
+                            case TraceRecorder.RADIATION:
+                                names.put(input.readInt(), input.readUTF());
+                                break;
+                            case TraceRecorder.SAMPLE:
+                                input.readInt(); // tick
+                                UUID player = players.get(input.readInt());
+                                String world = names.get(input.readInt());
+                                int x = input.readInt(), y = input.readInt(), z = input.readInt();
+                                String radiationId = names.get(input.readInt());
+                                boolean recorded = input.readBoolean();
+                                if (player != null && world != null && radiationId != null) {
+                                    this.sample(player, world, x, y, z, radiationId, recorded);
+                                }
+                                break;
+                            default:
+                                throw new IOException(file + " contains unknown record type " + type + ".");
+                        }
+                    } catch (EOFException e) {
+                        break; // the writer was stopped in the middle of a record
+                    }
+                }
+            }
+        }
+
+        private void sample(UUID player, String world, int x, int y, int z, String radiationId, boolean recorded) {
+            this.samples++;
+            this.players.add(player);
+
+            Entry entry = this.entries.computeIfAbsent(player + "/" + radiationId, key -> new Entry());
+            if (world.equals(entry.world) && this.cache.reuse(entry, x, y, z)) {
+                this.hits++;
+                if (entry.result != recorded) {
+                    this.stale++;
+                }
+                return;
+            }
+
+            long start = System.nanoTime();
+            boolean result = this.matcher.test(radiationId, x, y, z, recorded);
+            this.matcherNanos += System.nanoTime() - start;
+
+            if (result != recorded) {
+                this.mismatches++;
+            }
+
+            entry.world = world;
+            entry.x = x;
+            entry.y = y;
+            entry.z = z;
+            entry.result = result;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.boss.BossBar;
+import org.bukkit.entity.Player;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Minimal single-threaded server stand-in. Only the calls made by the plugin
+ * are implemented; everything else returns default values. Tasks scheduled
+ * with the {@link BukkitScheduler} run when {@link #tick()} is called.
+ */
+final class VirtualServer {
+    static final Logger logger = Logger.getLogger(VirtualServer.class.getName());
+
+    private final Server server;
+    private final Plugin plugin;
+    private final World world;
+    private final List<Player> onlinePlayers = new ArrayList<>();
+    private final List<ScheduledTask> tasks = new ArrayList<>();
+    private final AtomicInteger taskIds = new AtomicInteger();
+    private long currentTick;
+
+    // packet counters
+    long bossBarUpdates;
+    long potionEffects;
+    long chatMessages;
+    long eventsCalled;
+
+    VirtualServer() {
+        this.server = proxy(Server.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getName":
+                    return "VirtualServer";
+                case "getVersion":
+                case "getBukkitVersion":
+                    return "1.14.4-R0.1-SNAPSHOT";
+                case "getLogger":
+                    return logger;
+                case "getOnlinePlayers":
+                    return Collections.unmodifiableList(this.onlinePlayers);
+                case "getPluginManager":
+                    return this.pluginManager;
+                case "getScheduler":
+                    return this.scheduler;
+                case "getWorlds":
+                    return Collections.singletonList(this.world);
+                case "createBossBar":
+                    return this.createBossBar();
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+
+        this.plugin = proxy(Plugin.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getName":
+                    return Stubs.PLUGIN_NAME;
+                case "getServer":
+                    return this.server;
+                case "isEnabled":
+                    return true;
+                case "getLogger":
+                    return logger;
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+
+        UUID worldId = UUID.randomUUID();
+        this.world = proxy(World.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getName":
+                    return "world";
+                case "getUID":
+                    return worldId;
+                case "getMaxHeight":
+                    return SyntheticRegions.MAX_Y + 1;
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+
+        if (Bukkit.getServer() == null) {
+            Bukkit.setServer(this.server);
+        }
+    }
+
+    private final PluginManager pluginManager = proxy(PluginManager.class, (proxy, method, args) -> {
+        if (method.getName().equals("callEvent")) {
+            this.eventsCalled++;
+        }
+        return defaultValue(method.getReturnType());
+    });
+
+    private final BukkitScheduler scheduler = proxy(BukkitScheduler.class, (proxy, method, args) -> {
+        switch (method.getName()) {
+            case "runTaskTimer":
+                return this.schedule((Runnable) args[1], (long) args[2], (long) args[3]);
+            case "runTaskLater":
+                return this.schedule((Runnable) args[1], (long) args[2], -1L);
+            case "runTask":
+                return this.schedule((Runnable) args[1], 0L, -1L);
+            case "cancelTask":
+                int taskId = (int) args[0];
+                this.tasks.removeIf(task -> task.id == taskId);
+                return null;
+            default:
+                return defaultValue(method.getReturnType());
+        }
+    });
+
+    Server server() {
+        return this.server;
+    }
+
+    Plugin plugin() {
+        return this.plugin;
+    }
+
+    World world() {
+        return this.world;
+    }
+
+    long currentTick() {
+        return this.currentTick;
+    }
+
+    /**
+     * Run all tasks due in the current tick and advance the clock.
+     */
+    void tick() {
+        for (ScheduledTask task : new ArrayList<>(this.tasks)) {
+            if (task.nextRun > this.currentTick || !this.tasks.contains(task)) {
+                continue;
+            }
+
+            if (task.period < 0L) {
+                this.tasks.remove(task);
+            } else {
+                task.nextRun = this.currentTick + Math.max(1L, task.period);
+            }
+            task.runnable.run();
+        }
+        this.currentTick++;
+    }
+
+    private BukkitTask schedule(Runnable runnable, long delay, long period) {
+        ScheduledTask task = new ScheduledTask(this.taskIds.incrementAndGet(), runnable, this.currentTick + Math.max(0L, delay), period);
+        this.tasks.add(task);
+        return proxy(BukkitTask.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getTaskId":
+                    return task.id;
+                case "getOwner":
+                    return this.plugin;
+                case "isSync":
+                    return true;
+                case "cancel":
+                    this.tasks.remove(task);
+                    return null;
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    //
+    // Players
+    //
+
+    VirtualPlayer createPlayer(String name, Location location) {
+        return new VirtualPlayer(name, location);
+    }
+
+    void join(VirtualPlayer player) {
+        this.onlinePlayers.add(player.bukkit);
+    }
+
+    void quit(VirtualPlayer player) {
+        this.onlinePlayers.remove(player.bukkit);
+    }
+
+    final class VirtualPlayer {
+        final UUID uniqueId = UUID.randomUUID();
+        final String name;
+        final Location location;
+        final PersistentDataContainer container = new MemoryDataContainer();
+        final Player bukkit;
+
+        VirtualPlayer(String name, Location location) {
+            this.name = Objects.requireNonNull(name, "name");
+            this.location = Objects.requireNonNull(location, "location");
+            this.bukkit = proxy(Player.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getUniqueId":
+                        return this.uniqueId;
+                    case "getName":
+                    case "getDisplayName":
+                    case "toString":
+                        return this.name;
+                    case "getWorld":
+                        return world;
+                    case "getLocation":
+                        if (args != null && args.length == 1 && args[0] != null) {
+                            Location target = (Location) args[0];
+                            target.setWorld(world);
+                            target.setX(this.location.getX());
+                            target.setY(this.location.getY());
+                            target.setZ(this.location.getZ());
+                            return target;
+                        }
+                        return this.location.clone();
+                    case "getPersistentDataContainer":
+                        return this.container;
+                    case "addPotionEffect":
+                        potionEffects++;
+                        return true;
+                    case "sendMessage":
+                        chatMessages++;
+                        return null;
+                    case "isOnline":
+                        return onlinePlayers.contains(proxy);
+                    case "canSee":
+                        return true;
+                    case "hashCode":
+                        return this.uniqueId.hashCode();
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return defaultValue(method.getReturnType());
+                }
+            });
+        }
+    }
+
+    //
+    // Boss bars
+    //
+
+    private BossBar createBossBar() {
+        Set<Player> players = new LinkedHashSet<>();
+        return proxy(BossBar.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "addPlayer":
+                    if (players.add((Player) args[0])) {
+                        this.bossBarUpdates++;
+                    }
+                    return null;
+                case "removePlayer":
+                    if (players.remove((Player) args[0])) {
+                        this.bossBarUpdates++;
+                    }
+                    return null;
+                case "removeAll":
+                    this.bossBarUpdates += players.size();
+                    players.clear();
+                    return null;
+                case "getPlayers":
+                    return new ArrayList<>(players);
+                case "setProgress":
+                    this.bossBarUpdates += players.size();
+                    return null;
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    //
+    // Utilities
+    //
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(VirtualServer.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            if (Collection.class.isAssignableFrom(type)) {
+                return type.isAssignableFrom(List.class) ? Collections.emptyList() : Collections.emptySet();
+            }
+            if (type == Iterator.class) {
+                return Collections.emptyIterator();
+            }
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == float.class) {
+            return 0F;
+        }
+        if (type == double.class) {
+            return 0D;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+
+    private static final class ScheduledTask {
+        final int id;
+        final Runnable runnable;
+        final long period;
+        long nextRun;
+
+        ScheduledTask(int id, Runnable runnable, long nextRun, long period) {
+            this.id = id;
+            this.runnable = runnable;
+            this.nextRun = nextRun;
+            this.period = period;
+        }
+    }
+}
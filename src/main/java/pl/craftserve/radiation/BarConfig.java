@@ -27,6 +27,7 @@ import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.MemoryConfiguration;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -105,4 +106,22 @@ public class BarConfig {
 
         return server.createBossBar(color + this.title(), this.color(), this.style(), this.flags());
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BarConfig barConfig = (BarConfig) o;
+        return this.title.equals(barConfig.title) &&
+                this.color == barConfig.color &&
+                this.style == barConfig.style &&
+                Arrays.equals(this.flags, barConfig.flags);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(this.title, this.color, this.style);
+        result = 31 * result + Arrays.hashCode(this.flags);
+        return result;
+    }
 }
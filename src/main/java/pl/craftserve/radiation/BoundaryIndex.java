@@ -0,0 +1,262 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable spatial index of radiation boundaries, made of segments along
+ * chunk edges between radiation and safe columns. Segments are bucketed
+ * into a uniform grid searched in rings around the query point.
+ */
+public final class BoundaryIndex {
+    public static final BoundaryIndex EMPTY = new BoundaryIndex(new ArrayList<>());
+
+    private static final int CELL_SHIFT = 8; // 256 blocks
+    /** Longest merged segment, in chunks, keeps segments local to cells. */
+    private static final int MAX_RUN = 1 << (CELL_SHIFT - 4);
+
+    private final int[] x1;
+    private final int[] z1;
+    private final int[] x2;
+    private final int[] z2;
+    private final int[][] cells;
+    private final int minCellX;
+    private final int minCellZ;
+    private final int width;
+    private final int depth;
+
+    private BoundaryIndex(List<int[]> segments) {
+        int count = segments.size();
+        this.x1 = new int[count];
+        this.z1 = new int[count];
+        this.x2 = new int[count];
+        this.z2 = new int[count];
+
+        int minX = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            int[] segment = segments.get(i);
+            this.x1[i] = segment[0];
+            this.z1[i] = segment[1];
+            this.x2[i] = segment[2];
+            this.z2[i] = segment[3];
+            minX = Math.min(minX, Math.min(segment[0], segment[2]));
+            minZ = Math.min(minZ, Math.min(segment[1], segment[3]));
+            maxX = Math.max(maxX, Math.max(segment[0], segment[2]));
+            maxZ = Math.max(maxZ, Math.max(segment[1], segment[3]));
+        }
+
+        if (count == 0) {
+            this.cells = new int[0][];
+            this.minCellX = this.minCellZ = this.width = this.depth = 0;
+            return;
+        }
+
+        this.minCellX = minX >> CELL_SHIFT;
+        this.minCellZ = minZ >> CELL_SHIFT;
+        this.width = (maxX >> CELL_SHIFT) - this.minCellX + 1;
+        this.depth = (maxZ >> CELL_SHIFT) - this.minCellZ + 1;
+
+        // count segments of every cell first, then fill them in
+        int[] sizes = new int[this.width * this.depth];
+        for (int i = 0; i < count; i++) {
+            this.forEachCell(i, cell -> sizes[cell]++);
+        }
+
+        this.cells = new int[sizes.length][];
+        for (int cell = 0; cell < sizes.length; cell++) {
+            this.cells[cell] = new int[sizes[cell]];
+            sizes[cell] = 0;
+        }
+        for (int i = 0; i < count; i++) {
+            int segment = i;
+            this.forEachCell(i, cell -> this.cells[cell][sizes[cell]++] = segment);
+        }
+    }
+
+    private void forEachCell(int segment, IntConsumer consumer) {
+        int fromX = (Math.min(this.x1[segment], this.x2[segment]) >> CELL_SHIFT) - this.minCellX;
+        int toX = (Math.max(this.x1[segment], this.x2[segment]) >> CELL_SHIFT) - this.minCellX;
+        int fromZ = (Math.min(this.z1[segment], this.z2[segment]) >> CELL_SHIFT) - this.minCellZ;
+        int toZ = (Math.max(this.z1[segment], this.z2[segment]) >> CELL_SHIFT) - this.minCellZ;
+        for (int cellX = fromX; cellX <= toX; cellX++) {
+            for (int cellZ = fromZ; cellZ <= toZ; cellZ++) {
+                consumer.accept(cellX * this.depth + cellZ);
+            }
+        }
+    }
+
+    /**
+     * Build the index from chunk columns classified as in radiation or not.
+     *
+     * @param inside Columns by {@code column * size + row}.
+     * @param radius Chunk coordinate of the first column and row, negated.
+     */
+    public static BoundaryIndex build(boolean[] inside, int size, int radius) {
+        List<int[]> segments = new ArrayList<>();
+
+        // edges between columns, along the Z axis
+        for (int column = 0; column < size - 1; column++) {
+            int x = (column - radius + 1) << 4;
+            int start = -1;
+            for (int row = 0; row <= size; row++) {
+                boolean boundary = row < size && inside[column * size + row] != inside[(column + 1) * size + row];
+                if (start >= 0 && (!boundary || row - start == MAX_RUN)) {
+                    segments.add(new int[] { x, (start - radius) << 4, x, (row - radius) << 4 });
+                    start = -1;
+                }
+                if (boundary && start < 0) {
+                    start = row;
+                }
+            }
+        }
+
+        // edges between rows, along the X axis
+        for (int row = 0; row < size - 1; row++) {
+            int z = (row - radius + 1) << 4;
+            int start = -1;
+            for (int column = 0; column <= size; column++) {
+                boolean boundary = column < size && inside[column * size + row] != inside[column * size + row + 1];
+                if (start >= 0 && (!boundary || column - start == MAX_RUN)) {
+                    segments.add(new int[] { (start - radius) << 4, z, (column - radius) << 4, z });
+                    start = -1;
+                }
+                if (boundary && start < 0) {
+                    start = column;
+                }
+            }
+        }
+
+        return new BoundaryIndex(segments);
+    }
+
+    public int size() {
+        return this.x1.length;
+    }
+
+    /**
+     * Find the nearest boundary segments.
+     *
+     * @return Up to {@code k} nearest points on distinct segments, nearest
+     * first.
+     */
+    public List<Hit> nearest(double x, double z, int k) {
+        if (k <= 0 || this.cells.length == 0) {
+            return Collections.emptyList();
+        }
+
+        List<Hit> hits = new ArrayList<>(k + 1);
+        int centreX = ((int) Math.floor(x) >> CELL_SHIFT) - this.minCellX;
+        int centreZ = ((int) Math.floor(z) >> CELL_SHIFT) - this.minCellZ;
+        int maxRing = Math.max(Math.max(Math.abs(centreX), Math.abs(this.width - 1 - centreX)),
+                Math.max(Math.abs(centreZ), Math.abs(this.depth - 1 - centreZ)));
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int cellX = centreX - ring; cellX <= centreX + ring; cellX++) {
+                if (cellX < 0 || cellX >= this.width) {
+                    continue;
+                }
+
+                boolean edge = cellX == centreX - ring || cellX == centreX + ring;
+                for (int cellZ = centreZ - ring; cellZ <= centreZ + ring; cellZ += edge ? 1 : 2 * ring) {
+                    if (cellZ >= 0 && cellZ < this.depth) {
+                        this.search(this.cells[cellX * this.depth + cellZ], x, z, k, hits);
+                    }
+                    if (ring == 0) {
+                        break;
+                    }
+                }
+            }
+
+            // every cell of the next ring is at least this far away
+            if (hits.size() == k && hits.get(k - 1).distance <= (double) (ring << CELL_SHIFT)) {
+                break;
+            }
+        }
+        return hits;
+    }
+
+    private void search(int[] segments, double x, double z, int k, List<Hit> hits) {
+        for (int segment : segments) {
+            if (contains(hits, segment)) {
+                continue;
+            }
+
+            double dx = this.x2[segment] - this.x1[segment];
+            double dz = this.z2[segment] - this.z1[segment];
+            double t = ((x - this.x1[segment]) * dx + (z - this.z1[segment]) * dz) / (dx * dx + dz * dz);
+            t = Math.max(0D, Math.min(1D, t));
+
+            double pointX = this.x1[segment] + t * dx;
+            double pointZ = this.z1[segment] + t * dz;
+            double distance = Math.hypot(pointX - x, pointZ - z);
+            if (hits.size() == k && distance >= hits.get(k - 1).distance) {
+                continue;
+            }
+
+            int index = hits.size();
+            while (index > 0 && hits.get(index - 1).distance > distance) {
+                index--;
+            }
+            hits.add(index, new Hit(segment, pointX, pointZ, distance));
+            if (hits.size() > k) {
+                hits.remove(k);
+            }
+        }
+    }
+
+    private static boolean contains(List<Hit> hits, int segment) {
+        for (Hit hit : hits) {
+            if (hit.segment == segment) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Nearest point on a boundary segment.
+     */
+    public static class Hit {
+        private final int segment;
+        private final double x;
+        private final double z;
+        private final double distance;
+
+        Hit(int segment, double x, double z, double distance) {
+            this.segment = segment;
+            this.x = x;
+            this.z = z;
+            this.distance = distance;
+        }
+
+        public double x() {
+            return this.x;
+        }
+
+        public double z() {
+            return this.z;
+        }
+
+        public double distance() {
+            return this.distance;
+        }
+    }
+}
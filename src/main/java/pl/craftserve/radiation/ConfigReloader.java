@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Reloads config.yml without restarting the server. The file is read and
+ * parsed asynchronously, the parsed {@link RadiationPlugin.Config} is then
+ * handed to the swap function within a single tick on the main thread.
+ *
+ * Like on startup, keys missing in the file fall back to the config.yml
+ * bundled with the plugin.
+ */
+public class ConfigReloader {
+    private final RadiationPlugin plugin;
+    private final int protocolVersion;
+    private final Function<RadiationPlugin.Config, String> swap;
+    private final AtomicBoolean reloading = new AtomicBoolean();
+
+    /**
+     * @param protocolVersion Only files of this protocol version can be
+     *                        reloaded, older ones must be migrated on startup.
+     * @param swap Applies the new config on the main thread and describes
+     *             what has changed.
+     */
+    public ConfigReloader(RadiationPlugin plugin, int protocolVersion, Function<RadiationPlugin.Config, String> swap) {
+        this.plugin = Objects.requireNonNull(plugin, "plugin");
+        this.protocolVersion = protocolVersion;
+        this.swap = Objects.requireNonNull(swap, "swap");
+    }
+
+    /**
+     * @return Future completed on the main thread with the summary of changes.
+     */
+    public CompletableFuture<String> reload() {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        if (!this.reloading.compareAndSet(false, true)) {
+            future.completeExceptionally(new IllegalStateException("Another reload is already in progress."));
+            return future;
+        }
+
+        future.whenComplete((summary, throwable) -> this.reloading.set(false));
+
+        File file = new File(this.plugin.getDataFolder(), "config.yml");
+        this.plugin.getServer().getScheduler().runTaskAsynchronously(this.plugin, () -> {
+            RadiationPlugin.Config config;
+            try {
+                config = this.parse(file);
+            } catch (IOException | InvalidConfigurationException e) {
+                this.sync(() -> future.completeExceptionally(e));
+                return;
+            }
+
+            this.sync(() -> {
+                try {
+                    future.complete(this.swap.apply(config));
+                } catch (Throwable throwable) {
+                    future.completeExceptionally(throwable);
+                }
+            });
+        });
+        return future;
+    }
+
+    private RadiationPlugin.Config parse(File file) throws IOException, InvalidConfigurationException {
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.load(file);
+
+        try (InputStream defaultsStream = this.plugin.getResource("config.yml")) {
+            if (defaultsStream != null) {
+                YamlConfiguration defaults = new YamlConfiguration();
+                try (Reader reader = new InputStreamReader(defaultsStream, StandardCharsets.UTF_8)) {
+                    defaults.load(reader);
+                }
+                yaml.setDefaults(defaults);
+            }
+        }
+
+        int protocol = yaml.getInt("file-protocol-version-dont-touch", -1);
+        if (protocol != this.protocolVersion) {
+            throw new InvalidConfigurationException("Configuration file's protocol version is " + protocol + ", but " +
+                    this.protocolVersion + " was expected. Restart the server to migrate it.");
+        }
+
+        return new RadiationPlugin.Config(yaml);
+    }
+
+    private void sync(Runnable runnable) {
+        if (this.plugin.isEnabled()) {
+            this.plugin.getServer().getScheduler().runTask(this.plugin, runnable);
+        } else {
+            this.reloading.set(false);
+        }
+    }
+}
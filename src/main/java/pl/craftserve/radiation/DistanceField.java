@@ -0,0 +1,226 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemoryConfiguration;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Signed distance in blocks from every chunk column within the configured
+ * radius to the nearest safe area, positive inside radiation and negative
+ * outside. Columns are classified from a {@link RegionIndex}, distances are
+ * then propagated with a two-pass chamfer transform, so they are accurate
+ * to about a chunk.
+ *
+ * Columns which the index can't classify count as the boundary. Columns
+ * outside of the radius have depth {@code 0}, so only the base tier of a
+ * profile applies there. Native zones are not taken into account.
+ *
+ * Boundaries between the columns are indexed in a {@link BoundaryIndex},
+ * for lookups of their exact direction.
+ */
+public class DistanceField implements RegionIndexer.RebuildListener {
+    /** Distance between centres of adjacent and diagonal chunks. */
+    private static final int STRAIGHT = 16;
+    private static final int DIAGONAL = 23;
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+
+    private final int radius;
+    private final int size;
+    private final Map<String, WorldField> fields = new ConcurrentHashMap<>();
+
+    public DistanceField(Config config) {
+        Objects.requireNonNull(config, "config");
+
+        this.radius = (config.radius() + 15) >> 4;
+        this.size = this.radius * 2;
+    }
+
+    /**
+     * @return Distance in blocks from the nearest safe area, {@code 0} if
+     * the world is not known yet or the column is outside of the radius.
+     */
+    public int depth(String world, int x, int z) {
+        WorldField field = this.fields.get(world);
+        if (field == null) {
+            return 0;
+        }
+
+        int column = (x >> 4) + this.radius;
+        int row = (z >> 4) + this.radius;
+        if (column < 0 || column >= this.size || row < 0 || row >= this.size) {
+            return 0;
+        }
+        return field.depths[column * this.size + row];
+    }
+
+    /**
+     * @return Boundaries in the world, empty if the world is not known yet.
+     */
+    public BoundaryIndex boundaries(String world) {
+        WorldField field = this.fields.get(world);
+        return field != null ? field.boundaries : BoundaryIndex.EMPTY;
+    }
+
+    @Override
+    public void onRebuild(RegionIndex previous, RegionIndex index, Map<String, WorldBoundsRegistry.Bounds> worlds) {
+        for (String world : index.worlds()) {
+            WorldBoundsRegistry.Bounds bounds = worlds.get(world);
+            if (bounds == null) {
+                continue;
+            }
+
+            if (this.fields.containsKey(world)) {
+                List<int[]> changedAreas = index.changedAreas(previous, world);
+                if (changedAreas != null && changedAreas.isEmpty()) {
+                    continue;
+                }
+            }
+
+            // the old field is used until the new one is ready
+            this.fields.put(world, this.compute(index, world, bounds));
+        }
+    }
+
+    public void clear() {
+        this.fields.clear();
+    }
+
+    private WorldField compute(RegionIndex index, String world, WorldBoundsRegistry.Bounds bounds) {
+        boolean[] inside = new boolean[this.size * this.size];
+        IntStream.range(0, this.size).parallel().forEach(column -> {
+            for (int row = 0; row < this.size; row++) {
+                String radiationId = index.classify(world, column - this.radius, row - this.radius, bounds.minY(), bounds.maxY());
+                inside[column * this.size + row] = radiationId != null && radiationId != RegionLookup.UNRESOLVED;
+            }
+        });
+
+        short[] field = new short[inside.length];
+        int[] distances = new int[inside.length];
+        for (boolean state : new boolean[] { true, false }) {
+            this.transform(inside, state, distances);
+            for (int i = 0; i < field.length; i++) {
+                if (inside[i] == state) {
+                    // distances are between chunk centres, the boundary lies half way
+                    int distance = Math.min(Short.MAX_VALUE, distances[i] - STRAIGHT / 2);
+                    field[i] = (short) (state ? distance : -distance);
+                }
+            }
+        }
+        return new WorldField(field, BoundaryIndex.build(inside, this.size, this.radius));
+    }
+
+    /**
+     * Distance of every column of the given state to the nearest column of
+     * the opposite state.
+     */
+    private void transform(boolean[] inside, boolean state, int[] distances) {
+        int size = this.size;
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = inside[i] == state ? INFINITY : 0;
+        }
+
+        for (int column = 0; column < size; column++) {
+            for (int row = 0; row < size; row++) {
+                int i = column * size + row;
+                int distance = distances[i];
+                if (distance == 0) {
+                    continue;
+                }
+                if (row > 0) distance = Math.min(distance, distances[i - 1] + STRAIGHT);
+                if (column > 0) {
+                    distance = Math.min(distance, distances[i - size] + STRAIGHT);
+                    if (row > 0) distance = Math.min(distance, distances[i - size - 1] + DIAGONAL);
+                    if (row < size - 1) distance = Math.min(distance, distances[i - size + 1] + DIAGONAL);
+                }
+                distances[i] = distance;
+            }
+        }
+
+        for (int column = size - 1; column >= 0; column--) {
+            for (int row = size - 1; row >= 0; row--) {
+                int i = column * size + row;
+                int distance = distances[i];
+                if (distance == 0) {
+                    continue;
+                }
+                if (row < size - 1) distance = Math.min(distance, distances[i + 1] + STRAIGHT);
+                if (column < size - 1) {
+                    distance = Math.min(distance, distances[i + size] + STRAIGHT);
+                    if (row < size - 1) distance = Math.min(distance, distances[i + size + 1] + DIAGONAL);
+                    if (row > 0) distance = Math.min(distance, distances[i + size - 1] + DIAGONAL);
+                }
+                distances[i] = distance;
+            }
+        }
+    }
+
+    static class WorldField {
+        private final short[] depths;
+        private final BoundaryIndex boundaries;
+
+        WorldField(short[] depths, BoundaryIndex boundaries) {
+            this.depths = Objects.requireNonNull(depths, "depths");
+            this.boundaries = Objects.requireNonNull(boundaries, "boundaries");
+        }
+    }
+
+    //
+    // Config
+    //
+
+    public static class Config {
+        public static final int DEFAULT_RADIUS = 10_000;
+        /** Keeps the field of a world under 30 MB. */
+        public static final int MAX_RADIUS = 30_000;
+
+        private final int radius;
+
+        public Config(int radius) {
+            this.radius = radius;
+        }
+
+        public Config(ConfigurationSection section) throws InvalidConfigurationException {
+            if (section == null) {
+                section = new MemoryConfiguration();
+            }
+
+            this.radius = section.getInt("radius", DEFAULT_RADIUS);
+            if (this.radius <= 0 || this.radius > MAX_RADIUS) {
+                throw new InvalidConfigurationException("Distance field radius must be in range from 1 to " + MAX_RADIUS + ".");
+            }
+        }
+
+        public static Config defaults() {
+            return new Config(DEFAULT_RADIUS);
+        }
+
+        /**
+         * Distance from 0,0 in blocks covered by the field.
+         */
+        public int radius() {
+            return this.radius;
+        }
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Cumulative radiation dose of online players, kept in arrays indexed by
+ * {@link PlayerIndex} slots. Doses decay exponentially with the configured
+ * half-life, also while players are offline, and are written to their
+ * persistent data containers in batches.
+ *
+ * {@link DoseThresholdEvent} is called whenever the dose of a player crosses
+ * one of the configured thresholds, in either direction.
+ */
+public class DoseStore implements Listener {
+    private static final long TASK_PERIOD_TICKS = 20L;
+
+    private final Plugin plugin;
+    private final PlayerIndex playerIndex;
+    private final NamespacedKey doseKey;
+    private final NamespacedKey updatedAtKey;
+    /** Current time in epoch millis. */
+    private final LongSupplier clock;
+    private Config config;
+
+    /** Dose by player slot, as of {@link #updatedAt}. */
+    private double[] doses = new double[64];
+    /** Time of the last dose update by player slot, in epoch millis. */
+    private long[] updatedAt = new long[64];
+    /** Number of thresholds reached by player slot. */
+    private int[] levels = new int[64];
+    /** Slots of players whose dose is loaded. */
+    private final BitSet loaded = new BitSet();
+    /** Slots of players whose dose has not been flushed yet. */
+    private final BitSet dirty = new BitSet();
+
+    private BukkitTask task;
+    private long ticksSinceFlush;
+
+    public DoseStore(Plugin plugin, PlayerIndex playerIndex, Config config) {
+        this(plugin, playerIndex, config, System::currentTimeMillis);
+    }
+
+    DoseStore(Plugin plugin, PlayerIndex playerIndex, Config config, LongSupplier clock) {
+        this.plugin = Objects.requireNonNull(plugin, "plugin");
+        this.playerIndex = Objects.requireNonNull(playerIndex, "playerIndex");
+        this.config = Objects.requireNonNull(config, "config");
+        this.clock = Objects.requireNonNull(clock, "clock");
+
+        this.doseKey = new NamespacedKey(this.plugin, "dose");
+        this.updatedAtKey = new NamespacedKey(this.plugin, "dose_updated_at");
+    }
+
+    public void enable() {
+        this.plugin.getServer().getPluginManager().registerEvents(this, this.plugin);
+        this.task = this.plugin.getServer().getScheduler().runTaskTimer(this.plugin, this::tick, TASK_PERIOD_TICKS, TASK_PERIOD_TICKS);
+
+        for (Player player : this.plugin.getServer().getOnlinePlayers()) {
+            this.load(player);
+        }
+    }
+
+    public void disable() {
+        HandlerList.unregisterAll(this);
+        if (this.task != null) {
+            this.task.cancel();
+            this.task = null;
+        }
+
+        this.flush(Integer.MAX_VALUE);
+        this.loaded.clear();
+    }
+
+    public Config getConfig() {
+        return this.config;
+    }
+
+    /**
+     * Apply the new config, thresholds reached by players are recalculated
+     * without calling any events.
+     */
+    public void setConfig(Config config) {
+        this.config = Objects.requireNonNull(config, "config");
+
+        long now = this.clock.getAsLong();
+        for (int slot = this.loaded.nextSetBit(0); slot >= 0; slot = this.loaded.nextSetBit(slot + 1)) {
+            this.levels[slot] = this.level(this.decay(slot, now));
+        }
+    }
+
+    /**
+     * Current dose of the online player, {@code 0} when not loaded.
+     */
+    public double getDose(Player player) {
+        Objects.requireNonNull(player, "player");
+
+        int slot = this.playerIndex.find(player.getUniqueId());
+        if (slot < 0 || !this.loaded.get(slot)) {
+            return 0D;
+        }
+        return this.decay(slot, this.clock.getAsLong());
+    }
+
+    public void setDose(Player player, double dose) {
+        Objects.requireNonNull(player, "player");
+
+        int slot = this.playerIndex.find(player.getUniqueId());
+        if (slot >= 0 && this.loaded.get(slot)) {
+            this.update(player, slot, Math.max(0D, dose), this.clock.getAsLong());
+        }
+    }
+
+    /**
+     * Add to the dose of the player.
+     *
+     * @param slot Slot of the player in the {@link PlayerIndex}.
+     */
+    public void accrue(Player player, int slot, double dose) {
+        Objects.requireNonNull(player, "player");
+        if (dose <= 0D || !this.loaded.get(slot)) {
+            return;
+        }
+
+        long now = this.clock.getAsLong();
+        this.update(player, slot, this.decay(slot, now) + dose, now);
+    }
+
+    private void update(Player player, int slot, double dose, long now) {
+        this.doses[slot] = dose;
+        this.updatedAt[slot] = now;
+        this.dirty.set(slot);
+
+        int previousLevel = this.levels[slot];
+        int level = this.level(dose);
+        if (level == previousLevel) {
+            return;
+        }
+
+        this.levels[slot] = level;
+        double[] thresholds = this.config.thresholds();
+        if (level > previousLevel) {
+            for (int i = previousLevel; i < level; i++) {
+                this.plugin.getServer().getPluginManager().callEvent(new DoseThresholdEvent(player, thresholds[i], dose, true));
+            }
+        } else {
+            for (int i = previousLevel - 1; i >= level; i--) {
+                this.plugin.getServer().getPluginManager().callEvent(new DoseThresholdEvent(player, thresholds[i], dose, false));
+            }
+        }
+    }
+
+    private double decay(int slot, long now) {
+        double dose = this.doses[slot];
+        long halfLife = this.config.halfLife();
+        if (dose == 0D || halfLife <= 0L) {
+            return dose;
+        }
+
+        long elapsed = now - this.updatedAt[slot];
+        return elapsed <= 0L ? dose : dose * Math.pow(0.5D, (double) elapsed / halfLife);
+    }
+
+    /**
+     * @return Number of thresholds lower than or equal to the dose.
+     */
+    private int level(double dose) {
+        double[] thresholds = this.config.thresholds();
+        int level = 0;
+        while (level < thresholds.length && dose >= thresholds[level]) {
+            level++;
+        }
+        return level;
+    }
+
+    void tick() {
+        long now = this.clock.getAsLong();
+
+        // decaying doses may drop below thresholds
+        for (int slot = this.loaded.nextSetBit(0); slot >= 0; slot = this.loaded.nextSetBit(slot + 1)) {
+            if (this.levels[slot] == 0) {
+                continue;
+            }
+
+            double dose = this.decay(slot, now);
+            if (this.level(dose) != this.levels[slot]) {
+                UUID playerId = this.playerIndex.playerId(slot);
+                Player player = playerId != null ? this.plugin.getServer().getPlayer(playerId) : null;
+                if (player != null) {
+                    this.update(player, slot, dose, now);
+                }
+            }
+        }
+
+        // once due, batches are flushed every run until nothing is left
+        this.ticksSinceFlush += TASK_PERIOD_TICKS;
+        if (this.ticksSinceFlush >= this.config.flushInterval() * 20L) {
+            this.flush(this.config.flushBatchSize());
+            if (this.dirty.isEmpty()) {
+                this.ticksSinceFlush = 0L;
+            }
+        }
+    }
+
+    /**
+     * Write up to the given number of dirty doses to player data.
+     */
+    private void flush(int batchSize) {
+        int flushed = 0;
+        for (int slot = this.dirty.nextSetBit(0); slot >= 0 && flushed < batchSize; slot = this.dirty.nextSetBit(slot + 1)) {
+            UUID playerId = this.playerIndex.playerId(slot);
+            Player player = playerId != null ? this.plugin.getServer().getPlayer(playerId) : null;
+            if (player != null) {
+                this.write(player, slot);
+                flushed++;
+            }
+            this.dirty.clear(slot);
+        }
+    }
+
+    private void write(Player player, int slot) {
+        PersistentDataContainer container = player.getPersistentDataContainer();
+        container.set(this.doseKey, PersistentDataType.DOUBLE, this.doses[slot]);
+        container.set(this.updatedAtKey, PersistentDataType.LONG, this.updatedAt[slot]);
+    }
+
+    private void load(Player player) {
+        int slot = this.playerIndex.slot(player);
+        if (slot >= this.doses.length) {
+            int length = Math.max(this.doses.length * 2, slot + 1);
+            this.doses = Arrays.copyOf(this.doses, length);
+            this.updatedAt = Arrays.copyOf(this.updatedAt, length);
+            this.levels = Arrays.copyOf(this.levels, length);
+        }
+
+        long now = this.clock.getAsLong();
+        PersistentDataContainer container = player.getPersistentDataContainer();
+        this.doses[slot] = container.getOrDefault(this.doseKey, PersistentDataType.DOUBLE, 0D);
+        this.updatedAt[slot] = container.getOrDefault(this.updatedAtKey, PersistentDataType.LONG, now);
+        this.levels[slot] = this.level(this.decay(slot, now));
+        this.loaded.set(slot);
+        this.dirty.clear(slot);
+    }
+
+    @EventHandler(priority = EventPriority.LOW)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        this.load(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        int slot = this.playerIndex.find(event.getPlayer().getUniqueId());
+        if (slot < 0 || !this.loaded.get(slot)) {
+            return;
+        }
+
+        if (this.dirty.get(slot)) {
+            this.write(event.getPlayer(), slot);
+        }
+
+        this.loaded.clear(slot);
+        this.dirty.clear(slot);
+        this.doses[slot] = 0D;
+        this.levels[slot] = 0;
+    }
+
+    //
+    // Config
+    //
+
+    public static class Config {
+        public static final long DEFAULT_HALF_LIFE = 600L;
+        public static final long DEFAULT_FLUSH_INTERVAL = 60L;
+        public static final int DEFAULT_FLUSH_BATCH_SIZE = 50;
+
+        private final long halfLife;
+        private final double[] thresholds;
+        private final double lugolsIodineMultiplier;
+        private final long flushInterval;
+        private final int flushBatchSize;
+
+        /**
+         * @param halfLife Half-life of the dose in seconds, {@code 0} if it
+         *                 never decays.
+         * @param thresholds Ascending thresholds calling events.
+         */
+        public Config(long halfLife, double[] thresholds, double lugolsIodineMultiplier, long flushInterval, int flushBatchSize) {
+            this.halfLife = halfLife;
+            this.thresholds = Objects.requireNonNull(thresholds, "thresholds").clone();
+            this.lugolsIodineMultiplier = lugolsIodineMultiplier;
+            this.flushInterval = flushInterval;
+            this.flushBatchSize = flushBatchSize;
+
+            Arrays.sort(this.thresholds);
+        }
+
+        public Config(ConfigurationSection section) throws InvalidConfigurationException {
+            if (section == null) {
+                section = new MemoryConfiguration();
+            }
+
+            this.halfLife = section.getLong("half-life", DEFAULT_HALF_LIFE);
+            if (this.halfLife < 0L) {
+                throw new InvalidConfigurationException("Dose half-life must not be negative.");
+            }
+
+            List<Double> thresholds = section.getDoubleList("thresholds");
+            this.thresholds = new double[thresholds.size()];
+            for (int i = 0; i < this.thresholds.length; i++) {
+                this.thresholds[i] = thresholds.get(i);
+                if (this.thresholds[i] <= 0D) {
+                    throw new InvalidConfigurationException("Dose thresholds must be positive.");
+                }
+            }
+            Arrays.sort(this.thresholds);
+
+            this.lugolsIodineMultiplier = section.getDouble("lugols-iodine-multiplier", 0D);
+            if (this.lugolsIodineMultiplier < 0D) {
+                throw new InvalidConfigurationException("Lugol's iodine dose multiplier must not be negative.");
+            }
+
+            this.flushInterval = section.getLong("flush-interval", DEFAULT_FLUSH_INTERVAL);
+            if (this.flushInterval <= 0L) {
+                throw new InvalidConfigurationException("Dose flush interval must be positive.");
+            }
+
+            this.flushBatchSize = section.getInt("flush-batch-size", DEFAULT_FLUSH_BATCH_SIZE);
+            if (this.flushBatchSize <= 0) {
+                throw new InvalidConfigurationException("Dose flush batch size must be positive.");
+            }
+        }
+
+        public static Config defaults() {
+            return new Config(DEFAULT_HALF_LIFE, new double[0], 0D, DEFAULT_FLUSH_INTERVAL, DEFAULT_FLUSH_BATCH_SIZE);
+        }
+
+        /** Half-life in milliseconds, {@code 0} if the dose never decays. */
+        public long halfLife() {
+            return this.halfLife * 1000L;
+        }
+
+        /** Ascending thresholds, do not modify the array. */
+        public double[] thresholds() {
+            return this.thresholds;
+        }
+
+        /** Multiplier of the dose rate while protected by lugol's iodine. */
+        public double lugolsIodineMultiplier() {
+            return this.lugolsIodineMultiplier;
+        }
+
+        /** Seconds between flushes to player data. */
+        public long flushInterval() {
+            return this.flushInterval;
+        }
+
+        /** Maximum number of players written in a single flush. */
+        public int flushBatchSize() {
+            return this.flushBatchSize;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Config config = (Config) o;
+            return this.halfLife == config.halfLife &&
+                    Arrays.equals(this.thresholds, config.thresholds) &&
+                    Double.compare(this.lugolsIodineMultiplier, config.lugolsIodineMultiplier) == 0 &&
+                    this.flushInterval == config.flushInterval &&
+                    this.flushBatchSize == config.flushBatchSize;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.halfLife, Arrays.hashCode(this.thresholds), this.lugolsIodineMultiplier, this.flushInterval, this.flushBatchSize);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import java.util.Objects;
+
+/**
+ * Called when the radiation dose of a player crosses one of the configured
+ * thresholds.
+ */
+public class DoseThresholdEvent extends Event {
+    private static final HandlerList HANDLER_LIST = new HandlerList();
+
+    @Override
+    public HandlerList getHandlers() {
+        return getHandlerList();
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLER_LIST;
+    }
+
+    private final Player player;
+    private final double threshold;
+    private final double dose;
+    private final boolean rising;
+
+    public DoseThresholdEvent(Player player, double threshold, double dose, boolean rising) {
+        this.player = Objects.requireNonNull(player, "player");
+        this.threshold = threshold;
+        this.dose = dose;
+        this.rising = rising;
+    }
+
+    public Player getPlayer() {
+        return this.player;
+    }
+
+    public double getThreshold() {
+        return this.threshold;
+    }
+
+    public double getDose() {
+        return this.dose;
+    }
+
+    /**
+     * @return {@code true} if the dose has risen above the threshold,
+     * {@code false} if it has decayed below.
+     */
+    public boolean isRising() {
+        return this.rising;
+    }
+}
@@ -0,0 +1,450 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.entity.AnimalTamer;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.Tameable;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Applies radiations to living entities other than players.
+ *
+ * Every cycle loaded chunks are classified with the {@link RegionIndex}, and
+ * the radioactive ones are queued. The queue is then drained chunk by chunk
+ * over the following ticks, within a budget of entities and time per tick.
+ * Entities are tracked by their runtime entity ID in open addressing tables,
+ * one for the current and one for the previous cycle.
+ *
+ * Lugol's iodine effects protect entities just like players. Effects of
+ * entities only wear off while they are visited in radiation.
+ */
+public class EntityRadiation {
+    static final Logger logger = Logger.getLogger(EntityRadiation.class.getName());
+
+    private static final UUID NOBODY = new UUID(0L, 0L);
+
+    private final Plugin plugin;
+    private final RegionIndexer regionIndexer;
+    private final WorldBoundsRegistry worldBounds;
+    private final LugolsIodineEffect effect;
+    private final DistanceField distanceField;
+    private final Function<String, Radiation> radiations;
+    private final Profiler profiler;
+    private final Config config;
+
+    // Chunks queued in this cycle
+    private final List<World> queueWorlds = new ArrayList<>();
+    private int[] queueWorld = new int[256];
+    private int[] queueX = new int[256];
+    private int[] queueZ = new int[256];
+    /** Radiation ID of the whole chunk, or {@link RegionLookup#UNRESOLVED}. */
+    private String[] queueRadiation = new String[256];
+    private int queueHead;
+    private int queueSize;
+
+    private VisitTable visited = new VisitTable();
+    private VisitTable previouslyVisited = new VisitTable();
+
+    /** Reused for every entity, only used from the main thread. */
+    private final Location location = new Location(null, 0D, 0D, 0D);
+
+    private BukkitTask task;
+    private int tick;
+    private int cycleStart;
+
+    /**
+     * @param distanceField Field choosing tiers of radiations, or {@code null}.
+     * @param radiations Finds enabled radiations by their ID.
+     */
+    public EntityRadiation(Plugin plugin, RegionIndexer regionIndexer, WorldBoundsRegistry worldBounds, LugolsIodineEffect effect,
+                           DistanceField distanceField, Function<String, Radiation> radiations, Profiler profiler, Config config) {
+        this.plugin = Objects.requireNonNull(plugin, "plugin");
+        this.regionIndexer = Objects.requireNonNull(regionIndexer, "regionIndexer");
+        this.worldBounds = Objects.requireNonNull(worldBounds, "worldBounds");
+        this.effect = Objects.requireNonNull(effect, "effect");
+        this.distanceField = distanceField;
+        this.radiations = Objects.requireNonNull(radiations, "radiations");
+        this.profiler = Objects.requireNonNull(profiler, "profiler");
+        this.config = Objects.requireNonNull(config, "config");
+    }
+
+    public void enable() {
+        this.cycleStart = -this.config.period();
+        this.task = this.plugin.getServer().getScheduler().runTaskTimer(this.plugin, this::tick, 1L, 1L);
+    }
+
+    public void disable() {
+        if (this.task != null) {
+            this.task.cancel();
+            this.task = null;
+        }
+
+        this.clearQueue();
+        this.visited.clear();
+        this.previouslyVisited.clear();
+    }
+
+    private void tick() {
+        this.tick++;
+        if (this.queueHead == this.queueSize && this.tick - this.cycleStart >= this.config.period()) {
+            this.startCycle();
+        }
+        if (this.queueHead == this.queueSize) {
+            return;
+        }
+
+        long start = this.profiler.start();
+        long deadline = start + this.config.maxTickNanos();
+        int evaluated = 0;
+
+        // the budget is checked between chunks, a chunk is never split
+        while (this.queueHead < this.queueSize && evaluated < this.config.maxEntitiesPerTick() && System.nanoTime() < deadline) {
+            int i = this.queueHead++;
+            World world = this.queueWorlds.get(this.queueWorld[i]);
+            if (!world.isChunkLoaded(this.queueX[i], this.queueZ[i])) {
+                continue;
+            }
+
+            Chunk chunk = world.getChunkAt(this.queueX[i], this.queueZ[i]);
+            for (Entity entity : chunk.getEntities()) {
+                if (this.visit(world, entity, this.queueRadiation[i])) {
+                    evaluated++;
+                }
+            }
+        }
+
+        if (this.queueHead == this.queueSize) {
+            this.clearQueue();
+        }
+
+        this.profiler.add(Profiler.Counter.ENTITIES_EVALUATED, evaluated);
+        this.profiler.stop(Profiler.Timer.ENTITY_TICK, start);
+    }
+
+    private void startCycle() {
+        this.cycleStart = this.tick;
+
+        VisitTable previous = this.previouslyVisited;
+        this.previouslyVisited = this.visited;
+        this.visited = previous;
+        this.visited.clear();
+
+        RegionIndex index = this.regionIndexer.current();
+        for (World world : this.plugin.getServer().getWorlds()) {
+            WorldBoundsRegistry.Bounds bounds = this.worldBounds.get(world);
+            int worldIndex = this.queueWorlds.size();
+            int queued = this.queueSize;
+
+            for (Chunk chunk : world.getLoadedChunks()) {
+                String radiationId = index.classify(world.getName(), chunk.getX(), chunk.getZ(), bounds.minY(), bounds.maxY());
+                if (radiationId != null) {
+                    this.enqueue(worldIndex, chunk.getX(), chunk.getZ(), radiationId);
+                }
+            }
+
+            if (this.queueSize != queued) {
+                this.queueWorlds.add(world);
+            }
+        }
+    }
+
+    private void enqueue(int world, int chunkX, int chunkZ, String radiationId) {
+        if (this.queueSize == this.queueX.length) {
+            int length = this.queueSize * 2;
+            this.queueWorld = Arrays.copyOf(this.queueWorld, length);
+            this.queueX = Arrays.copyOf(this.queueX, length);
+            this.queueZ = Arrays.copyOf(this.queueZ, length);
+            this.queueRadiation = Arrays.copyOf(this.queueRadiation, length);
+        }
+
+        this.queueWorld[this.queueSize] = world;
+        this.queueX[this.queueSize] = chunkX;
+        this.queueZ[this.queueSize] = chunkZ;
+        this.queueRadiation[this.queueSize] = radiationId;
+        this.queueSize++;
+    }
+
+    private void clearQueue() {
+        Arrays.fill(this.queueRadiation, 0, this.queueSize, null);
+        this.queueWorlds.clear();
+        this.queueHead = 0;
+        this.queueSize = 0;
+    }
+
+    /**
+     * @return {@code true} if the entity counts towards the budget.
+     */
+    private boolean visit(World world, Entity entity, String radiationId) {
+        if (!(entity instanceof LivingEntity) || entity instanceof Player || entity.isDead() ||
+                this.config.excludedTypes().contains(entity.getType())) {
+            return false;
+        }
+
+        int entityId = entity.getEntityId();
+        if (!this.visited.put(entityId, this.tick)) {
+            return false; // moved to another chunk in this cycle
+        }
+        int lastVisit = this.previouslyVisited.get(entityId);
+
+        Location location = entity.getLocation(this.location);
+        if (radiationId == RegionLookup.UNRESOLVED) {
+            radiationId = this.regionIndexer.resolve(world.getName(), location.getBlockX(), location.getBlockY(), location.getBlockZ(), this.associatedPlayer(entity));
+            if (radiationId == null || radiationId == RegionLookup.UNRESOLVED) {
+                return true; // safe, or needs a precise WorldGuard query which is too slow here
+            }
+        }
+
+        Radiation radiation = this.radiations.apply(radiationId);
+        if (radiation == null) {
+            return true;
+        }
+
+        if (this.effect.hasEffects(entity)) {
+            Duration timePassed = Duration.ofMillis(lastVisit < 0 ? 0L : (this.tick - lastVisit) * 50L);
+            try {
+                for (LugolsIodineEffect.Effect effect : this.effect.timePassed(entity, timePassed)) {
+                    if (effect.canEnter(radiation)) {
+                        return true;
+                    }
+                }
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not tick effects on entity '" + entity + "'.", e);
+            }
+        }
+
+        RadiationProfile profile = radiation.getProfile();
+        int tier = 0;
+        if (this.distanceField != null && profile.hasTiers()) {
+            tier = profile.tier(this.distanceField.depth(world.getName(), location.getBlockX(), location.getBlockZ()));
+        }
+
+        LivingEntity livingEntity = (LivingEntity) entity;
+        for (PotionEffect effect : profile.effects(tier)) {
+            livingEntity.addPotionEffect(effect, true);
+        }
+        return true;
+    }
+
+    /**
+     * Owners of tamed animals are treated as their members in regions.
+     */
+    private UUID associatedPlayer(Entity entity) {
+        if (entity instanceof Tameable) {
+            AnimalTamer owner = ((Tameable) entity).getOwner();
+            if (owner != null) {
+                return owner.getUniqueId();
+            }
+        }
+        return NOBODY;
+    }
+
+    /**
+     * Open addressing map of entity IDs to the tick they were visited at.
+     */
+    static class VisitTable {
+        private static final int EMPTY = 0;
+
+        /** Entity IDs plus one, {@link #EMPTY} for free slots. */
+        private int[] keys = new int[1024];
+        private int[] ticks = new int[1024];
+        private int size;
+
+        /**
+         * @return {@code false} if the entity has already been visited.
+         */
+        boolean put(int entityId, int tick) {
+            if ((this.size + 1) * 2 > this.keys.length) {
+                this.grow();
+            }
+
+            int key = entityId + 1;
+            int mask = this.keys.length - 1;
+            for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+                if (this.keys[i] == key) {
+                    return false;
+                } else if (this.keys[i] == EMPTY) {
+                    this.keys[i] = key;
+                    this.ticks[i] = tick;
+                    this.size++;
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * @return Tick the entity was visited at, or {@code -1}.
+         */
+        int get(int entityId) {
+            int key = entityId + 1;
+            int mask = this.keys.length - 1;
+            for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+                if (this.keys[i] == key) {
+                    return this.ticks[i];
+                } else if (this.keys[i] == EMPTY) {
+                    return -1;
+                }
+            }
+        }
+
+        void clear() {
+            if (this.size != 0) {
+                Arrays.fill(this.keys, EMPTY);
+                this.size = 0;
+            }
+        }
+
+        private void grow() {
+            int[] keys = this.keys;
+            int[] ticks = this.ticks;
+            this.keys = new int[keys.length * 2];
+            this.ticks = new int[keys.length * 2];
+            this.size = 0;
+
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY) {
+                    this.put(keys[i] - 1, ticks[i]);
+                }
+            }
+        }
+
+        /** Entity IDs are sequential, spread them over the table. */
+        private static int mix(int key) {
+            int hash = key * 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    //
+    // Config
+    //
+
+    public static class Config {
+        public static final int DEFAULT_PERIOD = 20;
+        public static final int DEFAULT_MAX_ENTITIES_PER_TICK = 500;
+        public static final double DEFAULT_MAX_TICK_MILLIS = 2D;
+
+        private final boolean enabled;
+        private final int period;
+        private final int maxEntitiesPerTick;
+        private final double maxTickMillis;
+        private final Set<EntityType> excludedTypes;
+
+        public Config(boolean enabled, int period, int maxEntitiesPerTick, double maxTickMillis, Set<EntityType> excludedTypes) {
+            this.enabled = enabled;
+            this.period = period;
+            this.maxEntitiesPerTick = maxEntitiesPerTick;
+            this.maxTickMillis = maxTickMillis;
+            this.excludedTypes = Objects.requireNonNull(excludedTypes, "excludedTypes");
+        }
+
+        public Config(ConfigurationSection section) throws InvalidConfigurationException {
+            if (section == null) {
+                section = new MemoryConfiguration();
+            }
+
+            this.enabled = section.getBoolean("enabled", false);
+
+            this.period = section.getInt("period", DEFAULT_PERIOD);
+            if (this.period <= 0) {
+                throw new InvalidConfigurationException("Entity radiation period must be positive.");
+            }
+
+            this.maxEntitiesPerTick = section.getInt("max-entities-per-tick", DEFAULT_MAX_ENTITIES_PER_TICK);
+            if (this.maxEntitiesPerTick <= 0) {
+                throw new InvalidConfigurationException("Entity radiation max-entities-per-tick must be positive.");
+            }
+
+            this.maxTickMillis = section.getDouble("max-tick-millis", DEFAULT_MAX_TICK_MILLIS);
+            if (this.maxTickMillis <= 0D) {
+                throw new InvalidConfigurationException("Entity radiation max-tick-millis must be positive.");
+            }
+
+            Set<EntityType> excludedTypes = EnumSet.noneOf(EntityType.class);
+            List<String> excluded = section.isList("excluded-types")
+                    ? section.getStringList("excluded-types")
+                    : Collections.singletonList(EntityType.ARMOR_STAND.name());
+            for (String type : excluded) {
+                try {
+                    excludedTypes.add(EntityType.valueOf(type.toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new InvalidConfigurationException("Unknown entity type: " + type);
+                }
+            }
+            this.excludedTypes = Collections.unmodifiableSet(excludedTypes);
+        }
+
+        public static Config disabled() {
+            return new Config(false, DEFAULT_PERIOD, DEFAULT_MAX_ENTITIES_PER_TICK, DEFAULT_MAX_TICK_MILLIS,
+                    Collections.unmodifiableSet(EnumSet.of(EntityType.ARMOR_STAND)));
+        }
+
+        public boolean enabled() {
+            return this.enabled;
+        }
+
+        /**
+         * Ticks between the starts of cycles, a cycle takes longer if the
+         * budget doesn't allow to visit every chunk in time.
+         */
+        public int period() {
+            return this.period;
+        }
+
+        public int maxEntitiesPerTick() {
+            return this.maxEntitiesPerTick;
+        }
+
+        public double maxTickMillis() {
+            return this.maxTickMillis;
+        }
+
+        long maxTickNanos() {
+            return (long) (this.maxTickMillis * 1_000_000D);
+        }
+
+        public Set<EntityType> excludedTypes() {
+            return this.excludedTypes;
+        }
+    }
+}
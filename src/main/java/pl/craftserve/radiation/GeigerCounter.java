@@ -0,0 +1,366 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import net.md_5.bungee.api.ChatMessageType;
+import net.md_5.bungee.api.chat.TextComponent;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Server;
+import org.bukkit.Sound;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Item showing the distance and direction to the nearest radiation
+ * boundary, clicking faster deeper in radiation.
+ *
+ * Holders are looked up and measured once a second against the
+ * {@link BoundaryIndex} of the {@link DistanceField}. Clicks of all holders
+ * are scheduled on a single timer wheel advanced every tick.
+ */
+public class GeigerCounter implements Listener {
+    private static final long UPDATE_PERIOD_TICKS = 20L;
+    /** Ticks covered by the wheel, longer click periods are clamped. */
+    private static final int WHEEL_SIZE = 64;
+    private static final String[] ARROWS = { "↑", "↗", "→", "↘", "↓", "↙", "←", "↖" };
+
+    private final Plugin plugin;
+    private final PlayerIndex playerIndex;
+    private final DistanceField distanceField;
+    private final Config config;
+    private final NamespacedKey itemKey;
+
+    /** Slots of players holding a counter. */
+    private final BitSet holders = new BitSet();
+    /** Slots of players currently in the wheel. */
+    private final BitSet scheduled = new BitSet();
+    /** Ticks between clicks by player slot, {@code 0} when silent. */
+    private int[] periods = new int[64];
+    /** Next player slot in the same wheel bucket, {@code -1} at the end. */
+    private int[] next = new int[64];
+    /** First player slot of every wheel bucket, {@code -1} when empty. */
+    private final int[] buckets = new int[WHEEL_SIZE];
+    /** Reused for every holder, only used from the main thread. */
+    private final Location location = new Location(null, 0D, 0D, 0D);
+
+    private BukkitTask task;
+    private long tick;
+
+    public GeigerCounter(Plugin plugin, PlayerIndex playerIndex, DistanceField distanceField, Config config) {
+        this.plugin = Objects.requireNonNull(plugin, "plugin");
+        this.playerIndex = Objects.requireNonNull(playerIndex, "playerIndex");
+        this.distanceField = Objects.requireNonNull(distanceField, "distanceField");
+        this.config = Objects.requireNonNull(config, "config");
+
+        this.itemKey = new NamespacedKey(this.plugin, "geiger_counter");
+    }
+
+    public void enable() {
+        Arrays.fill(this.buckets, -1);
+        this.task = this.plugin.getServer().getScheduler().runTaskTimer(this.plugin, this::tick, 1L, 1L);
+        this.plugin.getServer().getPluginManager().registerEvents(this, this.plugin);
+    }
+
+    public void disable() {
+        HandlerList.unregisterAll(this);
+        if (this.task != null) {
+            this.task.cancel();
+            this.task = null;
+        }
+
+        this.holders.clear();
+        this.scheduled.clear();
+    }
+
+    public ItemStack createItemStack() {
+        ItemStack itemStack = new ItemStack(this.config.material());
+        ItemMeta itemMeta = Objects.requireNonNull(itemStack.getItemMeta());
+        itemMeta.setDisplayName(this.config.name());
+        itemMeta.setLore(this.config.lore());
+        itemMeta.getPersistentDataContainer().set(this.itemKey, PersistentDataType.BYTE, (byte) 1);
+        itemStack.setItemMeta(itemMeta);
+        return itemStack;
+    }
+
+    public boolean isCounter(ItemStack itemStack) {
+        // compare the type first, reading the meta copies it
+        if (itemStack == null || itemStack.getType() != this.config.material() || !itemStack.hasItemMeta()) {
+            return false;
+        }
+
+        ItemMeta itemMeta = itemStack.getItemMeta();
+        return itemMeta != null && itemMeta.getPersistentDataContainer().has(this.itemKey, PersistentDataType.BYTE);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        int slot = this.playerIndex.find(event.getPlayer().getUniqueId());
+        if (slot >= 0) {
+            // the slot may still be linked in the wheel, it's dropped when its bucket comes
+            this.holders.clear(slot);
+            if (slot < this.periods.length) {
+                this.periods[slot] = 0;
+            }
+        }
+    }
+
+    private void tick() {
+        this.tick++;
+        if (this.tick % UPDATE_PERIOD_TICKS == 0L) {
+            this.update();
+        }
+
+        int bucket = (int) (this.tick % WHEEL_SIZE);
+        int slot = this.buckets[bucket];
+        this.buckets[bucket] = -1;
+
+        Server server = this.plugin.getServer();
+        while (slot >= 0) {
+            int nextSlot = this.next[slot];
+            this.scheduled.clear(slot);
+
+            if (this.holders.get(slot) && this.periods[slot] > 0) {
+                UUID playerId = this.playerIndex.playerId(slot);
+                Player player = playerId != null ? server.getPlayer(playerId) : null;
+                if (player != null) {
+                    player.playSound(player.getLocation(this.location), this.config.sound(), 0.5F, 1F);
+                    this.schedule(slot, this.periods[slot]);
+                }
+            }
+            slot = nextSlot;
+        }
+    }
+
+    private void schedule(int slot, int delay) {
+        int bucket = (int) ((this.tick + Math.min(delay, WHEEL_SIZE - 1)) % WHEEL_SIZE);
+        this.next[slot] = this.buckets[bucket];
+        this.buckets[bucket] = slot;
+        this.scheduled.set(slot);
+    }
+
+    private void update() {
+        for (Player player : this.plugin.getServer().getOnlinePlayers()) {
+            PlayerInventory inventory = player.getInventory();
+            if (!this.isCounter(inventory.getItemInMainHand()) && !this.isCounter(inventory.getItemInOffHand())) {
+                int slot = this.playerIndex.find(player.getUniqueId());
+                if (slot >= 0) {
+                    this.holders.clear(slot);
+                }
+                continue;
+            }
+
+            int slot = this.playerIndex.slot(player);
+            if (slot >= this.periods.length) {
+                int length = Math.max(this.periods.length * 2, slot + 1);
+                this.periods = Arrays.copyOf(this.periods, length);
+                this.next = Arrays.copyOf(this.next, length);
+            }
+            this.holders.set(slot);
+
+            this.periods[slot] = this.measure(player);
+            if (this.periods[slot] > 0 && !this.scheduled.get(slot)) {
+                this.schedule(slot, this.periods[slot]);
+            }
+        }
+    }
+
+    /**
+     * Show the nearest boundary to the player.
+     *
+     * @return Ticks between clicks, {@code 0} when silent.
+     */
+    private int measure(Player player) {
+        Location location = player.getLocation(this.location);
+        World world = Objects.requireNonNull(location.getWorld(), "world");
+
+        List<BoundaryIndex.Hit> hits = this.distanceField.boundaries(world.getName()).nearest(location.getX(), location.getZ(), 1);
+        boolean inside = this.distanceField.depth(world.getName(), location.getBlockX(), location.getBlockZ()) > 0;
+        if (hits.isEmpty()) {
+            return inside ? this.period(1D) : 0;
+        }
+
+        BoundaryIndex.Hit hit = hits.get(0);
+        double dx = hit.x() - location.getX();
+        double dz = hit.z() - location.getZ();
+        double yaw = Math.toDegrees(Math.atan2(-dx, dz)) - location.getYaw();
+        int arrow = (int) Math.round((((yaw % 360D) + 360D) % 360D) / 45D) % ARROWS.length;
+
+        String message = this.config.message().format(new Object[] { (int) Math.round(hit.distance()), ARROWS[arrow] });
+        player.spigot().sendMessage(ChatMessageType.ACTION_BAR, TextComponent.fromLegacyText(message));
+
+        // half the intensity at the boundary, full at the range into radiation
+        double signedDistance = inside ? hit.distance() : -hit.distance();
+        double range = this.config.range();
+        return this.period(Math.max(0D, Math.min(1D, (signedDistance + range) / (2D * range))));
+    }
+
+    private int period(double intensity) {
+        double clicksPerSecond = this.config.maxClicksPerSecond() * intensity;
+        if (clicksPerSecond * (WHEEL_SIZE - 1) < 20D) {
+            return 0; // rarer than the wheel can schedule
+        }
+        return Math.max(1, (int) Math.round(20D / clicksPerSecond));
+    }
+
+    //
+    // Config
+    //
+
+    public static class Config {
+        public static final Material DEFAULT_MATERIAL = Material.CLOCK;
+        public static final int DEFAULT_RANGE = 64;
+        public static final double DEFAULT_MAX_CLICKS_PER_SECOND = 10D;
+        public static final Sound DEFAULT_SOUND = Sound.BLOCK_NOTE_BLOCK_HAT;
+
+        private final boolean enabled;
+        private final Material material;
+        private final String name;
+        private final List<String> lore;
+        private final int range;
+        private final double maxClicksPerSecond;
+        private final Sound sound;
+        private final MessageFormat message;
+
+        public Config(boolean enabled, Material material, String name, List<String> lore, int range, double maxClicksPerSecond, Sound sound, String message) {
+            this.enabled = enabled;
+            this.material = Objects.requireNonNull(material, "material");
+            this.name = Objects.requireNonNull(name, "name");
+            this.lore = Objects.requireNonNull(lore, "lore");
+            this.range = range;
+            this.maxClicksPerSecond = maxClicksPerSecond;
+            this.sound = Objects.requireNonNull(sound, "sound");
+            this.message = new MessageFormat(Objects.requireNonNull(message, "message"));
+        }
+
+        public Config(ConfigurationSection section) throws InvalidConfigurationException {
+            if (section == null) {
+                section = new MemoryConfiguration();
+            }
+
+            this.enabled = section.getBoolean("enabled", false);
+
+            String material = section.getString("material", DEFAULT_MATERIAL.name());
+            this.material = material != null ? Material.matchMaterial(material) : null;
+            if (this.material == null || !this.material.isItem()) {
+                throw new InvalidConfigurationException("Unknown item material: " + material);
+            }
+
+            this.name = RadiationPlugin.colorize(section.getString("name", "Geiger Counter"));
+
+            List<String> lore = new ArrayList<>();
+            for (String line : section.getStringList("lore")) {
+                lore.add(RadiationPlugin.colorize(line));
+            }
+            this.lore = Collections.unmodifiableList(lore);
+
+            this.range = section.getInt("range", DEFAULT_RANGE);
+            if (this.range <= 0) {
+                throw new InvalidConfigurationException("Geiger counter range must be positive.");
+            }
+
+            this.maxClicksPerSecond = section.getDouble("max-clicks-per-second", DEFAULT_MAX_CLICKS_PER_SECOND);
+            if (this.maxClicksPerSecond <= 0D || this.maxClicksPerSecond > 20D) {
+                throw new InvalidConfigurationException("Geiger counter clicks per second must be in range from 0 to 20.");
+            }
+
+            String sound = section.getString("sound", DEFAULT_SOUND.name());
+            try {
+                this.sound = Sound.valueOf(Objects.requireNonNull(sound).toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new InvalidConfigurationException("Unknown sound: " + sound);
+            }
+
+            String message = RadiationPlugin.colorize(section.getString("message", "{0} m {1}"));
+            try {
+                this.message = new MessageFormat(message);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidConfigurationException("Invalid geiger counter message: " + message, e);
+            }
+        }
+
+        public static Config disabled() {
+            return new Config(false, DEFAULT_MATERIAL, "Geiger Counter", Collections.emptyList(), DEFAULT_RANGE,
+                    DEFAULT_MAX_CLICKS_PER_SECOND, DEFAULT_SOUND, "{0} m {1}");
+        }
+
+        public boolean enabled() {
+            return this.enabled;
+        }
+
+        public Material material() {
+            return this.material;
+        }
+
+        public String name() {
+            return this.name;
+        }
+
+        public List<String> lore() {
+            return this.lore;
+        }
+
+        /**
+         * Distance in blocks from the boundary at which clicks fade out
+         * outside, and reach the maximum rate inside radiation.
+         */
+        public int range() {
+            return this.range;
+        }
+
+        public double maxClicksPerSecond() {
+            return this.maxClicksPerSecond;
+        }
+
+        public Sound sound() {
+            return this.sound;
+        }
+
+        /**
+         * Action bar message, {0} is the distance and {1} the direction.
+         * Not thread-safe, format it on the main thread only.
+         */
+        public MessageFormat message() {
+            return this.message;
+        }
+    }
+}
@@ -31,13 +31,12 @@ import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitRunnable;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -52,20 +51,43 @@ public class LugolsIodineDisplay implements Listener {
             BarStyle.SEGMENTED_20,
             new BarFlag[0]);
 
-    private final Map<UUID, Display> displayMap = new HashMap<>(128);
+    /** Displays by {@link PlayerIndex} slot. */
+    private Display[] displays = new Display[64];
     private final Plugin plugin;
+    private final PlayerIndex playerIndex;
+    /** Whether the player index is enabled along with this display. */
+    private final boolean ownsPlayerIndex;
     private final LugolsIodineEffect effectHandler;
     private final Map<String, BarConfig> configs;
+    private final Profiler profiler;
 
     private Task task;
 
+    /**
+     * Standalone display with its own player index, enabled along with it.
+     */
     public LugolsIodineDisplay(Plugin plugin, LugolsIodineEffect effectHandler, Map<String, BarConfig> configs) {
+        this(plugin, new PlayerIndex(plugin), true, effectHandler, configs, new Profiler());
+    }
+
+    public LugolsIodineDisplay(Plugin plugin, PlayerIndex playerIndex, LugolsIodineEffect effectHandler, Map<String, BarConfig> configs, Profiler profiler) {
+        this(plugin, playerIndex, false, effectHandler, configs, profiler);
+    }
+
+    private LugolsIodineDisplay(Plugin plugin, PlayerIndex playerIndex, boolean ownsPlayerIndex, LugolsIodineEffect effectHandler, Map<String, BarConfig> configs, Profiler profiler) {
         this.plugin = Objects.requireNonNull(plugin, "plugin");
+        this.playerIndex = Objects.requireNonNull(playerIndex, "playerIndex");
+        this.ownsPlayerIndex = ownsPlayerIndex;
         this.effectHandler = Objects.requireNonNull(effectHandler, "effectHandler");
         this.configs = Objects.requireNonNull(configs, "configs");
+        this.profiler = Objects.requireNonNull(profiler, "profiler");
     }
 
     public void enable() {
+        if (this.ownsPlayerIndex) {
+            this.playerIndex.enable();
+        }
+
         this.task = new Task();
         this.task.runTaskTimer(this.plugin, 20L, 20L);
 
@@ -79,20 +101,58 @@ public class LugolsIodineDisplay implements Listener {
             this.task.cancel();
         }
 
-        this.displayMap.values().forEach(Display::removeAll);
-        this.displayMap.clear();
+        for (Display display : this.displays) {
+            if (display != null) {
+                display.removeAll();
+            }
+        }
+        Arrays.fill(this.displays, null);
+
+        if (this.ownsPlayerIndex) {
+            this.playerIndex.disable();
+        }
+    }
+
+    /**
+     * Update boss bars of all online players now, instead of on the next run.
+     */
+    public void refresh() {
+        if (this.task != null) {
+            this.task.run();
+        }
+    }
+
+    public Map<String, BarConfig> getConfigs() {
+        return this.configs;
     }
 
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerQuit(PlayerQuitEvent event) {
-        UUID playerId = event.getPlayer().getUniqueId();
-        Display display = this.displayMap.remove(playerId);
+        int slot = this.playerIndex.find(event.getPlayer().getUniqueId());
+        if (slot < 0 || slot >= this.displays.length) {
+            return;
+        }
 
+        Display display = this.displays[slot];
+        this.displays[slot] = null;
         if (display != null) {
             display.removeAll();
         }
     }
 
+    private Display display(Player player) {
+        int slot = this.playerIndex.slot(player);
+        if (slot >= this.displays.length) {
+            this.displays = Arrays.copyOf(this.displays, Math.max(slot + 1, this.displays.length * 2));
+        }
+
+        Display display = this.displays[slot];
+        if (display == null) {
+            display = this.displays[slot] = new Display();
+        }
+        return display;
+    }
+
     class Display {
         private final Map<String, BossBar> bossBarMap = new LinkedHashMap<>();
 
@@ -106,6 +166,7 @@ public class LugolsIodineDisplay implements Listener {
 
             bossBar.setProgress((double) effect.getTimeLeft().toMillis() / effect.getInitialDuration().toMillis());
             bossBar.addPlayer(player);
+            profiler.increment(Profiler.Counter.PACKETS_SENT);
             return bossBar;
         }
 
@@ -116,6 +177,7 @@ public class LugolsIodineDisplay implements Listener {
             BossBar bossBar = this.bossBarMap.remove(effectId);
             if (bossBar != null) {
                 bossBar.removePlayer(player);
+                profiler.increment(Profiler.Counter.PACKETS_SENT);
             }
         }
 
@@ -165,6 +227,7 @@ public class LugolsIodineDisplay implements Listener {
     class Task extends BukkitRunnable {
         @Override
         public void run() {
+            long start = profiler.start();
             plugin.getServer().getOnlinePlayers().forEach(player -> {
                 List<LugolsIodineEffect.Effect> effectList;
                 try {
@@ -174,9 +237,9 @@ public class LugolsIodineDisplay implements Listener {
                     return;
                 }
 
-                Display display = displayMap.computeIfAbsent(player.getUniqueId(), playerId -> new Display());
-                display.update(player, effectList);
+                display(player).update(player, effectList);
             });
+            profiler.stop(Profiler.Timer.DISPLAY_TICK, start);
         }
     }
 }
@@ -28,10 +28,12 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.entity.EntityResurrectEvent;
 import org.bukkit.event.entity.PlayerDeathEvent;
 import org.bukkit.event.player.PlayerItemConsumeEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitRunnable;
+import pl.craftserve.radiation.jfr.RadiationFlightRecorder;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -40,11 +42,13 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -54,21 +58,49 @@ public class LugolsIodineEffect implements Listener {
 
     private static final Duration TASK_PERIOD = Duration.ofSeconds(1);
 
-    private NamespacedKey entityStorageKey;
-    private NamespacedKey legacyInitialSecondsKey;
-    private NamespacedKey legacySecondsLeftKey;
+    private final NamespacedKey entityStorageKey;
+    private final NamespacedKey legacyInitialSecondsKey;
+    private final NamespacedKey legacySecondsLeftKey;
+
+    /** {@link PlayerIndex} slots of online players with at least one effect. */
+    private final BitSet affectedPlayers = new BitSet();
+    /** Cardinality of {@link #affectedPlayers}, may be read from any thread. */
+    private final AtomicInteger affectedCount = new AtomicInteger();
 
     private final Plugin plugin;
+    private final PlayerIndex playerIndex;
+    /** Whether the player index is enabled along with this handler. */
+    private final boolean ownsPlayerIndex;
+    private final Profiler profiler;
+    private double doseMultiplier;
     private Task task;
 
+    /**
+     * Standalone handler with its own player index, enabled along with it.
+     */
     public LugolsIodineEffect(Plugin plugin) {
-        this.plugin = Objects.requireNonNull(plugin, "plugin");
+        this(plugin, new PlayerIndex(plugin), true, new Profiler());
     }
 
-    public void enable() {
+    public LugolsIodineEffect(Plugin plugin, PlayerIndex playerIndex, Profiler profiler) {
+        this(plugin, playerIndex, false, profiler);
+    }
+
+    private LugolsIodineEffect(Plugin plugin, PlayerIndex playerIndex, boolean ownsPlayerIndex, Profiler profiler) {
+        this.plugin = Objects.requireNonNull(plugin, "plugin");
+        this.playerIndex = Objects.requireNonNull(playerIndex, "playerIndex");
+        this.ownsPlayerIndex = ownsPlayerIndex;
+        this.profiler = Objects.requireNonNull(profiler, "profiler");
+
         this.entityStorageKey = new NamespacedKey(this.plugin, "effect_data");
         this.legacyInitialSecondsKey = new NamespacedKey(this.plugin, "initial_seconds");
         this.legacySecondsLeftKey = new NamespacedKey(this.plugin, "seconds_left");
+    }
+
+    public void enable() {
+        if (this.ownsPlayerIndex) {
+            this.playerIndex.enable();
+        }
 
         this.task = new Task();
         this.task.runTaskTimer(this.plugin, 0L, TASK_PERIOD.toMillis() / 50L);
@@ -82,6 +114,13 @@ public class LugolsIodineEffect implements Listener {
         if (this.task != null) {
             this.task.cancel();
         }
+
+        this.affectedPlayers.clear();
+        this.affectedCount.set(0);
+
+        if (this.ownsPlayerIndex) {
+            this.playerIndex.disable();
+        }
     }
 
     public void appendEffect(Entity entity, Effect effect) throws IOException {
@@ -110,6 +149,7 @@ public class LugolsIodineEffect implements Listener {
         }
 
         this.writeEffects(container, effectList);
+        this.updateAffected(entity, true);
     }
 
     public List<Effect> getEffects(Entity entity) throws IOException {
@@ -126,9 +166,85 @@ public class LugolsIodineEffect implements Listener {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Cheap check whether the entity may have any effects, without reading
+     * them.
+     */
+    public boolean hasEffects(Entity entity) {
+        Objects.requireNonNull(entity, "entity");
+
+        PersistentDataContainer container = entity.getPersistentDataContainer();
+        return container.has(this.entityStorageKey, PersistentDataType.BYTE_ARRAY) ||
+                container.has(this.legacySecondsLeftKey, PersistentDataType.INTEGER);
+    }
+
+    /**
+     * Shorten effects of the entity. Effects of online players are shortened
+     * every second, other entities must be ticked by the caller.
+     *
+     * @return Effects still active on the entity.
+     */
+    public List<Effect> timePassed(Entity entity, Duration timePassed) throws IOException {
+        Objects.requireNonNull(entity, "entity");
+        Objects.requireNonNull(timePassed, "timePassed");
+
+        List<Effect> effectList;
+        try {
+            effectList = this.getEffects(entity);
+        } catch (IOException e) {
+            throw new IOException("Could not get effects.", e);
+        }
+
+        effectList = effectList.stream()
+                .map(effect -> effect.timePassed(timePassed))
+                .collect(Collectors.toList());
+
+        try {
+            this.writeEffects(entity.getPersistentDataContainer(), effectList);
+        } catch (IOException e) {
+            throw new IOException("Could not write effects.", e);
+        }
+
+        List<Effect> active = effectList.stream()
+                .filter(effect -> !effect.getTimeLeft().isNegative())
+                .collect(Collectors.toList());
+        this.updateAffected(entity, !active.isEmpty());
+        return active;
+    }
+
     public void removeAllEffects(Entity entity) {
         Objects.requireNonNull(entity, "entity");
         this.removeAllEffects(entity.getPersistentDataContainer());
+        this.updateAffected(entity, false);
+    }
+
+    /**
+     * Set multiplier of the dose received by protected players.
+     */
+    public void setDoseMultiplier(double doseMultiplier) {
+        this.doseMultiplier = doseMultiplier;
+    }
+
+    /**
+     * Number of online players having at least one effect. This is a live
+     * counter, it doesn't read any player data.
+     */
+    public int getAffectedCount() {
+        return this.affectedCount.get();
+    }
+
+    private void updateAffected(Entity entity, boolean affected) {
+        Objects.requireNonNull(entity, "entity");
+
+        if (!(entity instanceof Player)) {
+            return;
+        }
+
+        int slot = this.playerIndex.slot((Player) entity);
+        if (this.affectedPlayers.get(slot) != affected) {
+            this.affectedPlayers.set(slot, affected);
+            this.affectedCount.addAndGet(affected ? 1 : -1);
+        }
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -148,6 +264,15 @@ public class LugolsIodineEffect implements Listener {
         this.removeAllEffects(event.getEntity());
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        int slot = this.playerIndex.find(event.getPlayer().getUniqueId());
+        if (slot >= 0 && this.affectedPlayers.get(slot)) {
+            this.affectedPlayers.clear(slot);
+            this.affectedCount.decrementAndGet();
+        }
+    }
+
     @EventHandler(priority = EventPriority.LOWEST, ignoreCancelled = true)
     public void onRadiation(RadiationEvent event) {
         Player player = event.getPlayer();
@@ -165,6 +290,7 @@ public class LugolsIodineEffect implements Listener {
             if (effect.canEnter(radiation)) {
                 event.setCancelled(true);
                 event.setShowWarning(true);
+                event.setDoseMultiplier(this.doseMultiplier);
                 break;
             }
         }
@@ -215,9 +341,18 @@ public class LugolsIodineEffect implements Listener {
         this.appendEffect(entity, effect);
     }
 
-    private List<Effect> readEffects(PersistentDataContainer container) throws IOException {
+    List<Effect> readEffects(PersistentDataContainer container) throws IOException {
         Objects.requireNonNull(container, "container");
 
+        long start = this.profiler.start();
+        try {
+            return this.readEffects0(container);
+        } finally {
+            this.profiler.stop(Profiler.Timer.PDC_READ, start);
+        }
+    }
+
+    private List<Effect> readEffects0(PersistentDataContainer container) throws IOException {
         if (!container.has(this.entityStorageKey, PersistentDataType.BYTE_ARRAY)) {
             return Collections.emptyList();
         }
@@ -227,6 +362,7 @@ public class LugolsIodineEffect implements Listener {
             return Collections.emptyList();
         }
 
+        Object event = RadiationFlightRecorder.beginEffectSerialization();
         List<Effect> effectList = new ArrayList<>();
         try (Closer closer = Closer.create()) {
             ByteArrayInputStream byteArrayInputStream = closer.register(new ByteArrayInputStream(bytes));
@@ -256,17 +392,28 @@ public class LugolsIodineEffect implements Listener {
             }
         }
 
+        RadiationFlightRecorder.commitEffectSerialization(event, false, effectList.size(), bytes.length);
         return effectList;
     }
 
-    private void writeEffects(PersistentDataContainer container, List<Effect> effectList) throws IOException {
+    void writeEffects(PersistentDataContainer container, List<Effect> effectList) throws IOException {
         Objects.requireNonNull(container, "container");
 
+        long start = this.profiler.start();
+        try {
+            this.writeEffects0(container, effectList);
+        } finally {
+            this.profiler.stop(Profiler.Timer.PDC_WRITE, start);
+        }
+    }
+
+    private void writeEffects0(PersistentDataContainer container, List<Effect> effectList) throws IOException {
         if (effectList == null || effectList.isEmpty()) {
             this.removeAllEffects(container);
             return;
         }
 
+        Object event = RadiationFlightRecorder.beginEffectSerialization();
         byte[] bytes;
         try (Closer closer = Closer.create()) {
             ByteArrayOutputStream byteArrayOutputStream = closer.register(new ByteArrayOutputStream());
@@ -294,6 +441,7 @@ public class LugolsIodineEffect implements Listener {
         }
 
         container.set(this.entityStorageKey, PersistentDataType.BYTE_ARRAY, bytes);
+        RadiationFlightRecorder.commitEffectSerialization(event, true, effectList.size(), bytes.length);
     }
 
     private void removeAllEffects(PersistentDataContainer container) {
@@ -355,6 +503,7 @@ public class LugolsIodineEffect implements Listener {
     class Task extends BukkitRunnable {
         @Override
         public void run() {
+            long start = profiler.start();
             for (Player onlinePlayer : plugin.getServer().getOnlinePlayers()) {
                 try {
                     this.tick(onlinePlayer, TASK_PERIOD);
@@ -362,28 +511,12 @@ public class LugolsIodineEffect implements Listener {
                     logger.log(Level.SEVERE, "Could not tick effects on player '" + onlinePlayer.getName() + "'.", e);
                 }
             }
+            profiler.stop(Profiler.Timer.EFFECT_TICK, start);
         }
 
         private void tick(Player player, Duration timePassed) throws IOException {
             Objects.requireNonNull(player, "player");
-            Objects.requireNonNull(timePassed, "timePassed");
-
-            List<Effect> effectList;
-            try {
-                effectList = getEffects(player);
-            } catch (IOException e) {
-                throw new IOException("Could not get effects.", e);
-            }
-
-            effectList = effectList.stream()
-                    .map(effect -> effect.timePassed(timePassed))
-                    .collect(Collectors.toList());
-
-            try {
-                writeEffects(player.getPersistentDataContainer(), effectList);
-            } catch (IOException e) {
-                throw new IOException("Could not write effects.", e);
-            }
+            timePassed(player, timePassed);
         }
     }
 }
@@ -41,6 +41,7 @@ import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.potion.PotionData;
 import org.bukkit.potion.PotionType;
+import pl.craftserve.radiation.jfr.RadiationFlightRecorder;
 import pl.craftserve.radiation.nms.RadiationNmsBridge;
 
 import java.io.ByteArrayInputStream;
@@ -80,6 +81,12 @@ public class LugolsIodinePotion implements Listener, Predicate<ItemStack> {
 
     private NamespacedKey recipeKey;
 
+    /** Rendered once per enable, all items of this potion are cloned from it. */
+    private ItemStack prototype;
+    private String displayName;
+    private List<String> lore;
+    private byte[] radiationIdsBytes;
+
     public LugolsIodinePotion(Plugin plugin, LugolsIodineEffect effect, Config config) {
         this.plugin = Objects.requireNonNull(plugin, "plugin");
         this.effect = Objects.requireNonNull(effect, "effect");
@@ -89,29 +96,64 @@ public class LugolsIodinePotion implements Listener, Predicate<ItemStack> {
     public void enable(RadiationNmsBridge nmsBridge) {
         Objects.requireNonNull(nmsBridge, "nmsBridge");
 
+        this.enable();
+
+        Config.Recipe recipeConfig = this.config.recipe();
+        if (recipeConfig.enabled()) {
+            this.recipeKey = NamespacedKey.randomKey();
+            nmsBridge.registerLugolsIodinePotion(this.recipeKey, recipeConfig);
+        }
+    }
+
+    /**
+     * Enable in place of the previous potion with the same recipe. Brewing
+     * recipes can't be removed from the server, so the registered one is
+     * taken over instead of registering it again.
+     */
+    public void enable(LugolsIodinePotion previous) {
+        Objects.requireNonNull(previous, "previous");
+        if (!previous.config.recipe().equals(this.config.recipe())) {
+            throw new IllegalArgumentException("Recipe of the previous potion is different.");
+        }
+
+        this.enable();
+        this.recipeKey = previous.recipeKey;
+    }
+
+    private void enable() {
         this.potionIdKey = new NamespacedKey(this.plugin, "lugols_iodine_id");
         this.radiationIdsKey = new NamespacedKey(this.plugin, "radiation_ids");
         this.durationSecondsKey = new NamespacedKey(this.plugin, "duration_seconds");
         this.legacyPotionKey = new NamespacedKey(this.plugin, "lugols_iodine");
         this.legacyDurationKey = new NamespacedKey(this.plugin, "duration");
 
-        Config.Recipe recipeConfig = this.config.recipe();
-        if (recipeConfig.enabled()) {
-            this.recipeKey = NamespacedKey.randomKey();
-            nmsBridge.registerLugolsIodinePotion(this.recipeKey, recipeConfig);
+        try {
+            this.prototype = this.createPrototype();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not create lugol's iodine potion item prototype.", e);
         }
+
         this.plugin.getServer().getPluginManager().registerEvents(this, this.plugin);
     }
 
     public void disable(RadiationNmsBridge nmsBridge) {
         Objects.requireNonNull(nmsBridge, "nmsBridge");
 
-        HandlerList.unregisterAll(this);
+        this.disable();
         if (this.config.recipe().enabled()) {
             nmsBridge.unregisterLugolsIodinePotion(this.recipeKey);
         }
     }
 
+    /**
+     * Disable, keeping the brewing recipe registered for the potion which
+     * took it over.
+     */
+    public void disable() {
+        HandlerList.unregisterAll(this);
+        this.prototype = null;
+    }
+
     public Duration getDuration() {
         return this.config.duration();
     }
@@ -155,7 +197,7 @@ public class LugolsIodinePotion implements Listener, Predicate<ItemStack> {
 
             if (bytes != null && bytes.length != 0) {
                 try {
-                    radiationIds = this.readRadiationIds(bytes);
+                    radiationIds = readRadiationIds(bytes);
                 } catch (IOException e) {
                     logger.log(Level.SEVERE, "Could not read radiation IDs from bytes on '" + player.getName() +  "'.", e);
                     return;
@@ -215,7 +257,10 @@ public class LugolsIodinePotion implements Listener, Predicate<ItemStack> {
             return;
         }
 
+        Object brewEvent = RadiationFlightRecorder.beginBrewConversion();
         boolean[] modified = new boolean[BrewingStandWindow.SLOTS];
+        int convertedCount = 0;
+        boolean cacheHit = true;
 
         for (int i = 0; i < BrewingStandWindow.SLOTS; i++) {
             ItemStack result = window.results[i];
@@ -231,16 +276,24 @@ public class LugolsIodinePotion implements Listener, Predicate<ItemStack> {
             PotionMeta potionMeta = (PotionMeta) itemMeta;
             if (potionMeta.getBasePotionData().getType().equals(recipeConfig.basePotion())) {
                 try {
-                    result.setItemMeta(this.convert(potionMeta));
+                    if (this.prototype != null && result.getType().equals(this.prototype.getType())) {
+                        window.results[i] = this.createItemStack(result.getAmount());
+                    } else {
+                        result.setItemMeta(this.convert(potionMeta)); // splash and lingering potions
+                        cacheHit = false;
+                    }
                 } catch (IOException e) {
                     logger.log(Level.SEVERE, "Could not transform potion to lugol's iodine.", e);
                     continue;
                 }
 
                 modified[i] = true;
+                convertedCount++;
             }
         }
 
+        RadiationFlightRecorder.commitBrewConversion(brewEvent, this.getId(), convertedCount, cacheHit && convertedCount > 0);
+
         // delay this, because nms changes item stacks after BrewEvent is called
         this.plugin.getServer().getScheduler().runTask(this.plugin, () -> {
             for (int i = 0; i < BrewingStandWindow.SLOTS; i++) {
@@ -254,53 +307,81 @@ public class LugolsIodinePotion implements Listener, Predicate<ItemStack> {
     }
 
     public ItemStack createItemStack(int amount) throws IOException {
-        ItemStack itemStack = new ItemStack(Material.POTION, amount);
-        PotionMeta potionMeta = (PotionMeta) Objects.requireNonNull(itemStack.getItemMeta());
-
-        PotionData potionData = new PotionData(this.config.recipe().basePotion());
-        potionMeta.setBasePotionData(potionData);
+        if (this.prototype == null) {
+            throw new IOException("Potion item prototype is not available.");
+        }
 
-        itemStack.setItemMeta(this.convert(potionMeta));
+        ItemStack itemStack = this.prototype.clone();
+        itemStack.setAmount(amount);
         return itemStack;
     }
 
     public PotionMeta convert(PotionMeta potionMeta) throws IOException {
         Objects.requireNonNull(potionMeta, "potionMeta");
 
-        Duration duration = this.getDuration();
-        String formattedDuration = formatDuration(duration);
+        if (this.displayName == null) {
+            this.render();
+        }
 
         this.config.color().ifPresent(potionMeta::setColor);
         potionMeta.addItemFlags(ItemFlag.HIDE_POTION_EFFECTS);
-        potionMeta.setDisplayName(ChatColor.AQUA + this.config.name());
-        potionMeta.setLore(Collections.singletonList(ChatColor.BLUE + MessageFormat.format(this.config.description(), formattedDuration)));
+        potionMeta.setDisplayName(this.displayName);
+        potionMeta.setLore(this.lore);
 
         PersistentDataContainer container = potionMeta.getPersistentDataContainer();
         container.set(this.potionIdKey, PersistentDataType.STRING, this.config.id());
 
+        if (this.radiationIdsBytes.length != 0) {
+            container.set(this.radiationIdsKey, PersistentDataType.BYTE_ARRAY, this.radiationIdsBytes.clone());
+        }
+
+        container.set(this.durationSecondsKey, PersistentDataType.INTEGER, (int) this.getDuration().getSeconds());
+        return potionMeta;
+    }
+
+    private ItemStack createPrototype() throws IOException {
+        this.render();
+
+        ItemStack itemStack = new ItemStack(Material.POTION, 1);
+        PotionMeta potionMeta = (PotionMeta) Objects.requireNonNull(itemStack.getItemMeta());
+
+        PotionData potionData = new PotionData(this.config.recipe().basePotion());
+        potionMeta.setBasePotionData(potionData);
+
+        itemStack.setItemMeta(this.convert(potionMeta));
+        return itemStack;
+    }
+
+    /**
+     * Render the item data that never changes while the config is loaded.
+     */
+    private void render() throws IOException {
+        String formattedDuration = formatDuration(this.getDuration());
+
+        byte[] radiationIdsBytes = new byte[0];
         List<String> radiationIds = this.config.radiationIds();
         if (radiationIds != null && !radiationIds.isEmpty()) {
-            byte[] bytes;
             try {
-                bytes = this.writeRadiationIds(radiationIds);
+                radiationIdsBytes = writeRadiationIds(radiationIds);
             } catch (IOException e) {
                 throw new IOException("Could not write radiation IDs to bytes.", e);
             }
-
-            if (bytes.length != 0) {
-                container.set(this.radiationIdsKey, PersistentDataType.BYTE_ARRAY, bytes);
-            }
         }
 
-        container.set(this.durationSecondsKey, PersistentDataType.INTEGER, (int) duration.getSeconds());
-        return potionMeta;
+        this.radiationIdsBytes = radiationIdsBytes;
+        this.lore = Collections.singletonList(ChatColor.BLUE + MessageFormat.format(this.config.description(), formattedDuration));
+        this.displayName = ChatColor.AQUA + this.config.name();
     }
 
     public String getId() {
         return this.config.id();
     }
 
-    private List<String> readRadiationIds(byte[] bytes) throws IOException {
+    public Config getConfig() {
+        return this.config;
+    }
+
+    static List<String> readRadiationIds(byte[] bytes) throws IOException {
         Objects.requireNonNull(bytes, "bytes");
         List<String> radiationIds = new ArrayList<>();
 
@@ -317,7 +398,7 @@ public class LugolsIodinePotion implements Listener, Predicate<ItemStack> {
         return radiationIds;
     }
 
-    private byte[] writeRadiationIds(List<String> radiationIds) throws IOException {
+    static byte[] writeRadiationIds(List<String> radiationIds) throws IOException {
         Objects.requireNonNull(radiationIds, "radiationIds");
 
         byte[] bytes;
@@ -488,6 +569,26 @@ public class LugolsIodinePotion implements Listener, Predicate<ItemStack> {
             return Optional.ofNullable(this.drinkMessage);
         }
 
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Config config = (Config) o;
+            return this.id.equals(config.id) &&
+                    this.recipe.equals(config.recipe) &&
+                    this.name.equals(config.name) &&
+                    Objects.equals(this.color, config.color) &&
+                    this.description.equals(config.description) &&
+                    Objects.equals(this.radiationIds, config.radiationIds) &&
+                    this.duration.equals(config.duration) &&
+                    Objects.equals(this.drinkMessage, config.drinkMessage);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.id, this.recipe, this.name, this.color, this.description, this.radiationIds, this.duration, this.drinkMessage);
+        }
+
         public static class Recipe {
             public static Material DEFAULT_INGREDIENT = Material.GHAST_TEAR;
             public static PotionType DEFAULT_BASE_POTION = PotionType.THICK;
@@ -534,6 +635,21 @@ public class LugolsIodinePotion implements Listener, Predicate<ItemStack> {
             public Material ingredient() {
                 return this.ingredient;
             }
+
+            @Override
+            public boolean equals(Object o) {
+                if (this == o) return true;
+                if (o == null || getClass() != o.getClass()) return false;
+                Recipe recipe = (Recipe) o;
+                return this.enabled == recipe.enabled &&
+                        this.basePotion == recipe.basePotion &&
+                        this.ingredient == recipe.ingredient;
+            }
+
+            @Override
+            public int hashCode() {
+                return Objects.hash(this.enabled, this.basePotion, this.ingredient);
+            }
         }
     }
 }
@@ -21,7 +21,6 @@ import org.bstats.charts.SimplePie;
 import org.bstats.charts.SingleLineChart;
 import org.bukkit.NamespacedKey;
 import org.bukkit.Server;
-import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.HandlerList;
@@ -30,9 +29,7 @@ import pl.craftserve.metrics.pluginmetricslite.MetricSubmitEvent;
 import pl.craftserve.metrics.pluginmetricslite.MetricsLite;
 import pl.craftserve.radiation.nms.RadiationNmsBridge;
 
-import java.io.IOException;
 import java.time.Duration;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.logging.Level;
@@ -100,54 +97,27 @@ public class MetricsHandler implements Listener  {
         }));
 
         metrics.addCustomChart(new SingleLineChart("lugols_iodione_affected_count", () -> {
-            return (int) this.server.getOnlinePlayers().stream()
-                    .filter(this::hasEffect)
-                    .count();
+            return this.plugin.getEffectHandler().getAffectedCount();
         }));
 
         metrics.addCustomChart(new SimplePie("active_radiations_count", () -> {
             return Integer.toString(this.plugin.getActiveRadiations().size());
         }));
 
-        metrics.addCustomChart(new SingleLineChart("active_radiations_affected_count", () -> {
-            return this.plugin.getActiveRadiations().values().stream()
-                    .mapToInt(radiation -> radiation.getAffectedPlayers().size())
-                    .sum();
-        }));
+        metrics.addCustomChart(new SingleLineChart("active_radiations_affected_count", this.plugin::getRadiationAffectedCount));
 
         metrics.addCustomChart(new SimplePie("nms_bridge_class", this.nmsBridgeClass::getName));
     }
 
     @EventHandler(priority = EventPriority.NORMAL)
     public void onMetricSubmit(MetricSubmitEvent event) {
-        Map<String, Radiation> activeRadiations = this.plugin.getActiveRadiations();
-
         Map<NamespacedKey, Object> data = event.getData();
-        data.put(this.key("lugols_iodione_affected_count"), (int) this.server.getOnlinePlayers().stream()
-                .filter(this::hasEffect)
-                .count());
-        data.put(this.key("active_radiations_count"), activeRadiations.size());
-        data.put(this.key("active_radiations_affected_count"), activeRadiations.values().stream()
-                .mapToInt(radiation -> radiation.getAffectedPlayers().size())
-                .sum());
+        data.put(this.key("lugols_iodione_affected_count"), this.plugin.getEffectHandler().getAffectedCount());
+        data.put(this.key("active_radiations_count"), this.plugin.getActiveRadiations().size());
+        data.put(this.key("active_radiations_affected_count"), this.plugin.getRadiationAffectedCount());
         data.put(this.key("nms_bridge_class"), this.nmsBridgeClass.getName());
     }
 
-    private boolean hasEffect(Player player) {
-        Objects.requireNonNull(player, "player");
-        LugolsIodineEffect effectHandler = this.plugin.getEffectHandler();
-
-        List<LugolsIodineEffect.Effect> effects;
-        try {
-            effects = effectHandler.getEffects(player);
-        } catch (IOException e) {
-            logger.log(Level.SEVERE, "Could not get lugol's iodine effect on '" + player.getName() + "'.", e);
-            return false;
-        }
-
-        return !effects.isEmpty();
-    }
-
     private NamespacedKey key(String key) {
         Objects.requireNonNull(key, "key");
         return new NamespacedKey(this.plugin, key);
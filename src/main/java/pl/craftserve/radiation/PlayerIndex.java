@@ -0,0 +1,139 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Gives every online player a dense int slot, so per-player state can be
+ * kept in {@link BitSet}s and arrays instead of hash sets keyed by UUID.
+ *
+ * Slots are assigned on join (or on the first lookup) and recycled on quit,
+ * the lowest free slot is always assigned first. Main thread only.
+ */
+public class PlayerIndex implements Listener {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Plugin plugin;
+    private final Map<UUID, Integer> slots = new HashMap<>(INITIAL_CAPACITY * 2);
+    private final BitSet used = new BitSet(INITIAL_CAPACITY);
+    private UUID[] playerIds = new UUID[INITIAL_CAPACITY];
+
+    public PlayerIndex(Plugin plugin) {
+        this.plugin = Objects.requireNonNull(plugin, "plugin");
+    }
+
+    public void enable() {
+        this.plugin.getServer().getPluginManager().registerEvents(this, this.plugin);
+        this.plugin.getServer().getOnlinePlayers().forEach(this::slot);
+    }
+
+    public void disable() {
+        HandlerList.unregisterAll(this);
+    }
+
+    /**
+     * Slot of the player, assigned now if the player doesn't have one yet.
+     */
+    public int slot(Player player) {
+        Objects.requireNonNull(player, "player");
+        return this.slot(player.getUniqueId());
+    }
+
+    /**
+     * Slot of the online player, assigned now if the player doesn't have one yet.
+     */
+    public int slot(UUID playerId) {
+        Objects.requireNonNull(playerId, "playerId");
+
+        Integer slot = this.slots.get(playerId);
+        return slot != null ? slot : this.assign(playerId);
+    }
+
+    /**
+     * @return Slot of the player, or {@code -1} if it has none.
+     */
+    public int find(UUID playerId) {
+        Integer slot = this.slots.get(playerId);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * @return ID of the player in the slot, or {@code null} if it is free.
+     */
+    public UUID playerId(int slot) {
+        return slot >= 0 && slot < this.playerIds.length ? this.playerIds[slot] : null;
+    }
+
+    /**
+     * All slots in use are lower than this.
+     */
+    public int capacity() {
+        return this.used.length();
+    }
+
+    private int assign(UUID playerId) {
+        int slot = this.used.nextClearBit(0);
+        if (slot >= this.playerIds.length) {
+            this.playerIds = Arrays.copyOf(this.playerIds, this.playerIds.length * 2);
+        }
+
+        this.used.set(slot);
+        this.playerIds[slot] = playerId;
+        this.slots.put(playerId, slot);
+        return slot;
+    }
+
+    private void release(UUID playerId) {
+        Integer slot = this.slots.remove(playerId);
+        if (slot != null) {
+            this.used.clear(slot);
+            this.playerIds[slot] = null;
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        this.slot(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        // Other quit handlers still need the slot to clean up after the
+        // player, release it once all of them have been called.
+        UUID playerId = event.getPlayer().getUniqueId();
+        this.plugin.getServer().getScheduler().runTask(this.plugin, () -> {
+            if (this.plugin.getServer().getPlayer(playerId) == null) {
+                this.release(playerId);
+            }
+        });
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Always-on, low-overhead instrumentation of the plugin hot paths.
+ *
+ * Timings are recorded into fixed log-linear bucket histograms, kept in
+ * rolling slots of {@link #SLOT_DURATION}. Recording is lock-free, so the
+ * histograms can be read from any thread.
+ */
+public class Profiler {
+    public static final Duration SLOT_DURATION = Duration.ofSeconds(10);
+    public static final int SLOT_COUNT = 30;
+    /** The longest window which can be queried. */
+    public static final Duration MAX_WINDOW = SLOT_DURATION.multipliedBy(SLOT_COUNT);
+
+    private final Map<Timer, Histogram> histograms = new EnumMap<>(Timer.class);
+    private final Map<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+
+    public Profiler() {
+        for (Timer timer : Timer.values()) {
+            this.histograms.put(timer, new Histogram());
+        }
+        for (Counter counter : Counter.values()) {
+            this.counters.put(counter, new LongAdder());
+        }
+    }
+
+    /**
+     * @return Start time to be passed to {@link #stop(Timer, long)}.
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void stop(Timer timer, long start) {
+        long now = System.nanoTime();
+        this.histograms.get(timer).record(now, now - start);
+    }
+
+    public void increment(Counter counter) {
+        this.counters.get(counter).increment();
+    }
+
+    public void add(Counter counter, long amount) {
+        this.counters.get(counter).add(amount);
+    }
+
+    public Histogram histogram(Timer timer) {
+        return this.histograms.get(Objects.requireNonNull(timer, "timer"));
+    }
+
+    public long count(Counter counter) {
+        return this.counters.get(Objects.requireNonNull(counter, "counter")).sum();
+    }
+
+    public void reset() {
+        this.histograms.values().forEach(Histogram::reset);
+        this.counters.values().forEach(LongAdder::reset);
+    }
+
+    public enum Timer {
+        MATCHER_TEST("matcher_test"),
+        RADIATION_TICK("radiation_tick"),
+        EFFECT_TICK("effect_tick"),
+        DISPLAY_TICK("display_tick"),
+        PDC_READ("pdc_read"),
+        PDC_WRITE("pdc_write"),
+        EVENT_DISPATCH("event_dispatch"),
+        ENTITY_TICK("entity_tick");
+
+        private final String key;
+
+        Timer(String key) {
+            this.key = key;
+        }
+
+        public String key() {
+            return this.key;
+        }
+    }
+
+    public enum Counter {
+        PLAYERS_EVALUATED("players_evaluated"),
+        WORLD_BOUNDS_HITS("world_bounds_hits"),
+        WORLD_BOUNDS_MISSES("world_bounds_misses"),
+        REGION_INDEX_HITS("region_index_hits"),
+        REGION_INDEX_MISSES("region_index_misses"),
+        ZONE_TRACKER_HITS("zone_tracker_hits"),
+        ZONE_TRACKER_MISSES("zone_tracker_misses"),
+        PACKETS_SENT("packets_sent"),
+        ENTITIES_EVALUATED("entities_evaluated");
+
+        private final String key;
+
+        Counter(String key) {
+            this.key = key;
+        }
+
+        public String key() {
+            return this.key;
+        }
+    }
+
+    /**
+     * Histogram of nanosecond values. Values below 16 have their own buckets,
+     * larger values are grouped by the power of two, split into 8 linear
+     * sub-buckets (12.5% precision).
+     */
+    public static class Histogram {
+        private static final int LINEAR_BUCKETS = 16;
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int MAX_EXPONENT = 40; // ~18 minutes
+        static final int BUCKETS = LINEAR_BUCKETS + (MAX_EXPONENT - 4 + 1) * SUB_BUCKETS;
+
+        private static final long SLOT_NANOS = SLOT_DURATION.toNanos();
+
+        /** Epochs are counted from creation, so they are never negative. */
+        private final long origin = System.nanoTime();
+        private final Slot[] slots = new Slot[SLOT_COUNT];
+        /** Never rotated, only cleared on {@link #reset()}. */
+        private final Slot total = new Slot();
+
+        Histogram() {
+            for (int i = 0; i < SLOT_COUNT; i++) {
+                this.slots[i] = new Slot();
+            }
+        }
+
+        void record(long now, long value) {
+            long epoch = Math.max(0L, now - this.origin) / SLOT_NANOS;
+            Slot slot = this.slots[(int) (epoch % SLOT_COUNT)];
+            if (slot.epoch != epoch) {
+                slot.rotate(epoch);
+            }
+
+            int bucket = bucket(value);
+            slot.add(bucket, value);
+            this.total.add(bucket, value);
+        }
+
+        void reset() {
+            for (Slot slot : this.slots) {
+                slot.rotate(-1L);
+            }
+            this.total.rotate(-1L);
+        }
+
+        /**
+         * Everything recorded since creation or the last {@link #reset()}.
+         */
+        public Summary total() {
+            long[] buckets = new long[BUCKETS];
+            long count = 0L;
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = this.total.buckets.get(i);
+                count += buckets[i];
+            }
+
+            return new Summary(buckets, count, this.total.sum.get(), this.total.max.get());
+        }
+
+        /**
+         * Merge all slots which fall into the given window, ending now.
+         */
+        public Summary summarize(Duration window) {
+            Objects.requireNonNull(window, "window");
+
+            long slotCount = Math.max(1L, Math.min(SLOT_COUNT, window.toNanos() / SLOT_NANOS));
+            long currentEpoch = (System.nanoTime() - this.origin) / SLOT_NANOS;
+
+            long[] merged = new long[BUCKETS];
+            long count = 0L;
+            long sum = 0L;
+            long max = 0L;
+
+            for (Slot slot : this.slots) {
+                long epoch = slot.epoch;
+                if (epoch < 0L || epoch > currentEpoch || epoch <= currentEpoch - slotCount) {
+                    continue;
+                }
+
+                for (int i = 0; i < BUCKETS; i++) {
+                    long value = slot.buckets.get(i);
+                    merged[i] += value;
+                    count += value;
+                }
+                sum += slot.sum.get();
+                max = Math.max(max, slot.max.get());
+            }
+
+            return new Summary(merged, count, sum, max);
+        }
+
+        static int bucket(long value) {
+            if (value < LINEAR_BUCKETS) {
+                return (int) Math.max(0L, value);
+            }
+
+            int exponent = Math.min(MAX_EXPONENT, 63 - Long.numberOfLeadingZeros(value));
+            if (exponent == MAX_EXPONENT && value >= (1L << (MAX_EXPONENT + 1))) {
+                return BUCKETS - 1;
+            }
+
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + subBucket;
+        }
+
+        /**
+         * Highest value which falls into the given bucket.
+         */
+        static long upperBound(int bucket) {
+            if (bucket < LINEAR_BUCKETS) {
+                return bucket;
+            }
+
+            int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+            int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+            long width = 1L << (exponent - SUB_BUCKET_BITS);
+            return (SUB_BUCKETS + subBucket) * width + width - 1L;
+        }
+
+        static class Slot {
+            final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+            final AtomicLong sum = new AtomicLong();
+            final AtomicLong max = new AtomicLong();
+            volatile long epoch = -1L;
+
+            void add(int bucket, long value) {
+                this.buckets.incrementAndGet(bucket);
+                this.sum.addAndGet(value);
+
+                long max;
+                while (value > (max = this.max.get())) {
+                    if (this.max.compareAndSet(max, value)) {
+                        break;
+                    }
+                }
+            }
+
+            synchronized void rotate(long epoch) {
+                if (this.epoch == epoch && epoch != -1L) {
+                    return; // another thread was faster
+                }
+
+                for (int i = 0; i < BUCKETS; i++) {
+                    this.buckets.set(i, 0L);
+                }
+                this.sum.set(0L);
+                this.max.set(0L);
+                this.epoch = epoch;
+            }
+        }
+    }
+
+    public static class Summary {
+        private final long[] buckets;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Summary(long[] buckets, long count, long sum, long max) {
+            this.buckets = Objects.requireNonNull(buckets, "buckets");
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long count() {
+            return this.count;
+        }
+
+        public long sum() {
+            return this.sum;
+        }
+
+        public long max() {
+            return this.max;
+        }
+
+        /**
+         * @param quantile Quantile in range from 0 to 1.
+         * @return Upper bound of the bucket holding the quantile, never more
+         * than {@link #max()}.
+         */
+        public long percentile(double quantile) {
+            if (this.count == 0L) {
+                return 0L;
+            }
+
+            long rank = (long) Math.ceil(quantile * this.count);
+            long seen = 0L;
+            for (int i = 0; i < this.buckets.length; i++) {
+                seen += this.buckets[i];
+                if (seen >= rank && seen > 0L) {
+                    return Math.min(this.max, Histogram.upperBound(i));
+                }
+            }
+
+            return this.max;
+        }
+
+        /**
+         * @return Number of values in buckets which lie entirely at or below
+         * the given bound, so the result never overestimates.
+         */
+        public long countAtOrBelow(long bound) {
+            long count = 0L;
+            for (int i = 0; i < this.buckets.length && Histogram.upperBound(i) <= bound; i++) {
+                count += this.buckets[i];
+            }
+
+            return count;
+        }
+    }
+
+    static String formatNanos(long nanos) {
+        if (nanos < TimeUnit.MICROSECONDS.toNanos(1)) {
+            return nanos + "ns";
+        } else if (nanos < TimeUnit.MILLISECONDS.toNanos(1)) {
+            return String.format("%.1fµs", nanos / 1_000D);
+        } else {
+            return String.format("%.2fms", nanos / 1_000_000D);
+        }
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Exposes plugin metrics in the Prometheus text format, either over HTTP or
+ * by periodically writing them into a file. Rendering never happens on the
+ * main thread, it only reads atomic counters and {@link Profiler} histograms.
+ */
+public class PrometheusExporter {
+    static final Logger logger = Logger.getLogger(PrometheusExporter.class.getName());
+
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    static final String PREFIX = "craftserve_radiation_";
+
+    /** Upper bounds (in nanoseconds) of exported histogram buckets. */
+    private static final long[] BUCKET_BOUNDS = {
+            TimeUnit.MICROSECONDS.toNanos(1),
+            TimeUnit.MICROSECONDS.toNanos(5),
+            TimeUnit.MICROSECONDS.toNanos(10),
+            TimeUnit.MICROSECONDS.toNanos(50),
+            TimeUnit.MICROSECONDS.toNanos(100),
+            TimeUnit.MICROSECONDS.toNanos(500),
+            TimeUnit.MILLISECONDS.toNanos(1),
+            TimeUnit.MILLISECONDS.toNanos(5),
+            TimeUnit.MILLISECONDS.toNanos(10),
+            TimeUnit.MILLISECONDS.toNanos(50),
+    };
+
+    private final Plugin plugin;
+    private final Config config;
+    private final Profiler profiler;
+    private final IntSupplier lugolsIodineAffectedCount;
+
+    private volatile List<Radiation> radiations = Collections.emptyList();
+
+    private HttpServer httpServer;
+    private ExecutorService httpExecutor;
+    private BukkitTask fileTask;
+
+    public PrometheusExporter(Plugin plugin, Config config, Profiler profiler, IntSupplier lugolsIodineAffectedCount) {
+        this.plugin = Objects.requireNonNull(plugin, "plugin");
+        this.config = Objects.requireNonNull(config, "config");
+        this.profiler = Objects.requireNonNull(profiler, "profiler");
+        this.lugolsIodineAffectedCount = Objects.requireNonNull(lugolsIodineAffectedCount, "lugolsIodineAffectedCount");
+    }
+
+    public void start() {
+        switch (this.config.type()) {
+            case HTTP:
+                this.startHttp();
+                break;
+            case FILE:
+                long period = Math.max(1L, this.config.interval()) * 20L;
+                this.fileTask = this.plugin.getServer().getScheduler().runTaskTimerAsynchronously(this.plugin, this::writeFile, period, period);
+                logger.info("Writing Prometheus metrics to " + this.filePath() + " every " + this.config.interval() + " second(s).");
+                break;
+        }
+    }
+
+    public void stop() {
+        if (this.httpServer != null) {
+            this.httpServer.stop(0);
+            this.httpServer = null;
+        }
+        if (this.httpExecutor != null) {
+            this.httpExecutor.shutdownNow();
+            this.httpExecutor = null;
+        }
+        if (this.fileTask != null) {
+            this.fileTask.cancel();
+            this.fileTask = null;
+        }
+    }
+
+    /**
+     * Replace radiations exported with the next scrape.
+     */
+    public void setRadiations(Collection<Radiation> radiations) {
+        Objects.requireNonNull(radiations, "radiations");
+        this.radiations = Collections.unmodifiableList(new ArrayList<>(radiations));
+    }
+
+    private void startHttp() {
+        InetSocketAddress address = new InetSocketAddress(this.config.host(), this.config.port());
+
+        HttpServer httpServer;
+        try {
+            httpServer = HttpServer.create(address, 0);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not bind Prometheus exporter to " + address + ".", e);
+            return;
+        }
+
+        this.httpExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, this.plugin.getName() + " Prometheus Exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        httpServer.setExecutor(this.httpExecutor);
+        httpServer.createContext("/metrics", this::handle);
+        httpServer.start();
+
+        this.httpServer = httpServer;
+        logger.info("Serving Prometheus metrics on http://" + address.getHostString() + ":" + address.getPort() + "/metrics");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(405, -1L);
+                return;
+            }
+
+            byte[] body = this.render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1L);
+                return;
+            }
+
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Path filePath() {
+        return this.plugin.getDataFolder().toPath().resolve(this.config.file());
+    }
+
+    private void writeFile() {
+        Path path = this.filePath();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            Files.write(temporary, this.render().getBytes(StandardCharsets.UTF_8));
+
+            try {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not write Prometheus metrics to " + path + ".", e);
+        }
+    }
+
+    //
+    // Rendering
+    //
+
+    public String render() {
+        StringBuilder builder = new StringBuilder(4096);
+
+        header(builder, "radiation_affected_players", "gauge", "Players currently affected by the radiation.");
+        for (Radiation radiation : this.radiations) {
+            sample(builder, "radiation_affected_players", "radiation", radiation.getId(), radiation.getAffectedCount());
+        }
+
+        header(builder, "lugols_iodine_affected_players", "gauge", "Online players having at least one lugol's iodine effect.");
+        sample(builder, "lugols_iodine_affected_players", null, null, this.lugolsIodineAffectedCount.getAsInt());
+
+        for (Profiler.Counter counter : Profiler.Counter.values()) {
+            String name = counter.key() + "_total";
+            header(builder, name, "counter", null);
+            sample(builder, name, null, null, this.profiler.count(counter));
+        }
+
+        for (Profiler.Timer timer : Profiler.Timer.values()) {
+            this.renderHistogram(builder, timer);
+        }
+
+        return builder.toString();
+    }
+
+    private void renderHistogram(StringBuilder builder, Profiler.Timer timer) {
+        Profiler.Summary summary = this.profiler.histogram(timer).total();
+        String name = timer.key() + "_seconds";
+
+        header(builder, name, "histogram", null);
+        for (long bound : BUCKET_BOUNDS) {
+            builder.append(PREFIX).append(name).append("_bucket{le=\"").append(seconds(bound)).append("\"} ")
+                    .append(summary.countAtOrBelow(bound)).append('\n');
+        }
+        builder.append(PREFIX).append(name).append("_bucket{le=\"+Inf\"} ").append(summary.count()).append('\n');
+        builder.append(PREFIX).append(name).append("_sum ").append(seconds(summary.sum())).append('\n');
+        builder.append(PREFIX).append(name).append("_count ").append(summary.count()).append('\n');
+    }
+
+    private static void header(StringBuilder builder, String name, String type, String help) {
+        if (help != null) {
+            builder.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        }
+        builder.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder builder, String name, String labelName, String labelValue, long value) {
+        builder.append(PREFIX).append(name);
+        if (labelName != null) {
+            builder.append('{').append(labelName).append("=\"").append(escape(labelValue)).append("\"}");
+        }
+        builder.append(' ').append(value).append('\n');
+    }
+
+    static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1_000_000_000D);
+    }
+
+    //
+    // Config
+    //
+
+    public enum Type {
+        HTTP, FILE
+    }
+
+    public static class Config {
+        public static final String DEFAULT_HOST = "127.0.0.1";
+        public static final int DEFAULT_PORT = 9464;
+        public static final String DEFAULT_FILE = "metrics.prom";
+        public static final int DEFAULT_INTERVAL = 15;
+
+        private final boolean enabled;
+        private final Type type;
+        private final String host;
+        private final int port;
+        private final String file;
+        private final int interval;
+
+        public Config(boolean enabled, Type type, String host, int port, String file, int interval) {
+            this.enabled = enabled;
+            this.type = Objects.requireNonNull(type, "type");
+            this.host = Objects.requireNonNull(host, "host");
+            this.port = port;
+            this.file = Objects.requireNonNull(file, "file");
+            this.interval = interval;
+        }
+
+        public Config(ConfigurationSection section) throws InvalidConfigurationException {
+            if (section == null) {
+                section = new MemoryConfiguration();
+            }
+
+            this.enabled = section.getBoolean("enabled", false);
+
+            String type = section.getString("type", Type.HTTP.name());
+            if (type == null) {
+                throw new InvalidConfigurationException("Missing exporter type.");
+            }
+
+            try {
+                this.type = Type.valueOf(type.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidConfigurationException("Unknown exporter type: " + type);
+            }
+
+            this.host = section.getString("host", DEFAULT_HOST);
+            if (this.host == null || this.host.isEmpty()) {
+                throw new InvalidConfigurationException("Missing exporter host.");
+            }
+
+            this.port = section.getInt("port", DEFAULT_PORT);
+            if (this.port < 0 || this.port > 65535) {
+                throw new InvalidConfigurationException("Exporter port must be in range from 0 to 65535.");
+            }
+
+            this.file = section.getString("file", DEFAULT_FILE);
+            if (this.file == null || this.file.isEmpty()) {
+                throw new InvalidConfigurationException("Missing exporter file.");
+            }
+
+            this.interval = section.getInt("interval", DEFAULT_INTERVAL);
+            if (this.interval <= 0) {
+                throw new InvalidConfigurationException("Exporter interval must be positive.");
+            }
+        }
+
+        public static Config disabled() {
+            return new Config(false, Type.HTTP, DEFAULT_HOST, DEFAULT_PORT, DEFAULT_FILE, DEFAULT_INTERVAL);
+        }
+
+        public boolean enabled() {
+            return this.enabled;
+        }
+
+        public Type type() {
+            return this.type;
+        }
+
+        public String host() {
+            return this.host;
+        }
+
+        public int port() {
+            return this.port;
+        }
+
+        public String file() {
+            return this.file;
+        }
+
+        public int interval() {
+            return this.interval;
+        }
+    }
+}
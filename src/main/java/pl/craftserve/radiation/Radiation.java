@@ -17,13 +17,14 @@
 package pl.craftserve.radiation;
 
 import com.google.common.base.Preconditions;
-import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.google.common.collect.Iterables;
 import com.sk89q.worldedit.util.Location;
 import com.sk89q.worldguard.LocalPlayer;
 import com.sk89q.worldguard.WorldGuard;
 import com.sk89q.worldguard.bukkit.WorldGuardPlugin;
 import com.sk89q.worldguard.internal.platform.WorldGuardPlatform;
 import com.sk89q.worldguard.protection.ApplicableRegionSet;
+import com.sk89q.worldguard.protection.association.RegionAssociable;
 import com.sk89q.worldguard.protection.flags.Flag;
 import com.sk89q.worldguard.protection.regions.RegionContainer;
 import org.bukkit.ChatColor;
@@ -45,42 +46,95 @@ import org.bukkit.plugin.Plugin;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 import org.bukkit.scheduler.BukkitRunnable;
-import pl.craftserve.radiation.nms.RadiationNmsBridge;
+import pl.craftserve.radiation.jfr.RadiationFlightRecorder;
 
-import java.text.MessageFormat;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.logging.Logger;
 
 public class Radiation implements Listener {
     static final Logger logger = Logger.getLogger(Radiation.class.getName());
 
-    private final Set<UUID> affectedPlayers = new HashSet<>(128);
+    /** Slots of affected players in the {@link PlayerIndex}. */
+    private final BitSet affectedPlayers = new BitSet();
+    /** Slots of players seeing the boss bar. */
+    private final BitSet bossBarViewers = new BitSet();
+    private final Set<UUID> affectedPlayersView = new AffectedPlayersView();
 
     private final Plugin plugin;
+    private final PlayerIndex playerIndex;
+    /** Whether the player index is enabled along with this radiation. */
+    private final boolean ownsPlayerIndex;
     private final Matcher matcher;
-    private final Config config;
+    private final RadiationProfile profile;
+    private final AtomicInteger affectedCounter;
+    private final AtomicInteger affectedCount = new AtomicInteger();
+    private final Profiler profiler;
+    private final DoseStore doseStore;
+    private final DistanceField distanceField;
 
     private BossBar bossBar;
     private Task task;
 
+    /**
+     * Standalone radiation with its own player index, enabled along with it.
+     */
     public Radiation(Plugin plugin, Matcher matcher, Config config) {
+        this(plugin, new PlayerIndex(plugin), true, matcher, RadiationProfile.compile(config), new AtomicInteger(), new Profiler(), null, null);
+    }
+
+    /**
+     * @param playerIndex Index shared between radiations.
+     * @param affectedCounter Counter shared between radiations, kept equal to
+     *                        the total number of affected players.
+     */
+    public Radiation(Plugin plugin, PlayerIndex playerIndex, Matcher matcher, RadiationProfile profile, AtomicInteger affectedCounter, Profiler profiler) {
+        this(plugin, playerIndex, matcher, profile, affectedCounter, profiler, null, null);
+    }
+
+    /**
+     * @param doseStore Store accruing doses of affected players, or {@code null}.
+     * @param distanceField Field choosing tiers of the profile, or {@code null}
+     *                      if only the base tier is applied.
+     */
+    public Radiation(Plugin plugin, PlayerIndex playerIndex, Matcher matcher, RadiationProfile profile, AtomicInteger affectedCounter, Profiler profiler,
+                     DoseStore doseStore, DistanceField distanceField) {
+        this(plugin, playerIndex, false, matcher, profile, affectedCounter, profiler, doseStore, distanceField);
+    }
+
+    private Radiation(Plugin plugin, PlayerIndex playerIndex, boolean ownsPlayerIndex, Matcher matcher, RadiationProfile profile,
+                      AtomicInteger affectedCounter, Profiler profiler, DoseStore doseStore, DistanceField distanceField) {
         this.plugin = Objects.requireNonNull(plugin, "plugin");
+        this.playerIndex = Objects.requireNonNull(playerIndex, "playerIndex");
+        this.ownsPlayerIndex = ownsPlayerIndex;
         this.matcher = Objects.requireNonNull(matcher, "matcher");
-        this.config = Objects.requireNonNull(config, "config");
+        this.profile = Objects.requireNonNull(profile, "profile");
+        this.affectedCounter = Objects.requireNonNull(affectedCounter, "affectedCounter");
+        this.profiler = Objects.requireNonNull(profiler, "profiler");
+        this.doseStore = doseStore;
+        this.distanceField = distanceField;
     }
 
     public void enable() {
+        if (this.ownsPlayerIndex) {
+            this.playerIndex.enable();
+        }
+
         Server server = this.plugin.getServer();
-        this.bossBar = this.config.bar().create(server, ChatColor.DARK_RED);
+        this.bossBar = this.profile.bar().create(server, ChatColor.DARK_RED);
 
         this.task = new Task();
         this.task.runTaskTimer(this.plugin, 20L, 20L);
@@ -99,18 +153,37 @@ public class Radiation implements Listener {
             this.bossBar.removeAll();
         }
 
+        this.affectedCounter.addAndGet(-this.affectedPlayers.cardinality());
+        this.affectedCount.set(0);
         this.affectedPlayers.clear();
+        this.bossBarViewers.clear();
+
+        if (this.ownsPlayerIndex) {
+            this.playerIndex.disable();
+        }
     }
 
     public boolean addAffectedPlayer(Player player, boolean addBossBar) {
         Objects.requireNonNull(player, "player");
+        return this.addAffectedPlayer(this.playerIndex.slot(player));
+    }
+
+    private boolean addAffectedPlayer(int slot) {
+        if (this.affectedPlayers.get(slot)) {
+            return false;
+        }
 
-        return this.affectedPlayers.add(player.getUniqueId());
+        this.affectedPlayers.set(slot);
+        this.affectedCounter.incrementAndGet();
+        this.affectedCount.incrementAndGet();
+        return true;
     }
 
-    private void addBossBar(Player player) {
-        Objects.requireNonNull(player, "player");
-        this.bossBar.addPlayer(player);
+    private void addBossBar(Player player, int slot) {
+        if (!this.bossBarViewers.get(slot)) {
+            this.bossBarViewers.set(slot);
+            this.bossBar.addPlayer(player);
+        }
     }
 
     private void broadcastEscape(Player player) {
@@ -119,22 +192,68 @@ public class Radiation implements Listener {
         String id = this.getId();
         logger.info(player.getName() + " has entered \"" + id + "\" radiation zone at " + player.getLocation());
 
-        this.config.enterMessage().ifPresent(rawMessage -> {
-            String message = ChatColor.RED + MessageFormat.format(rawMessage, player.getDisplayName() + ChatColor.RESET, id);
-            for (Player online : this.plugin.getServer().getOnlinePlayers()) {
-                if (online.canSee(player)) {
-                    online.sendMessage(message);
-                }
+        if (!this.profile.broadcasts()) {
+            return;
+        }
+
+        String message = this.profile.formatEnterMessage(player.getDisplayName() + ChatColor.RESET, id);
+        for (Player online : this.plugin.getServer().getOnlinePlayers()) {
+            if (online.canSee(player)) {
+                online.sendMessage(message);
             }
-        });
+        }
+    }
+
+    /**
+     * Take over affected players and boss bar viewers of the radiation this
+     * one replaces, so they don't notice the swap. Must be called after
+     * {@link #enable()} and before the previous radiation is disabled.
+     */
+    public void inherit(Radiation previous) {
+        Objects.requireNonNull(previous, "previous");
+        Preconditions.checkState(this.bossBar != null, "radiation is not enabled");
+        Preconditions.checkArgument(previous.playerIndex == this.playerIndex, "radiations must share the player index");
+
+        BitSet affected = previous.affectedPlayers;
+        for (int slot = affected.nextSetBit(0); slot >= 0; slot = affected.nextSetBit(slot + 1)) {
+            this.addAffectedPlayer(slot);
+        }
+
+        Server server = this.plugin.getServer();
+        BitSet viewers = previous.bossBarViewers;
+        for (int slot = viewers.nextSetBit(0); slot >= 0; slot = viewers.nextSetBit(slot + 1)) {
+            UUID playerId = this.playerIndex.playerId(slot);
+            Player player = playerId != null ? server.getPlayer(playerId) : null;
+            if (player != null) {
+                this.addBossBar(player, slot);
+            }
+        }
+    }
+
+    public Config getConfig() {
+        return this.profile.config();
     }
 
+    public RadiationProfile getProfile() {
+        return this.profile;
+    }
+
+    /**
+     * Unmodifiable live view of affected players. Main thread only.
+     */
     public Set<UUID> getAffectedPlayers() {
-        return Collections.unmodifiableSet(this.affectedPlayers);
+        return this.affectedPlayersView;
+    }
+
+    /**
+     * Number of players affected by this radiation, safe to read from any thread.
+     */
+    public int getAffectedCount() {
+        return this.affectedCount.get();
     }
 
     public String getId() {
-        return this.config.id();
+        return this.profile.id();
     }
 
     public Matcher getMatcher() {
@@ -144,9 +263,20 @@ public class Radiation implements Listener {
     public boolean removeAffectedPlayer(Player player, boolean removeBossBar) {
         Objects.requireNonNull(player, "player");
 
-        boolean ok = this.affectedPlayers.remove(player.getUniqueId());
+        int slot = this.playerIndex.find(player.getUniqueId());
+        if (slot < 0) {
+            return false; // never seen, so neither affected nor seeing the boss bar
+        }
+
+        boolean ok = this.affectedPlayers.get(slot);
+        if (ok) {
+            this.affectedPlayers.clear(slot);
+            this.affectedCounter.decrementAndGet();
+            this.affectedCount.decrementAndGet();
+        }
+
         if (removeBossBar) {
-            this.removeBossBar(player);
+            this.removeBossBar(player, slot);
         }
 
         return ok;
@@ -154,7 +284,18 @@ public class Radiation implements Listener {
 
     public void removeBossBar(Player player) {
         Objects.requireNonNull(player, "player");
-        this.bossBar.removePlayer(player);
+
+        int slot = this.playerIndex.find(player.getUniqueId());
+        if (slot >= 0) {
+            this.removeBossBar(player, slot);
+        }
+    }
+
+    private void removeBossBar(Player player, int slot) {
+        if (this.bossBarViewers.get(slot)) {
+            this.bossBarViewers.clear(slot);
+            this.bossBar.removePlayer(player);
+        }
     }
 
     @EventHandler(priority = EventPriority.MONITOR)
@@ -163,42 +304,136 @@ public class Radiation implements Listener {
     }
 
     class Task extends BukkitRunnable {
+        private final List<Player> matchedPlayers = new ArrayList<>();
+        /** Reused for every player, only used from the main thread. */
+        private final org.bukkit.Location location = new org.bukkit.Location(null, 0D, 0D, 0D);
+
         @Override
         public void run() {
+            long start = profiler.start();
+            Object tickEvent = RadiationFlightRecorder.beginRadiationTick();
+
             Server server = plugin.getServer();
-            Iterable<PotionEffect> effects = config.effects();
+            Collection<? extends Player> onlinePlayers = server.getOnlinePlayers();
 
-            server.getOnlinePlayers().forEach(player -> {
+            Object batchEvent = RadiationFlightRecorder.beginMatcherBatch();
+            for (Player player : onlinePlayers) {
                 if (matcher.test(player)) {
-                    RadiationEvent event = new RadiationEvent(player, Radiation.this);
-                    server.getPluginManager().callEvent(event);
+                    this.matchedPlayers.add(player);
+                } else {
+                    removeAffectedPlayer(player, true);
+                }
+            }
 
-                    boolean showBossBar = event.shouldShowWarning();
-                    boolean cancel = event.isCancelled();
+            int matchedCount = this.matchedPlayers.size();
+            RadiationFlightRecorder.commitMatcherBatch(batchEvent, getId(), onlinePlayers.size(), matchedCount);
 
-                    boolean contains = bossBar.getPlayers().contains(player);
+            try {
+                for (Player player : this.matchedPlayers) {
+                    this.apply(server, player, this.tier(player));
+                }
+            } finally {
+                this.matchedPlayers.clear();
+            }
+
+            RadiationFlightRecorder.commitRadiationTick(tickEvent, getId(), onlinePlayers.size(), matchedCount);
+            profiler.stop(Profiler.Timer.RADIATION_TICK, start);
+        }
+
+        private int tier(Player player) {
+            if (distanceField == null || !profile.hasTiers()) {
+                return 0;
+            }
+
+            org.bukkit.Location location = player.getLocation(this.location);
+            World world = Objects.requireNonNull(location.getWorld(), "world");
+            return profile.tier(distanceField.depth(world.getName(), location.getBlockX(), location.getBlockZ()));
+        }
 
-                    if (!cancel) {
-                        for (PotionEffect effect : effects) {
-                            player.addPotionEffect(effect, true);
-                        }
+        private void apply(Server server, Player player, int tier) {
+            RadiationEvent event = new RadiationEvent(player, Radiation.this);
+            long dispatchStart = profiler.start();
+            server.getPluginManager().callEvent(event);
+            profiler.stop(Profiler.Timer.EVENT_DISPATCH, dispatchStart);
 
-                        addAffectedPlayer(player, showBossBar);
+            boolean showBossBar = event.shouldShowWarning();
+            boolean cancel = event.isCancelled();
+
+            int slot = playerIndex.slot(player);
+            boolean contains = bossBarViewers.get(slot);
+
+            if (doseStore != null) {
+                // the task runs every second
+                doseStore.accrue(player, slot, profile.doseRate(tier) * event.getDoseMultiplier());
+            }
+
+            if (!cancel) {
+                PotionEffect[] effects = profile.effects(tier);
+                if (effects.length != 0) {
+                    for (PotionEffect effect : effects) {
+                        player.addPotionEffect(effect, true);
                     }
+                }
+
+                addAffectedPlayer(slot);
+            }
+
+            if (showBossBar) {
+                addBossBar(player, slot);
+
+                if (!contains) {
+                    profiler.increment(Profiler.Counter.PACKETS_SENT);
+                    broadcastEscape(player);
+                }
+            } else {
+                if (contains) {
+                    profiler.increment(Profiler.Counter.PACKETS_SENT);
+                }
+                removeBossBar(player, slot);
+            }
+        }
+    }
 
-                    if (showBossBar) {
-                        addBossBar(player);
+    /**
+     * Affected player slots seen as player IDs.
+     */
+    class AffectedPlayersView extends AbstractSet<UUID> {
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof UUID)) {
+                return false;
+            }
+
+            int slot = playerIndex.find((UUID) o);
+            return slot >= 0 && affectedPlayers.get(slot);
+        }
+
+        @Override
+        public int size() {
+            return affectedPlayers.cardinality();
+        }
+
+        @Override
+        public Iterator<UUID> iterator() {
+            return new Iterator<UUID>() {
+                private int next = affectedPlayers.nextSetBit(0);
 
-                        if (!contains) {
-                            broadcastEscape(player);
-                        }
-                    } else {
-                        removeBossBar(player);
+                @Override
+                public boolean hasNext() {
+                    return this.next >= 0;
+                }
+
+                @Override
+                public UUID next() {
+                    if (this.next < 0) {
+                        throw new NoSuchElementException();
                     }
-                } else {
-                    removeAffectedPlayer(player, true);
+
+                    UUID playerId = playerIndex.playerId(this.next);
+                    this.next = affectedPlayers.nextSetBit(this.next + 1);
+                    return playerId;
                 }
-            });
+            };
         }
     }
 
@@ -230,48 +465,133 @@ public class Radiation implements Listener {
      * Tests if the given flags matches the radiation IDs.
      */
     public static class FlagMatcher implements WorldGuardMatcher {
-        private final RadiationNmsBridge nmsBridge;
+        private final WorldBoundsRegistry worldBounds;
+        private final Profiler profiler;
         private final Flag<Boolean> isRadioactiveFlag;
         private final Flag<String> radiationTypeFlag;
         private final Set<String> acceptedRadiationTypes;
+        private final RegionLookup regionLookup;
+
+        /** Reused for every test, matchers are only called from the main thread. */
+        private final org.bukkit.Location bukkitLocation = new org.bukkit.Location(null, 0D, 0D, 0D);
 
-        public FlagMatcher(RadiationNmsBridge nmsBridge, Flag<Boolean> isRadioactiveFlag, Flag<String> radiationTypeFlag, Set<String> acceptedRadiationTypes) {
-            this.nmsBridge = Objects.requireNonNull(nmsBridge, "nmsBridge");
+        public FlagMatcher(WorldBoundsRegistry worldBounds, Profiler profiler, Flag<Boolean> isRadioactiveFlag, Flag<String> radiationTypeFlag, Set<String> acceptedRadiationTypes) {
+            this(worldBounds, profiler, isRadioactiveFlag, radiationTypeFlag, acceptedRadiationTypes, RegionIndex.EMPTY);
+        }
+
+        /**
+         * @param regionLookup Consulted before querying WorldGuard.
+         */
+        public FlagMatcher(WorldBoundsRegistry worldBounds, Profiler profiler, Flag<Boolean> isRadioactiveFlag, Flag<String> radiationTypeFlag, Set<String> acceptedRadiationTypes,
+                           RegionLookup regionLookup) {
+            this.worldBounds = Objects.requireNonNull(worldBounds, "worldBounds");
+            this.profiler = Objects.requireNonNull(profiler, "profiler");
             this.isRadioactiveFlag = Objects.requireNonNull(isRadioactiveFlag, "isRadioactiveFlag");
             this.radiationTypeFlag = Objects.requireNonNull(radiationTypeFlag, "radiationTypeFlag");
             this.acceptedRadiationTypes = Objects.requireNonNull(acceptedRadiationTypes, "acceptedRadiationTypes");
+            this.regionLookup = Objects.requireNonNull(regionLookup, "regionLookup");
         }
 
         @Override
         public boolean test(Player player, RegionContainer regionContainer) {
-            org.bukkit.Location bukkitLocation = player.getLocation();
-            World world = player.getWorld();
-            int minY = this.nmsBridge.getMinWorldHeight(world);
-            int maxY = world.getMaxHeight();
+            long start = this.profiler.start();
+            try {
+                return this.test0(player, regionContainer);
+            } finally {
+                this.profiler.stop(Profiler.Timer.MATCHER_TEST, start);
+                this.profiler.increment(Profiler.Counter.PLAYERS_EVALUATED);
+            }
+        }
 
-            Location location = BukkitAdapter.adapt(bukkitLocation);
-            location = location.setY(Math.max(minY, Math.min(maxY, location.getY())));
-            ApplicableRegionSet regions = regionContainer.createQuery().getApplicableRegions(location);
-            LocalPlayer localPlayer = WorldGuardPlugin.inst().wrapPlayer(player);
+        private boolean test0(Player player, RegionContainer regionContainer) {
+            WorldBoundsRegistry.Bounds bounds = this.worldBounds.get(player.getWorld());
+            org.bukkit.Location bukkitLocation = player.getLocation(this.bukkitLocation);
 
-            Boolean radioactive = regions.queryValue(localPlayer, this.isRadioactiveFlag);
-            if (radioactive == null || !radioactive) {
-                return false;
+            double y = bounds.clampY(bukkitLocation.getY());
+            String radiationId = this.regionLookup.resolve(bounds.bukkitWorld().getName(),
+                    bukkitLocation.getBlockX(), (int) Math.floor(y), bukkitLocation.getBlockZ(), player.getUniqueId());
+
+            if (radiationId == RegionLookup.UNRESOLVED) {
+                this.profiler.increment(Profiler.Counter.REGION_INDEX_MISSES);
+                Location location = new Location(bounds.world(), bukkitLocation.getX(), y, bukkitLocation.getZ());
+                ApplicableRegionSet regions = regionContainer.createQuery().getApplicableRegions(location);
+                LocalPlayer localPlayer = WorldGuardPlugin.inst().wrapPlayer(player);
+
+                radiationId = resolveRadiationId(regions, localPlayer, this.isRadioactiveFlag, this.radiationTypeFlag);
+            } else {
+                this.profiler.increment(Profiler.Counter.REGION_INDEX_HITS);
             }
 
-            String radiationId = regions.queryValue(localPlayer, this.radiationTypeFlag);
-            if (radiationId == null || radiationId.isEmpty()) {
-                radiationId = Config.DEFAULT_ID;
+            if (radiationId == null) {
+                return false;
             }
 
-            Permission permission = new Permission("craftserveradiation.immune." + radiationId, PermissionDefault.FALSE);
-            if (player.hasPermission(permission)) {
+            if (isImmune(player, radiationId)) {
                 // Players with this permission are immune to radiation. They won't match this matcher.
                 return false;
             }
 
             return this.acceptedRadiationTypes.contains(radiationId);
         }
+
+        static boolean isImmune(Player player, String radiationId) {
+            Permission permission = new Permission("craftserveradiation.immune." + radiationId, PermissionDefault.FALSE);
+            return player.hasPermission(permission);
+        }
+
+        /**
+         * Resolve the radiation ID from flags of the applicable regions,
+         * independent of any player or platform state.
+         *
+         * @return ID of the radiation, or {@code null} if the location is
+         * not radioactive for the subject.
+         */
+        public static String resolveRadiationId(ApplicableRegionSet regions, RegionAssociable subject,
+                                                Flag<Boolean> isRadioactiveFlag, Flag<String> radiationTypeFlag) {
+            Boolean radioactive = regions.queryValue(subject, isRadioactiveFlag);
+            if (radioactive == null || !radioactive) {
+                return null;
+            }
+
+            String radiationId = regions.queryValue(subject, radiationTypeFlag);
+            if (radiationId == null || radiationId.isEmpty()) {
+                radiationId = Config.DEFAULT_ID;
+            }
+
+            return radiationId;
+        }
+    }
+
+    /**
+     * Reads zones tracked by the {@link ZoneTracker} instead of querying
+     * regions. Players who are not tracked are tested by the fallback.
+     */
+    public static class TrackedZoneMatcher implements Matcher {
+        private final ZoneTracker tracker;
+        private final Matcher fallback;
+        private final Profiler profiler;
+        private final Set<String> acceptedRadiationTypes;
+
+        public TrackedZoneMatcher(ZoneTracker tracker, Matcher fallback, Profiler profiler, Set<String> acceptedRadiationTypes) {
+            this.tracker = Objects.requireNonNull(tracker, "tracker");
+            this.fallback = Objects.requireNonNull(fallback, "fallback");
+            this.profiler = Objects.requireNonNull(profiler, "profiler");
+            this.acceptedRadiationTypes = Objects.requireNonNull(acceptedRadiationTypes, "acceptedRadiationTypes");
+        }
+
+        @Override
+        public boolean test(Player player) {
+            if (!this.tracker.isTracked(player)) {
+                this.profiler.increment(Profiler.Counter.ZONE_TRACKER_MISSES);
+                return this.fallback.test(player);
+            }
+
+            this.profiler.increment(Profiler.Counter.ZONE_TRACKER_HITS);
+            String radiationId = this.tracker.zone(player);
+            return radiationId != null &&
+                    this.acceptedRadiationTypes.contains(radiationId) &&
+                    !FlagMatcher.isImmune(player, radiationId);
+        }
     }
 
     //
@@ -280,19 +600,29 @@ public class Radiation implements Listener {
 
     public static class Config {
         public static final String DEFAULT_ID = "default";
+        public static final double DEFAULT_DOSE_RATE = 1D;
 
         private final String id;
         private final BarConfig bar;
         private final Iterable<PotionEffect> effects;
         private final String enterMessage;
+        private final double doseRate;
+        private final List<Tier> tiers;
 
         public Config(String id, BarConfig bar, Iterable<PotionEffect> effects, String enterMessage) {
+            this(id, bar, effects, enterMessage, DEFAULT_DOSE_RATE, Collections.emptyList());
+        }
+
+        public Config(String id, BarConfig bar, Iterable<PotionEffect> effects, String enterMessage, double doseRate, List<Tier> tiers) {
             this.id = Objects.requireNonNull(id, "id");
             this.bar = Objects.requireNonNull(bar, "bar");
             this.effects = Objects.requireNonNull(effects, "effects");
             this.enterMessage = enterMessage;
+            this.doseRate = doseRate;
+            this.tiers = Objects.requireNonNull(tiers, "tiers");
 
             Preconditions.checkArgument(!id.isEmpty(), "id cannot be empty");
+            Preconditions.checkArgument(doseRate >= 0D, "doseRate cannot be negative");
         }
 
         public Config(ConfigurationSection section) throws InvalidConfigurationException {
@@ -309,8 +639,38 @@ public class Radiation implements Listener {
                 throw new InvalidConfigurationException("Could not parse bar section in radiation.", e);
             }
 
+            this.effects = parseEffects(section.getConfigurationSection("effects"));
+
+            String enterMessage = RadiationPlugin.colorize(section.getString("enter-message"));
+            this.enterMessage = enterMessage != null && !enterMessage.isEmpty() ? enterMessage : null;
+
+            this.doseRate = section.getDouble("dose-rate", DEFAULT_DOSE_RATE);
+            if (this.doseRate < 0D) {
+                throw new InvalidConfigurationException("Dose rate must not be negative.");
+            }
+
+            List<Tier> tiers = new ArrayList<>();
+            ConfigurationSection tiersSection = section.getConfigurationSection("tiers");
+            if (tiersSection != null) {
+                for (String key : tiersSection.getKeys(false)) {
+                    if (!tiersSection.isConfigurationSection(key)) {
+                        throw new InvalidConfigurationException(key + " is not a tier section.");
+                    }
+
+                    try {
+                        tiers.add(new Tier(tiersSection.getConfigurationSection(key), this.doseRate));
+                    } catch (InvalidConfigurationException e) {
+                        throw new InvalidConfigurationException("Could not parse tier " + key + ".", e);
+                    }
+                }
+            }
+
+            tiers.sort(Comparator.comparingInt(Tier::depth));
+            this.tiers = Collections.unmodifiableList(tiers);
+        }
+
+        static Iterable<PotionEffect> parseEffects(ConfigurationSection effectsSection) throws InvalidConfigurationException {
             List<PotionEffect> effects = new ArrayList<>();
-            ConfigurationSection effectsSection = section.getConfigurationSection("effects");
             if (effectsSection != null) {
                 for (String key : effectsSection.getKeys(false)) {
                     if (!effectsSection.isConfigurationSection(key)) {
@@ -339,10 +699,7 @@ public class Radiation implements Listener {
                 }
             }
 
-            this.effects = Collections.unmodifiableCollection(effects);
-
-            String enterMessage = RadiationPlugin.colorize(section.getString("enter-message"));
-            this.enterMessage = enterMessage != null && !enterMessage.isEmpty() ? enterMessage : null;
+            return Collections.unmodifiableCollection(effects);
         }
 
         public String id() {
@@ -360,5 +717,97 @@ public class Radiation implements Listener {
         public Optional<String> enterMessage() {
             return Optional.ofNullable(this.enterMessage);
         }
+
+        /**
+         * Dose received every second in the radiation.
+         */
+        public double doseRate() {
+            return this.doseRate;
+        }
+
+        /**
+         * Stronger profiles applied deeper in the radiation, by ascending depth.
+         */
+        public List<Tier> tiers() {
+            return this.tiers;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Config config = (Config) o;
+            return this.id.equals(config.id) &&
+                    this.bar.equals(config.bar) &&
+                    Iterables.elementsEqual(this.effects, config.effects) &&
+                    Objects.equals(this.enterMessage, config.enterMessage) &&
+                    Double.compare(this.doseRate, config.doseRate) == 0 &&
+                    this.tiers.equals(config.tiers);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.id, this.bar, this.enterMessage, this.doseRate, this.tiers);
+        }
+
+        /**
+         * Effects and dose rate applied at least the given number of blocks
+         * away from the nearest safe area.
+         */
+        public static class Tier {
+            private final int depth;
+            private final Iterable<PotionEffect> effects;
+            private final double doseRate;
+
+            public Tier(int depth, Iterable<PotionEffect> effects, double doseRate) {
+                this.depth = depth;
+                this.effects = Objects.requireNonNull(effects, "effects");
+                this.doseRate = doseRate;
+
+                Preconditions.checkArgument(depth > 0, "depth must be positive");
+                Preconditions.checkArgument(doseRate >= 0D, "doseRate cannot be negative");
+            }
+
+            public Tier(ConfigurationSection section, double defaultDoseRate) throws InvalidConfigurationException {
+                this.depth = section.getInt("depth", 0);
+                if (this.depth <= 0) {
+                    throw new InvalidConfigurationException("Tier depth must be positive.");
+                }
+
+                this.effects = parseEffects(section.getConfigurationSection("effects"));
+
+                this.doseRate = section.getDouble("dose-rate", defaultDoseRate);
+                if (this.doseRate < 0D) {
+                    throw new InvalidConfigurationException("Dose rate must not be negative.");
+                }
+            }
+
+            public int depth() {
+                return this.depth;
+            }
+
+            public Iterable<PotionEffect> effects() {
+                return this.effects;
+            }
+
+            public double doseRate() {
+                return this.doseRate;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (this == o) return true;
+                if (o == null || getClass() != o.getClass()) return false;
+                Tier tier = (Tier) o;
+                return this.depth == tier.depth &&
+                        Iterables.elementsEqual(this.effects, tier.effects) &&
+                        Double.compare(this.doseRate, tier.doseRate) == 0;
+            }
+
+            @Override
+            public int hashCode() {
+                return Objects.hash(this.depth, this.doseRate);
+            }
+        }
     }
 }
@@ -26,6 +26,7 @@ import com.sk89q.worldguard.protection.flags.StateFlag;
 import com.sk89q.worldguard.protection.managers.RegionManager;
 import com.sk89q.worldguard.protection.regions.GlobalProtectedRegion;
 import com.sk89q.worldguard.protection.regions.ProtectedCuboidRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedPolygonalRegion;
 import com.sk89q.worldguard.protection.regions.ProtectedRegion;
 import com.sk89q.worldguard.protection.regions.RegionContainer;
 import org.bukkit.ChatColor;
@@ -37,14 +38,30 @@ import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.plugin.Plugin;
 import pl.craftserve.radiation.nms.RadiationNmsBridge;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
 import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.logging.Level;
@@ -56,27 +73,72 @@ import java.util.stream.StreamSupport;
 public class RadiationCommandHandler implements CommandExecutor, TabCompleter {
     static final Logger logger = Logger.getLogger(RadiationCommandHandler.class.getName());
 
+    /** Required for sub-commands managing the server, on top of the command permission. */
+    public static final String ADMIN_PERMISSION = "craftserveradiation.radiation.admin";
+
     private static final String REGION_ID = "safe_from_radiation";
     private static final String GLOBAL_REGION_ID = "__global__";
 
+    private static final Duration DEFAULT_PERF_WINDOW = Duration.ofMinutes(1);
+    private static final String DRY_RUN = "dry-run";
+    /** Regions saved with a single region manager save during import. */
+    private static final int IMPORT_BATCH_SIZE = 500;
+    private static final int MAX_REPORTED_PROBLEMS = 10;
+    private static final Set<String> ADMIN_SUB_COMMANDS = new HashSet<>(Arrays.asList("import", "reload", "trace"));
+
+    private final Plugin plugin;
     private final RadiationNmsBridge nmsBridge;
+    private final Profiler profiler;
+    private final WorldBoundsRegistry worldBounds;
+    private final RegionCommitter regionCommitter;
+    private final TraceRecorder traceRecorder;
+    private final GeigerCounter geigerCounter;
+    private final ZoneImporter zoneImporter = new ZoneImporter();
     private final Flag<Boolean> flag;
+    private final Flag<String> radiationTypeFlag;
     private final Radiation.WorldGuardMatcher worldGuardMatcher = (player, regionContainer) -> {
         throw new UnsupportedOperationException();
     };
     private final Function<String, LugolsIodinePotion> potionFinder;
     private final Supplier<Spliterator<LugolsIodinePotion>> potionLister;
-
-    public RadiationCommandHandler(RadiationNmsBridge nmsBridge, Flag<Boolean> flag,
-                                   Function<String, LugolsIodinePotion> potionFinder, Supplier<Spliterator<LugolsIodinePotion>> potionLister) {
+    private final Supplier<Set<String>> radiationIdLister;
+    private final Supplier<CompletableFuture<String>> reloader;
+
+    public RadiationCommandHandler(Plugin plugin, RadiationNmsBridge nmsBridge, Profiler profiler, WorldBoundsRegistry worldBounds,
+                                   RegionCommitter regionCommitter, TraceRecorder traceRecorder, GeigerCounter geigerCounter, Flag<Boolean> flag, Flag<String> radiationTypeFlag,
+                                   Function<String, LugolsIodinePotion> potionFinder, Supplier<Spliterator<LugolsIodinePotion>> potionLister,
+                                   Supplier<Set<String>> radiationIdLister, Supplier<CompletableFuture<String>> reloader) {
+        this.plugin = Objects.requireNonNull(plugin, "plugin");
         this.nmsBridge = Objects.requireNonNull(nmsBridge, "nmsBridge");
+        this.profiler = Objects.requireNonNull(profiler, "profiler");
+        this.worldBounds = Objects.requireNonNull(worldBounds, "worldBounds");
+        this.regionCommitter = Objects.requireNonNull(regionCommitter, "regionCommitter");
+        this.traceRecorder = Objects.requireNonNull(traceRecorder, "traceRecorder");
+        this.geigerCounter = geigerCounter; // null when disabled
         this.flag = Objects.requireNonNull(flag, "flag");
+        this.radiationTypeFlag = Objects.requireNonNull(radiationTypeFlag, "radiationTypeFlag");
         this.potionFinder = Objects.requireNonNull(potionFinder, "potionFinder");
         this.potionLister = Objects.requireNonNull(potionLister, "potionLister");
+        this.radiationIdLister = Objects.requireNonNull(radiationIdLister, "radiationIdLister");
+        this.reloader = Objects.requireNonNull(reloader, "reloader");
     }
 
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (args.length > 0) {
+            // console is allowed here
+            switch (args[0]) {
+                case "import":
+                    return !this.checkAdmin(sender) || this.onImport(sender, label, args);
+                case "perf":
+                    return this.onPerf(sender, label, args);
+                case "reload":
+                    return !this.checkAdmin(sender) || this.onReload(sender);
+                case "trace":
+                    return !this.checkAdmin(sender) || this.onTrace(sender, label, args);
+            }
+        }
+
         if (!(sender instanceof Player)) {
             sender.sendMessage(ChatColor.RED + "Only players may execute this command.");
             return true;
@@ -85,6 +147,8 @@ public class RadiationCommandHandler implements CommandExecutor, TabCompleter {
 
         if (args.length > 0) {
             switch (args[0]) {
+                case "geiger":
+                    return this.onGeiger(player);
                 case "potion":
                     return this.onPotion(player, label, args);
                 case "safe":
@@ -96,6 +160,36 @@ public class RadiationCommandHandler implements CommandExecutor, TabCompleter {
         return true;
     }
 
+    /**
+     * @return Whether the sender has the admin permission, a message is sent
+     * if not.
+     */
+    private boolean checkAdmin(CommandSender sender) {
+        if (sender.hasPermission(ADMIN_PERMISSION)) {
+            return true;
+        }
+
+        sender.sendMessage(ChatColor.RED + "You don't have permission to do that.");
+        return false;
+    }
+
+    private boolean onGeiger(Player sender) {
+        if (this.geigerCounter == null) {
+            sender.sendMessage(ChatColor.RED + "Geiger counter is disabled in the config.");
+            return true;
+        }
+
+        ItemStack itemStack = this.geigerCounter.createItemStack();
+        ItemMeta itemMeta = Objects.requireNonNull(itemStack.getItemMeta());
+
+        if (sender.getInventory().addItem(itemStack).isEmpty()) {
+            sender.sendMessage(ChatColor.GREEN + "You have received " + itemMeta.getDisplayName());
+        } else {
+            sender.sendMessage(ChatColor.RED + "Your inventory is full!");
+        }
+        return true;
+    }
+
     private boolean onPotion(Player sender, String label, String[] args) {
         String usage = ChatColor.RED + "/" + label + " potion <identifier>";
         if (args.length == 1) {
@@ -138,6 +232,297 @@ public class RadiationCommandHandler implements CommandExecutor, TabCompleter {
         return true;
     }
 
+    private boolean onPerf(CommandSender sender, String label, String[] args) {
+        String usage = ChatColor.RED + "/" + label + " perf [10s|1m|5m|reset]";
+
+        Duration window = DEFAULT_PERF_WINDOW;
+        if (args.length > 1) {
+            switch (args[1].toLowerCase(Locale.ROOT)) {
+                case "reset":
+                    if (!this.checkAdmin(sender)) {
+                        return true;
+                    }
+                    this.profiler.reset();
+                    sender.sendMessage(ChatColor.GREEN + "Profiler has been reset.");
+                    return true;
+                case "10s":
+                    window = Duration.ofSeconds(10);
+                    break;
+                case "1m":
+                    window = Duration.ofMinutes(1);
+                    break;
+                case "5m":
+                    window = Profiler.MAX_WINDOW;
+                    break;
+                default:
+                    sender.sendMessage(usage);
+                    return true;
+            }
+        }
+
+        sender.sendMessage(ChatColor.YELLOW + "Radiation timings over the last " + window.getSeconds() + " seconds:");
+        for (Profiler.Timer timer : Profiler.Timer.values()) {
+            Profiler.Summary summary = this.profiler.histogram(timer).summarize(window);
+            sender.sendMessage(ChatColor.GRAY + timer.key() + ": " + ChatColor.WHITE +
+                    "p50=" + Profiler.formatNanos(summary.percentile(0.5D)) +
+                    " p99=" + Profiler.formatNanos(summary.percentile(0.99D)) +
+                    " max=" + Profiler.formatNanos(summary.max()) +
+                    " n=" + summary.count());
+        }
+
+        sender.sendMessage(ChatColor.YELLOW + "Counters since the last reset:");
+        for (Profiler.Counter counter : Profiler.Counter.values()) {
+            sender.sendMessage(ChatColor.GRAY + counter.key() + ": " + ChatColor.WHITE + this.profiler.count(counter));
+        }
+        return true;
+    }
+
+    private boolean onReload(CommandSender sender) {
+        sender.sendMessage(ChatColor.GRAY + "Reloading configuration...");
+        this.reloader.get().whenComplete((summary, throwable) -> {
+            if (throwable != null) {
+                logger.log(Level.WARNING, "Could not reload configuration.", throwable);
+                sender.sendMessage(ChatColor.RED + "Could not reload configuration: " + throwable.getMessage());
+                return;
+            }
+
+            sender.sendMessage(ChatColor.GREEN + "Configuration has been reloaded, " + summary + ".");
+        });
+        return true;
+    }
+
+    private boolean onTrace(CommandSender sender, String label, String[] args) {
+        String usage = ChatColor.RED + "/" + label + " trace <start|stop>";
+        if (args.length != 2) {
+            sender.sendMessage(usage);
+            return true;
+        }
+
+        switch (args[1].toLowerCase(Locale.ROOT)) {
+            case "start":
+                if (this.traceRecorder.isRecording()) {
+                    sender.sendMessage(ChatColor.RED + "Trace is already being recorded.");
+                    return true;
+                }
+
+                try {
+                    this.traceRecorder.start();
+                } catch (IOException e) {
+                    logger.log(Level.SEVERE, "Could not start recording the trace.", e);
+                    sender.sendMessage(ChatColor.RED + "Could not start recording the trace: " + e.getMessage());
+                    return true;
+                }
+
+                sender.sendMessage(ChatColor.GREEN + "Recording player trace to " + this.traceRecorder.getDirectory() + ".");
+                return true;
+            case "stop":
+                if (!this.traceRecorder.isRecording()) {
+                    Optional<IOException> failure = this.traceRecorder.getFailure();
+                    if (failure.isPresent()) {
+                        this.traceRecorder.stop();
+                        sender.sendMessage(ChatColor.RED + "Trace recording has failed: " + failure.get().getMessage());
+                        return true;
+                    }
+
+                    sender.sendMessage(ChatColor.RED + "Trace is not being recorded.");
+                    return true;
+                }
+
+                long dropped = this.traceRecorder.stop();
+                sender.sendMessage(ChatColor.GREEN + "Trace recording has been stopped" +
+                        (dropped == 0L ? "." : ", " + dropped + " sample(s) were dropped."));
+                return true;
+            default:
+                sender.sendMessage(usage);
+                return true;
+        }
+    }
+
+    private boolean onImport(CommandSender sender, String label, String[] args) {
+        String usage = ChatColor.RED + "/" + label + " import <file> [" + DRY_RUN + "]";
+        if (args.length == 1) {
+            sender.sendMessage(ChatColor.RED + "Provide a .csv or .json file with safe zones, relative to the plugin folder.");
+            sender.sendMessage(usage);
+            return true;
+        }
+
+        boolean dryRun = false;
+        if (args.length > 2) {
+            if (!args[2].equalsIgnoreCase(DRY_RUN)) {
+                sender.sendMessage(usage);
+                return true;
+            }
+            dryRun = true;
+        }
+
+        Path folder = this.plugin.getDataFolder().toPath().toAbsolutePath().normalize();
+        Path path = folder.resolve(args[1]).normalize();
+        if (!path.startsWith(folder)) {
+            sender.sendMessage(ChatColor.RED + "The file must be located inside the plugin folder.");
+            return true;
+        }
+
+        RegionContainer container = this.worldGuardMatcher.getRegionContainer();
+        if (container == null) {
+            sender.sendMessage(ChatColor.RED + "Sorry, region container is not currently accessible.");
+            return true;
+        }
+
+        // Capture world heights on the main thread, everything else is done asynchronously.
+        Map<String, WorldBoundsRegistry.Bounds> worlds = new HashMap<>();
+        for (org.bukkit.World world : this.plugin.getServer().getWorlds()) {
+            worlds.put(world.getName(), this.worldBounds.get(world));
+        }
+        Set<String> radiationIds = new HashSet<>(this.radiationIdLister.get());
+
+        sender.sendMessage(ChatColor.GRAY + (dryRun ? "Validating" : "Importing") + " safe zones from " + folder.relativize(path) + "...");
+        boolean finalDryRun = dryRun;
+        this.plugin.getServer().getScheduler().runTaskAsynchronously(this.plugin, () -> {
+            this.importZones(sender, container, path, worlds, radiationIds, finalDryRun);
+        });
+        return true;
+    }
+
+    private void importZones(CommandSender sender, RegionContainer container, Path path, Map<String, WorldBoundsRegistry.Bounds> worlds,
+                             Set<String> radiationIds, boolean dryRun) {
+        long start = System.nanoTime();
+
+        List<ZoneImporter.Entry> entries;
+        try {
+            entries = this.zoneImporter.read(path);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not read safe zones from " + path + ".", e);
+            this.sync(() -> sender.sendMessage(ChatColor.RED + "Could not read the file: " + e.getMessage()));
+            return;
+        }
+        long readEnd = System.nanoTime();
+
+        Queue<String> problems = new ConcurrentLinkedQueue<>();
+        List<ZoneImporter.Zone> zones = entries.parallelStream()
+                .map(entry -> {
+                    try {
+                        return this.zoneImporter.validate(entry, worlds);
+                    } catch (ZoneImporter.InvalidZoneException e) {
+                        problems.add(e.getMessage());
+                        return null;
+                    }
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        Set<String> seenIds = new HashSet<>();
+        for (ZoneImporter.Zone zone : zones) {
+            if (!seenIds.add(zone.world().bukkitWorld().getName() + "/" + zone.id().toLowerCase(Locale.ROOT))) {
+                problems.add("duplicate region id " + zone.id() + " in world " + zone.world().bukkitWorld().getName());
+            }
+        }
+
+        if (!problems.isEmpty()) {
+            this.sync(() -> {
+                sender.sendMessage(ChatColor.RED + "Found " + problems.size() + " invalid zone(s), nothing has been imported:");
+                problems.stream().limit(MAX_REPORTED_PROBLEMS).forEach(problem -> sender.sendMessage(ChatColor.RED + "- " + problem));
+            });
+            return;
+        }
+
+        // regions may be imported before their radiation is configured
+        Set<String> unknownRadiationIds = zones.stream()
+                .map(zone -> zone.radiationType().orElse(null))
+                .filter(radiationId -> radiationId != null && !radiationIds.contains(radiationId))
+                .collect(Collectors.toCollection(TreeSet::new));
+        if (!unknownRadiationIds.isEmpty()) {
+            this.sync(() -> sender.sendMessage(ChatColor.YELLOW + "Warning: radiation type(s) " + String.join(", ", unknownRadiationIds) +
+                    " are not configured, these zones won't have any effect until they are."));
+        }
+
+        Map<WorldBoundsRegistry.Bounds, List<ZoneImporter.Zone>> zonesByWorld = zones.stream()
+                .collect(Collectors.groupingBy(ZoneImporter.Zone::world, LinkedHashMap::new, Collectors.toList()));
+
+        Map<WorldBoundsRegistry.Bounds, List<ProtectedRegion>> regionsByWorld = new LinkedHashMap<>();
+        zonesByWorld.forEach((world, worldZones) -> {
+            regionsByWorld.put(world, worldZones.parallelStream().map(this::createRegion).collect(Collectors.toList()));
+        });
+        long buildEnd = System.nanoTime();
+
+        String timings = "read " + TimeUnit.NANOSECONDS.toMillis(readEnd - start) + "ms, " +
+                "validated and built " + TimeUnit.NANOSECONDS.toMillis(buildEnd - readEnd) + "ms";
+
+        if (dryRun) {
+            this.sync(() -> {
+                sender.sendMessage(ChatColor.GREEN + "Dry run: " + zones.size() + " zone(s) are valid (" + timings + ").");
+                zonesByWorld.forEach((world, worldZones) -> {
+                    sender.sendMessage(ChatColor.GRAY + "- " + world.bukkitWorld().getName() + ": " + worldZones.size() + " zone(s)");
+                });
+            });
+            return;
+        }
+
+        this.sync(() -> this.commitImport(sender, container, zonesByWorld, regionsByWorld, timings, buildEnd));
+    }
+
+    private void commitImport(CommandSender sender, RegionContainer container,
+                              Map<WorldBoundsRegistry.Bounds, List<ZoneImporter.Zone>> zonesByWorld,
+                              Map<WorldBoundsRegistry.Bounds, List<ProtectedRegion>> regionsByWorld,
+                              String timings, long commitStart) {
+        List<CompletableFuture<Duration>> futures = new ArrayList<>();
+        zonesByWorld.forEach((world, zones) -> {
+            RegionManager regionManager = container.get(world.world());
+            if (regionManager == null) {
+                sender.sendMessage(ChatColor.RED + "Sorry, region manager for world " + world.bukkitWorld().getName() + " is not currently accessible, skipping it.");
+                return;
+            }
+
+            List<ProtectedRegion> regions = regionsByWorld.get(world);
+            for (int from = 0; from < zones.size(); from += IMPORT_BATCH_SIZE) {
+                int to = Math.min(zones.size(), from + IMPORT_BATCH_SIZE);
+                List<ZoneImporter.Zone> zoneBatch = zones.subList(from, to);
+                List<ProtectedRegion> regionBatch = regions.subList(from, to);
+
+                futures.add(this.regionCommitter.commit(regionManager, changes -> {
+                    boolean anySafe = false;
+                    for (int i = 0; i < zoneBatch.size(); i++) {
+                        ZoneImporter.Zone zone = zoneBatch.get(i);
+                        this.define(changes, regionBatch.get(i), zone.radioactive(), zone.radiationType().orElse(null));
+                        anySafe |= !zone.radioactive();
+                    }
+
+                    if (anySafe) {
+                        this.flagGlobal(changes, true);
+                    }
+                }));
+            }
+        });
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).whenComplete((ignored, throwable) -> {
+            String commitTiming = "committed " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - commitStart) + "ms in " + futures.size() + " batch(es)";
+            if (throwable != null) {
+                sender.sendMessage(ChatColor.RED + "Some safe zones could not be saved, see console (" + timings + ", " + commitTiming + ").");
+                return;
+            }
+
+            int count = zonesByWorld.values().stream().mapToInt(List::size).sum();
+            sender.sendMessage(ChatColor.GREEN + "Imported " + count + " zone(s) (" + timings + ", " + commitTiming + ").");
+        });
+    }
+
+    private ProtectedRegion createRegion(ZoneImporter.Zone zone) {
+        Objects.requireNonNull(zone, "zone");
+
+        Optional<List<BlockVector2>> points = zone.points();
+        if (points.isPresent()) {
+            return new ProtectedPolygonalRegion(zone.id(), points.get(), zone.minY(), zone.maxY());
+        }
+
+        BlockVector2 centre = zone.centre().orElseThrow(() -> new IllegalArgumentException("zone has neither centre nor points"));
+        return this.createCuboid(zone.id(), centre.toBlockVector3(), zone.radius(), zone.minY(), zone.maxY());
+    }
+
+    private void sync(Runnable runnable) {
+        if (this.plugin.isEnabled()) {
+            this.plugin.getServer().getScheduler().runTask(this.plugin, runnable);
+        }
+    }
+
     private boolean onSafe(Player sender, String label, String[] args) {
         String usage = ChatColor.RED + "/" + label + " safe <radius>";
         if (args.length == 1) {
@@ -167,15 +552,11 @@ public class RadiationCommandHandler implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        if (this.define(sender, container, REGION_ID, radius)) {
-            BlockVector2 origin = BukkitAdapter.asBlockVector(sender.getLocation()).toBlockVector2();
-            sender.sendMessage(ChatColor.GREEN + "A new safe-from-radiation zone has been created in radius " +
-                    radius + " at the origin at " + origin + " in world " + sender.getWorld().getName() + ".");
-        }
+        this.define(sender, container, REGION_ID, radius);
         return true;
     }
 
-    private boolean define(Player player, RegionContainer container, String regionId, int radius) {
+    private void define(Player player, RegionContainer container, String regionId, int radius) {
         Objects.requireNonNull(player, "player");
         Objects.requireNonNull(container, "container");
         Objects.requireNonNull(regionId, "regionId");
@@ -185,13 +566,26 @@ public class RadiationCommandHandler implements CommandExecutor, TabCompleter {
         RegionManager regionManager = container.get(world);
         if (regionManager == null) {
             player.sendMessage(ChatColor.RED + "Sorry, region manager for world " + world.getName() + " is not currently accessible.");
-            return false;
+            return;
         }
 
         BlockVector3 origin = BukkitAdapter.asBlockVector(player.getLocation());
-        this.define(regionManager, this.createCuboid(bukkitWorld, regionId, origin, radius));
-        this.flagGlobal(regionManager, true);
-        return true;
+        ProtectedCuboidRegion region = this.createCuboid(bukkitWorld, regionId, origin, radius);
+
+        player.sendMessage(ChatColor.GRAY + "Saving safe-from-radiation zone...");
+        this.regionCommitter.commit(regionManager, changes -> {
+            this.define(changes, region);
+            this.flagGlobal(changes, true);
+        }).whenComplete((took, throwable) -> {
+            if (throwable != null) {
+                player.sendMessage(ChatColor.RED + "Could not save safe-from-radiation zone. See console.");
+                return;
+            }
+
+            player.sendMessage(ChatColor.GREEN + "A new safe-from-radiation zone has been created in radius " +
+                    radius + " at the origin at " + origin.toBlockVector2() + " in world " + bukkitWorld.getName() +
+                    " (saved in " + took.toMillis() + "ms).");
+        });
     }
 
     private ProtectedCuboidRegion createCuboid(org.bukkit.World bukkitWorld, String regionId, BlockVector3 origin, int radius) {
@@ -201,6 +595,12 @@ public class RadiationCommandHandler implements CommandExecutor, TabCompleter {
 
         int minY = this.nmsBridge.getMinWorldHeight(bukkitWorld);
         int maxY = bukkitWorld.getMaxHeight();
+        return this.createCuboid(regionId, origin, radius, minY, maxY);
+    }
+
+    private ProtectedCuboidRegion createCuboid(String regionId, BlockVector3 origin, int radius, int minY, int maxY) {
+        Objects.requireNonNull(regionId, "regionId");
+        Objects.requireNonNull(origin, "origin");
 
         BlockVector3 min = origin.subtract(radius, 0, radius).withY(minY);
         BlockVector3 max = origin.add(radius, 0, radius).withY(maxY);
@@ -208,6 +608,10 @@ public class RadiationCommandHandler implements CommandExecutor, TabCompleter {
     }
 
     private void define(RegionManager regionManager, ProtectedRegion region) {
+        this.define(regionManager, region, false, null);
+    }
+
+    private void define(RegionManager regionManager, ProtectedRegion region, boolean radioactive, String radiationType) {
         Objects.requireNonNull(regionManager, "regionManager");
         Objects.requireNonNull(region, "region");
 
@@ -217,7 +621,10 @@ public class RadiationCommandHandler implements CommandExecutor, TabCompleter {
             region.copyFrom(existing);
         }
 
-        this.flag(region, false);
+        this.flag(region, radioactive);
+        if (radiationType != null) {
+            region.setFlag(this.radiationTypeFlag, radiationType);
+        }
         region.setFlag(Flags.PASSTHROUGH, StateFlag.State.ALLOW);
         regionManager.addRegion(region);
     }
@@ -248,7 +655,9 @@ public class RadiationCommandHandler implements CommandExecutor, TabCompleter {
     public List<String> onTabComplete(CommandSender sender, Command command, String label, String[] args) {
         String subCommandInput = args[0].toLowerCase(Locale.ROOT);
         if (args.length == 1) {
-            return Stream.of("potion", "safe")
+            boolean admin = sender.hasPermission(ADMIN_PERMISSION);
+            return Stream.of("geiger", "import", "perf", "potion", "reload", "safe", "trace")
+                    .filter(subCommand -> admin || !ADMIN_SUB_COMMANDS.contains(subCommand))
                     .filter(subCommand -> subCommand.startsWith(subCommandInput))
                     .collect(Collectors.toList());
         }
@@ -16,6 +16,7 @@
 
 package pl.craftserve.radiation;
 
+import com.google.common.base.Preconditions;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Cancellable;
 import org.bukkit.event.Event;
@@ -42,6 +43,7 @@ public class RadiationEvent extends Event implements Cancellable {
     private final Radiation radiation;
     private boolean cancel;
     private boolean showWarning = true;
+    private double doseMultiplier = 1D;
 
     public RadiationEvent(Player player, Radiation radiation) {
         this.player = Objects.requireNonNull(player, "player");
@@ -55,11 +57,14 @@ public class RadiationEvent extends Event implements Cancellable {
 
     @Override
     public void setCancelled(boolean cancel) {
-        this.cancel = cancel;
-
         if (cancel) {
             this.showWarning = false;
+            this.doseMultiplier = 0D;
+        } else if (this.cancel) {
+            this.doseMultiplier = 1D;
         }
+
+        this.cancel = cancel;
     }
 
     public Player getPlayer() {
@@ -77,4 +82,18 @@ public class RadiationEvent extends Event implements Cancellable {
     public void setShowWarning(boolean showWarning) {
         this.showWarning = showWarning;
     }
+
+    /**
+     * Multiplier of the dose the player receives, applied even when the
+     * event is cancelled. Cancelling the event resets it to {@code 0},
+     * un-cancelling it back to {@code 1}.
+     */
+    public double getDoseMultiplier() {
+        return this.doseMultiplier;
+    }
+
+    public void setDoseMultiplier(double doseMultiplier) {
+        Preconditions.checkArgument(doseMultiplier >= 0D, "doseMultiplier cannot be negative");
+        this.doseMultiplier = doseMultiplier;
+    }
 }
@@ -49,6 +49,7 @@ import pl.craftserve.radiation.nms.V1_19_R2NmsBridge;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -57,6 +58,7 @@ import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -78,14 +80,31 @@ public final class RadiationPlugin extends JavaPlugin {
     private RadiationNmsBridge radiationNmsBridge;
     private Config config;
 
+    private final Profiler profiler = new Profiler();
+    private WorldBoundsRegistry worldBounds;
+    private RegionCommitter regionCommitter;
+    private ConfigReloader configReloader;
+    private TraceRecorder traceRecorder;
+    private PlayerIndex playerIndex;
+    private DoseStore doseStore;
+    private ZoneTracker zoneTracker;
+    private RegionIndexer regionIndexer;
+    private DistanceField distanceField;
+    private GeigerCounter geigerCounter;
+    private EntityRadiation entityRadiation;
+    private RadiationSources radiationSources;
+    private final ZoneEngine zoneEngine = new ZoneEngine();
+
     private LugolsIodineEffect effect;
     private LugolsIodineDisplay display;
 
     private final Map<String, LugolsIodinePotion> potions = new LinkedHashMap<>();
     private final Map<String, Radiation> activeRadiations = new LinkedHashMap<>();
+    private final AtomicInteger radiationAffectedCount = new AtomicInteger();
 
     private CraftserveListener craftserveListener;
     private MetricsHandler metricsHandler;
+    private PrometheusExporter prometheusExporter;
 
     private RadiationNmsBridge initializeNmsBridge() {
         String serverVersion = RadiationNmsBridge.getServerVersion(this.getServer());
@@ -159,28 +178,85 @@ public final class RadiationPlugin extends JavaPlugin {
         // Enabling
         //
 
-        this.effect = new LugolsIodineEffect(this);
-        this.display = new LugolsIodineDisplay(this, this.effect, this.config.lugolsIodineBars());
+        this.playerIndex = new PlayerIndex(this);
+        this.doseStore = new DoseStore(this, this.playerIndex, this.config.dose());
+        this.worldBounds = new WorldBoundsRegistry(this, this.radiationNmsBridge, this.profiler);
+        if (this.config.zoneDetection() == ZoneTracker.Detection.SESSION) {
+            this.zoneTracker = new ZoneTracker(this, this.playerIndex, this.worldBounds, this.radiationFlag, this.radiationTypeFlag);
+        }
+        this.regionCommitter = new RegionCommitter(this);
+        if (this.config.regionIndex()) {
+            RadiationRaster raster = null;
+            if (this.config.regionRaster().enabled()) {
+                raster = new RadiationRaster(this.getDataFolder().toPath().resolve("rasters"), this.config.regionRaster());
+            }
+
+            this.regionIndexer = new RegionIndexer(this, this.regionCommitter, this.worldBounds, raster, this.radiationFlag, this.radiationTypeFlag);
+
+            this.distanceField = new DistanceField(this.config.distanceField());
+            this.regionIndexer.addListener(this.distanceField);
+
+            if (this.config.geigerCounter().enabled()) {
+                this.geigerCounter = new GeigerCounter(this, this.playerIndex, this.distanceField, this.config.geigerCounter());
+            }
+        } else if (this.config.geigerCounter().enabled()) {
+            logger.warning("Geiger counter requires the region index, it will not be enabled.");
+        }
+        if (this.config.radiationSources().enabled()) {
+            this.radiationSources = new RadiationSources(this, this.getDataFolder().toPath().resolve("sources"), this.config.radiationSources());
+        }
+        this.configReloader = new ConfigReloader(this, CURRENT_PROTOCOL_VERSION, this::swapConfig);
+        this.traceRecorder = new TraceRecorder(this, this.getDataFolder().toPath().resolve("traces"));
+        this.effect = new LugolsIodineEffect(this, this.playerIndex, this.profiler);
+        this.effect.setDoseMultiplier(this.config.dose().lugolsIodineMultiplier());
+        if (this.config.entityRadiation().enabled()) {
+            if (this.regionIndexer != null) {
+                this.entityRadiation = new EntityRadiation(this, this.regionIndexer, this.worldBounds, this.effect, this.distanceField,
+                        this.activeRadiations::get, this.profiler, this.config.entityRadiation());
+            } else {
+                logger.warning("Entity radiation requires the region index, it will not be enabled.");
+            }
+        }
+        this.display = new LugolsIodineDisplay(this, this.playerIndex, this.effect, this.config.lugolsIodineBars(), this.profiler);
 
         for (LugolsIodinePotion.Config potionConfig : this.config.lugolsIodinePotions()) {
             this.potions.put(potionConfig.id(), new LugolsIodinePotion(this, this.effect, potionConfig));
         }
 
+        this.zoneEngine.load(this.config.zones());
+        this.warnIgnoredTiers(this.config.radiations());
         for (Radiation.Config radiationConfig : this.config.radiations()) {
-            String id = radiationConfig.id();
-            Radiation.Matcher matcher = new Radiation.FlagMatcher(this.radiationNmsBridge, this.radiationFlag, this.radiationTypeFlag, Collections.singleton(id));
-
-            this.activeRadiations.put(id, new Radiation(this, matcher, radiationConfig));
+            this.activeRadiations.put(radiationConfig.id(), this.createRadiation(radiationConfig));
         }
 
-        RadiationCommandHandler radiationCommandHandler = new RadiationCommandHandler(this.radiationNmsBridge, this.radiationFlag, this.potions::get, () -> {
+        RadiationCommandHandler radiationCommandHandler = new RadiationCommandHandler(this, this.radiationNmsBridge, this.profiler, this.worldBounds, this.regionCommitter,
+                this.traceRecorder, this.geigerCounter, this.radiationFlag, this.radiationTypeFlag, this.potions::get, () -> {
             return this.potions.values().spliterator();
-        });
+        }, this.activeRadiations::keySet, this.configReloader::reload);
         radiationCommandHandler.register(this.getCommand("radiation"));
 
         this.craftserveListener = new CraftserveListener(this);
         this.metricsHandler = new MetricsHandler(this, server, this.radiationNmsBridge.getClass());
+        if (this.config.prometheusExporter().enabled()) {
+            this.prometheusExporter = new PrometheusExporter(this, this.config.prometheusExporter(), this.profiler, this.effect::getAffectedCount);
+        }
 
+        this.playerIndex.enable();
+        this.doseStore.enable();
+        this.worldBounds.enable();
+        if (this.zoneTracker != null && !this.zoneTracker.enable()) {
+            logger.warning("WorldGuard platform is not available, falling back to polling zone detection.");
+        }
+        this.regionCommitter.enable();
+        if (this.regionIndexer != null) {
+            this.regionIndexer.enable();
+        }
+        if (this.geigerCounter != null) {
+            this.geigerCounter.enable();
+        }
+        if (this.radiationSources != null) {
+            this.radiationSources.enable();
+        }
         this.effect.enable();
         this.display.enable();
 
@@ -194,18 +270,37 @@ public final class RadiationPlugin extends JavaPlugin {
         radiationIds.addAll(this.activeRadiations.keySet());
         logger.info("Loaded and enabled " + this.activeRadiations.size() + " radiation(s): " + String.join(", ", radiationIds));
 
+        if (this.entityRadiation != null) {
+            this.entityRadiation.enable();
+        }
+
         this.craftserveListener.enable();
         this.metricsHandler.start();
+
+        if (this.prometheusExporter != null) {
+            this.prometheusExporter.setRadiations(this.activeRadiations.values());
+            this.prometheusExporter.start();
+        }
     }
 
     @Override
     public void onDisable() {
+        if (this.prometheusExporter != null) {
+            this.prometheusExporter.stop();
+        }
         if (this.metricsHandler != null) {
             this.metricsHandler.stop();
         }
         if (this.craftserveListener != null) {
             this.craftserveListener.disable();
         }
+        if (this.traceRecorder != null) {
+            this.traceRecorder.stop();
+        }
+
+        if (this.entityRadiation != null) {
+            this.entityRadiation.disable();
+        }
 
         this.activeRadiations.forEach((id, radiation) -> radiation.disable());
         this.activeRadiations.clear();
@@ -219,6 +314,212 @@ public final class RadiationPlugin extends JavaPlugin {
         if (this.effect != null) {
             this.effect.disable();
         }
+        if (this.radiationSources != null) {
+            this.radiationSources.disable();
+        }
+        if (this.geigerCounter != null) {
+            this.geigerCounter.disable();
+        }
+        if (this.regionIndexer != null) {
+            this.regionIndexer.disable();
+        }
+        if (this.distanceField != null) {
+            this.distanceField.clear();
+        }
+        if (this.regionCommitter != null) {
+            this.regionCommitter.disable();
+        }
+        if (this.zoneTracker != null) {
+            this.zoneTracker.disable();
+        }
+        if (this.worldBounds != null) {
+            this.worldBounds.disable();
+        }
+        if (this.doseStore != null) {
+            this.doseStore.disable();
+        }
+        if (this.playerIndex != null) {
+            this.playerIndex.disable();
+        }
+    }
+
+    private Radiation createRadiation(Radiation.Config radiationConfig) {
+        Objects.requireNonNull(radiationConfig, "radiationConfig");
+
+        Set<String> acceptedRadiationTypes = Collections.singleton(radiationConfig.id());
+        RegionLookup regionLookup = this.regionIndexer != null ? this.regionIndexer : RegionIndex.EMPTY;
+        Radiation.Matcher matcher = new Radiation.FlagMatcher(this.worldBounds, this.profiler, this.radiationFlag, this.radiationTypeFlag, acceptedRadiationTypes, regionLookup);
+        if (this.zoneTracker != null) {
+            matcher = new Radiation.TrackedZoneMatcher(this.zoneTracker, matcher, this.profiler, acceptedRadiationTypes);
+        }
+
+        // native zones and sources are much cheaper to test than WorldGuard regions
+        Radiation.Matcher regionMatcher = matcher;
+        Radiation.Matcher zoneMatcher = this.zoneEngine.matcher(radiationConfig.id());
+        if (this.radiationSources != null) {
+            Radiation.Matcher sourceMatcher = this.radiationSources.matcher(radiationConfig.id());
+            matcher = player -> zoneMatcher.test(player) || sourceMatcher.test(player) || regionMatcher.test(player);
+        } else {
+            matcher = player -> zoneMatcher.test(player) || regionMatcher.test(player);
+        }
+
+        matcher = this.traceRecorder.wrap(radiationConfig.id(), matcher);
+        return new Radiation(this, this.playerIndex, matcher, RadiationProfile.compile(radiationConfig), this.radiationAffectedCount, this.profiler,
+                this.doseStore, this.distanceField);
+    }
+
+    //
+    // Reloading
+    //
+
+    /**
+     * Swap everything what has changed in the config, within the current
+     * tick. Unchanged radiations, potions and the display are kept as they
+     * are, replaced radiations take over affected players from the old ones.
+     * Lugol's iodine effects are not touched, so nobody loses protection.
+     *
+     * Brewing recipes stay registered in the server until it restarts, so
+     * the config is rejected before anything is swapped if an enabled
+     * recipe is changed or removed.
+     *
+     * @return Summary of the changes.
+     */
+    private String swapConfig(Config newConfig) {
+        Objects.requireNonNull(newConfig, "newConfig");
+
+        Map<String, LugolsIodinePotion.Config.Recipe> newRecipes = enabledRecipes(newConfig.lugolsIodinePotions());
+        if (!newRecipes.entrySet().containsAll(enabledRecipes(this.config.lugolsIodinePotions()).entrySet())) {
+            throw new IllegalStateException("Lugol's iodine potion recipes can't be changed or removed by reloading, restart the server.");
+        }
+
+        // zones, shared by all radiation matchers
+        boolean zonesReloaded = this.zoneEngine.load(newConfig.zones());
+
+        // radiations
+        this.warnIgnoredTiers(newConfig.radiations());
+        Map<String, Radiation> oldRadiations = new LinkedHashMap<>(this.activeRadiations);
+        Map<String, Radiation> newRadiations = new LinkedHashMap<>();
+        int radiationsReused = 0;
+        int radiationsReplaced = 0;
+
+        for (Radiation.Config radiationConfig : newConfig.radiations()) {
+            Radiation previous = oldRadiations.remove(radiationConfig.id());
+            if (previous != null && previous.getConfig().equals(radiationConfig)) {
+                newRadiations.put(radiationConfig.id(), previous);
+                radiationsReused++;
+                continue;
+            }
+
+            Radiation radiation = this.createRadiation(radiationConfig);
+            radiation.enable();
+            if (previous != null) {
+                radiation.inherit(previous);
+                previous.disable();
+                radiationsReplaced++;
+            }
+            newRadiations.put(radiationConfig.id(), radiation);
+        }
+
+        int radiationsAdded = newRadiations.size() - radiationsReused - radiationsReplaced;
+        int radiationsRemoved = oldRadiations.size();
+        oldRadiations.values().forEach(Radiation::disable);
+
+        this.activeRadiations.clear();
+        this.activeRadiations.putAll(newRadiations);
+
+        // potions
+        Map<String, LugolsIodinePotion> oldPotions = new LinkedHashMap<>(this.potions);
+        Map<String, LugolsIodinePotion> newPotions = new LinkedHashMap<>();
+        int potionsReused = 0;
+
+        for (LugolsIodinePotion.Config potionConfig : newConfig.lugolsIodinePotions()) {
+            LugolsIodinePotion previous = oldPotions.remove(potionConfig.id());
+            if (previous != null && previous.getConfig().equals(potionConfig)) {
+                newPotions.put(potionConfig.id(), previous);
+                potionsReused++;
+                continue;
+            }
+
+            LugolsIodinePotion potion = new LugolsIodinePotion(this, this.effect, potionConfig);
+            if (previous != null && previous.getConfig().recipe().enabled()) {
+                potion.enable(previous);
+            } else {
+                potion.enable(this.radiationNmsBridge);
+            }
+            if (previous != null) {
+                previous.disable();
+            }
+            newPotions.put(potionConfig.id(), potion);
+        }
+
+        oldPotions.values().forEach(LugolsIodinePotion::disable);
+
+        this.potions.clear();
+        this.potions.putAll(newPotions);
+
+        // dose
+        boolean doseReloaded = !this.doseStore.getConfig().equals(newConfig.dose());
+        if (doseReloaded) {
+            this.doseStore.setConfig(newConfig.dose());
+            this.effect.setDoseMultiplier(newConfig.dose().lugolsIodineMultiplier());
+        }
+
+        // display
+        boolean displayReplaced = !this.display.getConfigs().equals(newConfig.lugolsIodineBars());
+        if (displayReplaced) {
+            LugolsIodineDisplay display = new LugolsIodineDisplay(this, this.playerIndex, this.effect, newConfig.lugolsIodineBars(), this.profiler);
+            this.display.disable();
+            display.enable();
+            display.refresh();
+            this.display = display;
+        }
+
+        if (this.prometheusExporter != null) {
+            this.prometheusExporter.setRadiations(this.activeRadiations.values());
+        }
+
+        this.config = newConfig;
+
+        String summary = "radiations: " + radiationsReused + " unchanged, " + radiationsReplaced + " replaced, " +
+                radiationsAdded + " added, " + radiationsRemoved + " removed; " +
+                "potions: " + potionsReused + " unchanged, " + (this.potions.size() - potionsReused) + " (re)loaded, " +
+                oldPotions.size() + " removed; " +
+                "bars: " + (displayReplaced ? "reloaded" : "unchanged") + "; " +
+                "dose: " + (doseReloaded ? "reloaded" : "unchanged") + "; " +
+                "zones: " + (zonesReloaded ? this.zoneEngine.getZones().size() + " reloaded" : "unchanged");
+        logger.info("Reloaded configuration, " + summary);
+        return summary;
+    }
+
+    /**
+     * Tiers are chosen by the distance field, without it everyone gets the
+     * base profile.
+     */
+    private void warnIgnoredTiers(Iterable<Radiation.Config> radiationConfigs) {
+        if (this.distanceField != null) {
+            return;
+        }
+
+        Set<String> radiationIds = new TreeSet<>();
+        for (Radiation.Config radiationConfig : radiationConfigs) {
+            if (!radiationConfig.tiers().isEmpty()) {
+                radiationIds.add(radiationConfig.id());
+            }
+        }
+
+        if (!radiationIds.isEmpty()) {
+            logger.warning("Tiers of radiation(s) " + String.join(", ", radiationIds) + " require the region index, they will not be applied.");
+        }
+    }
+
+    private static Map<String, LugolsIodinePotion.Config.Recipe> enabledRecipes(Iterable<LugolsIodinePotion.Config> potionConfigs) {
+        Map<String, LugolsIodinePotion.Config.Recipe> recipes = new HashMap<>();
+        for (LugolsIodinePotion.Config potionConfig : potionConfigs) {
+            if (potionConfig.recipe().enabled()) {
+                recipes.put(potionConfig.id(), potionConfig.recipe());
+            }
+        }
+        return recipes;
     }
 
     public Flag<Boolean> getRadiationFlag() {
@@ -237,6 +538,18 @@ public final class RadiationPlugin extends JavaPlugin {
         return this.effect;
     }
 
+    public Profiler getProfiler() {
+        return this.profiler;
+    }
+
+    public RegionCommitter getRegionCommitter() {
+        return this.regionCommitter;
+    }
+
+    public DoseStore getDoseStore() {
+        return this.doseStore;
+    }
+
     public Map<String, LugolsIodinePotion> getPotionHandlers() {
         return Collections.unmodifiableMap(this.potions);
     }
@@ -245,6 +558,13 @@ public final class RadiationPlugin extends JavaPlugin {
         return Collections.unmodifiableMap(this.activeRadiations);
     }
 
+    /**
+     * Total number of players affected by all active radiations.
+     */
+    public int getRadiationAffectedCount() {
+        return this.radiationAffectedCount.get();
+    }
+
     @SuppressWarnings("unchecked")
     private <T> Flag<T> getOrCreateFlag(FlagRegistry flagRegistry, Flag<T> defaultFlag) {
         Objects.requireNonNull(flagRegistry, "flagRegistry");
@@ -434,11 +754,46 @@ public final class RadiationPlugin extends JavaPlugin {
         private final Map<String, BarConfig> lugolsIodineBars;
         private final Iterable<LugolsIodinePotion.Config> lugolsIodinePotions;
         private final Iterable<Radiation.Config> radiations;
+        private final PrometheusExporter.Config prometheusExporter;
+        private final ZoneTracker.Detection zoneDetection;
+        private final List<ZoneEngine.Zone> zones;
+        private final boolean regionIndex;
+        private final RadiationRaster.Config regionRaster;
+        private final DoseStore.Config dose;
+        private final DistanceField.Config distanceField;
+        private final GeigerCounter.Config geigerCounter;
+        private final EntityRadiation.Config entityRadiation;
+        private final RadiationSources.Config radiationSources;
 
         public Config(Map<String, BarConfig> lugolsIodineBars, Iterable<LugolsIodinePotion.Config> lugolsIodinePotions, Iterable<Radiation.Config> radiations) {
+            this(lugolsIodineBars, lugolsIodinePotions, radiations, PrometheusExporter.Config.disabled());
+        }
+
+        public Config(Map<String, BarConfig> lugolsIodineBars, Iterable<LugolsIodinePotion.Config> lugolsIodinePotions, Iterable<Radiation.Config> radiations, PrometheusExporter.Config prometheusExporter) {
+            this(lugolsIodineBars, lugolsIodinePotions, radiations, prometheusExporter, ZoneTracker.Detection.POLLING, Collections.emptyList(), false,
+                    RadiationRaster.Config.disabled(), DoseStore.Config.defaults(),
+                    DistanceField.Config.defaults(), GeigerCounter.Config.disabled(),
+                    EntityRadiation.Config.disabled(), RadiationSources.Config.disabled());
+        }
+
+        public Config(Map<String, BarConfig> lugolsIodineBars, Iterable<LugolsIodinePotion.Config> lugolsIodinePotions, Iterable<Radiation.Config> radiations, PrometheusExporter.Config prometheusExporter,
+                      ZoneTracker.Detection zoneDetection, List<ZoneEngine.Zone> zones, boolean regionIndex,
+                      RadiationRaster.Config regionRaster, DoseStore.Config dose, DistanceField.Config distanceField,
+                      GeigerCounter.Config geigerCounter, EntityRadiation.Config entityRadiation,
+                      RadiationSources.Config radiationSources) {
             this.lugolsIodineBars = Objects.requireNonNull(lugolsIodineBars, "lugolsIodineBars");
             this.lugolsIodinePotions = Objects.requireNonNull(lugolsIodinePotions, "lugolsIodinePotions");
             this.radiations = Objects.requireNonNull(radiations, "radiations");
+            this.prometheusExporter = Objects.requireNonNull(prometheusExporter, "prometheusExporter");
+            this.zoneDetection = Objects.requireNonNull(zoneDetection, "zoneDetection");
+            this.zones = Objects.requireNonNull(zones, "zones");
+            this.regionIndex = regionIndex;
+            this.regionRaster = Objects.requireNonNull(regionRaster, "regionRaster");
+            this.dose = Objects.requireNonNull(dose, "dose");
+            this.distanceField = Objects.requireNonNull(distanceField, "distanceField");
+            this.geigerCounter = Objects.requireNonNull(geigerCounter, "geigerCounter");
+            this.entityRadiation = Objects.requireNonNull(entityRadiation, "entityRadiation");
+            this.radiationSources = Objects.requireNonNull(radiationSources, "radiationSources");
         }
 
         public Config(ConfigurationSection section) throws InvalidConfigurationException {
@@ -508,6 +863,80 @@ public final class RadiationPlugin extends JavaPlugin {
             } catch (InvalidConfigurationException e) {
                 throw new InvalidConfigurationException("Could not parse radiations section.", e);
             }
+
+            try {
+                this.prometheusExporter = new PrometheusExporter.Config(section.getConfigurationSection("prometheus-exporter"));
+            } catch (InvalidConfigurationException e) {
+                throw new InvalidConfigurationException("Could not parse prometheus-exporter section.", e);
+            }
+
+            String zoneDetection = section.getString("zone-detection", ZoneTracker.Detection.POLLING.name());
+            try {
+                this.zoneDetection = ZoneTracker.Detection.parse(zoneDetection);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidConfigurationException("Unknown zone-detection: " + zoneDetection);
+            }
+
+            try {
+                List<ZoneEngine.Zone> zones = new ArrayList<>();
+
+                ConfigurationSection zonesSection = section.getConfigurationSection("zones");
+                if (zonesSection != null) {
+                    for (String key : zonesSection.getKeys(false)) {
+                        if (!zonesSection.isConfigurationSection(key)) {
+                            throw new InvalidConfigurationException(key + " is not a zone section.");
+                        }
+
+                        try {
+                            zones.add(new ZoneEngine.Zone(zonesSection.getConfigurationSection(key)));
+                        } catch (InvalidConfigurationException e) {
+                            throw new InvalidConfigurationException("Could not parse zone " + key + ".", e);
+                        }
+                    }
+                }
+
+                this.zones = Collections.unmodifiableList(zones);
+            } catch (InvalidConfigurationException e) {
+                throw new InvalidConfigurationException("Could not parse zones section.", e);
+            }
+
+            this.regionIndex = section.getBoolean("region-index", false);
+
+            try {
+                this.regionRaster = new RadiationRaster.Config(section.getConfigurationSection("region-raster"));
+            } catch (InvalidConfigurationException e) {
+                throw new InvalidConfigurationException("Could not parse region-raster section.", e);
+            }
+
+            try {
+                this.dose = new DoseStore.Config(section.getConfigurationSection("dose"));
+            } catch (InvalidConfigurationException e) {
+                throw new InvalidConfigurationException("Could not parse dose section.", e);
+            }
+
+            try {
+                this.distanceField = new DistanceField.Config(section.getConfigurationSection("distance-field"));
+            } catch (InvalidConfigurationException e) {
+                throw new InvalidConfigurationException("Could not parse distance-field section.", e);
+            }
+
+            try {
+                this.geigerCounter = new GeigerCounter.Config(section.getConfigurationSection("geiger-counter"));
+            } catch (InvalidConfigurationException e) {
+                throw new InvalidConfigurationException("Could not parse geiger-counter section.", e);
+            }
+
+            try {
+                this.entityRadiation = new EntityRadiation.Config(section.getConfigurationSection("entity-radiation"));
+            } catch (InvalidConfigurationException e) {
+                throw new InvalidConfigurationException("Could not parse entity-radiation section.", e);
+            }
+
+            try {
+                this.radiationSources = new RadiationSources.Config(section.getConfigurationSection("radiation-sources"));
+            } catch (InvalidConfigurationException e) {
+                throw new InvalidConfigurationException("Could not parse radiation-sources section.", e);
+            }
         }
 
         public Map<String, BarConfig> lugolsIodineBars() {
@@ -521,5 +950,45 @@ public final class RadiationPlugin extends JavaPlugin {
         public Iterable<Radiation.Config> radiations() {
             return this.radiations;
         }
+
+        public PrometheusExporter.Config prometheusExporter() {
+            return this.prometheusExporter;
+        }
+
+        public ZoneTracker.Detection zoneDetection() {
+            return this.zoneDetection;
+        }
+
+        public List<ZoneEngine.Zone> zones() {
+            return this.zones;
+        }
+
+        public boolean regionIndex() {
+            return this.regionIndex;
+        }
+
+        public RadiationRaster.Config regionRaster() {
+            return this.regionRaster;
+        }
+
+        public DoseStore.Config dose() {
+            return this.dose;
+        }
+
+        public DistanceField.Config distanceField() {
+            return this.distanceField;
+        }
+
+        public GeigerCounter.Config geigerCounter() {
+            return this.geigerCounter;
+        }
+
+        public EntityRadiation.Config entityRadiation() {
+            return this.entityRadiation;
+        }
+
+        public RadiationSources.Config radiationSources() {
+            return this.radiationSources;
+        }
     }
 }
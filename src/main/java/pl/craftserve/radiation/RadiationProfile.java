@@ -0,0 +1,143 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.bukkit.ChatColor;
+import org.bukkit.potion.PotionEffect;
+
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * {@link Radiation.Config} compiled into a flat form read by the radiation
+ * task, so it doesn't iterate or parse anything per player.
+ */
+public final class RadiationProfile {
+    private final Radiation.Config config;
+    private final PotionEffect[] effects;
+    private final double doseRate;
+    /** Minimum depth of every tier, the base tier at 0 first. */
+    private final int[] tierDepths;
+    private final PotionEffect[][] tierEffects;
+    private final double[] tierDoseRates;
+    /** {@code null} when the radiation doesn't broadcast. Main thread only. */
+    private final MessageFormat enterMessage;
+
+    private RadiationProfile(Radiation.Config config) {
+        this.config = Objects.requireNonNull(config, "config");
+
+        this.effects = toArray(config.effects());
+        this.doseRate = config.doseRate();
+
+        List<Radiation.Config.Tier> tiers = config.tiers();
+        this.tierDepths = new int[tiers.size() + 1];
+        this.tierEffects = new PotionEffect[tiers.size() + 1][];
+        this.tierDoseRates = new double[tiers.size() + 1];
+        this.tierEffects[0] = this.effects;
+        this.tierDoseRates[0] = this.doseRate;
+        for (int i = 0; i < tiers.size(); i++) {
+            this.tierDepths[i + 1] = tiers.get(i).depth();
+            this.tierEffects[i + 1] = toArray(tiers.get(i).effects());
+            this.tierDoseRates[i + 1] = tiers.get(i).doseRate();
+        }
+        this.enterMessage = config.enterMessage()
+                .map(rawMessage -> new MessageFormat(ChatColor.RED + rawMessage))
+                .orElse(null);
+    }
+
+    private static PotionEffect[] toArray(Iterable<PotionEffect> effects) {
+        int count = 0;
+        for (PotionEffect ignored : effects) {
+            count++;
+        }
+
+        PotionEffect[] array = new PotionEffect[count];
+        int i = 0;
+        for (PotionEffect effect : effects) {
+            array[i++] = effect;
+        }
+        return array;
+    }
+
+    public static RadiationProfile compile(Radiation.Config config) {
+        return new RadiationProfile(config);
+    }
+
+    public String id() {
+        return this.config.id();
+    }
+
+    public Radiation.Config config() {
+        return this.config;
+    }
+
+    public BarConfig bar() {
+        return this.config.bar();
+    }
+
+    /**
+     * Effects given in the radiation. Do not modify the array.
+     */
+    public PotionEffect[] effects() {
+        return this.effects;
+    }
+
+    public double doseRate() {
+        return this.doseRate;
+    }
+
+    public boolean hasTiers() {
+        return this.tierDepths.length > 1;
+    }
+
+    /**
+     * @param depth Distance in blocks from the nearest safe area.
+     * @return Index of the strongest tier reached at the depth, {@code 0}
+     * for the base profile.
+     */
+    public int tier(int depth) {
+        int tier = this.tierDepths.length - 1;
+        while (tier > 0 && depth < this.tierDepths[tier]) {
+            tier--;
+        }
+        return tier;
+    }
+
+    /**
+     * Effects given in the tier. Do not modify the array.
+     */
+    public PotionEffect[] effects(int tier) {
+        return this.tierEffects[tier];
+    }
+
+    public double doseRate(int tier) {
+        return this.tierDoseRates[tier];
+    }
+
+    public boolean broadcasts() {
+        return this.enterMessage != null;
+    }
+
+    public String formatEnterMessage(String playerName, String radiationId) {
+        if (this.enterMessage == null) {
+            throw new IllegalStateException("radiation " + this.id() + " doesn't broadcast");
+        }
+
+        return this.enterMessage.format(new Object[] { playerName, radiationId });
+    }
+}
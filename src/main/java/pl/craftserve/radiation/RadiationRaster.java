@@ -0,0 +1,351 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemoryConfiguration;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Radiation of every chunk column within the configured radius, classified
+ * from a {@link RegionIndex} and stored in memory-mapped files, one byte
+ * per column. Columns which are not the same everywhere or for every
+ * player are left unknown, and must be resolved precisely.
+ *
+ * Only columns in areas where the index has changed are regenerated. They
+ * are invalidated before the new index is published and filled afterwards,
+ * so the raster never disagrees with the index in use.
+ *
+ * The files are scratch space, they are cleared and filled from scratch
+ * on every start, since regions may have changed while the server was
+ * down. Closing the raster doesn't unmap the files, which only happens when
+ * the buffers are garbage collected. Until then, some platforms (notably
+ * Windows) keep the files locked, so they are never truncated or deleted,
+ * only cleared through a new mapping.
+ *
+ * Each world raster can store up to {@value #MAX_TYPES} radiation IDs,
+ * which are never reclaimed until the next start. Columns of any further
+ * IDs are left unknown.
+ */
+public class RadiationRaster implements RegionLookup {
+    static final Logger logger = Logger.getLogger(RadiationRaster.class.getName());
+
+    public static final String FILE_EXTENSION = ".raster";
+
+    private static final byte UNKNOWN = 0;
+    private static final byte SAFE = 1;
+    private static final int FIRST_TYPE = 2;
+    private static final int MAX_TYPES = 256 - FIRST_TYPE;
+    private static final int ROWS_PER_TASK = 4;
+    private static final int CLEAR_BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final int radius;
+    private final int size;
+    private final Map<String, WorldRaster> worlds = new ConcurrentHashMap<>();
+
+    public RadiationRaster(Path directory, Config config) {
+        this.directory = Objects.requireNonNull(directory, "directory");
+        Objects.requireNonNull(config, "config");
+
+        this.radius = (config.radius() + 15) >> 4;
+        this.size = this.radius * 2;
+    }
+
+    @Override
+    public String resolve(String world, int x, int y, int z, UUID playerId) {
+        WorldRaster raster = this.worlds.get(world);
+        if (raster == null) {
+            return UNRESOLVED;
+        }
+
+        int column = this.column(x >> 4, z >> 4);
+        if (column < 0) {
+            return UNRESOLVED;
+        }
+
+        int value = raster.buffer.get(column) & 0xFF;
+        if (value == UNKNOWN) {
+            return UNRESOLVED;
+        } else if (value == SAFE) {
+            return null;
+        }
+
+        String radiationId = raster.types.get(value - FIRST_TYPE);
+        return radiationId != null ? radiationId : UNRESOLVED;
+    }
+
+    private int column(int chunkX, int chunkZ) {
+        int column = chunkX + this.radius;
+        int row = chunkZ + this.radius;
+        if (column < 0 || column >= this.size || row < 0 || row >= this.size) {
+            return -1;
+        }
+        return column * this.size + row;
+    }
+
+    /**
+     * Mark columns that may differ in the new index as unknown. Must be
+     * called before the index is published, followed by
+     * {@link #regenerate(RegionIndex)} afterwards.
+     *
+     * @param worlds Height bounds of the loaded worlds, by world name.
+     */
+    public void invalidate(RegionIndex previous, RegionIndex index, Map<String, WorldBoundsRegistry.Bounds> worlds) throws IOException {
+        Objects.requireNonNull(previous, "previous");
+        Objects.requireNonNull(index, "index");
+        Objects.requireNonNull(worlds, "worlds");
+
+        for (String world : index.worlds()) {
+            WorldBoundsRegistry.Bounds bounds = worlds.get(world);
+            if (bounds == null) {
+                continue;
+            }
+
+            WorldRaster raster = this.worlds.get(world);
+            if (raster == null) {
+                raster = this.open(world, bounds);
+                this.worlds.put(world, raster); // a new file is unknown everywhere
+                raster.pending.add(new int[] { -this.radius, -this.radius, this.radius - 1, this.radius - 1 });
+                continue;
+            }
+
+            List<int[]> areas = index.changedAreas(previous, world);
+            if (areas == null) {
+                areas = new ArrayList<>();
+                areas.add(new int[] { Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE });
+            }
+
+            for (int[] area : areas) {
+                int[] chunks = {
+                        Math.max(area[0] >> 4, -this.radius),
+                        Math.max(area[1] >> 4, -this.radius),
+                        Math.min(area[2] >> 4, this.radius - 1),
+                        Math.min(area[3] >> 4, this.radius - 1)
+                };
+                if (chunks[0] > chunks[2] || chunks[1] > chunks[3]) {
+                    continue; // outside of the raster
+                }
+
+                for (int chunkX = chunks[0]; chunkX <= chunks[2]; chunkX++) {
+                    for (int chunkZ = chunks[1]; chunkZ <= chunks[3]; chunkZ++) {
+                        raster.buffer.put(this.column(chunkX, chunkZ), UNKNOWN);
+                    }
+                }
+                raster.pending.add(chunks);
+            }
+        }
+    }
+
+    /**
+     * Classify columns invalidated before, in parallel.
+     */
+    public void regenerate(RegionIndex index) {
+        Objects.requireNonNull(index, "index");
+
+        this.worlds.forEach((world, raster) -> {
+            for (int[] chunks : raster.pending) {
+                ForkJoinPool.commonPool().invoke(new Fill(index, world, raster, chunks[0], chunks[2] + 1, chunks[1], chunks[3]));
+            }
+            raster.pending.clear();
+        });
+    }
+
+    /**
+     * Close the files. They stay mapped until the buffers are garbage
+     * collected, see the class description.
+     */
+    public void close() {
+        this.worlds.values().forEach(WorldRaster::close);
+        this.worlds.clear();
+    }
+
+    private WorldRaster open(String world, WorldBoundsRegistry.Bounds bounds) throws IOException {
+        Files.createDirectories(this.directory);
+
+        // not truncated, the file may still be mapped by a previous instance
+        Path path = this.directory.resolve(world + FILE_EXTENSION);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0L, (long) this.size * this.size);
+            byte[] unknown = new byte[CLEAR_BUFFER_SIZE]; // all UNKNOWN
+            while (buffer.hasRemaining()) {
+                buffer.put(unknown, 0, Math.min(unknown.length, buffer.remaining()));
+            }
+            buffer.clear();
+
+            return new WorldRaster(world, channel, buffer, bounds.minY(), bounds.maxY());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static class WorldRaster {
+        private final String world;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int minY;
+        private final int maxY;
+        /** Radiation IDs by their byte value, minus {@link #FIRST_TYPE}. */
+        private final AtomicReferenceArray<String> types = new AtomicReferenceArray<>(MAX_TYPES);
+        private final Map<String, Integer> typeIndexes = new ConcurrentHashMap<>();
+        private final AtomicInteger nextType = new AtomicInteger();
+        /** Chunk areas to be filled, as {@code {minX, minZ, maxX, maxZ}}. */
+        private final List<int[]> pending = new ArrayList<>();
+
+        WorldRaster(String world, FileChannel channel, MappedByteBuffer buffer, int minY, int maxY) {
+            this.world = Objects.requireNonNull(world, "world");
+            this.channel = Objects.requireNonNull(channel, "channel");
+            this.buffer = Objects.requireNonNull(buffer, "buffer");
+            this.minY = minY;
+            this.maxY = maxY;
+        }
+
+        byte encode(String radiationId) {
+            if (radiationId == UNRESOLVED) {
+                return UNKNOWN;
+            } else if (radiationId == null) {
+                return SAFE;
+            }
+
+            int type = this.typeIndexes.computeIfAbsent(radiationId, id -> {
+                int next = this.nextType.getAndIncrement();
+                if (next < MAX_TYPES) {
+                    this.types.set(next, id);
+                } else if (next == MAX_TYPES) {
+                    logger.warning("Radiation raster of world '" + this.world + "' has run out of its " + MAX_TYPES + " radiation types, " +
+                            "columns of '" + id + "' and any further radiations are resolved precisely until the next start.");
+                }
+                return next;
+            });
+            return type < MAX_TYPES ? (byte) (FIRST_TYPE + type) : UNKNOWN;
+        }
+
+        void close() {
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not close radiation raster.", e);
+            }
+        }
+    }
+
+    /**
+     * Fills chunk columns {@code [fromX, toX)} split by rows.
+     */
+    class Fill extends RecursiveAction {
+        private final RegionIndex index;
+        private final String world;
+        private final WorldRaster raster;
+        private final int fromX;
+        private final int toX;
+        private final int minZ;
+        private final int maxZ;
+
+        Fill(RegionIndex index, String world, WorldRaster raster, int fromX, int toX, int minZ, int maxZ) {
+            this.index = index;
+            this.world = world;
+            this.raster = raster;
+            this.fromX = fromX;
+            this.toX = toX;
+            this.minZ = minZ;
+            this.maxZ = maxZ;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.toX - this.fromX > ROWS_PER_TASK) {
+                int middle = (this.fromX + this.toX) >>> 1;
+                invokeAll(new Fill(this.index, this.world, this.raster, this.fromX, middle, this.minZ, this.maxZ),
+                        new Fill(this.index, this.world, this.raster, middle, this.toX, this.minZ, this.maxZ));
+                return;
+            }
+
+            for (int chunkX = this.fromX; chunkX < this.toX; chunkX++) {
+                for (int chunkZ = this.minZ; chunkZ <= this.maxZ; chunkZ++) {
+                    String radiationId = this.index.classify(this.world, chunkX, chunkZ, this.raster.minY, this.raster.maxY);
+                    this.raster.buffer.put(column(chunkX, chunkZ), this.raster.encode(radiationId));
+                }
+            }
+        }
+    }
+
+    //
+    // Config
+    //
+
+    public static class Config {
+        public static final int DEFAULT_RADIUS = 30_000;
+        /** Keeps the file of a world under 2 GB. */
+        public static final int MAX_RADIUS = 360_000;
+
+        private final boolean enabled;
+        private final int radius;
+
+        public Config(boolean enabled, int radius) {
+            this.enabled = enabled;
+            this.radius = radius;
+        }
+
+        public Config(ConfigurationSection section) throws InvalidConfigurationException {
+            if (section == null) {
+                section = new MemoryConfiguration();
+            }
+
+            this.enabled = section.getBoolean("enabled", false);
+            this.radius = section.getInt("radius", DEFAULT_RADIUS);
+            if (this.radius <= 0 || this.radius > MAX_RADIUS) {
+                throw new InvalidConfigurationException("Raster radius must be in range from 1 to " + MAX_RADIUS + ".");
+            }
+        }
+
+        public static Config disabled() {
+            return new Config(false, DEFAULT_RADIUS);
+        }
+
+        public boolean enabled() {
+            return this.enabled;
+        }
+
+        /**
+         * Distance from 0,0 in blocks covered by the raster.
+         */
+        public int radius() {
+            return this.radius;
+        }
+    }
+}
@@ -0,0 +1,941 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Radioactive blocks emitting radiation which falls off by one level per
+ * block, the same way light does.
+ *
+ * Levels are kept in nibble arrays of chunk sections, one per 16x16x16
+ * blocks, and are read in constant time. Placing and breaking sources is
+ * propagated by an incremental breadth-first search on a worker thread, so
+ * the cost of an update depends only on the volume it changes. The worker
+ * keeps its own sections, copies of the changed ones are published to the
+ * main thread in a single task per batch of updates.
+ *
+ * Radiation passes through every block. Source positions are saved per world
+ * in {@link #FILE_EXTENSION} files, periodically and when the world unloads,
+ * the files are written off the main thread. Sources are checked against the
+ * world when their chunks load, so sources changed without a handled event
+ * are caught up with then.
+ */
+public class RadiationSources implements Listener {
+    static final Logger logger = Logger.getLogger(RadiationSources.class.getName());
+
+    public static final int MAGIC = 0x43525253; // CRRS
+    public static final int VERSION = 1;
+    public static final String FILE_EXTENSION = ".sources";
+    public static final int MAX_LEVEL = 15;
+
+    private static final int SECTION_BYTES = 16 * 16 * 16 / 2;
+    private static final long SAVE_PERIOD_TICKS = 20L * 60L * 5L;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10L;
+
+    /** Marker put into the queue of the worker. */
+    private static final Update STOP = new Update(null, 0L, 0);
+
+    private final Plugin plugin;
+    private final Path directory;
+    private final Config config;
+
+    /** Levels published by the worker, by world and section. Main thread only. */
+    private final Map<String, Map<Long, byte[]>> levels = new HashMap<>();
+    /** Registered sources, by world. Main thread only. */
+    private final Map<String, WorldSources> sources = new HashMap<>();
+
+    private final BlockingQueue<Update> pending = new LinkedBlockingQueue<>();
+    private Thread worker;
+    private ExecutorService saver;
+    private BukkitTask saveTask;
+
+    public RadiationSources(Plugin plugin, Path directory, Config config) {
+        this.plugin = Objects.requireNonNull(plugin, "plugin");
+        this.directory = Objects.requireNonNull(directory, "directory");
+        this.config = Objects.requireNonNull(config, "config");
+    }
+
+    public void enable() {
+        this.worker = new Thread(new Worker(), this.plugin.getName() + " Radiation Sources");
+        this.worker.setDaemon(true);
+        this.worker.start();
+
+        this.saver = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, this.plugin.getName() + " Radiation Sources Saver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.saveTask = this.plugin.getServer().getScheduler().runTaskTimer(this.plugin, this::saveAll, SAVE_PERIOD_TICKS, SAVE_PERIOD_TICKS);
+
+        for (World world : this.plugin.getServer().getWorlds()) {
+            this.load(world);
+        }
+
+        this.plugin.getServer().getPluginManager().registerEvents(this, this.plugin);
+    }
+
+    public void disable() {
+        HandlerList.unregisterAll(this);
+        if (this.saveTask != null) {
+            this.saveTask.cancel();
+            this.saveTask = null;
+        }
+
+        if (this.saver != null) {
+            this.saveAll();
+            this.saver.shutdown();
+            try {
+                if (!this.saver.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    logger.warning("Radiation sources were not saved in " + SHUTDOWN_TIMEOUT_SECONDS + " seconds, some changes may be lost.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.saver = null;
+        }
+
+        if (this.worker != null) {
+            this.pending.add(STOP);
+            try {
+                this.worker.join(10_000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.worker = null;
+        }
+
+        this.sources.clear();
+        this.levels.clear();
+    }
+
+    /**
+     * Radiation level at the block, {@code 0} if there is no radiation.
+     * Main thread only.
+     */
+    public int level(String world, int x, int y, int z) {
+        Map<Long, byte[]> sections = this.levels.get(world);
+        if (sections == null) {
+            return 0;
+        }
+
+        byte[] section = sections.get(key(x >> 4, y >> 4, z >> 4));
+        return section == null ? 0 : get(section, x, y, z);
+    }
+
+    /**
+     * Matcher testing if players stand where the level reaches the
+     * threshold. Only the configured radiation is ever matched.
+     */
+    public Radiation.Matcher matcher(String radiationId) {
+        Objects.requireNonNull(radiationId, "radiationId");
+        if (!radiationId.equals(this.config.radiationId())) {
+            return player -> false;
+        }
+
+        Location location = new Location(null, 0D, 0D, 0D); // matchers are only called from the main thread
+        return player -> {
+            if (this.levels.isEmpty()) {
+                return false;
+            }
+
+            player.getLocation(location);
+            World world = location.getWorld();
+            return world != null &&
+                    this.level(world.getName(), location.getBlockX(), location.getBlockY(), location.getBlockZ()) >= this.config.threshold() &&
+                    !Radiation.FlagMatcher.isImmune(player, radiationId);
+        };
+    }
+
+    //
+    // Sources
+    //
+
+    private void addSource(Block block, int emission) {
+        WorldSources worldSources = this.sources.computeIfAbsent(block.getWorld().getName(), name -> new WorldSources());
+        worldSources.put(block.getX(), block.getY(), block.getZ(), emission);
+        this.pending.add(new Update(block.getWorld().getName(), key(block.getX(), block.getY(), block.getZ()), emission));
+    }
+
+    private void removeSource(Block block) {
+        WorldSources worldSources = this.sources.get(block.getWorld().getName());
+        if (worldSources != null && worldSources.remove(block.getX(), block.getY(), block.getZ())) {
+            this.pending.add(new Update(block.getWorld().getName(), key(block.getX(), block.getY(), block.getZ()), 0));
+        }
+    }
+
+    /**
+     * Replace the source at the block with whatever the material emits.
+     */
+    private void changeSource(Block block, Material material) {
+        this.removeSource(block);
+
+        int emission = this.config.emission(material);
+        if (emission > 0) {
+            this.addSource(block, emission);
+        }
+    }
+
+    /**
+     * Move sources pushed or pulled by a piston.
+     */
+    private void moveSources(List<Block> blocks, BlockFace direction) {
+        WorldSources worldSources = blocks.isEmpty() ? null : this.sources.get(blocks.get(0).getWorld().getName());
+        if (worldSources == null) {
+            return;
+        }
+
+        // all are removed first, blocks may move into each other's place
+        Map<Block, Integer> moved = new HashMap<>();
+        for (Block block : blocks) {
+            int emission = worldSources.emission(block.getX(), block.getY(), block.getZ());
+            if (emission > 0) {
+                this.removeSource(block);
+                moved.put(block.getRelative(direction), emission);
+            }
+        }
+        moved.forEach(this::addSource);
+    }
+
+    /**
+     * Forget sources in the chunk which are no longer there, and re-emit
+     * sources whose material emission has changed in the config.
+     */
+    private void validate(Chunk chunk) {
+        WorldSources worldSources = this.sources.get(chunk.getWorld().getName());
+        Map<Long, Integer> chunkSources = worldSources != null ? worldSources.chunk(chunk.getX(), chunk.getZ()) : null;
+        if (chunkSources == null) {
+            return;
+        }
+
+        World world = chunk.getWorld();
+        List<Block> removed = new ArrayList<>();
+        Map<Block, Integer> changed = new HashMap<>();
+        for (Map.Entry<Long, Integer> entry : chunkSources.entrySet()) {
+            long position = entry.getKey();
+            Block block = world.getBlockAt(x(position), y(position), z(position));
+            int emission = this.config.emission(block.getType());
+            if (emission == 0) {
+                removed.add(block);
+            } else if (emission != entry.getValue()) {
+                changed.put(block, emission);
+            }
+        }
+
+        removed.forEach(this::removeSource);
+        changed.forEach(this::addSource); // replaces the previous emission
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        Block block = event.getBlockPlaced();
+        int emission = this.config.emission(block.getType());
+        if (emission > 0) {
+            this.addSource(block, emission);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        this.removeSource(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        event.blockList().forEach(this::removeSource);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        event.blockList().forEach(this::removeSource);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent event) {
+        this.removeSource(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFade(BlockFadeEvent event) {
+        this.changeSource(event.getBlock(), event.getNewState().getType());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityChangeBlock(EntityChangeBlockEvent event) {
+        this.changeSource(event.getBlock(), event.getTo());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPistonExtend(BlockPistonExtendEvent event) {
+        this.moveSources(event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPistonRetract(BlockPistonRetractEvent event) {
+        this.moveSources(event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        this.validate(event.getChunk());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        this.load(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        this.save(event.getWorld().getName());
+    }
+
+    //
+    // Storage
+    //
+
+    private void load(World world) {
+        String name = world.getName();
+        if (this.sources.containsKey(name)) {
+            return;
+        }
+
+        WorldSources worldSources = new WorldSources();
+        this.sources.put(name, worldSources);
+
+        Path path = this.directory.resolve(name + FILE_EXTENSION);
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        try (InputStream stream = Files.newInputStream(path);
+             DataInputStream input = new DataInputStream(stream)) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Unknown file format.");
+            }
+
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                int x = input.readInt();
+                int y = input.readInt();
+                int z = input.readInt();
+                int emission = input.readByte();
+
+                worldSources.put(x, y, z, emission);
+                this.pending.add(new Update(name, key(x, y, z), emission));
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not load radiation sources of world '" + name + "'.", e);
+            return;
+        }
+
+        // chunks already loaded won't fire any event
+        for (Chunk chunk : world.getLoadedChunks()) {
+            this.validate(chunk);
+        }
+    }
+
+    private void saveAll() {
+        for (String world : this.sources.keySet()) {
+            this.save(world);
+        }
+    }
+
+    /**
+     * Encode the sources of the world if they changed, and write them off
+     * the main thread.
+     */
+    private void save(String world) {
+        WorldSources worldSources = this.sources.get(world);
+        if (worldSources == null || !worldSources.dirty || this.saver == null) {
+            return;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(worldSources.size());
+            for (Map<Long, Integer> chunkSources : worldSources.chunks.values()) {
+                for (Map.Entry<Long, Integer> entry : chunkSources.entrySet()) {
+                    long position = entry.getKey();
+                    output.writeInt(x(position));
+                    output.writeInt(y(position));
+                    output.writeInt(z(position));
+                    output.writeByte(entry.getValue());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // never thrown by a byte array
+        }
+
+        worldSources.dirty = false;
+        this.saver.execute(() -> this.write(world, bytes.toByteArray()));
+    }
+
+    private void write(String world, byte[] bytes) {
+        Path path = this.directory.resolve(world + FILE_EXTENSION);
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+            Files.createDirectories(this.directory);
+            Files.write(temporary, bytes);
+
+            try {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not save radiation sources of world '" + world + "'.", e);
+            if (this.plugin.isEnabled()) {
+                this.plugin.getServer().getScheduler().runTask(this.plugin, () -> {
+                    WorldSources worldSources = this.sources.get(world);
+                    if (worldSources != null) {
+                        worldSources.dirty = true; // try again with the next save
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Sources of a single world, grouped by chunk.
+     */
+    static class WorldSources {
+        private final Map<Long, Map<Long, Integer>> chunks = new HashMap<>();
+        private boolean dirty;
+
+        void put(int x, int y, int z, int emission) {
+            this.chunks.computeIfAbsent(chunkKey(x >> 4, z >> 4), key -> new HashMap<>()).put(key(x, y, z), emission);
+            this.dirty = true;
+        }
+
+        boolean remove(int x, int y, int z) {
+            long chunkKey = chunkKey(x >> 4, z >> 4);
+            Map<Long, Integer> chunkSources = this.chunks.get(chunkKey);
+            if (chunkSources == null || chunkSources.remove(key(x, y, z)) == null) {
+                return false;
+            }
+
+            if (chunkSources.isEmpty()) {
+                this.chunks.remove(chunkKey);
+            }
+            this.dirty = true;
+            return true;
+        }
+
+        /**
+         * @return Emission of the source at the block, {@code 0} if there
+         * is none.
+         */
+        int emission(int x, int y, int z) {
+            Map<Long, Integer> chunkSources = this.chunks.get(chunkKey(x >> 4, z >> 4));
+            Integer emission = chunkSources != null ? chunkSources.get(key(x, y, z)) : null;
+            return emission != null ? emission : 0;
+        }
+
+        Map<Long, Integer> chunk(int chunkX, int chunkZ) {
+            return this.chunks.get(chunkKey(chunkX, chunkZ));
+        }
+
+        int size() {
+            int size = 0;
+            for (Map<Long, Integer> chunkSources : this.chunks.values()) {
+                size += chunkSources.size();
+            }
+            return size;
+        }
+
+        private static long chunkKey(int chunkX, int chunkZ) {
+            return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+        }
+    }
+
+    //
+    // Propagation
+    //
+
+    /**
+     * Pack the position into a long, 26 bits for X and Z, 12 bits for Y.
+     * Used for both blocks and sections.
+     */
+    static long key(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    static int x(long key) {
+        return (int) (key >> 38);
+    }
+
+    static int y(long key) {
+        return (int) (key << 52 >> 52);
+    }
+
+    static int z(long key) {
+        return (int) (key << 26 >> 38);
+    }
+
+    private static int get(byte[] section, int x, int y, int z) {
+        int index = ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+        return (section[index >> 1] >> ((index & 1) << 2)) & 0xF;
+    }
+
+    private static void set(byte[] section, int x, int y, int z, int level) {
+        int index = ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+        int shift = (index & 1) << 2;
+        section[index >> 1] = (byte) ((section[index >> 1] & ~(0xF << shift)) | (level << shift));
+    }
+
+    private static boolean isEmpty(byte[] section) {
+        for (byte b : section) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static class Update {
+        private final String world;
+        private final long position;
+        /** Emission of the source, {@code 0} if it was removed. */
+        private final int emission;
+
+        Update(String world, long position, int emission) {
+            this.world = world;
+            this.position = position;
+            this.emission = emission;
+        }
+    }
+
+    /**
+     * Levels and sources of a single world, owned by the worker.
+     */
+    static class WorldLevels {
+        private final Map<Long, byte[]> sections = new HashMap<>();
+        private final Map<Long, Integer> sources = new HashMap<>();
+        /** Sections changed since the last publication. */
+        private final Set<Long> changed = new HashSet<>();
+
+        int get(long position) {
+            int x = x(position), y = y(position), z = z(position);
+            byte[] section = this.sections.get(key(x >> 4, y >> 4, z >> 4));
+            return section == null ? 0 : RadiationSources.get(section, x, y, z);
+        }
+
+        void set(long position, int level) {
+            int x = x(position), y = y(position), z = z(position);
+            long sectionKey = key(x >> 4, y >> 4, z >> 4);
+            byte[] section = this.sections.get(sectionKey);
+            if (section == null) {
+                if (level == 0) {
+                    return;
+                }
+                section = new byte[SECTION_BYTES];
+                this.sections.put(sectionKey, section);
+            }
+
+            RadiationSources.set(section, x, y, z, level);
+            this.changed.add(sectionKey);
+        }
+
+        /**
+         * Copy changed sections, {@code null} for sections which are gone.
+         */
+        Map<Long, byte[]> drainChanges() {
+            Map<Long, byte[]> changes = new HashMap<>();
+            for (long sectionKey : this.changed) {
+                byte[] section = this.sections.get(sectionKey);
+                if (section != null && isEmpty(section)) {
+                    this.sections.remove(sectionKey);
+                    section = null;
+                }
+                changes.put(sectionKey, section == null ? null : section.clone());
+            }
+            this.changed.clear();
+            return changes;
+        }
+    }
+
+    /**
+     * Growable FIFO of positions and their levels.
+     */
+    static class Queue {
+        private long[] positions = new long[256];
+        private int[] levels = new int[256];
+        private int head;
+        private int tail;
+
+        void add(long position, int level) {
+            if (this.tail == this.positions.length) {
+                if (this.head > this.positions.length / 2) {
+                    // compact instead of growing
+                    System.arraycopy(this.positions, this.head, this.positions, 0, this.tail - this.head);
+                    System.arraycopy(this.levels, this.head, this.levels, 0, this.tail - this.head);
+                    this.tail -= this.head;
+                    this.head = 0;
+                } else {
+                    this.positions = Arrays.copyOf(this.positions, this.positions.length * 2);
+                    this.levels = Arrays.copyOf(this.levels, this.levels.length * 2);
+                }
+            }
+
+            this.positions[this.tail] = position;
+            this.levels[this.tail] = level;
+            this.tail++;
+        }
+
+        boolean isEmpty() {
+            return this.head == this.tail;
+        }
+
+        void clear() {
+            this.head = 0;
+            this.tail = 0;
+        }
+
+        long position() {
+            return this.positions[this.head];
+        }
+
+        int level() {
+            return this.levels[this.head];
+        }
+
+        void poll() {
+            if (++this.head == this.tail) {
+                this.head = 0;
+                this.tail = 0;
+            }
+        }
+    }
+
+    class Worker implements Runnable {
+        private final Map<String, WorldLevels> worlds = new HashMap<>();
+        private final Queue increase = new Queue();
+        private final Queue decrease = new Queue();
+        private final long[] neighbours = new long[6];
+
+        @Override
+        public void run() {
+            List<Update> batch = new ArrayList<>();
+            try {
+                while (true) {
+                    batch.add(pending.take());
+                    pending.drainTo(batch);
+
+                    boolean stop = false;
+                    for (Update update : batch) {
+                        if (update == STOP) {
+                            stop = true;
+                            break;
+                        }
+
+                        try {
+                            this.apply(update);
+                        } catch (RuntimeException e) {
+                            logger.log(Level.SEVERE, "Could not propagate radiation source at " + x(update.position) + ", " +
+                                    y(update.position) + ", " + z(update.position) + " in world '" + update.world + "'.", e);
+                            this.increase.clear();
+                            this.decrease.clear();
+                        }
+                    }
+                    batch.clear();
+
+                    if (stop) {
+                        break;
+                    }
+
+                    try {
+                        this.publish();
+                    } catch (RuntimeException e) {
+                        logger.log(Level.SEVERE, "Could not publish radiation levels.", e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void apply(Update update) {
+            WorldLevels world = this.worlds.computeIfAbsent(update.world, name -> new WorldLevels());
+
+            Integer previous = world.sources.get(update.position);
+            if (previous != null) {
+                if (previous == update.emission) {
+                    return;
+                }
+
+                world.sources.remove(update.position);
+                this.decrease.add(update.position, world.get(update.position));
+                world.set(update.position, 0);
+                this.propagateDecrease(world);
+            }
+
+            if (update.emission > 0) {
+                world.sources.put(update.position, update.emission);
+                if (world.get(update.position) < update.emission) {
+                    world.set(update.position, update.emission);
+                    this.increase.add(update.position, update.emission);
+                }
+            }
+            this.propagateIncrease(world);
+        }
+
+        /**
+         * Clear levels which could have come from the removed light, then
+         * queue everything lit from elsewhere to fill the gap again.
+         */
+        private void propagateDecrease(WorldLevels world) {
+            while (!this.decrease.isEmpty()) {
+                long position = this.decrease.position();
+                int level = this.decrease.level();
+                this.decrease.poll();
+
+                for (long neighbour : this.neighbours(position)) {
+                    int neighbourLevel = world.get(neighbour);
+                    if (neighbourLevel == 0) {
+                        continue;
+                    }
+
+                    if (neighbourLevel < level) {
+                        world.set(neighbour, 0);
+                        this.decrease.add(neighbour, neighbourLevel);
+
+                        Integer emission = world.sources.get(neighbour);
+                        if (emission != null) {
+                            world.set(neighbour, emission);
+                            this.increase.add(neighbour, emission);
+                        }
+                    } else {
+                        this.increase.add(neighbour, neighbourLevel);
+                    }
+                }
+            }
+        }
+
+        private void propagateIncrease(WorldLevels world) {
+            while (!this.increase.isEmpty()) {
+                long position = this.increase.position();
+                this.increase.poll();
+
+                int level = world.get(position) - 1; // may have been raised since it was queued
+                if (level <= 0) {
+                    continue;
+                }
+
+                for (long neighbour : this.neighbours(position)) {
+                    if (world.get(neighbour) < level) {
+                        world.set(neighbour, level);
+                        this.increase.add(neighbour, level);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Level at the block as propagated by the worker so far, worker
+         * thread only.
+         */
+        int level(String world, int x, int y, int z) {
+            WorldLevels worldLevels = this.worlds.get(world);
+            return worldLevels == null ? 0 : worldLevels.get(key(x, y, z));
+        }
+
+        private long[] neighbours(long position) {
+            int x = x(position), y = y(position), z = z(position);
+            this.neighbours[0] = key(x - 1, y, z);
+            this.neighbours[1] = key(x + 1, y, z);
+            this.neighbours[2] = key(x, y - 1, z);
+            this.neighbours[3] = key(x, y + 1, z);
+            this.neighbours[4] = key(x, y, z - 1);
+            this.neighbours[5] = key(x, y, z + 1);
+            return this.neighbours;
+        }
+
+        /**
+         * Hand copies of changed sections to the main thread, all at once.
+         */
+        private void publish() {
+            Map<String, Map<Long, byte[]>> changes = new HashMap<>();
+            for (Map.Entry<String, WorldLevels> entry : this.worlds.entrySet()) {
+                if (!entry.getValue().changed.isEmpty()) {
+                    changes.put(entry.getKey(), entry.getValue().drainChanges());
+                }
+            }
+
+            if (changes.isEmpty() || !plugin.isEnabled()) {
+                return;
+            }
+
+            plugin.getServer().getScheduler().runTask(plugin, () -> changes.forEach((world, sections) -> {
+                Map<Long, byte[]> published = levels.computeIfAbsent(world, name -> new HashMap<>());
+                sections.forEach((sectionKey, section) -> {
+                    if (section == null) {
+                        published.remove(sectionKey);
+                    } else {
+                        published.put(sectionKey, section);
+                    }
+                });
+
+                if (published.isEmpty()) {
+                    levels.remove(world);
+                }
+            }));
+        }
+    }
+
+    //
+    // Config
+    //
+
+    public static class Config {
+        public static final int DEFAULT_THRESHOLD = 1;
+
+        private final boolean enabled;
+        private final String radiationId;
+        private final int threshold;
+        private final Map<Material, Integer> emissions;
+
+        public Config(boolean enabled, String radiationId, int threshold, Map<Material, Integer> emissions) {
+            this.enabled = enabled;
+            this.radiationId = Objects.requireNonNull(radiationId, "radiationId");
+            this.threshold = threshold;
+            this.emissions = Objects.requireNonNull(emissions, "emissions");
+        }
+
+        public Config(ConfigurationSection section) throws InvalidConfigurationException {
+            if (section == null) {
+                section = new MemoryConfiguration();
+            }
+
+            this.enabled = section.getBoolean("enabled", false);
+            this.radiationId = section.getString("radiation", Radiation.Config.DEFAULT_ID);
+
+            this.threshold = section.getInt("threshold", DEFAULT_THRESHOLD);
+            if (this.threshold < 1 || this.threshold > MAX_LEVEL) {
+                throw new InvalidConfigurationException("Radiation source threshold must be in range from 1 to " + MAX_LEVEL + ".");
+            }
+
+            Map<Material, Integer> emissions = new EnumMap<>(Material.class);
+            ConfigurationSection materialsSection = section.getConfigurationSection("materials");
+            if (materialsSection != null) {
+                for (String key : materialsSection.getKeys(false)) {
+                    Material material = Material.matchMaterial(key);
+                    if (material == null || !material.isBlock()) {
+                        throw new InvalidConfigurationException("Unknown block material: " + key);
+                    }
+
+                    int emission = materialsSection.getInt(key);
+                    if (emission < 1 || emission > MAX_LEVEL) {
+                        throw new InvalidConfigurationException("Emission of " + key + " must be in range from 1 to " + MAX_LEVEL + ".");
+                    }
+                    emissions.put(material, emission);
+                }
+            }
+            this.emissions = Collections.unmodifiableMap(emissions);
+        }
+
+        public static Config disabled() {
+            return new Config(false, Radiation.Config.DEFAULT_ID, DEFAULT_THRESHOLD, Collections.emptyMap());
+        }
+
+        public boolean enabled() {
+            return this.enabled;
+        }
+
+        /**
+         * ID of the radiation applied near sources.
+         */
+        public String radiationId() {
+            return this.radiationId;
+        }
+
+        /**
+         * Lowest level at which players are in radiation.
+         */
+        public int threshold() {
+            return this.threshold;
+        }
+
+        public Map<Material, Integer> emissions() {
+            return this.emissions;
+        }
+
+        /**
+         * @return Emission of the material, {@code 0} if it's not a source.
+         */
+        public int emission(Material material) {
+            Integer emission = this.emissions.get(material);
+            return emission == null ? 0 : emission;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import com.sk89q.worldguard.protection.managers.RegionManager;
+import org.bukkit.plugin.Plugin;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Applies region changes on the main thread and saves them off the main
+ * thread. Saves are executed one after another, each commit ends with a
+ * single save of the changed {@link RegionManager}.
+ */
+public class RegionCommitter {
+    static final Logger logger = Logger.getLogger(RegionCommitter.class.getName());
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10L;
+
+    private final Plugin plugin;
+    private final AtomicLong revision = new AtomicLong();
+    /** Commits which were not completed yet. */
+    private final Set<CompletableFuture<Duration>> pending = ConcurrentHashMap.newKeySet();
+    /** Commits which were saved, but not completed on the main thread yet. */
+    private final Map<CompletableFuture<Duration>, Duration> saved = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+
+    public RegionCommitter(Plugin plugin) {
+        this.plugin = Objects.requireNonNull(plugin, "plugin");
+    }
+
+    public void enable() {
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, this.plugin.getName() + " Region Committer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void disable() {
+        if (this.executor == null) {
+            return;
+        }
+
+        this.executor.shutdown();
+        try {
+            if (!this.executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warning("Region commits did not finish in " + SHUTDOWN_TIMEOUT_SECONDS + " seconds, some changes may be lost.");
+                this.executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.executor = null;
+
+        for (CompletableFuture<Duration> future : this.pending) {
+            Duration took = this.saved.get(future);
+            if (took != null) {
+                future.complete(took);
+            } else { // never applied, or never saved
+                future.completeExceptionally(new IllegalStateException("Region committer was disabled before the changes were saved."));
+            }
+        }
+        this.pending.clear();
+        this.saved.clear();
+    }
+
+    /**
+     * Incremented every time a commit has been applied. Anything caching
+     * region lookups must be rebuilt when this changes.
+     */
+    public long revision() {
+        return this.revision.get();
+    }
+
+    /**
+     * Apply the changes on the main thread and save the region manager
+     * asynchronously.
+     *
+     * @param regionManager Region manager to be modified and saved.
+     * @param changes Changes applied to the region manager, called on the
+     *                main thread.
+     * @return Future completed on the main thread with the time the commit
+     * took, including the save. Completed exceptionally if the committer is
+     * disabled before the changes were saved.
+     */
+    public CompletableFuture<Duration> commit(RegionManager regionManager, Consumer<RegionManager> changes) {
+        Objects.requireNonNull(regionManager, "regionManager");
+        Objects.requireNonNull(changes, "changes");
+
+        CompletableFuture<Duration> future = new CompletableFuture<>();
+        if (this.executor == null) {
+            future.completeExceptionally(new IllegalStateException("Region committer is not enabled."));
+            return future;
+        }
+
+        this.pending.add(future);
+        future.whenComplete((took, throwable) -> {
+            this.pending.remove(future);
+            this.saved.remove(future);
+        });
+
+        long start = System.nanoTime();
+        this.plugin.getServer().getScheduler().runTask(this.plugin, () -> {
+            ExecutorService executor = this.executor;
+            if (executor == null || future.isDone()) {
+                return;
+            }
+
+            try {
+                changes.accept(regionManager);
+            } catch (Throwable throwable) {
+                logger.log(Level.SEVERE, "Could not apply region changes.", throwable);
+                future.completeExceptionally(throwable);
+                return;
+            }
+            this.revision.incrementAndGet();
+
+            executor.execute(() -> {
+                try {
+                    regionManager.saveChanges();
+                } catch (Throwable throwable) {
+                    logger.log(Level.SEVERE, "Could not save region changes.", throwable);
+                    this.runSync(() -> future.completeExceptionally(throwable));
+                    return;
+                }
+
+                Duration took = Duration.ofNanos(System.nanoTime() - start);
+                this.saved.put(future, took);
+                this.runSync(() -> future.complete(took));
+            });
+        });
+        return future;
+    }
+
+    private void runSync(Runnable runnable) {
+        if (this.plugin.isEnabled()) {
+            this.plugin.getServer().getScheduler().runTask(this.plugin, runnable);
+        } else {
+            runnable.run(); // the plugin is being disabled, waiting for saves
+        }
+    }
+}
@@ -0,0 +1,682 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldguard.domains.Association;
+import com.sk89q.worldguard.domains.DefaultDomain;
+import com.sk89q.worldguard.protection.flags.Flag;
+import com.sk89q.worldguard.protection.flags.RegionGroup;
+import com.sk89q.worldguard.protection.flags.RegionGroupFlag;
+import com.sk89q.worldguard.protection.managers.RegionManager;
+import com.sk89q.worldguard.protection.regions.GlobalProtectedRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedCuboidRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedPolygonalRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of WorldGuard regions relevant to radiation, compiled
+ * into a grid per world. Only regions with the radiation flags (set on them
+ * or inherited from parents) are kept, with effective flag values resolved
+ * for every {@link Association} up front.
+ *
+ * Lookups follow WorldGuard's flag resolution: the highest priority wins,
+ * parents are inherited, region groups are respected and the global region
+ * is the fallback. Whenever the snapshot can't answer exactly the same as
+ * WorldGuard would (overlapping parents, conflicting values at the same
+ * priority, domains with player names or groups, custom region types) it
+ * returns {@link #UNRESOLVED}. Safe to be used from any thread.
+ *
+ * WorldGuard regions may only be read on the main thread, so they are first
+ * copied into a {@link Snapshot} there, which is then compiled elsewhere.
+ */
+public final class RegionIndex implements RegionLookup {
+    /** Index without any world, resolving nothing. */
+    public static final RegionIndex EMPTY = new RegionIndex(-1L, Collections.emptyMap());
+
+    private static final int CELL_SHIFT = 6; // 64 blocks
+    private static final int MAX_CELLS = 1 << 18;
+    private static final CompiledRegion[] NO_REGIONS = new CompiledRegion[0];
+    /** Subject of lookups which don't depend on the player. */
+    private static final UUID ANYONE = new UUID(0L, 0L);
+
+    private final long revision;
+    private final Map<String, WorldIndex> worlds;
+
+    private RegionIndex(long revision, Map<String, WorldIndex> worlds) {
+        this.revision = revision;
+        this.worlds = worlds;
+    }
+
+    /**
+     * Copy regions relevant to radiation, must be called on the main thread.
+     *
+     * @param regionManagers Region managers by world name.
+     */
+    public static Snapshot snapshot(Map<String, RegionManager> regionManagers, Flag<Boolean> isRadioactiveFlag, Flag<String> radiationTypeFlag) {
+        Objects.requireNonNull(regionManagers, "regionManagers");
+        Objects.requireNonNull(isRadioactiveFlag, "isRadioactiveFlag");
+        Objects.requireNonNull(radiationTypeFlag, "radiationTypeFlag");
+
+        Map<String, Map<String, RegionData>> worlds = new HashMap<>();
+        regionManagers.forEach((world, regionManager) -> {
+            Map<String, RegionData> regions = new HashMap<>();
+            for (ProtectedRegion region : regionManager.getRegions().values()) {
+                if (!(region instanceof GlobalProtectedRegion) && !hasFlags(region, isRadioactiveFlag, radiationTypeFlag)) {
+                    continue;
+                }
+
+                // parents without the flags are still needed for their domains
+                for (ProtectedRegion current = region; current != null && !regions.containsKey(current.getId()); current = current.getParent()) {
+                    regions.put(current.getId(), new RegionData(current, isRadioactiveFlag, radiationTypeFlag));
+                }
+            }
+            worlds.put(world, regions);
+        });
+        return new Snapshot(worlds);
+    }
+
+    private static boolean hasFlags(ProtectedRegion region, Flag<Boolean> isRadioactiveFlag, Flag<String> radiationTypeFlag) {
+        for (ProtectedRegion current = region; current != null; current = current.getParent()) {
+            if (current.getFlag(isRadioactiveFlag) != null || current.getFlag(radiationTypeFlag) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compile the snapshot, should be called off the main thread.
+     *
+     * @param revision {@link RegionCommitter#revision()} the regions were read at.
+     */
+    public static RegionIndex compile(long revision, Snapshot snapshot) {
+        Objects.requireNonNull(snapshot, "snapshot");
+
+        ImmutableMap.Builder<String, WorldIndex> worlds = ImmutableMap.builder();
+        snapshot.worlds.forEach((world, regionData) -> {
+            CompiledRegion global = null;
+            List<CompiledRegion> regions = new ArrayList<>();
+            for (RegionData region : regionData.values()) {
+                if (region.global) {
+                    global = new CompiledRegion(region, regionData);
+                } else if (region.hasFlags(regionData)) {
+                    regions.add(new CompiledRegion(region, regionData));
+                }
+            }
+
+            worlds.put(world, new WorldIndex(regions, global));
+        });
+
+        return new RegionIndex(revision, worlds.build());
+    }
+
+    public long revision() {
+        return this.revision;
+    }
+
+    public Set<String> worlds() {
+        return this.worlds.keySet();
+    }
+
+    /**
+     * Resolve the radiation ID at the block, same as
+     * {@link Radiation.FlagMatcher#resolveRadiationId}.
+     *
+     * @return ID of the radiation, {@code null} if the block is not
+     * radioactive for the player, or {@link #UNRESOLVED}.
+     */
+    @Override
+    public String resolve(String world, int x, int y, int z, UUID playerId) {
+        WorldIndex index = this.worlds.get(world);
+        if (index == null) {
+            return UNRESOLVED;
+        }
+
+        CompiledRegion[] cell = index.cell(x, z);
+        Object radioactive = resolveValue(cell, index.global, x, y, z, playerId, 0);
+        if (radioactive == UNRESOLVED) {
+            return UNRESOLVED;
+        } else if (radioactive == null || !((Boolean) radioactive)) {
+            return null;
+        }
+
+        Object radiationId = resolveValue(cell, index.global, x, y, z, playerId, 1);
+        if (radiationId == UNRESOLVED) {
+            return UNRESOLVED;
+        } else if (radiationId == null || ((String) radiationId).isEmpty()) {
+            return Radiation.Config.DEFAULT_ID;
+        }
+        return (String) radiationId;
+    }
+
+    /**
+     * Resolve the radiation ID of the whole chunk column, for every player.
+     *
+     * @param minY Lowest block ever looked up in the world.
+     * @param maxY Highest block ever looked up in the world.
+     * @return ID of the radiation, {@code null} if the whole column is safe,
+     * or {@link #UNRESOLVED} if it's not the same everywhere, or it can't
+     * be told.
+     */
+    public String classify(String world, int chunkX, int chunkZ, int minY, int maxY) {
+        WorldIndex index = this.worlds.get(world);
+        if (index == null) {
+            return UNRESOLVED;
+        }
+
+        int minX = chunkX << 4;
+        int minZ = chunkZ << 4;
+        int maxX = minX + 15;
+        int maxZ = minZ + 15;
+
+        // cells are never smaller than chunks
+        for (CompiledRegion region : index.cell(minX, minZ)) {
+            if (!region.intersects(minX, minZ, maxX, maxZ)) {
+                continue;
+            }
+            if (region.precise || !region.uniform() || !region.covers(minX, minY, minZ, maxX, maxY, maxZ)) {
+                return UNRESOLVED;
+            }
+        }
+
+        if (index.global != null && (index.global.precise || !index.global.uniform())) {
+            return UNRESOLVED;
+        }
+        return this.resolve(world, minX, minY, minZ, ANYONE);
+    }
+
+    /**
+     * Areas of the world in which lookups may differ from the previous
+     * snapshot.
+     *
+     * @return Block bounding boxes as {@code {minX, minZ, maxX, maxZ}}, or
+     * {@code null} if the whole world may differ.
+     */
+    public List<int[]> changedAreas(RegionIndex previous, String world) {
+        Objects.requireNonNull(previous, "previous");
+
+        WorldIndex current = this.worlds.get(world);
+        WorldIndex old = previous.worlds.get(world);
+        if (current == null || old == null || !Objects.equals(current.global, old.global)) {
+            return null;
+        }
+
+        List<int[]> areas = new ArrayList<>();
+        for (CompiledRegion region : current.regions.values()) {
+            if (!region.equals(old.regions.get(region.id))) {
+                areas.add(region.area());
+            }
+        }
+        for (CompiledRegion region : old.regions.values()) {
+            if (!region.equals(current.regions.get(region.id))) {
+                areas.add(region.area());
+            }
+        }
+        return areas;
+    }
+
+    /**
+     * @param flag {@code 0} for the radiation flag, {@code 1} for the type.
+     */
+    private static Object resolveValue(CompiledRegion[] cell, CompiledRegion global, int x, int y, int z, UUID playerId, int flag) {
+        int minimumPriority = Integer.MIN_VALUE;
+        Object value = null;
+
+        // cells are sorted by priority, highest first
+        for (CompiledRegion region : cell) {
+            if (region.priority < minimumPriority) {
+                break;
+            }
+            if (!region.contains(x, y, z)) {
+                continue;
+            }
+            if (region.precise || region.hasContainingAncestor(cell, x, y, z)) {
+                return UNRESOLVED;
+            }
+
+            Object regionValue = region.value(flag, playerId);
+            if (regionValue == null) {
+                continue;
+            }
+            if (value != null && !value.equals(regionValue)) {
+                return UNRESOLVED; // WorldGuard would pick any of them
+            }
+
+            value = regionValue;
+            minimumPriority = region.priority;
+        }
+
+        if (value != null || global == null) {
+            return value;
+        }
+        return global.precise ? UNRESOLVED : global.value(flag, playerId);
+    }
+
+    static class WorldIndex {
+        private final Map<String, CompiledRegion> regions;
+        private final CompiledRegion global;
+        private final CompiledRegion[][] cells;
+        private final int shift;
+        private final int minCellX;
+        private final int minCellZ;
+        private final int width;
+        private final int depth;
+
+        WorldIndex(List<CompiledRegion> regions, CompiledRegion global) {
+            this.global = global;
+
+            ImmutableMap.Builder<String, CompiledRegion> byId = ImmutableMap.builder();
+            for (CompiledRegion region : regions) {
+                byId.put(region.id, region);
+            }
+            this.regions = byId.build();
+
+            if (regions.isEmpty()) {
+                this.cells = new CompiledRegion[0][];
+                this.shift = CELL_SHIFT;
+                this.minCellX = this.minCellZ = this.width = this.depth = 0;
+                return;
+            }
+
+            regions.sort(Comparator.comparingInt((CompiledRegion region) -> region.priority).reversed());
+
+            long minX = Long.MAX_VALUE, minZ = Long.MAX_VALUE, maxX = Long.MIN_VALUE, maxZ = Long.MIN_VALUE;
+            for (CompiledRegion region : regions) {
+                minX = Math.min(minX, region.minX);
+                minZ = Math.min(minZ, region.minZ);
+                maxX = Math.max(maxX, region.maxX);
+                maxZ = Math.max(maxZ, region.maxZ);
+            }
+
+            int shift = CELL_SHIFT;
+            while (((maxX >> shift) - (minX >> shift) + 1L) * ((maxZ >> shift) - (minZ >> shift) + 1L) > MAX_CELLS) {
+                shift++;
+            }
+            this.shift = shift;
+            this.minCellX = (int) (minX >> shift);
+            this.minCellZ = (int) (minZ >> shift);
+            this.width = (int) ((maxX >> shift) - this.minCellX + 1L);
+            this.depth = (int) ((maxZ >> shift) - this.minCellZ + 1L);
+
+            List<List<CompiledRegion>> cells = new ArrayList<>(Collections.nCopies(this.width * this.depth, null));
+            for (CompiledRegion region : regions) { // keeps the priority order in every cell
+                for (int cellX = (region.minX >> shift) - this.minCellX; cellX <= (region.maxX >> shift) - this.minCellX; cellX++) {
+                    for (int cellZ = (region.minZ >> shift) - this.minCellZ; cellZ <= (region.maxZ >> shift) - this.minCellZ; cellZ++) {
+                        int index = cellX * this.depth + cellZ;
+                        if (cells.get(index) == null) {
+                            cells.set(index, new ArrayList<>(2));
+                        }
+                        cells.get(index).add(region);
+                    }
+                }
+            }
+
+            this.cells = new CompiledRegion[cells.size()][];
+            for (int i = 0; i < this.cells.length; i++) {
+                List<CompiledRegion> cell = cells.get(i);
+                this.cells[i] = cell == null ? NO_REGIONS : cell.toArray(NO_REGIONS);
+            }
+        }
+
+        CompiledRegion[] cell(int x, int z) {
+            int cellX = (x >> this.shift) - this.minCellX;
+            int cellZ = (z >> this.shift) - this.minCellZ;
+            if (cellX < 0 || cellX >= this.width || cellZ < 0 || cellZ >= this.depth) {
+                return NO_REGIONS;
+            }
+            return this.cells[cellX * this.depth + cellZ];
+        }
+    }
+
+    /**
+     * Geometry, domain and effective flag values of a single region.
+     */
+    static class CompiledRegion {
+        private static final Association[] ASSOCIATIONS = Association.values();
+
+        final String id;
+        final int priority;
+        final int minX, minY, minZ;
+        final int maxX, maxY, maxZ;
+        /** Polygon points, {@code null} for cuboids. */
+        private final int[] pointsX;
+        private final int[] pointsZ;
+        /** Owners and members including parents, members include owners. */
+        private final Set<UUID> owners;
+        private final Set<UUID> members;
+        private final Set<String> ancestors;
+        /** Effective values by association ordinal, radiation flag first. */
+        private final Object[][] values = new Object[2][ASSOCIATIONS.length];
+        /** Whether only WorldGuard can tell the result. */
+        final boolean precise;
+
+        CompiledRegion(RegionData region, Map<String, RegionData> regions) {
+            this.id = region.id;
+            this.priority = region.priority;
+            this.minX = region.minX;
+            this.minY = region.minY;
+            this.minZ = region.minZ;
+            this.maxX = region.maxX;
+            this.maxY = region.maxY;
+            this.maxZ = region.maxZ;
+            this.pointsX = region.pointsX;
+            this.pointsZ = region.pointsZ;
+
+            boolean precise = region.customType;
+            Set<UUID> owners = new HashSet<>();
+            Set<UUID> members = new HashSet<>();
+            Set<String> ancestors = new HashSet<>();
+            for (RegionData current = region; current != null; current = current.parent(regions)) {
+                if (current != region) {
+                    ancestors.add(current.id);
+                }
+
+                precise |= current.namesOrGroups;
+                owners.addAll(current.owners);
+                members.addAll(current.owners);
+                members.addAll(current.members);
+            }
+            this.owners = ImmutableSet.copyOf(owners);
+            this.members = ImmutableSet.copyOf(members);
+            this.ancestors = ImmutableSet.copyOf(ancestors);
+            this.precise = precise;
+
+            // same as WorldGuard's effective flag, walking up the parents
+            for (int flag = 0; flag < this.values.length; flag++) {
+                for (Association association : ASSOCIATIONS) {
+                    for (RegionData current = region; current != null; current = current.parent(regions)) {
+                        Object value = current.values[flag][association.ordinal()];
+                        if (value != null) {
+                            this.values[flag][association.ordinal()] = value;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        /** Whether flag values are the same for every player that can be associated with this region. */
+        boolean uniform() {
+            if (this.members.isEmpty()) {
+                return true; // everyone is a non-member, other associations never occur
+            }
+
+            for (Object[] values : this.values) {
+                for (Object value : values) {
+                    if (!Objects.equals(value, values[0])) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        int[] area() {
+            return new int[] { this.minX, this.minZ, this.maxX, this.maxZ };
+        }
+
+        boolean intersects(int minX, int minZ, int maxX, int maxZ) {
+            return this.minX <= maxX && this.maxX >= minX && this.minZ <= maxZ && this.maxZ >= minZ;
+        }
+
+        /** Whether every block of the box is contained, may give false negatives for polygons. */
+        boolean covers(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            if (minX < this.minX || maxX > this.maxX || minY < this.minY || maxY > this.maxY || minZ < this.minZ || maxZ > this.maxZ) {
+                return false;
+            }
+            if (this.pointsX == null) {
+                return true;
+            }
+
+            if (!this.polygonContains(minX, minZ) || !this.polygonContains(minX, maxZ) ||
+                    !this.polygonContains(maxX, minZ) || !this.polygonContains(maxX, maxZ)) {
+                return false;
+            }
+
+            // no edge may cross the box, even if all corners are inside
+            int count = this.pointsX.length;
+            for (int i = 0, j = count - 1; i < count; j = i++) {
+                if (Math.min(this.pointsX[i], this.pointsX[j]) <= maxX && Math.max(this.pointsX[i], this.pointsX[j]) >= minX &&
+                        Math.min(this.pointsZ[i], this.pointsZ[j]) <= maxZ && Math.max(this.pointsZ[i], this.pointsZ[j]) >= minZ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Object value(int flag, UUID playerId) {
+            Association association;
+            if (this.owners.contains(playerId)) {
+                association = Association.OWNER;
+            } else if (this.members.contains(playerId)) {
+                association = Association.MEMBER;
+            } else {
+                association = Association.NON_MEMBER;
+            }
+            return this.values[flag][association.ordinal()];
+        }
+
+        boolean hasContainingAncestor(CompiledRegion[] cell, int x, int y, int z) {
+            if (this.ancestors.isEmpty()) {
+                return false;
+            }
+
+            for (CompiledRegion region : cell) {
+                if (this.ancestors.contains(region.id) && region.contains(x, y, z)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean contains(int x, int y, int z) {
+            if (x < this.minX || x > this.maxX || y < this.minY || y > this.maxY || z < this.minZ || z > this.maxZ) {
+                return false;
+            }
+            return this.pointsX == null || this.polygonContains(x, z);
+        }
+
+        /** Same as {@link ProtectedPolygonalRegion#contains(BlockVector3)}. */
+        private boolean polygonContains(int targetX, int targetZ) {
+            boolean inside = false;
+            int count = this.pointsX.length;
+            int xOld = this.pointsX[count - 1];
+            int zOld = this.pointsZ[count - 1];
+            for (int i = 0; i < count; i++) {
+                int xNew = this.pointsX[i];
+                int zNew = this.pointsZ[i];
+                if (xNew == targetX && zNew == targetZ) {
+                    return true; // corner
+                }
+
+                int x1, z1, x2, z2;
+                if (xNew > xOld) {
+                    x1 = xOld;
+                    x2 = xNew;
+                    z1 = zOld;
+                    z2 = zNew;
+                } else {
+                    x1 = xNew;
+                    x2 = xOld;
+                    z1 = zNew;
+                    z2 = zOld;
+                }
+
+                if (x1 <= targetX && targetX <= x2) {
+                    long crossProduct = ((long) targetZ - (long) z1) * (long) (x2 - x1) - ((long) z2 - (long) z1) * (long) (targetX - x1);
+                    if (crossProduct == 0L) {
+                        if ((z1 <= targetZ) == (targetZ <= z2)) {
+                            return true; // edge
+                        }
+                    } else if (crossProduct < 0L && x1 != targetX) {
+                        inside = !inside;
+                    }
+                }
+
+                xOld = xNew;
+                zOld = zNew;
+            }
+            return inside;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CompiledRegion that = (CompiledRegion) o;
+            return this.priority == that.priority &&
+                    this.minX == that.minX && this.minY == that.minY && this.minZ == that.minZ &&
+                    this.maxX == that.maxX && this.maxY == that.maxY && this.maxZ == that.maxZ &&
+                    this.precise == that.precise &&
+                    this.id.equals(that.id) &&
+                    Arrays.equals(this.pointsX, that.pointsX) &&
+                    Arrays.equals(this.pointsZ, that.pointsZ) &&
+                    this.owners.equals(that.owners) &&
+                    this.members.equals(that.members) &&
+                    this.ancestors.equals(that.ancestors) &&
+                    Arrays.deepEquals(this.values, that.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.id, this.priority, this.minX, this.minY, this.minZ, this.maxX, this.maxY, this.maxZ);
+        }
+    }
+
+    /**
+     * Regions copied on the main thread, by world name and region ID.
+     */
+    public static final class Snapshot {
+        private final Map<String, Map<String, RegionData>> worlds;
+
+        private Snapshot(Map<String, Map<String, RegionData>> worlds) {
+            this.worlds = worlds;
+        }
+    }
+
+    /**
+     * Copy of everything the index needs from a single region, without its
+     * parents.
+     */
+    static final class RegionData {
+        final String id;
+        final String parentId;
+        final int priority;
+        final int minX, minY, minZ;
+        final int maxX, maxY, maxZ;
+        /** Polygon points, {@code null} for other regions. */
+        final int[] pointsX;
+        final int[] pointsZ;
+        final boolean global;
+        /** Whether the region is of a type the index can't tell the shape of. */
+        final boolean customType;
+        final Set<UUID> owners;
+        final Set<UUID> members;
+        final boolean namesOrGroups;
+        /** Whether any of the flags is set on this region. */
+        final boolean flagged;
+        /** Values set on this region by association ordinal, {@code null} where the region group doesn't apply. */
+        final Object[][] values = new Object[2][CompiledRegion.ASSOCIATIONS.length];
+
+        RegionData(ProtectedRegion region, Flag<Boolean> isRadioactiveFlag, Flag<String> radiationTypeFlag) {
+            this.id = region.getId();
+            this.parentId = region.getParent() != null ? region.getParent().getId() : null;
+            this.priority = region.getPriority();
+
+            BlockVector3 min = region.getMinimumPoint();
+            BlockVector3 max = region.getMaximumPoint();
+            this.minX = min.getBlockX();
+            this.minY = min.getBlockY();
+            this.minZ = min.getBlockZ();
+            this.maxX = max.getBlockX();
+            this.maxY = max.getBlockY();
+            this.maxZ = max.getBlockZ();
+
+            this.global = region instanceof GlobalProtectedRegion;
+            if (region instanceof ProtectedPolygonalRegion) {
+                List<BlockVector2> points = region.getPoints();
+                this.pointsX = new int[points.size()];
+                this.pointsZ = new int[points.size()];
+                for (int i = 0; i < points.size(); i++) {
+                    this.pointsX[i] = points.get(i).getBlockX();
+                    this.pointsZ[i] = points.get(i).getBlockZ();
+                }
+                this.customType = false;
+            } else {
+                this.pointsX = this.pointsZ = null;
+                this.customType = !(region instanceof ProtectedCuboidRegion) && !this.global;
+            }
+
+            this.owners = ImmutableSet.copyOf(region.getOwners().getUniqueIds());
+            this.members = ImmutableSet.copyOf(region.getMembers().getUniqueIds());
+            this.namesOrGroups = hasNamesOrGroups(region.getOwners()) || hasNamesOrGroups(region.getMembers());
+            this.flagged = region.getFlag(isRadioactiveFlag) != null || region.getFlag(radiationTypeFlag) != null;
+
+            for (Association association : CompiledRegion.ASSOCIATIONS) {
+                this.values[0][association.ordinal()] = value(region, isRadioactiveFlag, association);
+                this.values[1][association.ordinal()] = value(region, radiationTypeFlag, association);
+            }
+        }
+
+        private static boolean hasNamesOrGroups(DefaultDomain domain) {
+            return !domain.getPlayers().isEmpty() || !domain.getGroups().isEmpty();
+        }
+
+        private static <V> V value(ProtectedRegion region, Flag<V> flag, Association association) {
+            V value = region.getFlag(flag);
+            RegionGroupFlag groupFlag = flag.getRegionGroupFlag();
+            if (value == null || groupFlag == null) {
+                return value;
+            }
+
+            RegionGroup group = region.getFlag(groupFlag);
+            if (group == null) {
+                group = groupFlag.getDefault();
+            }
+            return group != null && group.contains(association) ? value : null;
+        }
+
+        RegionData parent(Map<String, RegionData> regions) {
+            return this.parentId != null ? regions.get(this.parentId) : null;
+        }
+
+        boolean hasFlags(Map<String, RegionData> regions) {
+            for (RegionData current = this; current != null; current = current.parent(regions)) {
+                if (current.flagged) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.sk89q.worldguard.WorldGuard;
+import com.sk89q.worldguard.internal.platform.WorldGuardPlatform;
+import com.sk89q.worldguard.protection.flags.Flag;
+import com.sk89q.worldguard.protection.managers.RegionManager;
+import com.sk89q.worldguard.protection.regions.RegionContainer;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.server.ServerCommandEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the {@link RegionIndex} up to date. The index is rebuilt
+ * asynchronously after regions were committed by this plugin, after region
+ * commands and periodically to catch changes made by other plugins. The
+ * old index is used until the new one is ready.
+ *
+ * When a {@link RadiationRaster} is given, it's updated along with the index
+ * and consulted before it.
+ *
+ * Regions are copied on the main thread, only the copy is compiled
+ * asynchronously.
+ */
+public class RegionIndexer implements Listener, RegionLookup {
+    static final Logger logger = Logger.getLogger(RegionIndexer.class.getName());
+
+    private static final long CHECK_PERIOD_TICKS = 20L;
+    private static final long REBUILD_PERIOD_MILLIS = 60_000L;
+    private static final String[] REGION_COMMANDS = { "rg", "region", "regions", "worldguard:" };
+
+    private final Plugin plugin;
+    private final RegionCommitter regionCommitter;
+    private final WorldBoundsRegistry worldBounds;
+    private final RadiationRaster raster;
+    private final Flag<Boolean> isRadioactiveFlag;
+    private final Flag<String> radiationTypeFlag;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final List<RebuildListener> listeners = new CopyOnWriteArrayList<>();
+    /** Guards publishing of rebuilds against {@link #disable()}. */
+    private final Object publishLock = new Object();
+
+    private volatile RegionIndex index = RegionIndex.EMPTY;
+    private boolean rebuildRequested;
+    private long lastRebuild;
+    private BukkitTask task;
+
+    /**
+     * @param raster Raster to be kept up to date, or {@code null}.
+     */
+    public RegionIndexer(Plugin plugin, RegionCommitter regionCommitter, WorldBoundsRegistry worldBounds, RadiationRaster raster,
+                         Flag<Boolean> isRadioactiveFlag, Flag<String> radiationTypeFlag) {
+        this.plugin = Objects.requireNonNull(plugin, "plugin");
+        this.regionCommitter = Objects.requireNonNull(regionCommitter, "regionCommitter");
+        this.worldBounds = Objects.requireNonNull(worldBounds, "worldBounds");
+        this.raster = raster;
+        this.isRadioactiveFlag = Objects.requireNonNull(isRadioactiveFlag, "isRadioactiveFlag");
+        this.radiationTypeFlag = Objects.requireNonNull(radiationTypeFlag, "radiationTypeFlag");
+    }
+
+    /**
+     * Current snapshot, {@link RegionIndex#EMPTY} until the first one is
+     * compiled.
+     */
+    public RegionIndex current() {
+        return this.index;
+    }
+
+    /**
+     * Register the listener called off the main thread after every rebuild.
+     */
+    public void addListener(RebuildListener listener) {
+        this.listeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    @Override
+    public String resolve(String world, int x, int y, int z, UUID playerId) {
+        if (this.raster != null) {
+            String radiationId = this.raster.resolve(world, x, y, z, playerId);
+            if (radiationId != UNRESOLVED) {
+                return radiationId;
+            }
+        }
+        return this.index.resolve(world, x, y, z, playerId);
+    }
+
+    public void enable() {
+        this.plugin.getServer().getPluginManager().registerEvents(this, this.plugin);
+        this.task = this.plugin.getServer().getScheduler().runTaskTimer(this.plugin, this::check, 1L, CHECK_PERIOD_TICKS);
+        this.rebuildRequested = true;
+    }
+
+    public void disable() {
+        HandlerList.unregisterAll(this);
+        if (this.task != null) {
+            this.task.cancel();
+            this.task = null;
+        }
+
+        // wait for a rebuild being published, it won't touch the raster after this
+        synchronized (this.publishLock) {
+            this.index = RegionIndex.EMPTY;
+            if (this.raster != null) {
+                this.raster.close();
+            }
+        }
+    }
+
+    private void check() {
+        boolean outdated = this.rebuildRequested ||
+                this.index.revision() != this.regionCommitter.revision() ||
+                System.currentTimeMillis() - this.lastRebuild >= REBUILD_PERIOD_MILLIS;
+        if (outdated && this.rebuild()) {
+            this.rebuildRequested = false;
+        }
+    }
+
+    /**
+     * Copy regions on the main thread and compile them asynchronously.
+     *
+     * @return {@code false} if another rebuild is still in progress.
+     */
+    private boolean rebuild() {
+        WorldGuardPlatform platform = WorldGuard.getInstance().getPlatform();
+        if (platform == null || !this.rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+
+        long revision = this.regionCommitter.revision();
+        RegionIndex previous = this.index;
+        RegionContainer regionContainer = platform.getRegionContainer();
+        Map<String, RegionManager> regionManagers = new HashMap<>(); // never used off the main thread
+        Map<String, WorldBoundsRegistry.Bounds> bounds = new HashMap<>();
+        for (World world : this.plugin.getServer().getWorlds()) {
+            RegionManager regionManager = regionContainer.get(BukkitAdapter.adapt(world));
+            if (regionManager != null) {
+                regionManagers.put(world.getName(), regionManager);
+                bounds.put(world.getName(), this.worldBounds.get(world));
+            }
+        }
+
+        RegionIndex.Snapshot snapshot;
+        try {
+            snapshot = RegionIndex.snapshot(regionManagers, this.isRadioactiveFlag, this.radiationTypeFlag);
+        } catch (RuntimeException e) {
+            this.rebuilding.set(false);
+            throw e;
+        }
+
+        this.lastRebuild = System.currentTimeMillis();
+        this.plugin.getServer().getScheduler().runTaskAsynchronously(this.plugin, () -> {
+            try {
+                RegionIndex index = RegionIndex.compile(revision, snapshot);
+                synchronized (this.publishLock) {
+                    if (this.task == null) {
+                        return;
+                    }
+
+                    // columns which may change are invalidated before the new index is in use
+                    if (this.raster != null) {
+                        this.raster.invalidate(previous, index, bounds);
+                    }
+                    this.index = index;
+                    if (this.raster != null) {
+                        this.raster.regenerate(index);
+                    }
+                }
+
+                for (RebuildListener listener : this.listeners) {
+                    listener.onRebuild(previous, index, bounds);
+                }
+            } catch (Throwable throwable) {
+                logger.log(Level.SEVERE, "Could not compile the region index.", throwable);
+            } finally {
+                this.rebuilding.set(false);
+            }
+        });
+        return true;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerCommandPreprocess(PlayerCommandPreprocessEvent event) {
+        this.onCommand(event.getMessage().startsWith("/") ? event.getMessage().substring(1) : event.getMessage());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onServerCommand(ServerCommandEvent event) {
+        this.onCommand(event.getCommand());
+    }
+
+    private void onCommand(String command) {
+        String label = command.toLowerCase(Locale.ROOT);
+        for (String regionCommand : REGION_COMMANDS) {
+            if (label.startsWith(regionCommand) && (regionCommand.endsWith(":") ||
+                    label.length() == regionCommand.length() || label.charAt(regionCommand.length()) == ' ')) {
+                // the command is executed after this event, check on the next run
+                this.rebuildRequested = true;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Keeps something derived from the region index up to date.
+     */
+    public interface RebuildListener {
+        /**
+         * Called off the main thread after the index was published.
+         *
+         * @param worlds Height bounds of the loaded worlds, by world name.
+         */
+        void onRebuild(RegionIndex previous, RegionIndex index, Map<String, WorldBoundsRegistry.Bounds> worlds);
+    }
+}
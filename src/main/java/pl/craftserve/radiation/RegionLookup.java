@@ -0,0 +1,35 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import java.util.UUID;
+
+/**
+ * Resolves radiation IDs at blocks without querying WorldGuard.
+ */
+public interface RegionLookup {
+    /**
+     * Returned when WorldGuard must be queried instead. Compare by identity.
+     */
+    String UNRESOLVED = new String("unresolved");
+
+    /**
+     * @return ID of the radiation, {@code null} if the block is not
+     * radioactive for the player, or {@link #UNRESOLVED}.
+     */
+    String resolve(String world, int x, int y, int z, UUID playerId);
+}
@@ -0,0 +1,427 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records every matcher evaluation into rolling binary trace files, which
+ * can be replayed offline to tune matchers and caches.
+ *
+ * Samples are encoded on the main thread into pooled buffers, which are
+ * written by a separate thread. When the writer falls behind samples are
+ * dropped rather than blocking the server. When the writer fails recording
+ * stops, see {@link #getFailure()}. Files are created once there is something
+ * to write into them.
+ *
+ * File format (big endian): {@link #MAGIC}, {@link #VERSION}, then records
+ * starting with a type byte:
+ * <ul>
+ *     <li>{@link #PLAYER}: int id, long most and least significant bits of the UUID</li>
+ *     <li>{@link #WORLD}: int id, UTF name</li>
+ *     <li>{@link #RADIATION}: int id, UTF radiation ID</li>
+ *     <li>{@link #SAMPLE}: int tick, int player, int world, int x, int y, int z
+ *     (in 1/{@link #COORDINATE_SCALE} of a block), int radiation, byte matched</li>
+ * </ul>
+ * Dictionary records are repeated in every file, and may redefine an ID.
+ */
+public class TraceRecorder {
+    static final Logger logger = Logger.getLogger(TraceRecorder.class.getName());
+
+    public static final int MAGIC = 0x43525452; // CRTR
+    public static final int VERSION = 1;
+    public static final byte PLAYER = 1;
+    public static final byte WORLD = 2;
+    public static final byte RADIATION = 3;
+    public static final byte SAMPLE = 4;
+    public static final int COORDINATE_SCALE = 32;
+    public static final String FILE_EXTENSION = ".trace";
+
+    private static final int SAMPLE_SIZE = 1 + 7 * Integer.BYTES + 1;
+    private static final int PLAYER_SIZE = 1 + Integer.BYTES + 2 * Long.BYTES;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int BUFFER_COUNT = 16;
+    private static final long MAX_FILE_SIZE = 64L * 1024L * 1024L;
+    private static final int MAX_FILES = 8;
+
+    /** Markers put into the queue of the writer. */
+    private static final ByteBuffer ROLL = ByteBuffer.allocate(0);
+    private static final ByteBuffer STOP = ByteBuffer.allocate(0);
+
+    private final Plugin plugin;
+    private final Path directory;
+
+    private final Map<UUID, Integer> playerIds = new HashMap<>();
+    private final Map<UUID, Integer> worldIds = new HashMap<>();
+    private final Map<String, Integer> radiationIds = new HashMap<>();
+    private int nextId;
+
+    /** Reused for every sample, only used from the main thread. */
+    private final Location location = new Location(null, 0D, 0D, 0D);
+
+    private BlockingQueue<ByteBuffer> pool;
+    private BlockingQueue<ByteBuffer> pending;
+    private ByteBuffer buffer;
+    private long fileSize;
+    private long dropped;
+
+    private boolean recording;
+    private volatile IOException failure;
+    private int tick;
+    private BukkitTask tickTask;
+    private Thread writer;
+
+    public TraceRecorder(Plugin plugin, Path directory) {
+        this.plugin = Objects.requireNonNull(plugin, "plugin");
+        this.directory = Objects.requireNonNull(directory, "directory");
+    }
+
+    /**
+     * @return {@code false} also when the writer has failed, while
+     * {@link #stop()} must still be called to release resources.
+     */
+    public boolean isRecording() {
+        return this.recording && this.failure == null;
+    }
+
+    /**
+     * @return The error which made the writer fail, until the recording is
+     * stopped.
+     */
+    public Optional<IOException> getFailure() {
+        return Optional.ofNullable(this.failure);
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    public void start() throws IOException {
+        if (this.isRecording()) {
+            return;
+        }
+        this.stop(); // the writer has failed
+
+        Files.createDirectories(this.directory);
+
+        this.pool = new ArrayBlockingQueue<>(BUFFER_COUNT);
+        for (int i = 0; i < BUFFER_COUNT; i++) {
+            this.pool.add(ByteBuffer.allocate(BUFFER_SIZE));
+        }
+        this.pending = new LinkedBlockingQueue<>();
+        this.buffer = this.pool.poll();
+        this.clearDictionaries();
+        this.fileSize = 0L;
+        this.dropped = 0L;
+
+        this.writer = new Thread(new Writer(this.pool, this.pending), this.plugin.getName() + " Trace Writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+
+        this.tick = 0;
+        this.tickTask = this.plugin.getServer().getScheduler().runTaskTimer(this.plugin, () -> this.tick++, 1L, 1L);
+        this.recording = true;
+    }
+
+    /**
+     * Stop recording and wait for the writer to flush everything.
+     *
+     * @return Number of samples dropped because the writer was too slow.
+     */
+    public long stop() {
+        if (!this.recording) {
+            return 0L;
+        }
+
+        this.recording = false;
+        if (this.tickTask != null) {
+            this.tickTask.cancel();
+            this.tickTask = null;
+        }
+
+        this.handOff();
+        this.pending.add(STOP);
+        try {
+            this.writer.join(10_000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.writer = null;
+        this.failure = null;
+        return this.dropped;
+    }
+
+    /**
+     * Wrap the matcher so its every evaluation is recorded.
+     */
+    public Radiation.Matcher wrap(String radiationId, Radiation.Matcher matcher) {
+        Objects.requireNonNull(radiationId, "radiationId");
+        Objects.requireNonNull(matcher, "matcher");
+
+        return player -> {
+            boolean matched = matcher.test(player);
+            if (this.isRecording()) {
+                this.record(player, radiationId, matched);
+            }
+            return matched;
+        };
+    }
+
+    private void record(Player player, String radiationId, boolean matched) {
+        Location location = player.getLocation(this.location);
+        World world = Objects.requireNonNull(location.getWorld(), "world");
+        UUID playerId = player.getUniqueId();
+
+        // dictionary records must land in the same file as the sample, if
+        // the file is rolled here they are written again into a new buffer
+        if (!this.ensure(this.recordSize(playerId, world, radiationId))) {
+            return;
+        }
+
+        int playerIndex = this.playerId(playerId);
+        int worldIndex = this.worldId(world);
+        int radiationIndex = this.radiationId(radiationId);
+
+        this.buffer.put(SAMPLE)
+                .putInt(this.tick)
+                .putInt(playerIndex)
+                .putInt(worldIndex)
+                .putInt((int) Math.floor(location.getX() * COORDINATE_SCALE))
+                .putInt((int) Math.floor(location.getY() * COORDINATE_SCALE))
+                .putInt((int) Math.floor(location.getZ() * COORDINATE_SCALE))
+                .putInt(radiationIndex)
+                .put(matched ? (byte) 1 : (byte) 0);
+    }
+
+    /**
+     * Size of the sample, including dictionary records which are not
+     * written yet.
+     */
+    private int recordSize(UUID playerId, World world, String radiationId) {
+        int size = SAMPLE_SIZE;
+        if (!this.playerIds.containsKey(playerId)) {
+            size += PLAYER_SIZE;
+        }
+        if (!this.worldIds.containsKey(world.getUID())) {
+            size += 1 + Integer.BYTES + Short.BYTES + world.getName().getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (!this.radiationIds.containsKey(radiationId)) {
+            size += 1 + Integer.BYTES + Short.BYTES + radiationId.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return size;
+    }
+
+    /** The buffer must have room for the record, see {@link #recordSize}. */
+    private int playerId(UUID playerId) {
+        Integer id = this.playerIds.get(playerId);
+        if (id == null) {
+            id = this.nextId++;
+            this.buffer.put(PLAYER).putInt(id).putLong(playerId.getMostSignificantBits()).putLong(playerId.getLeastSignificantBits());
+            this.playerIds.put(playerId, id);
+        }
+        return id;
+    }
+
+    /** The buffer must have room for the record, see {@link #recordSize}. */
+    private int worldId(World world) {
+        Integer id = this.worldIds.get(world.getUID());
+        if (id == null) {
+            byte[] name = world.getName().getBytes(StandardCharsets.UTF_8);
+            id = this.nextId++;
+            this.buffer.put(WORLD).putInt(id).putShort((short) name.length).put(name);
+            this.worldIds.put(world.getUID(), id);
+        }
+        return id;
+    }
+
+    /** The buffer must have room for the record, see {@link #recordSize}. */
+    private int radiationId(String radiationId) {
+        Integer id = this.radiationIds.get(radiationId);
+        if (id == null) {
+            byte[] name = radiationId.getBytes(StandardCharsets.UTF_8);
+            id = this.nextId++;
+            this.buffer.put(RADIATION).putInt(id).putShort((short) name.length).put(name);
+            this.radiationIds.put(radiationId, id);
+        }
+        return id;
+    }
+
+    /**
+     * Make sure the buffer has room for the given number of bytes.
+     *
+     * @return {@code false} if there is no free buffer and the record must
+     * be dropped.
+     */
+    private boolean ensure(int size) {
+        if (this.buffer != null && this.buffer.remaining() >= size) {
+            return true;
+        }
+
+        this.handOff();
+        this.buffer = this.pool.poll();
+        if (this.buffer == null) {
+            this.dropped++;
+            return false;
+        }
+        return true;
+    }
+
+    private void handOff() {
+        ByteBuffer buffer = this.buffer;
+        this.buffer = null;
+        if (buffer == null || buffer.position() == 0) {
+            if (buffer != null) {
+                this.pool.add(buffer);
+            }
+            return;
+        }
+
+        buffer.flip();
+        this.fileSize += buffer.remaining();
+        this.pending.add(buffer);
+
+        if (this.fileSize >= MAX_FILE_SIZE) {
+            this.pending.add(ROLL);
+            this.fileSize = 0L;
+            this.clearDictionaries(); // the next file must define them again
+        }
+    }
+
+    private void clearDictionaries() {
+        this.playerIds.clear();
+        this.worldIds.clear();
+        this.radiationIds.clear();
+    }
+
+    class Writer implements Runnable {
+        private final BlockingQueue<ByteBuffer> pool;
+        private final BlockingQueue<ByteBuffer> pending;
+        private final String prefix = "trace-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        private int fileIndex;
+        private FileChannel channel;
+
+        Writer(BlockingQueue<ByteBuffer> pool, BlockingQueue<ByteBuffer> pending) {
+            this.pool = Objects.requireNonNull(pool, "pool");
+            this.pending = Objects.requireNonNull(pending, "pending");
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    ByteBuffer buffer = this.pending.take();
+                    if (buffer == STOP) {
+                        break;
+                    } else if (buffer == ROLL) {
+                        this.close(); // the next file is opened with the next buffer
+                        continue;
+                    }
+
+                    if (this.channel == null) {
+                        this.open();
+                    }
+
+                    try {
+                        while (buffer.hasRemaining()) {
+                            this.channel.write(buffer);
+                        }
+                    } finally {
+                        buffer.clear();
+                        this.pool.add(buffer);
+                    }
+                }
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not write radiation trace, recording has stopped.", e);
+                failure = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                this.close();
+            }
+        }
+
+        private void open() throws IOException {
+            this.close();
+
+            Path path = directory.resolve(this.prefix + "-" + this.fileIndex++ + FILE_EXTENSION);
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+
+            ByteBuffer header = ByteBuffer.allocate(2 * Integer.BYTES).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            this.channel.write(header);
+
+            this.deleteOldest();
+        }
+
+        private void close() {
+            if (this.channel == null) {
+                return;
+            }
+
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not close radiation trace.", e);
+            }
+            this.channel = null;
+        }
+
+        private void deleteOldest() throws IOException {
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + FILE_EXTENSION)) {
+                stream.forEach(files::add);
+            }
+
+            if (files.size() <= MAX_FILES) {
+                return;
+            }
+
+            Collections.sort(files); // names start with the date
+            for (Path file : files.subList(0, files.size() - MAX_FILES)) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.plugin.Plugin;
+import pl.craftserve.radiation.nms.RadiationNmsBridge;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Height bounds of all loaded worlds. Lookups by {@link World} go through
+ * an identity map, so they don't depend on the number of loaded worlds.
+ */
+public class WorldBoundsRegistry implements Listener {
+    private final Plugin plugin;
+    private final RadiationNmsBridge nmsBridge;
+    private final Profiler profiler;
+
+    private final Map<World, Bounds> byWorld = new IdentityHashMap<>();
+
+    public WorldBoundsRegistry(Plugin plugin, RadiationNmsBridge nmsBridge, Profiler profiler) {
+        this.plugin = Objects.requireNonNull(plugin, "plugin");
+        this.nmsBridge = Objects.requireNonNull(nmsBridge, "nmsBridge");
+        this.profiler = Objects.requireNonNull(profiler, "profiler");
+    }
+
+    public void enable() {
+        this.plugin.getServer().getWorlds().forEach(this::register);
+        this.plugin.getServer().getPluginManager().registerEvents(this, this.plugin);
+    }
+
+    public void disable() {
+        HandlerList.unregisterAll(this);
+        this.byWorld.clear();
+    }
+
+    /**
+     * Bounds of the given world. Worlds which were not announced with
+     * {@link WorldLoadEvent} are registered on the first lookup.
+     */
+    public Bounds get(World world) {
+        Objects.requireNonNull(world, "world");
+
+        Bounds bounds = this.byWorld.get(world);
+        if (bounds != null) {
+            this.profiler.increment(Profiler.Counter.WORLD_BOUNDS_HITS);
+            return bounds;
+        }
+
+        this.profiler.increment(Profiler.Counter.WORLD_BOUNDS_MISSES);
+        return this.register(world);
+    }
+
+    private Bounds register(World world) {
+        Objects.requireNonNull(world, "world");
+        this.unregister(world); // replace stale entry of the same world
+
+        int minY = this.nmsBridge.getMinWorldHeight(world);
+        int maxY = world.getMaxHeight();
+
+        Bounds bounds = new Bounds(world, BukkitAdapter.adapt(world), minY, maxY);
+        this.byWorld.put(world, bounds);
+        return bounds;
+    }
+
+    private void unregister(World world) {
+        Objects.requireNonNull(world, "world");
+        this.byWorld.keySet().removeIf(registered -> registered.getUID().equals(world.getUID()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        this.register(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        this.unregister(event.getWorld());
+    }
+
+    public static class Bounds {
+        private final World bukkitWorld;
+        private final com.sk89q.worldedit.world.World world;
+        private final int minY;
+        private final int maxY;
+
+        public Bounds(World bukkitWorld, com.sk89q.worldedit.world.World world, int minY, int maxY) {
+            this.bukkitWorld = Objects.requireNonNull(bukkitWorld, "bukkitWorld");
+            this.world = Objects.requireNonNull(world, "world");
+            this.minY = minY;
+            this.maxY = maxY;
+        }
+
+        public World bukkitWorld() {
+            return this.bukkitWorld;
+        }
+
+        public com.sk89q.worldedit.world.World world() {
+            return this.world;
+        }
+
+        public int minY() {
+            return this.minY;
+        }
+
+        public int maxY() {
+            return this.maxY;
+        }
+
+        public double clampY(double y) {
+            return Math.max(this.minY, Math.min(this.maxY, y));
+        }
+    }
+}
@@ -0,0 +1,506 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Radiation zones defined as shapes in config.yml, without WorldGuard
+ * regions. Zones are indexed in a uniform grid per world, so a point query
+ * only tests the few shapes overlapping its cell.
+ *
+ * Circles and rings may move and resize over time, their position and radii
+ * are interpolated linearly between the initial values and the {@code to}
+ * values, counting from the moment each zone was loaded. Zones which are
+ * equal to already loaded ones keep their timeline.
+ */
+public class ZoneEngine {
+    private static final int DEFAULT_CELL_SHIFT = 6; // 64 blocks
+    private static final int MAX_CELLS = 1 << 20;
+    private static final Loaded[] NO_ZONES = new Loaded[0];
+
+    private final LongSupplier nanoClock;
+
+    private List<Zone> zones = Collections.emptyList();
+    private Map<String, Grid> grids = Collections.emptyMap();
+    /** Start of the timeline of each loaded zone. */
+    private Map<Zone, Long> startNanos = Collections.emptyMap();
+
+    public ZoneEngine() {
+        this(System::nanoTime);
+    }
+
+    public ZoneEngine(LongSupplier nanoClock) {
+        this.nanoClock = Objects.requireNonNull(nanoClock, "nanoClock");
+    }
+
+    /**
+     * Replace the zones, unless they are equal to the loaded ones. Zones
+     * equal to a loaded one keep its timeline, timelines of other zones
+     * start now.
+     *
+     * @return Whether the zones have changed.
+     */
+    public boolean load(List<Zone> zones) {
+        Objects.requireNonNull(zones, "zones");
+        if (this.zones.equals(zones)) {
+            return false;
+        }
+
+        long now = this.nanoClock.getAsLong();
+        Map<Zone, Long> startNanos = new HashMap<>();
+        Map<String, List<Loaded>> byWorld = new HashMap<>();
+        for (Zone zone : zones) {
+            long start = startNanos.computeIfAbsent(zone, key -> this.startNanos.getOrDefault(key, now));
+            byWorld.computeIfAbsent(zone.world(), world -> new ArrayList<>()).add(new Loaded(zone, start));
+        }
+
+        Map<String, Grid> grids = new HashMap<>();
+        byWorld.forEach((world, worldZones) -> grids.put(world, new Grid(worldZones)));
+
+        this.zones = Collections.unmodifiableList(new ArrayList<>(zones));
+        this.grids = grids;
+        this.startNanos = startNanos;
+        return true;
+    }
+
+    public List<Zone> getZones() {
+        return this.zones;
+    }
+
+    /**
+     * Test if the point is in any zone of the radiation.
+     */
+    public boolean contains(String world, double x, double y, double z, String radiationId) {
+        Grid grid = this.grids.get(world);
+        if (grid == null) {
+            return false;
+        }
+
+        return grid.contains(x, y, z, this.nanoClock.getAsLong(), radiationId);
+    }
+
+    /**
+     * Matcher testing players against zones of the radiation. Players with
+     * the immunity permission are never matched.
+     */
+    public Radiation.Matcher matcher(String radiationId) {
+        Objects.requireNonNull(radiationId, "radiationId");
+
+        Location location = new Location(null, 0D, 0D, 0D); // matchers are only called from the main thread
+        return player -> {
+            if (this.grids.isEmpty()) {
+                return false;
+            }
+
+            player.getLocation(location);
+            World world = location.getWorld();
+            return world != null &&
+                    this.contains(world.getName(), location.getX(), location.getY(), location.getZ(), radiationId) &&
+                    !Radiation.FlagMatcher.isImmune(player, radiationId);
+        };
+    }
+
+    /**
+     * Zone along with the start of its timeline.
+     */
+    static class Loaded {
+        final Zone zone;
+        final long startNanos;
+
+        Loaded(Zone zone, long startNanos) {
+            this.zone = Objects.requireNonNull(zone, "zone");
+            this.startNanos = startNanos;
+        }
+
+        boolean contains(double x, double y, double z, long nanos, String radiationId) {
+            return this.zone.radiationId().equals(radiationId) &&
+                    this.zone.contains(x, y, z, (nanos - this.startNanos) / 1_000_000_000D);
+        }
+    }
+
+    /**
+     * Zones of a single world in a uniform grid of cells. The grid covers
+     * bounds of all zones, cells grow when it would be too large.
+     */
+    static class Grid {
+        private final Loaded[] unbounded;
+        private final Loaded[][] cells;
+        private final int shift;
+        private final int minCellX;
+        private final int minCellZ;
+        private final int width;
+        private final int depth;
+
+        Grid(List<Loaded> zones) {
+            List<Loaded> unbounded = new ArrayList<>();
+            double minX = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+            for (Loaded loaded : zones) {
+                Zone zone = loaded.zone;
+                if (zone.shape() == Shape.BAND) {
+                    unbounded.add(loaded);
+                    continue;
+                }
+
+                minX = Math.min(minX, zone.minX());
+                minZ = Math.min(minZ, zone.minZ());
+                maxX = Math.max(maxX, zone.maxX());
+                maxZ = Math.max(maxZ, zone.maxZ());
+            }
+            this.unbounded = unbounded.toArray(NO_ZONES);
+
+            if (unbounded.size() == zones.size()) {
+                this.cells = new Loaded[0][];
+                this.shift = DEFAULT_CELL_SHIFT;
+                this.minCellX = this.minCellZ = this.width = this.depth = 0;
+                return;
+            }
+
+            int shift = DEFAULT_CELL_SHIFT;
+            while (cellCount(minX, maxX, shift) * cellCount(minZ, maxZ, shift) > MAX_CELLS) {
+                shift++;
+            }
+            this.shift = shift;
+            this.minCellX = (int) Math.floor(minX) >> shift;
+            this.minCellZ = (int) Math.floor(minZ) >> shift;
+            this.width = (int) cellCount(minX, maxX, shift);
+            this.depth = (int) cellCount(minZ, maxZ, shift);
+
+            List<List<Loaded>> cells = new ArrayList<>(Collections.nCopies(this.width * this.depth, null));
+            for (Loaded loaded : zones) {
+                Zone zone = loaded.zone;
+                if (zone.shape() == Shape.BAND) {
+                    continue;
+                }
+
+                int fromX = ((int) Math.floor(zone.minX()) >> shift) - this.minCellX;
+                int toX = ((int) Math.floor(zone.maxX()) >> shift) - this.minCellX;
+                int fromZ = ((int) Math.floor(zone.minZ()) >> shift) - this.minCellZ;
+                int toZ = ((int) Math.floor(zone.maxZ()) >> shift) - this.minCellZ;
+                for (int cellX = fromX; cellX <= toX; cellX++) {
+                    for (int cellZ = fromZ; cellZ <= toZ; cellZ++) {
+                        int index = cellX * this.depth + cellZ;
+                        if (cells.get(index) == null) {
+                            cells.set(index, new ArrayList<>(2));
+                        }
+                        cells.get(index).add(loaded);
+                    }
+                }
+            }
+
+            this.cells = new Loaded[cells.size()][];
+            for (int i = 0; i < this.cells.length; i++) {
+                List<Loaded> cell = cells.get(i);
+                this.cells[i] = cell == null ? NO_ZONES : cell.toArray(NO_ZONES);
+            }
+        }
+
+        private static long cellCount(double min, double max, int shift) {
+            return ((long) Math.floor(max) >> shift) - ((long) Math.floor(min) >> shift) + 1L;
+        }
+
+        boolean contains(double x, double y, double z, long nanos, String radiationId) {
+            for (Loaded zone : this.unbounded) {
+                if (zone.contains(x, y, z, nanos, radiationId)) {
+                    return true;
+                }
+            }
+
+            if (this.cells.length == 0) {
+                return false;
+            }
+
+            int cellX = ((int) Math.floor(x) >> this.shift) - this.minCellX;
+            int cellZ = ((int) Math.floor(z) >> this.shift) - this.minCellZ;
+            if (cellX < 0 || cellX >= this.width || cellZ < 0 || cellZ >= this.depth) {
+                return false;
+            }
+
+            for (Loaded zone : this.cells[cellX * this.depth + cellZ]) {
+                if (zone.contains(x, y, z, nanos, radiationId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public enum Shape {
+        /** {@code radius} around the centre. */
+        CIRCLE,
+        /** Between {@code inner-radius} and {@code outer-radius} around the centre. */
+        RING,
+        /** Inside the polygon of {@code points}. */
+        POLYGON,
+        /** Everywhere in the world, limited only by the Y range. */
+        BAND,
+    }
+
+    /**
+     * Single zone shape, limited to the Y range.
+     */
+    public static class Zone {
+        private final String id;
+        private final String world;
+        private final String radiationId;
+        private final Shape shape;
+        private final int minY;
+        private final int maxY;
+        // circles and rings, from -> to
+        private final double x, toX;
+        private final double z, toZ;
+        private final double innerRadius, toInnerRadius;
+        private final double outerRadius, toOuterRadius;
+        private final double start;
+        private final double duration;
+        // polygons
+        private final double[] pointsX;
+        private final double[] pointsZ;
+
+        public Zone(ConfigurationSection section) throws InvalidConfigurationException {
+            Objects.requireNonNull(section, "section");
+
+            this.id = section.getName();
+            this.world = section.getString("world");
+            if (this.world == null || this.world.isEmpty()) {
+                throw new InvalidConfigurationException("Missing world.");
+            }
+            this.radiationId = section.getString("radiation", Radiation.Config.DEFAULT_ID);
+
+            String shape = section.getString("shape", "");
+            try {
+                this.shape = Shape.valueOf(shape.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidConfigurationException("Unknown shape: " + shape + ".");
+            }
+
+            this.minY = section.getInt("min-y", Integer.MIN_VALUE);
+            this.maxY = section.getInt("max-y", Integer.MAX_VALUE);
+            if (this.minY > this.maxY) {
+                throw new InvalidConfigurationException("min-y is greater than max-y.");
+            }
+
+            ConfigurationSection to = section.getConfigurationSection("to");
+            this.x = section.getDouble("x");
+            this.z = section.getDouble("z");
+            this.toX = to != null ? to.getDouble("x", this.x) : this.x;
+            this.toZ = to != null ? to.getDouble("z", this.z) : this.z;
+
+            switch (this.shape) {
+                case CIRCLE:
+                    this.innerRadius = this.toInnerRadius = 0D;
+                    this.outerRadius = requirePositive(section, "radius");
+                    this.toOuterRadius = to != null ? to.getDouble("radius", this.outerRadius) : this.outerRadius;
+                    break;
+                case RING:
+                    this.innerRadius = section.getDouble("inner-radius");
+                    this.outerRadius = requirePositive(section, "outer-radius");
+                    this.toInnerRadius = to != null ? to.getDouble("inner-radius", this.innerRadius) : this.innerRadius;
+                    this.toOuterRadius = to != null ? to.getDouble("outer-radius", this.outerRadius) : this.outerRadius;
+                    break;
+                default:
+                    this.innerRadius = this.toInnerRadius = this.outerRadius = this.toOuterRadius = 0D;
+                    break;
+            }
+
+            if (this.innerRadius < 0D || this.toInnerRadius < 0D || this.toOuterRadius < 0D) {
+                throw new InvalidConfigurationException("Radius cannot be negative.");
+            }
+            if (this.innerRadius > this.outerRadius || this.toInnerRadius > this.toOuterRadius) {
+                throw new InvalidConfigurationException("inner-radius is greater than outer-radius.");
+            }
+
+            this.start = Math.max(0D, section.getDouble("start"));
+            this.duration = Math.max(0D, section.getDouble("duration"));
+
+            if (this.shape == Shape.POLYGON) {
+                List<String> points = section.getStringList("points");
+                if (points.size() < 3) {
+                    throw new InvalidConfigurationException("Polygon must have at least 3 points.");
+                }
+
+                this.pointsX = new double[points.size()];
+                this.pointsZ = new double[points.size()];
+                for (int i = 0; i < points.size(); i++) {
+                    String[] coordinates = points.get(i).split(":", -1);
+                    try {
+                        if (coordinates.length != 2) {
+                            throw new NumberFormatException();
+                        }
+                        this.pointsX[i] = Double.parseDouble(coordinates[0].trim());
+                        this.pointsZ[i] = Double.parseDouble(coordinates[1].trim());
+                    } catch (NumberFormatException e) {
+                        throw new InvalidConfigurationException("Invalid point " + points.get(i) + ", expected x:z.");
+                    }
+                }
+            } else {
+                this.pointsX = this.pointsZ = null;
+            }
+        }
+
+        private static double requirePositive(ConfigurationSection section, String key) throws InvalidConfigurationException {
+            double value = section.getDouble(key);
+            if (value <= 0D) {
+                throw new InvalidConfigurationException(key + " must be positive.");
+            }
+            return value;
+        }
+
+        public String id() {
+            return this.id;
+        }
+
+        public String world() {
+            return this.world;
+        }
+
+        public String radiationId() {
+            return this.radiationId;
+        }
+
+        public Shape shape() {
+            return this.shape;
+        }
+
+        /**
+         * Whether the point is in the zone, given seconds since the zone
+         * was loaded.
+         */
+        public boolean contains(double x, double y, double z, double elapsed) {
+            if (y < this.minY || y >= this.maxY + 1D) {
+                return false;
+            }
+
+            switch (this.shape) {
+                case CIRCLE:
+                case RING:
+                    double progress = this.progress(elapsed);
+                    double dx = x - lerp(this.x, this.toX, progress);
+                    double dz = z - lerp(this.z, this.toZ, progress);
+                    double distanceSquared = dx * dx + dz * dz;
+                    double inner = lerp(this.innerRadius, this.toInnerRadius, progress);
+                    double outer = lerp(this.outerRadius, this.toOuterRadius, progress);
+                    return distanceSquared <= outer * outer && (inner == 0D || distanceSquared >= inner * inner);
+                case POLYGON:
+                    return this.polygonContains(x, z);
+                default:
+                    return true;
+            }
+        }
+
+        private double progress(double elapsed) {
+            if (elapsed <= this.start) {
+                return 0D;
+            }
+            if (this.duration == 0D) {
+                return 1D;
+            }
+            return Math.min(1D, (elapsed - this.start) / this.duration);
+        }
+
+        private static double lerp(double from, double to, double progress) {
+            return from + (to - from) * progress;
+        }
+
+        /** Even-odd ray casting. */
+        private boolean polygonContains(double x, double z) {
+            boolean inside = false;
+            for (int i = 0, j = this.pointsX.length - 1; i < this.pointsX.length; j = i++) {
+                double xi = this.pointsX[i], zi = this.pointsZ[i];
+                double xj = this.pointsX[j], zj = this.pointsZ[j];
+                if ((zi > z) != (zj > z) && x < (xj - xi) * (z - zi) / (zj - zi) + xi) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+
+        // bounds covering the whole timeline, used by the grid
+
+        double minX() {
+            return this.shape == Shape.POLYGON ? min(this.pointsX) : Math.min(this.x, this.toX) - this.maxRadius();
+        }
+
+        double maxX() {
+            return this.shape == Shape.POLYGON ? max(this.pointsX) : Math.max(this.x, this.toX) + this.maxRadius();
+        }
+
+        double minZ() {
+            return this.shape == Shape.POLYGON ? min(this.pointsZ) : Math.min(this.z, this.toZ) - this.maxRadius();
+        }
+
+        double maxZ() {
+            return this.shape == Shape.POLYGON ? max(this.pointsZ) : Math.max(this.z, this.toZ) + this.maxRadius();
+        }
+
+        private double maxRadius() {
+            return Math.max(this.outerRadius, this.toOuterRadius);
+        }
+
+        private static double min(double[] values) {
+            return Arrays.stream(values).min().orElse(0D);
+        }
+
+        private static double max(double[] values) {
+            return Arrays.stream(values).max().orElse(0D);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Zone zone = (Zone) o;
+            return this.minY == zone.minY &&
+                    this.maxY == zone.maxY &&
+                    Double.compare(this.x, zone.x) == 0 &&
+                    Double.compare(this.toX, zone.toX) == 0 &&
+                    Double.compare(this.z, zone.z) == 0 &&
+                    Double.compare(this.toZ, zone.toZ) == 0 &&
+                    Double.compare(this.innerRadius, zone.innerRadius) == 0 &&
+                    Double.compare(this.toInnerRadius, zone.toInnerRadius) == 0 &&
+                    Double.compare(this.outerRadius, zone.outerRadius) == 0 &&
+                    Double.compare(this.toOuterRadius, zone.toOuterRadius) == 0 &&
+                    Double.compare(this.start, zone.start) == 0 &&
+                    Double.compare(this.duration, zone.duration) == 0 &&
+                    this.id.equals(zone.id) &&
+                    this.world.equals(zone.world) &&
+                    this.radiationId.equals(zone.radiationId) &&
+                    this.shape == zone.shape &&
+                    Arrays.equals(this.pointsX, zone.pointsX) &&
+                    Arrays.equals(this.pointsZ, zone.pointsZ);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.id, this.world, this.radiationId, this.shape);
+        }
+    }
+}
@@ -0,0 +1,431 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Reads safe zone definitions from CSV or JSON files.
+ *
+ * CSV files start with a header row, JSON files contain an array of objects.
+ * Both use the same keys: {@code id}, {@code world}, either {@code x},
+ * {@code z} and {@code radius} for a square zone or {@code points} for a
+ * polygon, and optional {@code min-y}, {@code max-y}, {@code radiation} and
+ * {@code radiation-type}. CSV polygon points are written as {@code x:z}
+ * pairs separated with spaces. CSV fields may be enclosed in double quotes,
+ * with quotes inside doubled, but they cannot span multiple lines.
+ *
+ * Rows which cannot be read are returned as entries failing validation, so
+ * they are reported along with the invalid ones.
+ */
+public class ZoneImporter {
+    private static final char CSV_SEPARATOR = ',';
+
+    /**
+     * Read raw entries from the file, format is chosen by the file extension.
+     */
+    public List<Entry> read(Path path) throws IOException {
+        Objects.requireNonNull(path, "path");
+
+        String fileName = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (fileName.endsWith(".csv")) {
+            return this.readCsv(path);
+        } else if (fileName.endsWith(".json")) {
+            return this.readJson(path);
+        }
+
+        throw new IOException("Unsupported file format, expected .csv or .json: " + path.getFileName());
+    }
+
+    private List<Entry> readCsv(Path path) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                return entries;
+            }
+
+            List<String> header = splitCsv(headerLine);
+            if (header == null) {
+                throw new IOException("Unterminated quote in the header row.");
+            }
+
+            String line;
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String source = "line " + lineNumber;
+                List<String> columns = splitCsv(line);
+                if (columns == null) {
+                    entries.add(new Entry(source, Collections.emptyMap(), "unterminated quote"));
+                    continue;
+                }
+
+                Map<String, String> values = new LinkedHashMap<>();
+                for (int i = 0; i < header.size() && i < columns.size(); i++) {
+                    values.put(header.get(i).trim().toLowerCase(Locale.ROOT), columns.get(i).trim());
+                }
+
+                entries.add(new Entry(source, values));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Split the CSV line into fields, unquoting quoted ones.
+     *
+     * @return Fields of the line, {@code null} if a quote is not terminated.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == CSV_SEPARATOR) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private List<Entry> readJson(Path path) throws IOException {
+        JsonElement root;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            root = new JsonParser().parse(reader);
+        } catch (JsonParseException e) {
+            throw new IOException("Malformed JSON: " + e.getMessage(), e);
+        }
+
+        if (!root.isJsonArray()) {
+            throw new IOException("Expected a JSON array of zones.");
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        JsonArray array = root.getAsJsonArray();
+        for (int i = 0; i < array.size(); i++) {
+            String source = "entry " + (i + 1);
+            if (!array.get(i).isJsonObject()) {
+                entries.add(new Entry(source, Collections.emptyMap(), "expected a JSON object"));
+                continue;
+            }
+
+            Map<String, String> values = new LinkedHashMap<>();
+            String error = null;
+            for (Map.Entry<String, JsonElement> member : array.get(i).getAsJsonObject().entrySet()) {
+                String key = member.getKey().toLowerCase(Locale.ROOT);
+                try {
+                    values.put(key, toValue(member.getValue()));
+                } catch (IllegalArgumentException e) {
+                    error = key + " " + e.getMessage();
+                    break;
+                }
+            }
+
+            entries.add(new Entry(source, values, error));
+        }
+        return entries;
+    }
+
+    /**
+     * Flatten JSON values into the CSV string representation.
+     *
+     * @throws IllegalArgumentException when the value has no such
+     * representation.
+     */
+    private static String toValue(JsonElement element) {
+        if (element.isJsonNull()) {
+            return "";
+        }
+        if (element.isJsonPrimitive()) {
+            return element.getAsString();
+        }
+        if (!element.isJsonArray()) {
+            throw new IllegalArgumentException("must be a string, number, boolean or an array of points");
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (JsonElement point : element.getAsJsonArray()) {
+            if (builder.length() > 0) {
+                builder.append(' ');
+            }
+
+            if (point.isJsonArray() && point.getAsJsonArray().size() == 2) {
+                builder.append(toCoordinate(point.getAsJsonArray().get(0))).append(':').append(toCoordinate(point.getAsJsonArray().get(1)));
+            } else if (point.isJsonObject()) {
+                JsonObject object = point.getAsJsonObject();
+                builder.append(toCoordinate(object.get("x"))).append(':').append(toCoordinate(object.get("z")));
+            } else {
+                builder.append('?');
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String toCoordinate(JsonElement element) {
+        if (element == null) {
+            return "?";
+        }
+        if (!element.isJsonPrimitive()) {
+            throw new IllegalArgumentException("must contain [x, z] or {\"x\": x, \"z\": z} points");
+        }
+        return element.getAsString();
+    }
+
+    /**
+     * Validate the raw entry. Safe to be called from any thread.
+     *
+     * @param worlds Height bounds of the loaded worlds, by world name.
+     * @throws InvalidZoneException when the entry is not a valid zone.
+     */
+    public Zone validate(Entry entry, Map<String, WorldBoundsRegistry.Bounds> worlds) throws InvalidZoneException {
+        Objects.requireNonNull(entry, "entry");
+        Objects.requireNonNull(worlds, "worlds");
+
+        if (entry.error != null) {
+            throw new InvalidZoneException(entry, entry.error);
+        }
+
+        String id = entry.get("id").orElseThrow(() -> new InvalidZoneException(entry, "missing id"));
+        if (!ProtectedRegion.isValidId(id)) {
+            throw new InvalidZoneException(entry, "invalid region id: " + id);
+        }
+
+        String worldName = entry.get("world").orElseThrow(() -> new InvalidZoneException(entry, "missing world"));
+        WorldBoundsRegistry.Bounds bounds = worlds.get(worldName);
+        if (bounds == null) {
+            throw new InvalidZoneException(entry, "world " + worldName + " is not loaded");
+        }
+
+        int minY = entry.getInt("min-y", bounds.minY());
+        int maxY = entry.getInt("max-y", bounds.maxY());
+        if (minY > maxY) {
+            throw new InvalidZoneException(entry, "min-y is greater than max-y");
+        }
+        if (minY < bounds.minY() || maxY > bounds.maxY()) {
+            throw new InvalidZoneException(entry, "height range is outside of the world (" + bounds.minY() + ".." + bounds.maxY() + ")");
+        }
+
+        boolean radioactive = entry.getBoolean("radiation", false);
+        String radiationType = entry.get("radiation-type").orElse(null);
+
+        Optional<String> points = entry.get("points");
+        if (points.isPresent()) {
+            List<BlockVector2> polygon = new ArrayList<>();
+            for (String point : points.get().split("\\s+")) {
+                String[] coordinates = point.split(":", -1);
+                if (coordinates.length != 2) {
+                    throw new InvalidZoneException(entry, "invalid point " + point + ", expected x:z");
+                }
+
+                try {
+                    polygon.add(BlockVector2.at(Integer.parseInt(coordinates[0]), Integer.parseInt(coordinates[1])));
+                } catch (NumberFormatException e) {
+                    throw new InvalidZoneException(entry, "invalid point " + point + ", expected x:z");
+                }
+            }
+
+            if (polygon.size() < 3) {
+                throw new InvalidZoneException(entry, "polygon must have at least 3 points");
+            }
+
+            return new Zone(id, bounds, null, 0, polygon, minY, maxY, radioactive, radiationType);
+        }
+
+        int x = entry.getInt("x", null);
+        int z = entry.getInt("z", null);
+        int radius = entry.getInt("radius", null);
+        if (radius <= 0) {
+            throw new InvalidZoneException(entry, "radius must be positive");
+        }
+
+        return new Zone(id, bounds, BlockVector2.at(x, z), radius, null, minY, maxY, radioactive, radiationType);
+    }
+
+    /**
+     * Raw, unvalidated zone definition.
+     */
+    public static class Entry {
+        private final String source;
+        private final Map<String, String> values;
+        /** Why the entry could not be read, {@code null} if it could. */
+        private final String error;
+
+        public Entry(String source, Map<String, String> values) {
+            this(source, values, null);
+        }
+
+        public Entry(String source, Map<String, String> values, String error) {
+            this.source = Objects.requireNonNull(source, "source");
+            this.values = Objects.requireNonNull(values, "values");
+            this.error = error;
+        }
+
+        public String source() {
+            return this.source;
+        }
+
+        Optional<String> get(String key) {
+            String value = this.values.get(key);
+            return value == null || value.isEmpty() ? Optional.empty() : Optional.of(value);
+        }
+
+        int getInt(String key, Integer def) throws InvalidZoneException {
+            Optional<String> value = this.get(key);
+            if (!value.isPresent()) {
+                if (def == null) {
+                    throw new InvalidZoneException(this, "missing " + key);
+                }
+                return def;
+            }
+
+            try {
+                return Integer.parseInt(value.get());
+            } catch (NumberFormatException e) {
+                throw new InvalidZoneException(this, key + " must be an integer, but " + value.get() + " was provided");
+            }
+        }
+
+        boolean getBoolean(String key, boolean def) throws InvalidZoneException {
+            Optional<String> value = this.get(key);
+            if (!value.isPresent()) {
+                return def;
+            }
+
+            if (value.get().equalsIgnoreCase("true")) {
+                return true;
+            } else if (value.get().equalsIgnoreCase("false")) {
+                return false;
+            }
+            throw new InvalidZoneException(this, key + " must be true or false, but " + value.get() + " was provided");
+        }
+    }
+
+    /**
+     * Validated zone, either a square around the centre or a polygon.
+     */
+    public static class Zone {
+        private final String id;
+        private final WorldBoundsRegistry.Bounds world;
+        private final BlockVector2 centre;
+        private final int radius;
+        private final List<BlockVector2> points;
+        private final int minY;
+        private final int maxY;
+        private final boolean radioactive;
+        private final String radiationType;
+
+        public Zone(String id, WorldBoundsRegistry.Bounds world, BlockVector2 centre, int radius, List<BlockVector2> points,
+                    int minY, int maxY, boolean radioactive, String radiationType) {
+            this.id = Objects.requireNonNull(id, "id");
+            this.world = Objects.requireNonNull(world, "world");
+            this.centre = centre;
+            this.radius = radius;
+            this.points = points;
+            this.minY = minY;
+            this.maxY = maxY;
+            this.radioactive = radioactive;
+            this.radiationType = radiationType;
+        }
+
+        public String id() {
+            return this.id;
+        }
+
+        public WorldBoundsRegistry.Bounds world() {
+            return this.world;
+        }
+
+        public Optional<BlockVector2> centre() {
+            return Optional.ofNullable(this.centre);
+        }
+
+        public int radius() {
+            return this.radius;
+        }
+
+        public Optional<List<BlockVector2>> points() {
+            return Optional.ofNullable(this.points);
+        }
+
+        public int minY() {
+            return this.minY;
+        }
+
+        public int maxY() {
+            return this.maxY;
+        }
+
+        public boolean radioactive() {
+            return this.radioactive;
+        }
+
+        public Optional<String> radiationType() {
+            return Optional.ofNullable(this.radiationType);
+        }
+    }
+
+    public static class InvalidZoneException extends Exception {
+        public InvalidZoneException(Entry entry, String message) {
+            super(Objects.requireNonNull(entry, "entry").source() + ": " + message);
+        }
+    }
+}
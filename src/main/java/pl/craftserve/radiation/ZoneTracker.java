@@ -0,0 +1,214 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldguard.LocalPlayer;
+import com.sk89q.worldguard.WorldGuard;
+import com.sk89q.worldguard.internal.platform.WorldGuardPlatform;
+import com.sk89q.worldguard.protection.ApplicableRegionSet;
+import com.sk89q.worldguard.protection.flags.Flag;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+import com.sk89q.worldguard.session.MoveType;
+import com.sk89q.worldguard.session.Session;
+import com.sk89q.worldguard.session.SessionManager;
+import com.sk89q.worldguard.session.handler.Handler;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the radiation zone of every online player up to date, pushed by a
+ * WorldGuard session handler whenever the player crosses a region boundary.
+ * WorldGuard already queries regions on movement, so matchers reading the
+ * tracked zone don't need to query them again.
+ *
+ * Players whose session was created before the handler was registered (for
+ * example after a plugin reload) are not tracked until they rejoin.
+ */
+public class ZoneTracker implements Listener {
+    static final Logger logger = Logger.getLogger(ZoneTracker.class.getName());
+
+    private final Plugin plugin;
+    private final PlayerIndex playerIndex;
+    private final WorldBoundsRegistry worldBounds;
+    private final Flag<Boolean> isRadioactiveFlag;
+    private final Flag<String> radiationTypeFlag;
+    private final SessionHandler.Factory factory = new SessionHandler.Factory(this);
+
+    /** Slots of players tracked by the session handler. */
+    private final BitSet tracked = new BitSet();
+    /** Radiation ID by player slot, {@code null} when safe. */
+    private String[] zones = new String[64];
+
+    private SessionManager sessionManager;
+
+    public ZoneTracker(Plugin plugin, PlayerIndex playerIndex, WorldBoundsRegistry worldBounds, Flag<Boolean> isRadioactiveFlag, Flag<String> radiationTypeFlag) {
+        this.plugin = Objects.requireNonNull(plugin, "plugin");
+        this.playerIndex = Objects.requireNonNull(playerIndex, "playerIndex");
+        this.worldBounds = Objects.requireNonNull(worldBounds, "worldBounds");
+        this.isRadioactiveFlag = Objects.requireNonNull(isRadioactiveFlag, "isRadioactiveFlag");
+        this.radiationTypeFlag = Objects.requireNonNull(radiationTypeFlag, "radiationTypeFlag");
+    }
+
+    /**
+     * @return {@code false} if WorldGuard is not available and nothing will
+     * be tracked.
+     */
+    public boolean enable() {
+        WorldGuardPlatform platform = WorldGuard.getInstance().getPlatform();
+        if (platform == null) {
+            return false;
+        }
+
+        this.sessionManager = platform.getSessionManager();
+        this.sessionManager.registerHandler(this.factory, null);
+        this.plugin.getServer().getPluginManager().registerEvents(this, this.plugin);
+        return true;
+    }
+
+    public void disable() {
+        HandlerList.unregisterAll(this);
+
+        if (this.sessionManager != null) {
+            this.sessionManager.unregisterHandler(this.factory);
+            this.sessionManager = null;
+        }
+
+        this.tracked.clear();
+        Arrays.fill(this.zones, null);
+    }
+
+    /**
+     * @return Whether the zone of the player is tracked, if not it must be
+     * tested in another way.
+     */
+    public boolean isTracked(Player player) {
+        int slot = this.playerIndex.find(player.getUniqueId());
+        return slot >= 0 && this.tracked.get(slot);
+    }
+
+    /**
+     * @return ID of the radiation the player is in, or {@code null} if the
+     * player is safe or not tracked.
+     */
+    public String zone(Player player) {
+        int slot = this.playerIndex.find(player.getUniqueId());
+        return slot >= 0 && slot < this.zones.length ? this.zones[slot] : null;
+    }
+
+    void update(LocalPlayer player, Location location, ApplicableRegionSet regions) {
+        World world = BukkitAdapter.adapt((com.sk89q.worldedit.world.World) location.getExtent());
+        WorldBoundsRegistry.Bounds bounds = this.worldBounds.get(world);
+
+        double y = location.getY();
+        if (y != bounds.clampY(y)) {
+            // regions are queried within the world height, same as in FlagMatcher
+            Location clamped = new Location(bounds.world(), location.getX(), bounds.clampY(y), location.getZ());
+            regions = WorldGuard.getInstance().getPlatform().getRegionContainer().createQuery().getApplicableRegions(clamped);
+        }
+
+        String radiationId = Radiation.FlagMatcher.resolveRadiationId(regions, player, this.isRadioactiveFlag, this.radiationTypeFlag);
+
+        int slot = this.playerIndex.slot(player.getUniqueId());
+        if (slot >= this.zones.length) {
+            this.zones = Arrays.copyOf(this.zones, Math.max(slot + 1, this.zones.length * 2));
+        }
+
+        this.tracked.set(slot);
+        this.zones[slot] = radiationId;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        int slot = this.playerIndex.find(event.getPlayer().getUniqueId());
+        if (slot >= 0) {
+            this.tracked.clear(slot);
+            if (slot < this.zones.length) {
+                this.zones[slot] = null;
+            }
+        }
+    }
+
+    static class SessionHandler extends Handler {
+        private final ZoneTracker tracker;
+
+        SessionHandler(Session session, ZoneTracker tracker) {
+            super(session);
+            this.tracker = Objects.requireNonNull(tracker, "tracker");
+        }
+
+        @Override
+        public void initialize(LocalPlayer player, Location current, ApplicableRegionSet set) {
+            this.tracker.update(player, current, set);
+        }
+
+        @Override
+        public boolean onCrossBoundary(LocalPlayer player, Location from, Location to, ApplicableRegionSet toSet,
+                                       Set<ProtectedRegion> entered, Set<ProtectedRegion> exited, MoveType moveType) {
+            this.tracker.update(player, to, toSet);
+            return true;
+        }
+
+        @Override
+        public void tick(LocalPlayer player, ApplicableRegionSet set) {
+            // flags may have been changed without the player moving
+            this.tracker.update(player, player.getLocation(), set);
+        }
+
+        static class Factory extends Handler.Factory<SessionHandler> {
+            private final ZoneTracker tracker;
+
+            Factory(ZoneTracker tracker) {
+                this.tracker = Objects.requireNonNull(tracker, "tracker");
+            }
+
+            @Override
+            public SessionHandler create(Session session) {
+                return new SessionHandler(session, this.tracker);
+            }
+        }
+    }
+
+    /**
+     * How radiation zones of players are detected.
+     */
+    public enum Detection {
+        /** Regions are queried by the radiation task every run. */
+        POLLING,
+        /** Zones are tracked by {@link ZoneTracker}, pushed by WorldGuard. */
+        SESSION,
+        ;
+
+        public static Detection parse(String value) {
+            return valueOf(Objects.requireNonNull(value, "value").toUpperCase(Locale.ROOT));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("pl.craftserve.radiation.EffectSerialization")
+@Label("Effect Serialization")
+@Category("CraftserveRadiation")
+@Description("Lugol's iodine effects read from or written to a persistent data container.")
+@Enabled(false)
+final class EffectSerializationEvent extends jdk.jfr.Event {
+    @Label("Write")
+    @Description("True if effects were written, false if they were read.")
+    boolean write;
+
+    @Label("Effect Count")
+    int effectCount;
+
+    @Label("Bytes")
+    @DataAmount
+    int bytes;
+}
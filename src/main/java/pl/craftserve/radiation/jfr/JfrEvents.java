@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation.jfr;
+
+import jdk.jfr.EventType;
+
+/**
+ * The only place referring to the jdk.jfr API outside of the event classes.
+ * Loaded only when {@link RadiationFlightRecorder} finds JFR available.
+ */
+final class JfrEvents {
+    private static final EventType RADIATION_TICK = EventType.getEventType(RadiationTickEvent.class);
+    private static final EventType MATCHER_BATCH = EventType.getEventType(MatcherBatchEvent.class);
+    private static final EventType EFFECT_SERIALIZATION = EventType.getEventType(EffectSerializationEvent.class);
+    private static final EventType BREW_CONVERSION = EventType.getEventType(BrewConversionEvent.class);
+
+    private JfrEvents() {
+    }
+
+    static void init() {
+        // Initializes the event types above.
+    }
+
+    static Object beginRadiationTick() {
+        if (!RADIATION_TICK.isEnabled()) {
+            return null;
+        }
+
+        RadiationTickEvent event = new RadiationTickEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commitRadiationTick(Object token, String radiationId, int playerCount, int matchedCount) {
+        RadiationTickEvent event = (RadiationTickEvent) token;
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.radiationId = radiationId;
+            event.playerCount = playerCount;
+            event.matchedCount = matchedCount;
+            event.commit();
+        }
+    }
+
+    static Object beginMatcherBatch() {
+        if (!MATCHER_BATCH.isEnabled()) {
+            return null;
+        }
+
+        MatcherBatchEvent event = new MatcherBatchEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commitMatcherBatch(Object token, String radiationId, int playerCount, int matchedCount) {
+        MatcherBatchEvent event = (MatcherBatchEvent) token;
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.radiationId = radiationId;
+            event.playerCount = playerCount;
+            event.matchedCount = matchedCount;
+            event.commit();
+        }
+    }
+
+    static Object beginEffectSerialization() {
+        if (!EFFECT_SERIALIZATION.isEnabled()) {
+            return null;
+        }
+
+        EffectSerializationEvent event = new EffectSerializationEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commitEffectSerialization(Object token, boolean write, int effectCount, int bytes) {
+        EffectSerializationEvent event = (EffectSerializationEvent) token;
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.write = write;
+            event.effectCount = effectCount;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    static Object beginBrewConversion() {
+        if (!BREW_CONVERSION.isEnabled()) {
+            return null;
+        }
+
+        BrewConversionEvent event = new BrewConversionEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commitBrewConversion(Object token, String potionId, int convertedCount, boolean cacheHit) {
+        BrewConversionEvent event = (BrewConversionEvent) token;
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.potionId = potionId;
+            event.convertedCount = convertedCount;
+            event.cacheHit = cacheHit;
+            event.commit();
+        }
+    }
+}
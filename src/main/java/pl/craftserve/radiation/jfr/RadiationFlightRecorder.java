@@ -0,0 +1,90 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation.jfr;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * JDK Flight Recorder events of radiation processing.
+ *
+ * All events are disabled by default, enable them in the recording settings,
+ * eg. {@code pl.craftserve.radiation.RadiationTick#enabled=true}. Each
+ * {@code begin} method returns a token to be passed to the matching
+ * {@code commit} method, or {@code null} when the event is not recorded. Nothing
+ * here refers to jdk.jfr types, so this class is safe to use on JVMs without
+ * Flight Recorder.
+ */
+public final class RadiationFlightRecorder {
+    static final Logger logger = Logger.getLogger(RadiationFlightRecorder.class.getName());
+
+    private static final boolean AVAILABLE = isAvailable();
+
+    private RadiationFlightRecorder() {
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            JfrEvents.init();
+            return true;
+        } catch (ClassNotFoundException | LinkageError | IllegalStateException e) {
+            logger.log(Level.FINE, "Flight Recorder is not available, radiation events won't be recorded.", e);
+            return false;
+        }
+    }
+
+    public static Object beginRadiationTick() {
+        return AVAILABLE ? JfrEvents.beginRadiationTick() : null;
+    }
+
+    public static void commitRadiationTick(Object token, String radiationId, int playerCount, int matchedCount) {
+        if (token != null) {
+            JfrEvents.commitRadiationTick(token, radiationId, playerCount, matchedCount);
+        }
+    }
+
+    public static Object beginMatcherBatch() {
+        return AVAILABLE ? JfrEvents.beginMatcherBatch() : null;
+    }
+
+    public static void commitMatcherBatch(Object token, String radiationId, int playerCount, int matchedCount) {
+        if (token != null) {
+            JfrEvents.commitMatcherBatch(token, radiationId, playerCount, matchedCount);
+        }
+    }
+
+    public static Object beginEffectSerialization() {
+        return AVAILABLE ? JfrEvents.beginEffectSerialization() : null;
+    }
+
+    public static void commitEffectSerialization(Object token, boolean write, int effectCount, int bytes) {
+        if (token != null) {
+            JfrEvents.commitEffectSerialization(token, write, effectCount, bytes);
+        }
+    }
+
+    public static Object beginBrewConversion() {
+        return AVAILABLE ? JfrEvents.beginBrewConversion() : null;
+    }
+
+    public static void commitBrewConversion(Object token, String potionId, int convertedCount, boolean cacheHit) {
+        if (token != null) {
+            JfrEvents.commitBrewConversion(token, potionId, convertedCount, cacheHit);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("pl.craftserve.radiation.RadiationTick")
+@Label("Radiation Tick")
+@Category("CraftserveRadiation")
+@Description("One tick of a single radiation over all online players.")
+@Enabled(false)
+final class RadiationTickEvent extends jdk.jfr.Event {
+    @Label("Radiation ID")
+    String radiationId;
+
+    @Label("Player Count")
+    int playerCount;
+
+    @Label("Matched Count")
+    int matchedCount;
+}
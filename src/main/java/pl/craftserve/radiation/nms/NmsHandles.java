@@ -0,0 +1,91 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation.nms;
+
+import org.bukkit.World;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Objects;
+
+/**
+ * Resolves reflective members into {@link MethodHandle}s once, so calls to
+ * them don't go through {@link Method#invoke(Object, Object...)} every time.
+ */
+final class NmsHandles {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /**
+     * {@code int World#getMinHeight()}, available since 1.17. {@code null} on
+     * older servers.
+     */
+    static final MethodHandle MIN_WORLD_HEIGHT = findMinHeight(World.class);
+
+    private NmsHandles() {
+    }
+
+    /**
+     * Handle to {@code int getMinHeight()} of the world type, {@code null}
+     * if there is no such method.
+     */
+    static MethodHandle findMinHeight(Class<?> worldType) {
+        try {
+            Method method = worldType.getMethod("getMinHeight");
+            return LOOKUP.unreflect(method).asType(MethodType.methodType(int.class, worldType));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Handle to the given method, with all parameter and return types erased
+     * to {@link Object} so it can be called with {@link MethodHandle#invokeExact(Object...)}.
+     */
+    static MethodHandle method(Method method) throws IllegalAccessException {
+        Objects.requireNonNull(method, "method");
+
+        method.setAccessible(true);
+        return erase(LOOKUP.unreflect(method));
+    }
+
+    static MethodHandle constructor(Constructor<?> constructor) throws IllegalAccessException {
+        Objects.requireNonNull(constructor, "constructor");
+
+        constructor.setAccessible(true);
+        return erase(LOOKUP.unreflectConstructor(constructor));
+    }
+
+    static MethodHandle setter(Field field) throws IllegalAccessException {
+        Objects.requireNonNull(field, "field");
+
+        field.setAccessible(true);
+        return erase(LOOKUP.unreflectSetter(field));
+    }
+
+    private static MethodHandle erase(MethodHandle handle) {
+        MethodType type = handle.type().erase();
+        if (type.returnType() != void.class) {
+            type = type.changeReturnType(Object.class);
+        }
+
+        return handle.asType(type);
+    }
+}
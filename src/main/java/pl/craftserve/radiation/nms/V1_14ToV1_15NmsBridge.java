@@ -21,8 +21,8 @@ import org.bukkit.NamespacedKey;
 import org.bukkit.World;
 import pl.craftserve.radiation.LugolsIodinePotion;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Array;
-import java.lang.reflect.Method;
 import java.text.MessageFormat;
 import java.util.Locale;
 import java.util.Objects;
@@ -32,15 +32,14 @@ import java.util.logging.Logger;
 public class V1_14ToV1_15NmsBridge implements RadiationNmsBridge {
     static final Logger logger = Logger.getLogger(V1_14ToV1_15NmsBridge.class.getName());
 
-    private final Class<?> itemClass;
-    private final Class<?> iRegistryClass;
     private final Class<?> mobEffectClass;
-    private final Class<?> potionRegistryClass;
-    private final Class<?> potionBrewerClass;
 
-    private final Method getItem;
-    private final Method newMinecraftKey;
-    private final Method getPotion;
+    private final MethodHandle getItem;
+    private final MethodHandle newMinecraftKey;
+    private final MethodHandle getPotion;
+    private final MethodHandle potionConstructor;
+    private final MethodHandle registerMethod;
+    private final MethodHandle registerBrewingRecipe;
 
     private final Object potionRegistry;
 
@@ -48,20 +47,24 @@ public class V1_14ToV1_15NmsBridge implements RadiationNmsBridge {
         Objects.requireNonNull(version, "version");
 
         try {
-            this.itemClass = this.getNmsClass("Item", version);
-            this.iRegistryClass = this.getNmsClass("IRegistry", version);
+            Class<?> itemClass = this.getNmsClass("Item", version);
+            Class<?> iRegistryClass = this.getNmsClass("IRegistry", version);
             this.mobEffectClass = this.getNmsClass("MobEffect", version);
-            this.potionRegistryClass = this.getNmsClass("PotionRegistry", version);
-            this.potionBrewerClass = this.getNmsClass("PotionBrewer", version);
+            Class<?> potionRegistryClass = this.getNmsClass("PotionRegistry", version);
+            Class<?> potionBrewerClass = this.getNmsClass("PotionBrewer", version);
 
             Class<?> craftMagicNumbers = this.getObcClass("util.CraftMagicNumbers", version);
-            this.getItem = craftMagicNumbers.getMethod("getItem", Material.class);
+            this.getItem = NmsHandles.method(craftMagicNumbers.getMethod("getItem", Material.class));
 
-            Class<?> iRegistry = this.getNmsClass("IRegistry", version);
             Class<?> minecraftKey = this.getNmsClass("MinecraftKey", version);
-            this.newMinecraftKey = minecraftKey.getMethod("a", String.class);
-            this.potionRegistry = iRegistry.getDeclaredField("POTION").get(null);
-            this.getPotion = this.potionRegistry.getClass().getMethod("get", minecraftKey);
+            this.newMinecraftKey = NmsHandles.method(minecraftKey.getMethod("a", String.class));
+            this.potionRegistry = iRegistryClass.getDeclaredField("POTION").get(null);
+            this.getPotion = NmsHandles.method(this.potionRegistry.getClass().getMethod("get", minecraftKey));
+
+            Class<?> mobEffectArrayClass = Array.newInstance(this.mobEffectClass, 0).getClass();
+            this.potionConstructor = NmsHandles.constructor(potionRegistryClass.getConstructor(mobEffectArrayClass));
+            this.registerMethod = NmsHandles.method(iRegistryClass.getDeclaredMethod("a", iRegistryClass, String.class, Object.class));
+            this.registerBrewingRecipe = NmsHandles.method(potionBrewerClass.getDeclaredMethod("a", potionRegistryClass, itemClass, potionRegistryClass));
         } catch (Exception e) {
             throw new RuntimeException("Failed to initialize 1.14-1.15 bridge", e);
         }
@@ -87,25 +90,21 @@ public class V1_14ToV1_15NmsBridge implements RadiationNmsBridge {
         Objects.requireNonNull(config, "config");
 
         try {
-            String basePotionName = config.basePotion().name().toLowerCase(Locale.ROOT);
-            Object basePotion = this.getPotion.invoke(this.potionRegistry, this.newMinecraftKey.invoke(null, basePotionName));
+            Object basePotionName = config.basePotion().name().toLowerCase(Locale.ROOT);
+            Object basePotion = (Object) this.getPotion.invokeExact(this.potionRegistry, (Object) this.newMinecraftKey.invokeExact(basePotionName));
             Objects.requireNonNull(basePotion, "basePotion not found");
 
-            Object ingredient = this.getItem.invoke(null, config.ingredient());
+            Object ingredient = (Object) this.getItem.invokeExact((Object) config.ingredient());
             Objects.requireNonNull(ingredient, "ingredient not found");
 
-            Object registryType = this.iRegistryClass.getDeclaredField("POTION").get(null);
             Object mobEffectArray = Array.newInstance(this.mobEffectClass, 0);
-            Object newPotion = this.potionRegistryClass.getConstructor(mobEffectArray.getClass()).newInstance(mobEffectArray);
+            Object newPotion = (Object) this.potionConstructor.invokeExact(mobEffectArray);
 
-            Method registerMethod = this.iRegistryClass.getDeclaredMethod("a", this.iRegistryClass, String.class, Object.class);
-            Object potion = registerMethod.invoke(null, registryType, potionKey.getKey(), newPotion);
+            Object potion = (Object) this.registerMethod.invokeExact(this.potionRegistry, (Object) potionKey.getKey(), newPotion);
 
-            Method registerBrewingRecipe = this.potionBrewerClass.getDeclaredMethod("a", this.potionRegistryClass, this.itemClass, this.potionRegistryClass);
-            registerBrewingRecipe.setAccessible(true);
-            registerBrewingRecipe.invoke(null, basePotion, ingredient, potion);
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Could not handle reflective operation.", e);
+            this.registerBrewingRecipe.invokeExact(basePotion, ingredient, potion);
+        } catch (Throwable throwable) {
+            logger.log(Level.SEVERE, "Could not handle reflective operation.", throwable);
         }
     }
 
@@ -21,53 +21,61 @@ import org.bukkit.NamespacedKey;
 import org.bukkit.World;
 import pl.craftserve.radiation.LugolsIodinePotion;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Array;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.HashMap;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class V1_18_R1NmsBridge implements RadiationNmsBridge {
     static final Logger logger = Logger.getLogger(V1_18_R1NmsBridge.class.getName());
 
-    private final Class<?> itemClass;
-    private final Class<?> iRegistryClass;
     private final Class<?> mobEffectClass;
-    private final Class<?> potionRegistryClass;
-    private final Class<?> potionBrewerClass;
 
-    private final Method getItem;
-    private final Method newMinecraftKey;
-    private final Method getPotion;
-    private final Method minHeightMethod;
+    private final MethodHandle getItem;
+    private final MethodHandle newMinecraftKey;
+    private final MethodHandle getPotion;
+    private final MethodHandle potionConstructor;
+    private final MethodHandle registerMethod;
+    private final MethodHandle registerBrewingRecipe;
 
     private final Object potionRegistry;
-
-    private final Map<UUID, Integer> minWorldHeightMap = new HashMap<>();
+    private final MethodHandle minWorldHeight;
 
     public V1_18_R1NmsBridge(String version) {
+        this(version, NmsHandles.MIN_WORLD_HEIGHT);
+    }
+
+    /**
+     * @param minWorldHeight Handle to {@code int World#getMinHeight()}.
+     */
+    V1_18_R1NmsBridge(String version, MethodHandle minWorldHeight) {
         Objects.requireNonNull(version, "version");
 
         try {
-            this.itemClass = Class.forName("net.minecraft.world.item.Item"); // Item -> Item
-            this.iRegistryClass = Class.forName("net.minecraft.core.IRegistry"); // IRegistry -> Registry
+            Class<?> itemClass = Class.forName("net.minecraft.world.item.Item"); // Item -> Item
+            Class<?> iRegistryClass = Class.forName("net.minecraft.core.IRegistry"); // IRegistry -> Registry
             this.mobEffectClass = Class.forName("net.minecraft.world.effect.MobEffect"); // MobEffect -> MobEffectInstance
-            this.potionRegistryClass = Class.forName("net.minecraft.world.item.alchemy.PotionRegistry"); // PotionRegistry -> Potion
-            this.potionBrewerClass = Class.forName("net.minecraft.world.item.alchemy.PotionBrewer"); // PotionBrewer -> PotionBrewing
+            Class<?> potionRegistryClass = Class.forName("net.minecraft.world.item.alchemy.PotionRegistry"); // PotionRegistry -> Potion
+            Class<?> potionBrewerClass = Class.forName("net.minecraft.world.item.alchemy.PotionBrewer"); // PotionBrewer -> PotionBrewing
 
             Class<?> craftMagicNumbers = Class.forName("org.bukkit.craftbukkit." + version + ".util.CraftMagicNumbers");
-            this.getItem = craftMagicNumbers.getMethod("getItem", Material.class);
-            this.minHeightMethod = World.class.getMethod("getMinHeight");
+            this.getItem = NmsHandles.method(craftMagicNumbers.getMethod("getItem", Material.class));
+            if (minWorldHeight == null) {
+                throw new NoSuchMethodException("World#getMinHeight()");
+            }
+            this.minWorldHeight = minWorldHeight;
 
             Class<?> minecraftKey = Class.forName("net.minecraft.resources.MinecraftKey"); // MinecraftKey -> ResourceLocation
-            this.newMinecraftKey = minecraftKey.getMethod("a", String.class); // a -> tryParse
-            this.potionRegistry = this.iRegistryClass.getDeclaredField("ab").get(null); // W -> POTION_REGISTRY
-            this.getPotion = this.potionRegistry.getClass().getMethod("a", minecraftKey); // a -> get
+            this.newMinecraftKey = NmsHandles.method(minecraftKey.getMethod("a", String.class)); // a -> tryParse
+            this.potionRegistry = iRegistryClass.getDeclaredField("ab").get(null); // W -> POTION_REGISTRY
+            this.getPotion = NmsHandles.method(this.potionRegistry.getClass().getMethod("a", minecraftKey)); // a -> get
+
+            Class<?> mobEffectArrayClass = Array.newInstance(this.mobEffectClass, 0).getClass();
+            this.potionConstructor = NmsHandles.constructor(potionRegistryClass.getConstructor(mobEffectArrayClass));
+            this.registerMethod = NmsHandles.method(iRegistryClass.getDeclaredMethod("a", iRegistryClass, String.class, Object.class)); // a -> register
+            this.registerBrewingRecipe = NmsHandles.method(potionBrewerClass.getDeclaredMethod("a", potionRegistryClass, itemClass, potionRegistryClass)); // a -> addMix
         } catch (Exception e) {
             throw new RuntimeException("Failed to initialize 1.18 bridge", e);
         }
@@ -79,24 +87,21 @@ public class V1_18_R1NmsBridge implements RadiationNmsBridge {
         Objects.requireNonNull(config, "config");
 
         try {
-            String basePotionName = config.basePotion().name().toLowerCase(Locale.ROOT);
-            Object basePotion = this.getPotion.invoke(this.potionRegistry, this.newMinecraftKey.invoke(null, basePotionName));
+            Object basePotionName = config.basePotion().name().toLowerCase(Locale.ROOT);
+            Object basePotion = (Object) this.getPotion.invokeExact(this.potionRegistry, (Object) this.newMinecraftKey.invokeExact(basePotionName));
             Objects.requireNonNull(basePotion, "basePotion not found");
 
-            Object ingredient = this.getItem.invoke(null, config.ingredient());
+            Object ingredient = (Object) this.getItem.invokeExact((Object) config.ingredient());
             Objects.requireNonNull(ingredient, "ingredient not found");
 
             Object mobEffectArray = Array.newInstance(this.mobEffectClass, 0);
-            Object newPotion = this.potionRegistryClass.getConstructor(mobEffectArray.getClass()).newInstance(mobEffectArray);
+            Object newPotion = (Object) this.potionConstructor.invokeExact(mobEffectArray);
 
-            Method registerMethod = this.iRegistryClass.getDeclaredMethod("a", this.iRegistryClass, String.class, Object.class); // a -> register
-            Object potion = registerMethod.invoke(null, this.potionRegistry, potionKey.getKey(), newPotion);
+            Object potion = (Object) this.registerMethod.invokeExact(this.potionRegistry, (Object) potionKey.getKey(), newPotion);
 
-            Method registerBrewingRecipe = this.potionBrewerClass.getDeclaredMethod("a", this.potionRegistryClass, this.itemClass, this.potionRegistryClass); // a -> addMix
-            registerBrewingRecipe.setAccessible(true);
-            registerBrewingRecipe.invoke(null, basePotion, ingredient, potion);
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Could not handle reflective operation.", e);
+            this.registerBrewingRecipe.invokeExact(basePotion, ingredient, potion);
+        } catch (Throwable throwable) {
+            logger.log(Level.SEVERE, "Could not handle reflective operation.", throwable);
         }
     }
 
@@ -109,13 +114,11 @@ public class V1_18_R1NmsBridge implements RadiationNmsBridge {
     public int getMinWorldHeight(World bukkitWorld) {
         Objects.requireNonNull(bukkitWorld, "bukkitWorld");
 
-        return this.minWorldHeightMap.computeIfAbsent(bukkitWorld.getUID(), worldId -> {
-            try {
-                return (int) this.minHeightMethod.invoke(bukkitWorld);
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                logger.log(Level.SEVERE, "Could not handle min world height on world '" + bukkitWorld.getName() + "' ('" + worldId + "').", e);
-                return 0;
-            }
-        });
+        try {
+            return (int) this.minWorldHeight.invokeExact(bukkitWorld);
+        } catch (Throwable throwable) {
+            logger.log(Level.SEVERE, "Could not handle min world height on world '" + bukkitWorld.getName() + "' ('" + bukkitWorld.getUID() + "').", throwable);
+            return 0;
+        }
     }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.minecraft.core;
+
+import net.minecraft.world.item.alchemy.PotionRegistry;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public abstract class IRegistry {
+    // potion registries of every version, each test uses its own
+    public static final RegistryMaterials aa = new RegistryMaterials(); // 1.17
+    public static final RegistryMaterials ab = new RegistryMaterials(); // 1.18
+    public static final RegistryMaterials Y = new RegistryMaterials(); // 1.18.2
+    public static final RegistryMaterials Z = new RegistryMaterials(); // 1.19
+
+    final Map<String, Object> entries = new HashMap<>();
+
+    IRegistry() {
+        this.entries.put("thick", new PotionRegistry());
+    }
+
+    public Object get(String key) {
+        return this.entries.get(key);
+    }
+
+    public static Object a(IRegistry registry, String key, Object value) {
+        if (registry instanceof RegistryMaterials && ((RegistryMaterials) registry).isFrozen()) {
+            throw new IllegalStateException("Registry is already frozen");
+        }
+
+        registry.entries.put(key, value);
+        return value;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.minecraft.core;
+
+import net.minecraft.resources.MinecraftKey;
+
+public class RegistryMaterials extends IRegistry {
+    // frozen flags of every version
+    public boolean bL; // 1.18.2
+    public boolean ca; // 1.19
+    public boolean l; // 1.19.3
+
+    public RegistryMaterials() {
+    }
+
+    /** 1.17 */
+    public Object get(MinecraftKey key) {
+        return this.entries.get(key.key);
+    }
+
+    /** 1.18 and newer */
+    public Object a(MinecraftKey key) {
+        return this.entries.get(key.key);
+    }
+
+    boolean isFrozen() {
+        return this.bL || this.ca || this.l;
+    }
+}
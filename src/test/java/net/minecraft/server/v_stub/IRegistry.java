@@ -0,0 +1,43 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.minecraft.server.v_stub;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class IRegistry {
+    public static final IRegistry POTION = new IRegistry();
+
+    private final Map<String, Object> entries = new HashMap<>();
+
+    private IRegistry() {
+        this.entries.put("thick", new PotionRegistry());
+    }
+
+    public Object get(String key) {
+        return this.entries.get(key);
+    }
+
+    public Object get(MinecraftKey key) {
+        return this.entries.get(key.key);
+    }
+
+    public static Object a(IRegistry registry, String key, Object value) {
+        registry.entries.put(key, value);
+        return value;
+    }
+}
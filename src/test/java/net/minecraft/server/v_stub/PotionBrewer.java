@@ -0,0 +1,40 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.minecraft.server.v_stub;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PotionBrewer {
+    public static final List<Mix> MIXES = new ArrayList<>();
+
+    private static void a(PotionRegistry base, Item ingredient, PotionRegistry result) {
+        MIXES.add(new Mix(base, ingredient, result));
+    }
+
+    public static class Mix {
+        public final Object base;
+        public final Object ingredient;
+        public final Object result;
+
+        Mix(Object base, Object ingredient, Object result) {
+            this.base = base;
+            this.ingredient = ingredient;
+            this.result = result;
+        }
+    }
+}
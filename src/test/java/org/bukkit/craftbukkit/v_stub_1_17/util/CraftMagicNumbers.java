@@ -0,0 +1,32 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bukkit.craftbukkit.v_stub_1_17.util;
+
+import net.minecraft.world.item.Item;
+import org.bukkit.Material;
+
+/**
+ * Stub of servers since 1.17, with NMS classes outside of versioned packages.
+ */
+public final class CraftMagicNumbers {
+    private CraftMagicNumbers() {
+    }
+
+    public static Item getItem(Material material) {
+        return new Item(material);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundaryIndexTest {
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void empty() {
+        assertTrue(BoundaryIndex.EMPTY.nearest(0D, 0D, 1).isEmpty());
+
+        BoundaryIndex index = BoundaryIndex.build(new boolean[9], 3, 1);
+        assertEquals(0, index.size());
+        assertTrue(index.nearest(0D, 0D, 1).isEmpty());
+    }
+
+    @Test
+    void singleChunk() {
+        boolean[] inside = new boolean[9];
+        inside[4] = true; // chunk 0, 0
+        BoundaryIndex index = BoundaryIndex.build(inside, 3, 1);
+        assertEquals(4, index.size());
+
+        List<BoundaryIndex.Hit> hits = index.nearest(8D, 4D, 4);
+        assertEquals(4, hits.size());
+        assertHit(hits.get(0), 8D, 0D, 4D);
+        assertEquals(8D, hits.get(1).distance(), DELTA);
+        assertEquals(8D, hits.get(2).distance(), DELTA);
+        assertHit(hits.get(3), 8D, 16D, 12D);
+
+        assertHit(index.nearest(-10D, 8D, 1).get(0), 0D, 8D, 10D);
+        assertHit(index.nearest(-3D, -4D, 1).get(0), 0D, 0D, 5D);
+    }
+
+    @Test
+    void longBoundaryIsSplit() {
+        int size = 40;
+        boolean[] inside = new boolean[size * size];
+        for (int row = 0; row < size; row++) {
+            inside[row] = true; // column 0
+        }
+
+        BoundaryIndex index = BoundaryIndex.build(inside, size, 0);
+        assertEquals(3, index.size());
+        assertHit(index.nearest(100D, 600D, 1).get(0), 16D, 600D, 84D);
+    }
+
+    @Test
+    void nearestMatchesFullSearch() {
+        Random random = new Random(42L);
+        int size = 64;
+        int radius = 32;
+        boolean[] inside = new boolean[size * size];
+        for (int i = 0; i < inside.length; i++) {
+            inside[i] = random.nextInt(8) == 0;
+        }
+
+        BoundaryIndex index = BoundaryIndex.build(inside, size, radius);
+        for (int i = 0; i < 200; i++) {
+            // also outside of the indexed area
+            double x = (random.nextDouble() - 0.5D) * 3 * (size << 4);
+            double z = (random.nextDouble() - 0.5D) * 3 * (size << 4);
+
+            List<BoundaryIndex.Hit> all = index.nearest(x, z, index.size());
+            assertEquals(index.size(), all.size());
+            for (int j = 1; j < all.size(); j++) {
+                assertTrue(all.get(j - 1).distance() <= all.get(j).distance(), "nearest first");
+            }
+
+            for (int k : new int[] { 1, 3, 8 }) {
+                List<BoundaryIndex.Hit> hits = index.nearest(x, z, k);
+                assertEquals(k, hits.size());
+                for (int j = 0; j < k; j++) {
+                    assertEquals(all.get(j).distance(), hits.get(j).distance(), DELTA, "k = " + k + " at " + x + ", " + z);
+                }
+            }
+        }
+    }
+
+    private static void assertHit(BoundaryIndex.Hit hit, double x, double z, double distance) {
+        assertEquals(x, hit.x(), DELTA);
+        assertEquals(z, hit.z(), DELTA);
+        assertEquals(distance, hit.distance(), DELTA);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.worldguard.protection.managers.RegionManager;
+import org.bukkit.World;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static pl.craftserve.radiation.RegionIndexTest.MAX_Y;
+import static pl.craftserve.radiation.RegionIndexTest.MIN_Y;
+import static pl.craftserve.radiation.RegionIndexTest.WORLD;
+
+class DistanceFieldTest {
+    @Test
+    void safeCuboidInRadioactiveGlobalRegion() {
+        RegionManager regionManager = RegionIndexTest.regionManager();
+        regionManager.addRegion(RegionIndexTest.radioactiveGlobal());
+        regionManager.addRegion(RegionIndexTest.safeCuboid("safe", 0, 0, 63, 63));
+
+        DistanceField distanceField = new DistanceField(new DistanceField.Config(512));
+        distanceField.onRebuild(RegionIndex.EMPTY, RegionIndexTest.compile(regionManager), ImmutableMap.of(WORLD, bounds()));
+
+        assertTrue(distanceField.depth(WORLD, 32, 32) < 0);
+        assertEquals(236, distanceField.depth(WORLD, 300, 32), 16);
+        assertEquals(236, distanceField.depth(WORLD, 32, -200), 16);
+        assertEquals(0, distanceField.depth(WORLD, 10_000, 32), "outside of the radius");
+
+        BoundaryIndex boundaries = distanceField.boundaries(WORLD);
+        assertFalse(boundaries.size() == 0);
+
+        List<BoundaryIndex.Hit> hits = boundaries.nearest(300, 32, 1);
+        assertEquals(1, hits.size());
+        assertEquals(64, hits.get(0).x(), 0.001);
+        assertEquals(236, hits.get(0).distance(), 0.001);
+    }
+
+    static WorldBoundsRegistry.Bounds bounds() {
+        return new WorldBoundsRegistry.Bounds(stub(World.class), stub(com.sk89q.worldedit.world.World.class), MIN_Y, MAX_Y);
+    }
+
+    private static <T> T stub(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            throw new UnsupportedOperationException(method.getName());
+        }));
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DoseStoreTest {
+    private static final long HALF_LIFE = 10L;
+    private static final double DELTA = 1e-9;
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.DAYS.toMillis(1L));
+    private final List<DoseThresholdEvent> events = new ArrayList<>();
+    private final Map<UUID, Player> players = new HashMap<>();
+    private final Plugin plugin = this.plugin();
+    private final PlayerIndex playerIndex = new PlayerIndex(this.plugin);
+
+    @Test
+    void decay() {
+        DoseStore store = this.store();
+        Player player = this.join(store, new HashMap<>());
+
+        store.setDose(player, 8D);
+        assertEquals(8D, store.getDose(player), DELTA);
+
+        this.advance(HALF_LIFE);
+        assertEquals(4D, store.getDose(player), DELTA);
+
+        store.accrue(player, this.playerIndex.find(player.getUniqueId()), 1D);
+        assertEquals(5D, store.getDose(player), DELTA);
+
+        this.advance(2 * HALF_LIFE);
+        assertEquals(1.25D, store.getDose(player), DELTA);
+    }
+
+    @Test
+    void decayWhileOffline() {
+        DoseStore store = this.store();
+        Map<Object, Object> data = new HashMap<>();
+        data.put(new NamespacedKey(this.plugin, "dose"), 8D);
+        data.put(new NamespacedKey(this.plugin, "dose_updated_at"), this.clock.get() - TimeUnit.SECONDS.toMillis(HALF_LIFE));
+
+        Player player = this.join(store, data);
+        assertEquals(4D, store.getDose(player), DELTA);
+    }
+
+    @Test
+    void thresholdsCrossedUpAndDown() {
+        DoseStore store = this.store(5D, 10D);
+        Player player = this.join(store, new HashMap<>());
+        int slot = this.playerIndex.find(player.getUniqueId());
+
+        store.accrue(player, slot, 6D);
+        this.assertEvents(player, 5D, true);
+
+        store.accrue(player, slot, 1D);
+        this.assertEvents(player);
+
+        store.accrue(player, slot, 6D);
+        this.assertEvents(player, 10D, true);
+
+        store.setDose(player, 1D);
+        this.assertEvents(player, 10D, false, 5D, false);
+
+        store.setDose(player, 12D);
+        this.assertEvents(player, 5D, true, 10D, true);
+    }
+
+    @Test
+    void thresholdsCrossedByDecay() {
+        DoseStore store = this.store(5D, 10D);
+        Player player = this.join(store, new HashMap<>());
+        store.setDose(player, 12D);
+        this.events.clear();
+
+        store.tick();
+        this.assertEvents(player);
+
+        this.advance(HALF_LIFE); // 6
+        store.tick();
+        assertEquals(6D, this.events.get(0).getDose(), DELTA);
+        this.assertEvents(player, 10D, false);
+
+        this.advance(HALF_LIFE); // 3
+        store.tick();
+        this.assertEvents(player, 5D, false);
+
+        this.advance(HALF_LIFE);
+        store.tick();
+        this.assertEvents(player);
+    }
+
+    @Test
+    void setConfigRecalculatesThresholds() {
+        DoseStore store = this.store(5D);
+        Player player = this.join(store, new HashMap<>());
+        int slot = this.playerIndex.find(player.getUniqueId());
+
+        store.setDose(player, 6D);
+        this.assertEvents(player, 5D, true);
+
+        store.setConfig(config(10D));
+        this.assertEvents(player);
+        store.accrue(player, slot, 1D);
+        this.assertEvents(player);
+        store.accrue(player, slot, 3D);
+        this.assertEvents(player, 10D, true);
+
+        store.setConfig(config(1D, 2D));
+        this.assertEvents(player);
+        store.setDose(player, 0D);
+        this.assertEvents(player, 2D, false, 1D, false);
+    }
+
+    /**
+     * @param expected Pairs of the threshold and whether the dose was rising.
+     */
+    private void assertEvents(Player player, Object... expected) {
+        assertEquals(expected.length / 2, this.events.size(), "events");
+        for (int i = 0; i < this.events.size(); i++) {
+            DoseThresholdEvent event = this.events.get(i);
+            assertSame(player, event.getPlayer());
+            assertEquals((double) expected[2 * i], event.getThreshold(), DELTA);
+            assertEquals(expected[2 * i + 1], event.isRising());
+            assertTrue(event.isRising() == event.getDose() >= event.getThreshold());
+        }
+        this.events.clear();
+    }
+
+    private DoseStore store(double... thresholds) {
+        return new DoseStore(this.plugin, this.playerIndex, config(thresholds), this.clock::get);
+    }
+
+    private static DoseStore.Config config(double... thresholds) {
+        return new DoseStore.Config(HALF_LIFE, thresholds, 0D, DoseStore.Config.DEFAULT_FLUSH_INTERVAL, DoseStore.Config.DEFAULT_FLUSH_BATCH_SIZE);
+    }
+
+    private void advance(long seconds) {
+        this.clock.addAndGet(TimeUnit.SECONDS.toMillis(seconds));
+    }
+
+    private Player join(DoseStore store, Map<Object, Object> data) {
+        UUID playerId = UUID.randomUUID();
+        PersistentDataContainer container = stub(PersistentDataContainer.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "set":
+                    data.put(args[0], args[2]);
+                    return null;
+                case "getOrDefault":
+                    return data.getOrDefault(args[0], args[2]);
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        Player player = stub(Player.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getUniqueId":
+                    return playerId;
+                case "getPersistentDataContainer":
+                    return container;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+
+        this.players.put(playerId, player);
+        store.onPlayerJoin(new PlayerJoinEvent(player, null));
+        return player;
+    }
+
+    private Plugin plugin() {
+        PluginManager pluginManager = stub(PluginManager.class, (proxy, method, args) -> {
+            if (method.getName().equals("callEvent")) {
+                this.events.add((DoseThresholdEvent) args[0]);
+                return null;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+        Server server = stub(Server.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getPluginManager":
+                    return pluginManager;
+                case "getPlayer":
+                    return this.players.get(args[0]);
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        return stub(Plugin.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getName":
+                    return "CraftserveRadiation";
+                case "getServer":
+                    return server;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static <T> T stub(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+}
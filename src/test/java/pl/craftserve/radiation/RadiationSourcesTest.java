@@ -0,0 +1,166 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RadiationSourcesTest {
+    private static final String WORLD = "world";
+    private static final int Y = 64;
+    /** Sources are placed this far from 0, Y, 0 at most. */
+    private static final int SPREAD = 6;
+    private static final int MAX_EMISSION = 8;
+
+    private final RadiationSources.Worker worker = sources().new Worker();
+    /** Expected sources by position. */
+    private final Map<Long, Integer> sources = new HashMap<>();
+
+    @Test
+    void keyRoundTrip() {
+        int[][] positions = { { 0, 0, 0 }, { -1, -64, -1 }, { 30_000_000, 319, -30_000_000 }, { -17, 2047, 33 } };
+        for (int[] position : positions) {
+            long key = RadiationSources.key(position[0], position[1], position[2]);
+            assertEquals(position[0], RadiationSources.x(key));
+            assertEquals(position[1], RadiationSources.y(key));
+            assertEquals(position[2], RadiationSources.z(key));
+        }
+    }
+
+    @Test
+    void singleSource() {
+        this.put(0, Y, 0, 15);
+
+        assertEquals(15, this.level(0, Y, 0));
+        assertEquals(9, this.level(-3, Y + 2, 1));
+        assertEquals(1, this.level(-14, Y, 0));
+        assertEquals(0, this.level(15, Y, 0));
+        assertEquals(0, this.level(0, Y, 0, "other"));
+        this.assertLevels();
+    }
+
+    @Test
+    void removeSources() {
+        this.put(0, Y, 0, MAX_EMISSION);
+        this.put(3, Y, -2, MAX_EMISSION - 2);
+        this.assertLevels();
+
+        this.put(0, Y, 0, 0);
+        this.assertLevels();
+
+        this.put(3, Y, -2, 0);
+        this.assertLevels();
+        assertEquals(0, this.level(3, Y, -2));
+    }
+
+    @Test
+    void changeEmission() {
+        this.put(0, Y, 0, MAX_EMISSION);
+        this.put(0, Y, 0, 3);
+        this.assertLevels();
+
+        this.put(0, Y, 0, MAX_EMISSION);
+        this.assertLevels();
+    }
+
+    @Test
+    void sourceInsideBrighterLight() {
+        this.put(0, Y, 0, MAX_EMISSION);
+        this.put(2, Y, 0, 3); // below the level already there
+        this.assertLevels();
+
+        this.put(0, Y, 0, 0);
+        assertEquals(3, this.level(2, Y, 0));
+        this.assertLevels();
+    }
+
+    @Test
+    void randomUpdates() {
+        Random random = new Random(42L);
+        for (int i = 0; i < 100; i++) {
+            int x = random.nextInt(2 * SPREAD + 1) - SPREAD;
+            int y = Y + random.nextInt(2 * SPREAD + 1) - SPREAD;
+            int z = random.nextInt(2 * SPREAD + 1) - SPREAD;
+            int emission = random.nextInt(3) == 0 ? 0 : 1 + random.nextInt(MAX_EMISSION);
+
+            this.put(x, y, z, emission);
+            this.assertLevels();
+        }
+    }
+
+    private void put(int x, int y, int z, int emission) {
+        long position = RadiationSources.key(x, y, z);
+        this.worker.apply(new RadiationSources.Update(WORLD, position, emission));
+        if (emission == 0) {
+            this.sources.remove(position);
+        } else {
+            this.sources.put(position, emission);
+        }
+    }
+
+    private int level(int x, int y, int z) {
+        return this.level(x, y, z, WORLD);
+    }
+
+    private int level(int x, int y, int z, String world) {
+        return this.worker.level(world, x, y, z);
+    }
+
+    /**
+     * Radiation passes through every block, so levels must fall off with the
+     * Manhattan distance from the strongest source.
+     */
+    private void assertLevels() {
+        int reach = SPREAD + MAX_EMISSION;
+        for (int x = -reach; x <= reach; x++) {
+            for (int y = Y - reach; y <= Y + reach; y++) {
+                for (int z = -reach; z <= reach; z++) {
+                    int expected = 0;
+                    for (Map.Entry<Long, Integer> source : this.sources.entrySet()) {
+                        long position = source.getKey();
+                        int distance = Math.abs(x - RadiationSources.x(position)) +
+                                Math.abs(y - RadiationSources.y(position)) +
+                                Math.abs(z - RadiationSources.z(position));
+                        expected = Math.max(expected, source.getValue() - distance);
+                    }
+
+                    int actual = this.level(x, y, z);
+                    if (actual != expected) {
+                        assertEquals(expected, actual, "level at " + x + ", " + y + ", " + z);
+                    }
+                }
+            }
+        }
+    }
+
+    private static RadiationSources sources() {
+        Plugin plugin = (Plugin) Proxy.newProxyInstance(Plugin.class.getClassLoader(), new Class<?>[] { Plugin.class }, (proxy, method, args) -> {
+            throw new UnsupportedOperationException(method.getName());
+        });
+        RadiationSources.Config config = new RadiationSources.Config(true, "default", RadiationSources.Config.DEFAULT_THRESHOLD, Collections.emptyMap());
+        return new RadiationSources(plugin, Paths.get("sources"), config);
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableList;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldguard.domains.Association;
+import com.sk89q.worldguard.protection.association.RegionAssociable;
+import com.sk89q.worldguard.protection.flags.BooleanFlag;
+import com.sk89q.worldguard.protection.flags.Flag;
+import com.sk89q.worldguard.protection.flags.RegionGroup;
+import com.sk89q.worldguard.protection.flags.StringFlag;
+import com.sk89q.worldguard.protection.flags.registry.SimpleFlagRegistry;
+import com.sk89q.worldguard.protection.managers.RegionManager;
+import com.sk89q.worldguard.protection.managers.index.PriorityRTreeIndex;
+import com.sk89q.worldguard.protection.managers.storage.MemoryRegionDatabase;
+import com.sk89q.worldguard.protection.regions.GlobalProtectedRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedCuboidRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedPolygonalRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegionIndexTest {
+    static final String WORLD = "world";
+    static final int MIN_Y = 0;
+    static final int MAX_Y = 255;
+
+    static final Flag<Boolean> RADIATION_FLAG = new BooleanFlag("radiation", RegionGroup.NON_MEMBERS);
+    static final Flag<String> RADIATION_TYPE_FLAG = new StringFlag("radiation-type");
+
+    @Test
+    void defaultGroupGlobalRegion() {
+        RegionManager regionManager = regionManager();
+        regionManager.addRegion(radioactiveGlobal());
+
+        RegionIndex index = compile(regionManager);
+        assertEquals(Radiation.Config.DEFAULT_ID, index.classify(WORLD, 0, 0, MIN_Y, MAX_Y));
+        assertEquals(Radiation.Config.DEFAULT_ID, index.classify(WORLD, -100, 42, MIN_Y, MAX_Y));
+        assertMatches(regionManager, index, 7, 64, -300, UUID.randomUUID());
+    }
+
+    @Test
+    void safeCuboidWithoutMembers() {
+        RegionManager regionManager = regionManager();
+        regionManager.addRegion(radioactiveGlobal());
+        regionManager.addRegion(safeCuboid("safe", 0, 0, 63, 63));
+
+        RegionIndex index = compile(regionManager);
+        assertNull(index.classify(WORLD, 0, 0, MIN_Y, MAX_Y));
+        assertNull(index.classify(WORLD, 3, 3, MIN_Y, MAX_Y));
+        assertEquals(Radiation.Config.DEFAULT_ID, index.classify(WORLD, 4, 0, MIN_Y, MAX_Y));
+        assertEquals(Radiation.Config.DEFAULT_ID, index.classify(WORLD, -1, -1, MIN_Y, MAX_Y));
+
+        UUID playerId = UUID.randomUUID();
+        for (int x = -8; x < 72; x += 4) {
+            assertMatches(regionManager, index, x, 64, 32, playerId);
+        }
+    }
+
+    @Test
+    void safeCuboidWithMembers() {
+        UUID memberId = UUID.randomUUID();
+        UUID nonMemberId = UUID.randomUUID();
+
+        RegionManager regionManager = regionManager();
+        regionManager.addRegion(radioactiveGlobal());
+        ProtectedRegion safe = safeCuboid("safe", 0, 0, 63, 63);
+        safe.getMembers().addPlayer(memberId);
+        regionManager.addRegion(safe);
+
+        RegionIndex index = compile(regionManager);
+        assertSame(RegionLookup.UNRESOLVED, index.classify(WORLD, 0, 0, MIN_Y, MAX_Y));
+        assertEquals(Radiation.Config.DEFAULT_ID, index.classify(WORLD, 4, 0, MIN_Y, MAX_Y));
+
+        assertNull(index.resolve(WORLD, 32, 64, 32, nonMemberId));
+        assertEquals(Radiation.Config.DEFAULT_ID, index.resolve(WORLD, 32, 64, 32, memberId));
+        assertMatches(regionManager, index, 32, 64, 32, nonMemberId);
+        assertMatches(regionManager, index, 32, 64, 32, memberId);
+    }
+
+    @Test
+    void polygonalRegion() {
+        RegionManager regionManager = regionManager();
+        regionManager.addRegion(radioactiveGlobal());
+        ProtectedRegion polygon = new ProtectedPolygonalRegion("polygon", ImmutableList.of(
+                BlockVector2.at(0, 0), BlockVector2.at(64, 0), BlockVector2.at(64, 64), BlockVector2.at(32, 96), BlockVector2.at(0, 64)), 0, 127);
+        polygon.setFlag(RADIATION_FLAG, false);
+        regionManager.addRegion(polygon);
+
+        RegionIndex index = compile(regionManager);
+        UUID playerId = UUID.randomUUID();
+        for (int x = -8; x <= 72; x += 2) {
+            for (int z = -8; z <= 104; z += 2) {
+                assertMatches(regionManager, index, x, 64, z, playerId);
+                assertMatches(regionManager, index, x, 200, z, playerId);
+            }
+        }
+    }
+
+    @Test
+    void overlappingPriorities() {
+        RegionManager regionManager = regionManager();
+        regionManager.addRegion(radioactiveGlobal());
+
+        ProtectedRegion low = new ProtectedCuboidRegion("low", BlockVector3.at(-64, MIN_Y, -64), BlockVector3.at(127, MAX_Y, 127));
+        low.setFlag(RADIATION_FLAG, true);
+        low.setFlag(RADIATION_TYPE_FLAG, "acid");
+        regionManager.addRegion(low);
+
+        ProtectedRegion high = new ProtectedCuboidRegion("high", BlockVector3.at(0, 0, 0), BlockVector3.at(63, 63, 63));
+        high.setFlag(RADIATION_FLAG, false);
+        high.setPriority(10);
+        regionManager.addRegion(high);
+
+        ProtectedRegion middle = new ProtectedCuboidRegion("middle", BlockVector3.at(32, MIN_Y, 32), BlockVector3.at(95, MAX_Y, 95));
+        middle.setFlag(RADIATION_TYPE_FLAG, "toxic");
+        middle.setPriority(5);
+        regionManager.addRegion(middle);
+
+        RegionIndex index = compile(regionManager);
+        UUID playerId = UUID.randomUUID();
+        for (int x = -72; x <= 136; x += 4) {
+            for (int z = -72; z <= 136; z += 4) {
+                assertMatches(regionManager, index, x, 32, z, playerId);
+                assertMatches(regionManager, index, x, 100, z, playerId);
+            }
+        }
+    }
+
+    @Test
+    void inheritedFromParent() throws Exception {
+        RegionManager regionManager = regionManager();
+        regionManager.addRegion(radioactiveGlobal());
+
+        ProtectedRegion parent = new ProtectedCuboidRegion("parent", BlockVector3.at(0, MIN_Y, 0), BlockVector3.at(127, MAX_Y, 127));
+        parent.setFlag(RADIATION_FLAG, true);
+        parent.setFlag(RADIATION_TYPE_FLAG, "acid");
+        regionManager.addRegion(parent);
+
+        ProtectedRegion inside = safeCuboid("inside", 32, 32, 63, 63);
+        inside.setParent(parent);
+        regionManager.addRegion(inside);
+
+        ProtectedRegion outside = new ProtectedCuboidRegion("outside", BlockVector3.at(200, MIN_Y, 0), BlockVector3.at(231, MAX_Y, 31));
+        outside.setParent(parent);
+        regionManager.addRegion(outside);
+
+        RegionIndex index = compile(regionManager);
+        assertEquals("acid", index.resolve(WORLD, 210, 64, 10, UUID.randomUUID()));
+
+        UUID playerId = UUID.randomUUID();
+        int resolved = 0;
+        int total = 0;
+        for (int x = -8; x <= 240; x += 4) {
+            for (int z = -8; z <= 136; z += 4) {
+                if (assertEquivalent(regionManager, index, x, 64, z, playerId)) {
+                    resolved++;
+                }
+                total++;
+            }
+        }
+        // only the child within its parent may be left to WorldGuard
+        assertTrue(total - resolved <= 8 * 8, "unresolved " + (total - resolved));
+    }
+
+    @Test
+    void snapshotIgnoresLaterChanges() {
+        RegionManager regionManager = regionManager();
+        regionManager.addRegion(radioactiveGlobal());
+        ProtectedRegion safe = safeCuboid("safe", 0, 0, 63, 63);
+        regionManager.addRegion(safe);
+
+        RegionIndex.Snapshot snapshot = RegionIndex.snapshot(ImmutableMap.of(WORLD, regionManager), RADIATION_FLAG, RADIATION_TYPE_FLAG);
+        safe.setFlag(RADIATION_FLAG, true);
+        safe.getMembers().addPlayer(UUID.randomUUID());
+        regionManager.removeRegion(ProtectedRegion.GLOBAL_REGION);
+
+        RegionIndex index = RegionIndex.compile(0L, snapshot);
+        assertNull(index.classify(WORLD, 0, 0, MIN_Y, MAX_Y));
+        assertEquals(Radiation.Config.DEFAULT_ID, index.classify(WORLD, 4, 0, MIN_Y, MAX_Y));
+    }
+
+    //
+    // Helpers
+    //
+
+    static RegionManager regionManager() {
+        return new RegionManager(new MemoryRegionDatabase(), new PriorityRTreeIndex.Factory(), new SimpleFlagRegistry());
+    }
+
+    static RegionIndex compile(RegionManager regionManager) {
+        return RegionIndex.compile(0L, RegionIndex.snapshot(ImmutableMap.of(WORLD, regionManager), RADIATION_FLAG, RADIATION_TYPE_FLAG));
+    }
+
+    static ProtectedRegion radioactiveGlobal() {
+        ProtectedRegion global = new GlobalProtectedRegion(ProtectedRegion.GLOBAL_REGION);
+        global.setFlag(RADIATION_FLAG, true);
+        return global;
+    }
+
+    static ProtectedRegion safeCuboid(String id, int minX, int minZ, int maxX, int maxZ) {
+        ProtectedRegion region = new ProtectedCuboidRegion(id, BlockVector3.at(minX, MIN_Y, minZ), BlockVector3.at(maxX, MAX_Y, maxZ));
+        region.setFlag(RADIATION_FLAG, false);
+        return region;
+    }
+
+    /** Same association rules as WorldGuard's LocalPlayer, without parents. */
+    static RegionAssociable subject(UUID playerId) {
+        return regions -> {
+            for (ProtectedRegion region : regions) {
+                if (region.getOwners().contains(playerId)) {
+                    return Association.OWNER;
+                }
+            }
+            for (ProtectedRegion region : regions) {
+                if (region.getMembers().contains(playerId)) {
+                    return Association.MEMBER;
+                }
+            }
+            return Association.NON_MEMBER;
+        };
+    }
+
+    static void assertMatches(RegionManager regionManager, RegionIndex index, int x, int y, int z, UUID playerId) {
+        assertEquals(query(regionManager, x, y, z, playerId), index.resolve(WORLD, x, y, z, playerId), "at " + x + " " + y + " " + z);
+    }
+
+    /**
+     * Same as {@link #assertMatches}, but the index may leave the block
+     * unresolved.
+     *
+     * @return Whether the index resolved the block.
+     */
+    static boolean assertEquivalent(RegionManager regionManager, RegionIndex index, int x, int y, int z, UUID playerId) {
+        String actual = index.resolve(WORLD, x, y, z, playerId);
+        if (actual == RegionLookup.UNRESOLVED) {
+            return false;
+        }
+
+        assertEquals(query(regionManager, x, y, z, playerId), actual, "at " + x + " " + y + " " + z);
+        return true;
+    }
+
+    static String query(RegionManager regionManager, int x, int y, int z, UUID playerId) {
+        return Radiation.FlagMatcher.resolveRadiationId(regionManager.getApplicableRegions(BlockVector3.at(x, y, z)),
+                subject(playerId), RADIATION_FLAG, RADIATION_TYPE_FLAG);
+    }
+}
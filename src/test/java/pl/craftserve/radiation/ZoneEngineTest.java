@@ -0,0 +1,154 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZoneEngineTest {
+    private static final String WORLD = "world";
+    private static final String RADIATION = "default";
+
+    private final AtomicLong clock = new AtomicLong();
+    private final ZoneEngine engine = new ZoneEngine(this.clock::get);
+
+    @Test
+    void shrinkingCircle() throws InvalidConfigurationException {
+        this.engine.load(Arrays.asList(zone("circle",
+                "shape: circle", "x: 0", "z: 0", "radius: 100", "start: 10", "duration: 90", "to: {radius: 10}")));
+
+        assertTrue(this.contains(50, 0));
+        assertFalse(this.contains(101, 0));
+
+        this.advance(10);
+        assertTrue(this.contains(50, 0), "before the start");
+
+        this.advance(45); // radius 55
+        assertTrue(this.contains(0, 50));
+        assertFalse(this.contains(0, 60));
+
+        this.advance(45); // radius 10
+        assertFalse(this.contains(50, 0));
+        assertTrue(this.contains(-5, 5));
+
+        this.advance(1000);
+        assertFalse(this.contains(11, 0), "after the end");
+        assertTrue(this.contains(9, 0), "after the end");
+    }
+
+    @Test
+    void movingCircle() throws InvalidConfigurationException {
+        this.engine.load(Arrays.asList(zone("circle",
+                "shape: circle", "x: 0", "z: 0", "radius: 10", "duration: 100", "to: {x: 100, z: 200}")));
+
+        assertTrue(this.contains(0, 0));
+        assertFalse(this.contains(50, 100));
+
+        this.advance(50);
+        assertFalse(this.contains(0, 0));
+        assertTrue(this.contains(50, 100));
+
+        this.advance(50);
+        assertTrue(this.contains(100, 200));
+    }
+
+    @Test
+    void ring() throws InvalidConfigurationException {
+        this.engine.load(Arrays.asList(zone("ring",
+                "shape: ring", "x: 0", "z: 0", "inner-radius: 10", "outer-radius: 20")));
+
+        assertFalse(this.contains(5, 0));
+        assertTrue(this.contains(15, 0));
+        assertTrue(this.contains(0, -10));
+        assertFalse(this.contains(25, 0));
+    }
+
+    @Test
+    void polygon() throws InvalidConfigurationException {
+        this.engine.load(Arrays.asList(zone("polygon",
+                "shape: polygon", "points: ['0:0', '100:0', '0:100']")));
+
+        assertTrue(this.contains(10, 10));
+        assertFalse(this.contains(60, 60));
+        assertFalse(this.contains(-10, 10));
+    }
+
+    @Test
+    void bandAndHeightRange() throws InvalidConfigurationException {
+        this.engine.load(Arrays.asList(zone("band", "shape: band", "min-y: 10", "max-y: 20")));
+
+        assertTrue(this.engine.contains(WORLD, 1_000_000, 20.5, -1_000_000, RADIATION));
+        assertFalse(this.engine.contains(WORLD, 0, 9.5, 0, RADIATION));
+        assertFalse(this.engine.contains(WORLD, 0, 21, 0, RADIATION));
+        assertFalse(this.engine.contains("other", 0, 15, 0, RADIATION));
+        assertFalse(this.engine.contains(WORLD, 0, 15, 0, "other"));
+    }
+
+    @Test
+    void reloadRestartsOnlyChangedZones() throws InvalidConfigurationException {
+        assertTrue(this.engine.load(Arrays.asList(
+                zone("a", "shape: circle", "x: 0", "z: 0", "radius: 100", "duration: 100", "to: {radius: 0}"),
+                zone("b", "shape: circle", "x: 1000", "z: 0", "radius: 100", "duration: 100", "to: {radius: 0}"))));
+
+        this.advance(50); // both radii 50
+        assertFalse(this.engine.load(Arrays.asList(
+                zone("a", "shape: circle", "x: 0", "z: 0", "radius: 100", "duration: 100", "to: {radius: 0}"),
+                zone("b", "shape: circle", "x: 1000", "z: 0", "radius: 100", "duration: 100", "to: {radius: 0}"))));
+        assertTrue(this.engine.load(Arrays.asList(
+                zone("a", "shape: circle", "x: 0", "z: 0", "radius: 100", "duration: 100", "to: {radius: 0}"),
+                zone("b", "shape: circle", "x: 1000", "z: 0", "radius: 200", "duration: 100", "to: {radius: 0}"))));
+
+        assertFalse(this.contains(60, 0), "unchanged zone keeps its timeline");
+        assertTrue(this.contains(40, 0));
+        assertTrue(this.contains(1190, 0), "changed zone starts over");
+
+        this.advance(25);
+        assertFalse(this.contains(30, 0));
+        assertTrue(this.contains(1140, 0));
+    }
+
+    @Test
+    void ringInnerRadiusGreaterThanOuter() {
+        assertThrows(InvalidConfigurationException.class, () -> zone("ring",
+                "shape: ring", "inner-radius: 30", "outer-radius: 20"));
+        assertThrows(InvalidConfigurationException.class, () -> zone("ring",
+                "shape: ring", "inner-radius: 10", "outer-radius: 20", "to: {inner-radius: 15, outer-radius: 5}"));
+    }
+
+    private boolean contains(double x, double z) {
+        return this.engine.contains(WORLD, x, 64, z, RADIATION);
+    }
+
+    private void advance(long seconds) {
+        this.clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    private static ZoneEngine.Zone zone(String id, String... lines) throws InvalidConfigurationException {
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.loadFromString(id + ":\n  world: " + WORLD + "\n  " + String.join("\n  ", lines));
+        return new ZoneEngine.Zone(yaml.getConfigurationSection(id));
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.worldedit.math.BlockVector2;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static pl.craftserve.radiation.RegionIndexTest.MAX_Y;
+import static pl.craftserve.radiation.RegionIndexTest.MIN_Y;
+import static pl.craftserve.radiation.RegionIndexTest.WORLD;
+
+class ZoneImporterTest {
+    private static final Map<String, WorldBoundsRegistry.Bounds> WORLDS = ImmutableMap.of(WORLD, DistanceFieldTest.bounds());
+
+    private final ZoneImporter importer = new ZoneImporter();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void csvSquareAndPolygon() throws IOException, ZoneImporter.InvalidZoneException {
+        List<ZoneImporter.Entry> entries = this.read("zones.csv",
+                "id,world,x,z,radius,points,min-y,radiation,radiation-type",
+                "# comment",
+                "spawn,world,10,-20,32,,64,true,default",
+                "",
+                "market,world,,,,0:0 10:0 10:10 0:10,,,");
+        assertEquals(2, entries.size());
+
+        ZoneImporter.Zone spawn = this.importer.validate(entries.get(0), WORLDS);
+        assertEquals("spawn", spawn.id());
+        assertEquals(BlockVector2.at(10, -20), spawn.centre().orElse(null));
+        assertEquals(32, spawn.radius());
+        assertEquals(64, spawn.minY());
+        assertEquals(MAX_Y, spawn.maxY());
+        assertTrue(spawn.radioactive());
+        assertEquals("default", spawn.radiationType().orElse(null));
+
+        ZoneImporter.Zone market = this.importer.validate(entries.get(1), WORLDS);
+        assertEquals(4, market.points().map(List::size).orElse(0));
+        assertEquals(MIN_Y, market.minY());
+        assertFalse(market.radioactive());
+        assertFalse(market.radiationType().isPresent());
+    }
+
+    @Test
+    void csvQuotedFields() {
+        assertEquals(Arrays.asList("a", "b,c", "d\"e", ""), ZoneImporter.splitCsv("a,\"b,c\",\"d\"\"e\","));
+        assertEquals(Arrays.asList("", ""), ZoneImporter.splitCsv(","));
+        assertNull(ZoneImporter.splitCsv("a,\"b"));
+    }
+
+    @Test
+    void csvUnterminatedQuote() throws IOException {
+        List<ZoneImporter.Entry> entries = this.read("zones.csv",
+                "id,world,x,z,radius",
+                "spawn,\"world,0,0,16");
+
+        ZoneImporter.InvalidZoneException e = assertThrows(ZoneImporter.InvalidZoneException.class,
+                () -> this.importer.validate(entries.get(0), WORLDS));
+        assertEquals("line 2: unterminated quote", e.getMessage());
+    }
+
+    @Test
+    void jsonPoints() throws IOException, ZoneImporter.InvalidZoneException {
+        List<ZoneImporter.Entry> entries = this.read("zones.json",
+                "[{\"id\": \"arrays\", \"world\": \"world\", \"points\": [[0, 0], [16, 0], [16, 16]], \"radiation\": false},",
+                " {\"id\": \"objects\", \"world\": \"world\", \"points\": [{\"x\": 0, \"z\": 0}, {\"x\": 16, \"z\": 0}, {\"x\": 0, \"z\": 16}]}]");
+
+        ZoneImporter.Zone arrays = this.importer.validate(entries.get(0), WORLDS);
+        assertEquals(Arrays.asList(BlockVector2.at(0, 0), BlockVector2.at(16, 0), BlockVector2.at(16, 16)), arrays.points().orElse(null));
+
+        ZoneImporter.Zone objects = this.importer.validate(entries.get(1), WORLDS);
+        assertEquals(Arrays.asList(BlockVector2.at(0, 0), BlockVector2.at(16, 0), BlockVector2.at(0, 16)), objects.points().orElse(null));
+    }
+
+    @Test
+    void jsonMalformedEntries() throws IOException {
+        List<ZoneImporter.Entry> entries = this.read("zones.json",
+                "[{\"id\": \"nested\", \"world\": \"world\", \"x\": 0, \"z\": 0, \"radius\": {\"value\": 16}},",
+                " {\"id\": \"point\", \"world\": \"world\", \"points\": [[0, [0]], [16, 0], [16, 16]]},",
+                " {\"id\": \"missing\", \"world\": \"world\", \"points\": [{\"x\": 0}, {\"x\": 16, \"z\": 0}, {\"x\": 0, \"z\": 16}]},",
+                " 42]");
+        assertEquals(4, entries.size());
+
+        assertInvalid(entries.get(0), "entry 1: radius must be a string, number, boolean or an array of points");
+        assertInvalid(entries.get(1), "entry 2: points must contain [x, z] or {\"x\": x, \"z\": z} points");
+        assertInvalid(entries.get(2), "entry 3: invalid point 0:?, expected x:z");
+        assertInvalid(entries.get(3), "entry 4: expected a JSON object");
+    }
+
+    @Test
+    void invalidValues() {
+        assertInvalid(entry("id", "spawn", "world", "world", "x", "0", "z", "0", "radius", "16", "radiation", "yes"),
+                "test: radiation must be true or false, but yes was provided");
+        assertInvalid(entry("id", "spawn", "world", "nether", "x", "0", "z", "0", "radius", "16"),
+                "test: world nether is not loaded");
+        assertInvalid(entry("id", "spawn", "world", "world", "x", "0", "z", "0", "radius", "0"),
+                "test: radius must be positive");
+        assertInvalid(entry("id", "spawn", "world", "world", "x", "0", "radius", "16"),
+                "test: missing z");
+        assertInvalid(entry("id", "spawn", "world", "world", "x", "0", "z", "0", "radius", "16", "min-y", "10", "max-y", "5"),
+                "test: min-y is greater than max-y");
+        assertInvalid(entry("id", "spawn", "world", "world", "points", "0:0 1:1"),
+                "test: polygon must have at least 3 points");
+    }
+
+    private void assertInvalid(ZoneImporter.Entry entry, String message) {
+        ZoneImporter.InvalidZoneException e = assertThrows(ZoneImporter.InvalidZoneException.class,
+                () -> this.importer.validate(entry, WORLDS));
+        assertEquals(message, e.getMessage());
+    }
+
+    private List<ZoneImporter.Entry> read(String fileName, String... lines) throws IOException {
+        Path path = this.directory.resolve(fileName);
+        Files.write(path, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return this.importer.read(path);
+    }
+
+    private static ZoneImporter.Entry entry(String... keysAndValues) {
+        ImmutableMap.Builder<String, String> values = ImmutableMap.builder();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            values.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return new ZoneImporter.Entry("test", values.build());
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation.nms;
+
+import org.bukkit.World;
+import org.junit.jupiter.api.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Every handle resolved by the bridges must have exactly the type of its
+ * {@link MethodHandle#invokeExact(Object...)} call site, otherwise the call
+ * fails with {@link java.lang.invoke.WrongMethodTypeException} at runtime.
+ * Stubs below mirror the shapes of the NMS members.
+ */
+class NmsHandlesTest {
+    private static final MethodType OBJECT_TO_OBJECT = MethodType.methodType(Object.class, Object.class);
+
+    @Test
+    void staticFactory() throws Throwable {
+        // MinecraftKey#a(String), CraftMagicNumbers#getItem(Material)
+        MethodHandle handle = NmsHandles.method(StubKey.class.getMethod("a", String.class));
+        assertEquals(OBJECT_TO_OBJECT, handle.type());
+
+        Object name = "thick";
+        Object key = (Object) handle.invokeExact(name);
+        assertEquals("thick", ((StubKey) key).name);
+    }
+
+    @Test
+    void instanceGetter() throws Throwable {
+        // RegistryMaterials#get(MinecraftKey)
+        MethodHandle handle = NmsHandles.method(StubRegistry.class.getMethod("get", StubKey.class));
+        assertEquals(MethodType.methodType(Object.class, Object.class, Object.class), handle.type());
+
+        StubRegistry registry = new StubRegistry();
+        Object registryObject = registry;
+        Object value = (Object) handle.invokeExact(registryObject, (Object) StubKey.a("thick"));
+        assertSame(registry.value, value);
+    }
+
+    @Test
+    void constructor() throws Throwable {
+        // PotionRegistry(MobEffect[])
+        MethodHandle handle = NmsHandles.constructor(StubPotion.class.getConstructor(StubEffect[].class));
+        assertEquals(OBJECT_TO_OBJECT, handle.type());
+
+        Object effects = new StubEffect[0];
+        Object potion = (Object) handle.invokeExact(effects);
+        assertTrue(potion instanceof StubPotion);
+    }
+
+    @Test
+    void register() throws Throwable {
+        // IRegistry#a(IRegistry, String, Object)
+        MethodHandle handle = NmsHandles.method(StubRegistry.class.getDeclaredMethod("a", StubRegistry.class, String.class, Object.class));
+        assertEquals(MethodType.methodType(Object.class, Object.class, Object.class, Object.class), handle.type());
+
+        Object registry = new StubRegistry();
+        Object value = new Object();
+        assertSame(value, (Object) handle.invokeExact(registry, (Object) "key", value));
+    }
+
+    @Test
+    void voidMethod() throws Throwable {
+        // PotionBrewer#a(PotionRegistry, Item, PotionRegistry), called as a statement
+        MethodHandle handle = NmsHandles.method(StubBrewer.class.getDeclaredMethod("a", StubPotion.class, StubKey.class, StubPotion.class));
+        assertEquals(MethodType.methodType(void.class, Object.class, Object.class, Object.class), handle.type());
+
+        Object potion = new StubPotion(new StubEffect[0]);
+        Object ingredient = StubKey.a("ingredient");
+        handle.invokeExact(potion, ingredient, potion);
+        assertSame(ingredient, StubBrewer.lastIngredient);
+    }
+
+    @Test
+    void booleanSetter() throws Throwable {
+        // RegistryMaterials#frozen
+        MethodHandle handle = NmsHandles.setter(StubRegistry.class.getDeclaredField("frozen"));
+        assertEquals(MethodType.methodType(void.class, Object.class, boolean.class), handle.type());
+
+        StubRegistry registry = new StubRegistry();
+        Object registryObject = registry;
+        handle.invokeExact(registryObject, false);
+        assertFalse(registry.frozen);
+    }
+
+    @Test
+    void minHeight() throws Throwable {
+        // World#getMinHeight()
+        MethodHandle handle = NmsHandles.findMinHeight(StubWorld.class);
+        assertNotNull(handle);
+        assertEquals(MethodType.methodType(int.class, StubWorld.class), handle.type());
+        assertEquals(-64, (int) handle.invokeExact(new StubWorld()));
+
+        assertNull(NmsHandles.findMinHeight(StubEffect.class));
+    }
+
+    @Test
+    void minWorldHeight() {
+        // World#getMinHeight() only exists since 1.17
+        MethodHandle handle = NmsHandles.MIN_WORLD_HEIGHT;
+        assumeTrue(handle != null, "World#getMinHeight() is not available in this Bukkit API");
+        assertEquals(MethodType.methodType(int.class, World.class), handle.type());
+    }
+
+    public static class StubKey {
+        final String name;
+
+        private StubKey(String name) {
+            this.name = name;
+        }
+
+        public static StubKey a(String name) {
+            return new StubKey(name);
+        }
+    }
+
+    public static class StubEffect {
+    }
+
+    public static class StubPotion {
+        public StubPotion(StubEffect... effects) {
+        }
+    }
+
+    public static class StubRegistry {
+        final Object value = new Object();
+        private boolean frozen = true;
+
+        public Object get(StubKey key) {
+            return this.value;
+        }
+
+        private static Object a(StubRegistry registry, String key, Object value) {
+            return value;
+        }
+    }
+
+    public static class StubWorld {
+        public int getMinHeight() {
+            return -64;
+        }
+    }
+
+    public static class StubBrewer {
+        static Object lastIngredient;
+
+        private static void a(StubPotion base, StubKey ingredient, StubPotion result) {
+            lastIngredient = ingredient;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation.nms;
+
+import net.minecraft.server.v_stub.IRegistry;
+import net.minecraft.server.v_stub.Item;
+import net.minecraft.server.v_stub.PotionBrewer;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.potion.PotionType;
+import org.junit.jupiter.api.Test;
+import pl.craftserve.radiation.LugolsIodinePotion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Resolves the bridge against stub NMS classes in the {@code v_stub}
+ * package, and registers a potion through every handle.
+ */
+class V1_14ToV1_15NmsBridgeTest {
+    @Test
+    void registerLugolsIodinePotion() {
+        V1_14ToV1_15NmsBridge bridge = new V1_14ToV1_15NmsBridge("v_stub");
+
+        @SuppressWarnings("deprecation")
+        NamespacedKey key = new NamespacedKey("radiation", "lugols_iodine");
+        bridge.registerLugolsIodinePotion(key, new LugolsIodinePotion.Config.Recipe(true, Material.GHAST_TEAR, PotionType.THICK));
+
+        assertEquals(1, PotionBrewer.MIXES.size());
+        PotionBrewer.Mix mix = PotionBrewer.MIXES.get(0);
+
+        assertSame(IRegistry.POTION.get("thick"), mix.base);
+        assertEquals(Material.GHAST_TEAR, ((Item) mix.ingredient).material);
+        assertNotNull(mix.result);
+        assertSame(IRegistry.POTION.get("lugols_iodine"), mix.result);
+    }
+}
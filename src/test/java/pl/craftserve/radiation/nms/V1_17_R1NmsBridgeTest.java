@@ -0,0 +1,75 @@
+/*
+ * Copyright 2022 Aleksander Jagiełło <themolkapl@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.craftserve.radiation.nms;
+
+import net.minecraft.core.IRegistry;
+import net.minecraft.core.RegistryMaterials;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.alchemy.PotionBrewer;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.potion.PotionType;
+import org.junit.jupiter.api.Test;
+import pl.craftserve.radiation.LugolsIodinePotion;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Proxy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Resolves the bridge against stub NMS classes of the 1.17+ layout, and
+ * registers a potion through every handle.
+ */
+class V1_17_R1NmsBridgeTest {
+    private static final String VERSION = "v_stub_1_17";
+    private static final MethodHandle MIN_HEIGHT = MethodHandles.dropArguments(MethodHandles.constant(int.class, -64), 0, World.class);
+
+    @Test
+    void registerLugolsIodinePotion() {
+        RegistryMaterials registry = IRegistry.aa;
+        V1_17_R1NmsBridge bridge = new V1_17_R1NmsBridge(VERSION, MIN_HEIGHT);
+
+        @SuppressWarnings("deprecation")
+        NamespacedKey key = new NamespacedKey("radiation", "lugols_iodine");
+        bridge.registerLugolsIodinePotion(key, new LugolsIodinePotion.Config.Recipe(true, Material.GHAST_TEAR, PotionType.THICK));
+
+        Object potion = registry.get("lugols_iodine");
+        assertNotNull(potion);
+
+        PotionBrewer.Mix mix = PotionBrewer.MIXES.stream().filter(candidate -> candidate.result == potion).findFirst().orElse(null);
+        assertNotNull(mix);
+        assertSame(registry.get("thick"), mix.base);
+        assertEquals(Material.GHAST_TEAR, ((Item) mix.ingredient).material);
+    }
+
+    @Test
+    void minWorldHeight() {
+        V1_17_R1NmsBridge bridge = new V1_17_R1NmsBridge(VERSION, MIN_HEIGHT);
+        World world = (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[] { World.class }, (proxy, method, args) -> {
+            throw new UnsupportedOperationException(method.getName());
+        });
+        assertEquals(-64, bridge.getMinWorldHeight(world));
+
+        assertThrows(RuntimeException.class, () -> new V1_17_R1NmsBridge(VERSION, null), "World#getMinHeight() is required");
+    }
+}